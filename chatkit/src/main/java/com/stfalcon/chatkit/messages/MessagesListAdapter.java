@@ -188,6 +188,48 @@ public class MessagesListAdapter<MESSAGE extends IMessage>
         trimEnd();
     }
 
+    /**
+     * Adds messages (in chronological order) to bottom of list at once and scroll if needed.
+     * Messages that don't fit into max items count are skipped.
+     *
+     * @param messages messages to add.
+     * @param scroll   {@code true} if need to scroll list to bottom when messages added.
+     */
+    public void addToStart(List<MESSAGE> messages, boolean scroll) {
+        if (messages == null || messages.isEmpty()) return;
+
+        if (isDateHeaderEnabled) {
+            for (MESSAGE message : messages) {
+                addToStart(message, false);
+            }
+            if (layoutManager != null && scroll) {
+                layoutManager.scrollToPosition(0);
+            }
+            return;
+        }
+
+        int fromIndex = maxItemsCount > 0 ? Math.max(0, messages.size() - maxItemsCount) : 0;
+        List<Wrapper> elements = new ArrayList<>();
+        for (int i = messages.size() - 1; i >= fromIndex; i--) {
+            MESSAGE message = messages.get(i);
+            if (IMessage.checkMessage(message)) {
+                elements.add(new Wrapper<>(message));
+            }
+        }
+
+        if (elements.isEmpty()) return;
+
+        removeLoadingMessageIfNeeded();
+
+        items.addAll(0, elements);
+        notifyItemRangeInserted(0, elements.size());
+        if (layoutManager != null && scroll) {
+            layoutManager.scrollToPosition(0);
+        }
+
+        trimEnd();
+    }
+
     /**
      * Adds messages list in chronological order. Use this method to add history.
      *
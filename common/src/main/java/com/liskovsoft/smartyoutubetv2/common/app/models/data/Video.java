@@ -92,6 +92,7 @@ public final class Video {
     public String subscriberCount;
     public float volume = 1.0f;
     public boolean deArrowProcessed;
+    public boolean unlocalizedTitleProcessed;
     public boolean isLiveEnd;
     public boolean forceSectionPlaylist;
     public boolean isShuffled;
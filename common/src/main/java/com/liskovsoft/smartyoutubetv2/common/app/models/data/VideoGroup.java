@@ -184,6 +184,13 @@ public class VideoGroup {
         return mMediaGroup;
     }
 
+    /**
+     * Used to continue the cached group with the fresh continuation data.
+     */
+    public void setMediaGroup(MediaGroup mediaGroup) {
+        mMediaGroup = mediaGroup;
+    }
+
     public BrowseSection getSection() {
         return mSection;
     }
@@ -245,6 +252,26 @@ public class VideoGroup {
         return videoGroup;
     }
 
+    /**
+     * Copy that could be rendered once more (e.g. from the section cache).<br/>
+     * Videos are shared with the origin but re-attached to the new group.
+     */
+    public VideoGroup copyWithVideos() {
+        VideoGroup videoGroup = copy();
+        videoGroup.mSection = mSection;
+        videoGroup.mMediaGroup = mMediaGroup;
+        videoGroup.mType = mType;
+        videoGroup.mVideos = new ArrayList<>();
+
+        if (mVideos != null) {
+            for (Video video : new ArrayList<>(mVideos)) {
+                videoGroup.add(video);
+            }
+        }
+
+        return videoGroup;
+    }
+
     /**
      * Getting topmost element. Could help when syncing multi rows fragments.
      */
@@ -17,6 +17,7 @@ import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerData;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,7 +27,7 @@ public class ChatController extends BasePlayerController {
     /**
      * NOTE: Don't remove duplicates! They contain different chars.
      */
-    private static final String[] BLACK_LIST = {". XYZ", ". ХYZ", "⠄XYZ", "⠄ХYZ", "Ricardo Merlino", "⠄СОM", ".COM", ".СОM", ". COM"};
+    private static final String[] BLACK_LIST = toLowerCase(". XYZ", ". ХYZ", "⠄XYZ", "⠄ХYZ", "Ricardo Merlino", "⠄СОM", ".COM", ".СОM", ". COM");
     private LiveChatService mChatService;
     private Disposable mChatAction;
     private String mLiveChatKey;
@@ -59,14 +60,12 @@ public class ChatController extends BasePlayerController {
         ChatReceiver chatReceiver = new ChatReceiverImpl();
         getPlayer().setChatReceiver(chatReceiver);
 
+        // The receiver batches items and passes them to the ui thread by itself
         mChatAction = mChatService.openLiveChatObserve(mLiveChatKey)
+                .observeOn(Schedulers.computation())
+                .filter(this::checkItem)
                 .subscribe(
-                        chatItem -> {
-                            Log.d(TAG, chatItem.getMessage());
-                            if (checkItem(chatItem)) {
-                                chatReceiver.addChatItem(chatItem);
-                            }
-                        },
+                        chatReceiver::addChatItem,
                         error -> {
                             Log.e(TAG, error.getMessage());
                             error.printStackTrace();
@@ -144,10 +143,10 @@ public class ChatController extends BasePlayerController {
             return false;
         }
 
-        String authorName = chatItem.getAuthorName();
+        String authorName = chatItem.getAuthorName().toLowerCase();
 
         for (String spammer : BLACK_LIST) {
-            if (authorName.toLowerCase().contains(spammer.toLowerCase())) {
+            if (authorName.contains(spammer)) {
                 return false;
             }
         }
@@ -155,6 +154,16 @@ public class ChatController extends BasePlayerController {
         return true;
     }
 
+    private static String[] toLowerCase(String... items) {
+        String[] result = new String[items.length];
+
+        for (int i = 0; i < items.length; i++) {
+            result[i] = items[i].toLowerCase();
+        }
+
+        return result;
+    }
+
     private void enableLiveChat(boolean enabled) {
         if (enabled) {
             openLiveChat();
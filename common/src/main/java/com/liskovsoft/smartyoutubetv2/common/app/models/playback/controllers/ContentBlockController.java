@@ -5,7 +5,6 @@ import androidx.core.content.ContextCompat;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.mediaserviceinterfaces.data.MediaItemMetadata;
-import com.liskovsoft.mediaserviceinterfaces.data.SponsorSegment;
 import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.sharedutils.helpers.MessageHelpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
@@ -13,6 +12,8 @@ import com.liskovsoft.smartyoutubetv2.common.R;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.BasePlayerController;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.manager.PlayerUI;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.SponsorSegmentCache;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.SponsorSegmentCache.Segment;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.OptionItem;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.SeekBarSegment;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.UiOptionItem;
@@ -24,24 +25,40 @@ import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class ContentBlockController extends BasePlayerController {
     private static final String TAG = ContentBlockController.class.getSimpleName();
-    private static final long POLL_INTERVAL_MS = 1_000;
     private static final int CONTENT_BLOCK_ID = 144;
+    private static final long SEGMENTS_TIMEOUT_MS = 10_000;
+    // NOTE: SponsorBlock (when happened java.net.SocketTimeoutException) could block whole application with Schedulers.io()
+    // Because Schedulers.io() reuses blocked threads in RxJava 2: https://github.com/ReactiveX/RxJava/issues/6542
+    // The own thread. Hanged request delays only the next SponsorBlock request.
+    private static final Scheduler SEGMENTS_SCHEDULER = Schedulers.from(Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "SponsorBlock")));
     private MediaItemService mMediaItemService;
-    private List<SponsorSegment> mOriginalSegments;
-    private List<SponsorSegment> mActiveSegments;
+    // Sorted by the start position
+    private List<Segment> mOriginalSegments;
+    private List<Segment> mActiveSegments;
+    private final Map<String, Integer> mSegmentActions = new HashMap<>();
     private long mLastSkipPosMs;
     private boolean mSkipExclude;
     private Disposable mSegmentsAction;
-    private Observable<List<SponsorSegment>> mCachedSegmentsAction;
+    private Observable<List<Segment>> mCachedSegmentsAction;
     private String mVideoId;
+    private final Runnable mSegmentCheck = this::checkSegments;
 
     public static class SegmentAction {
         public String segmentCategory;
@@ -126,14 +143,39 @@ public class ContentBlockController extends BasePlayerController {
         disposeActions();
     }
 
+    @Override
+    public void onPlay() {
+        scheduleSegmentCheck();
+    }
+
+    @Override
+    public void onPause() {
+        Utils.removeCallbacks(mSegmentCheck);
+    }
+
+    @Override
+    public void onSeekEnd() {
+        scheduleSegmentCheck();
+    }
+
+    @Override
+    public void onSpeedChanged(float speed) {
+        scheduleSegmentCheck();
+    }
+
+    @Override
+    public void onPlayEnd() {
+        Utils.removeCallbacks(mSegmentCheck);
+    }
+
     @Override
     public void onButtonClicked(int buttonId, int buttonState) {
         if (buttonId == R.id.action_content_block) {
-            List<SponsorSegment> foundSegments = findMatchedSegments(getPlayer().getPositionMs(), mOriginalSegments, true);
+            List<Segment> foundSegments = findMatchedSegments(getPlayer().getPositionMs(), mOriginalSegments, true);
 
             if (foundSegments != null) {
-                SponsorSegment lastSegment = foundSegments.get(foundSegments.size() - 1);
-                setPositionMs(lastSegment.getEndMs());
+                Segment lastSegment = foundSegments.get(foundSegments.size() - 1);
+                setPositionMs(lastSegment.endMs);
                 return;
             }
         }
@@ -163,45 +205,122 @@ public class ContentBlockController extends BasePlayerController {
         }
 
         if (!Helpers.equals(mVideoId, item.videoId) || mCachedSegmentsAction == null) {
-            // NOTE: SponsorBlock (when happened java.net.SocketTimeoutException) could block whole application with Schedulers.io()
-            // Because Schedulers.io() reuses blocked threads in RxJava 2: https://github.com/ReactiveX/RxJava/issues/6542
-            mCachedSegmentsAction = mMediaItemService.getSponsorSegmentsObserve(item.videoId, getContentBlockData().getEnabledCategories())
+            String videoId = item.videoId;
+            Set<String> categories = getContentBlockData().getEnabledCategories();
+            SponsorSegmentCache segmentCache = SponsorSegmentCache.instance(getContext());
+
+            Observable<List<Segment>> networkSegments = mMediaItemService.getSponsorSegmentsObserve(videoId, categories)
+                    .timeout(SEGMENTS_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .map(segments -> {
+                        List<Segment> result = Segment.from(segments);
+                        segmentCache.put(videoId, categories, result);
+                        return result;
+                    });
+
+            // Replays and queue items don't hit the network again
+            mCachedSegmentsAction = Observable.defer(() -> {
+                        List<Segment> cachedSegments = segmentCache.get(videoId, categories);
+                        return cachedSegments != null ? Observable.just(cachedSegments) : networkSegments;
+                    })
+                    .subscribeOn(SEGMENTS_SCHEDULER)
+                    .observeOn(AndroidSchedulers.mainThread())
                     .cache();
-            mVideoId = item.videoId;
+            mVideoId = videoId;
         }
 
         mSegmentsAction = mCachedSegmentsAction
-                .flatMap(this::startSponsorWatcher)
                 .subscribe(
-                        this::skipSegment,
+                        this::startSponsorWatcher,
                         error -> Log.d(TAG, "It's ok. Nothing to block in this video. Error msg: %s", error.getMessage())
                 );
     }
 
-    private Observable<Long> startSponsorWatcher(List<SponsorSegment> segments) {
+    private void startSponsorWatcher(List<Segment> segments) {
         if (segments == null || segments.isEmpty()) {
             mActiveSegments = mOriginalSegments = null;
-            return Observable.empty();
+            return;
         }
 
-        mOriginalSegments = segments;
+        mOriginalSegments = new ArrayList<>(segments);
+        Collections.sort(mOriginalSegments, (o1, o2) -> Long.compare(o1.startMs, o2.startMs));
 
-        mActiveSegments = new ArrayList<>(segments);
+        mActiveSegments = new ArrayList<>(mOriginalSegments);
+
+        // Avoid list lookups on each check
+        mSegmentActions.clear();
+        for (Segment segment : mOriginalSegments) {
+            mSegmentActions.put(segment.category, getContentBlockData().getAction(segment.category));
+        }
 
         if (getContentBlockData().isColorMarkersEnabled()) {
-            getPlayer().setSeekBarSegments(toSeekBarSegments(segments));
+            getPlayer().setSeekBarSegments(toSeekBarSegments(mOriginalSegments));
         }
         if (getContentBlockData().isActionsEnabled()) {
-            // Warn. Try to not access player object here.
-            // Or you'll get "Player is accessed on the wrong thread" error.
-            return RxHelper.interval(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            scheduleSegmentCheck();
+        }
+    }
+
+    /**
+     * Arm a single timer at the start of the next segment.<br/>
+     * Re-armed on play, seek and speed change. No polling in between.
+     */
+    private void scheduleSegmentCheck() {
+        Utils.removeCallbacks(mSegmentCheck);
+
+        if (mActiveSegments == null || mActiveSegments.isEmpty() || getPlayer() == null || !getPlayer().isPlaying() ||
+                !getContentBlockData().isActionsEnabled()) {
+            return;
+        }
+
+        long positionMs = getPlayer().getPositionMs();
+
+        List<Segment> foundSegments = findMatchedSegments(positionMs, mActiveSegments, false);
+
+        if (foundSegments != null) {
+            if (foundSegments.get(foundSegments.size() - 1).endMs != mLastSkipPosMs) {
+                Utils.post(mSegmentCheck); // we're inside the segment already
+                return;
+            }
         } else {
-            return Observable.empty();
+            mLastSkipPosMs = 0;
+        }
+
+        long nextStartMs = findNextStartMs(positionMs);
+
+        if (nextStartMs == -1) {
+            return;
         }
+
+        float speed = getPlayer().getSpeed();
+        Utils.postDelayed(mSegmentCheck, (long) ((nextStartMs - positionMs) / (speed > 0 ? speed : 1.0f)));
+    }
+
+    /**
+     * Binary search over the active segments
+     */
+    private long findNextStartMs(long positionMs) {
+        int low = 0;
+        int high = mActiveSegments.size() - 1;
+        long result = -1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long startMs = mActiveSegments.get(mid).startMs;
+
+            if (startMs > positionMs) {
+                result = startMs;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return result;
     }
 
     private void disposeActions() {
         RxHelper.disposeActions(mSegmentsAction);
+        Utils.removeCallbacks(mSegmentCheck);
 
         // Note, removes all segments at once
         //getPlayer().setSeekBarSegments(null); // reset colors
@@ -210,20 +329,21 @@ public class ContentBlockController extends BasePlayerController {
         mLastSkipPosMs = 0;
     }
 
-    private void skipSegment(long interval) {
+    private void checkSegments() {
         if (mActiveSegments == null || mActiveSegments.isEmpty() || getVideo() == null || !Helpers.equals(mVideoId, getVideo().videoId)) {
             disposeActions();
             return;
         }
 
         // Fix looping messages at the end of the video (playback mode: pause at the end of the video)
+        // The check will be re-armed on play
         if (!getPlayer().isPlaying()) {
             return;
         }
 
         long positionMs = getPlayer().getPositionMs();
 
-        List<SponsorSegment> foundSegments = findMatchedSegments(positionMs, mActiveSegments, false);
+        List<Segment> foundSegments = findMatchedSegments(positionMs, mActiveSegments, false);
 
         applyActions(foundSegments);
 
@@ -231,18 +351,20 @@ public class ContentBlockController extends BasePlayerController {
         if (foundSegments != null && getContentBlockData().isDontSkipSegmentAgainEnabled()) {
             mActiveSegments.removeAll(foundSegments);
         }
+
+        scheduleSegmentCheck();
     }
 
-    private boolean isPositionInsideSegment(long positionMs, SponsorSegment segment, boolean fullMatch) {
+    private boolean isPositionInsideSegment(long positionMs, Segment segment, boolean fullMatch) {
         // NOTE: in case of using Player.setSeekParameters (inaccurate seeking) increase sponsor segment window
         // int seekShift = 1_000;
         // return positionMs >= (segment.getStartMs() - seekShift) && positionMs <= (segment.getEndMs() + seekShift);
 
         if (fullMatch) {
-            return positionMs >= segment.getStartMs() && positionMs <= segment.getEndMs();
+            return positionMs >= segment.startMs && positionMs <= segment.endMs;
         } else {
             long windowSizeMs = (long) (2_000 * getPlayer().getSpeed());
-            return positionMs >= segment.getStartMs() && positionMs <= Math.min(segment.getStartMs() + windowSizeMs, segment.getEndMs());
+            return positionMs >= segment.startMs && positionMs <= Math.min(segment.startMs + windowSizeMs, segment.endMs);
         }
     }
 
@@ -299,24 +421,24 @@ public class ContentBlockController extends BasePlayerController {
         dialogPresenter.showDialog(getContext().getString(R.string.content_block_provider));
     }
 
-    private List<SeekBarSegment> toSeekBarSegments(List<SponsorSegment> segments) {
+    private List<SeekBarSegment> toSeekBarSegments(List<Segment> segments) {
         if (segments == null) {
             return null;
         }
 
         List<SeekBarSegment> result = new ArrayList<>();
 
-        for (SponsorSegment sponsorSegment : segments) {
-            if (!getContentBlockData().isColorMarkerEnabled(sponsorSegment.getCategory())) {
+        for (Segment sponsorSegment : segments) {
+            if (!getContentBlockData().isColorMarkerEnabled(sponsorSegment.category)) {
                 continue;
             }
 
             SeekBarSegment seekBarSegment = new SeekBarSegment();
-            float startRatio = (float) sponsorSegment.getStartMs() / getPlayer().getDurationMs(); // Range: [0, 1]
-            float endRatio = (float) sponsorSegment.getEndMs() / getPlayer().getDurationMs(); // Range: [0, 1]
+            float startRatio = (float) sponsorSegment.startMs / getPlayer().getDurationMs(); // Range: [0, 1]
+            float endRatio = (float) sponsorSegment.endMs / getPlayer().getDurationMs(); // Range: [0, 1]
             seekBarSegment.startProgress = startRatio;
             seekBarSegment.endProgress = endRatio;
-            seekBarSegment.color = ContextCompat.getColor(getContext(), getContentBlockData().getColorRes(sponsorSegment.getCategory()));
+            seekBarSegment.color = ContextCompat.getColor(getContext(), getContentBlockData().getColorRes(sponsorSegment.category));
             result.add(seekBarSegment);
         }
 
@@ -336,15 +458,15 @@ public class ContentBlockController extends BasePlayerController {
     /**
      * @param fullMatch Match only the beginning or the full segment length
      */
-    private List<SponsorSegment> findMatchedSegments(long positionMs, List<SponsorSegment> segments, boolean fullMatch) {
+    private List<Segment> findMatchedSegments(long positionMs, List<Segment> segments, boolean fullMatch) {
         if (segments == null) {
             return null;
         }
 
-        List<SponsorSegment> foundSegment = null;
+        List<Segment> foundSegment = null;
 
-        for (SponsorSegment segment : segments) {
-            int action = getContentBlockData().getAction(segment.getCategory());
+        for (Segment segment : segments) {
+            int action = getSegmentAction(segment.category);
             boolean isSkipAction = action == ContentBlockData.ACTION_SKIP_ONLY ||
                     action == ContentBlockData.ACTION_SKIP_WITH_TOAST;
             if (foundSegment == null) {
@@ -358,8 +480,8 @@ public class ContentBlockController extends BasePlayerController {
                     }
                 }
             } else {
-                SponsorSegment lastSegment = foundSegment.get(foundSegment.size() - 1);
-                if (isSkipAction && isPositionInsideSegment(lastSegment.getEndMs() + 3_000, segment, fullMatch)) {
+                Segment lastSegment = foundSegment.get(foundSegment.size() - 1);
+                if (isSkipAction && isPositionInsideSegment(lastSegment.endMs + 3_000, segment, fullMatch)) {
                     foundSegment.add(segment);
                 }
             }
@@ -368,20 +490,25 @@ public class ContentBlockController extends BasePlayerController {
         return foundSegment;
     }
 
-    private void applyActions(List<SponsorSegment> foundSegments) {
+    private int getSegmentAction(String category) {
+        Integer action = mSegmentActions.get(category);
+        return action != null ? action : getContentBlockData().getAction(category);
+    }
+
+    private void applyActions(List<Segment> foundSegments) {
         if (foundSegments == null) {
             mLastSkipPosMs = 0;
             return;
         }
 
-        SponsorSegment lastSegment = foundSegments.get(foundSegments.size() - 1);
+        Segment lastSegment = foundSegments.get(foundSegments.size() - 1);
 
-        Integer resId = getContentBlockData().getLocalizedRes(lastSegment.getCategory());
-        String skipMessage = resId != null ? getContext().getString(resId) : lastSegment.getCategory();
+        Integer resId = getContentBlockData().getLocalizedRes(lastSegment.category);
+        String skipMessage = resId != null ? getContext().getString(resId) : lastSegment.category;
 
-        int type = getContentBlockData().getAction(lastSegment.getCategory());
+        int type = getSegmentAction(lastSegment.category);
 
-        long skipPosMs = lastSegment.getEndMs();
+        long skipPosMs = lastSegment.endMs;
         // Fix infinite skip loop by ignoring short segments. TextureView has a seek bug.
         long skipDurationMs = Math.min(skipPosMs, getPlayer().getDurationMs()) - getPlayer().getPositionMs();
         boolean stayQuiet = skipDurationMs < 10_000 && PlayerTweaksData.instance(getContext()).isTextureViewEnabled();
@@ -1,8 +1,10 @@
 package com.liskovsoft.smartyoutubetv2.common.app.models.playback.controllers;
 
 import android.annotation.SuppressLint;
+import android.os.SystemClock;
 import android.util.Pair;
 
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.mediaserviceinterfaces.data.MediaFormat;
@@ -20,8 +22,12 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.BasePlayerController;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.listener.PlayerEventListener;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.manager.PlayerConstants;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.PreviewFormatInfoCache;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.AppDialogPresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.dialogs.VideoActionPresenter;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.DashManifestBuilder;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.cache.DashPrefetcher;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerIoScheduler;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
 import com.liskovsoft.smartyoutubetv2.common.misc.MediaServiceManager;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerData;
@@ -30,10 +36,17 @@ import com.liskovsoft.smartyoutubetv2.common.utils.AppDialogUtil;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 
+import io.reactivex.Completable;
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class VideoLoaderController extends BasePlayerController {
     private static final String TAG = VideoLoaderController.class.getSimpleName();
@@ -41,6 +54,8 @@ public class VideoLoaderController extends BasePlayerController {
     private static final long BUFFERING_THRESHOLD_MS = 5_000;
     private static final long BUFFERING_WINDOW_MS = 60_000;
     private static final long BUFFERING_RECURRENCE_COUNT = (long) (BUFFERING_WINDOW_MS * 0.5 / BUFFERING_THRESHOLD_MS);
+    private static final long PREFETCH_THRESHOLD_MS = 50_000;
+    private static final long PREFETCH_MAX_AGE_MS = 10 * 60 * 1_000;
     private final Playlist mPlaylist;
     private Video mPendingVideo;
     private int mLastErrorType = -1;
@@ -48,6 +63,15 @@ public class VideoLoaderController extends BasePlayerController {
     private long mSleepTimerStartMs;
     private Disposable mFormatInfoAction;
     private Disposable mMpdStreamAction;
+    private Disposable mPrefetchAction;
+    private Disposable mPrefetchSegmentsAction;
+    private AtomicBoolean mPrefetchCanceled;
+    private DashPrefetcher mDashPrefetcher;
+    // Next video data loaded ahead of the playback end
+    private String mPrefetchVideoId;
+    private MediaItemFormatInfo mPrefetchFormatInfo;
+    private byte[] mPrefetchManifest;
+    private long mPrefetchTimeMs;
     private final Runnable mReloadVideo = () -> {
         getController(VideoStateController.class).saveState();
         loadVideo(getVideo());
@@ -150,6 +174,12 @@ public class VideoLoaderController extends BasePlayerController {
     @Override
     public void onEngineReleased() {
         disposeActions();
+        cancelPrefetch();
+    }
+
+    @Override
+    public void onTickle() {
+        preloadNextVideoIfNeeded();
     }
 
     @Override
@@ -314,6 +344,15 @@ public class VideoLoaderController extends BasePlayerController {
         getPlayer().showProgressBar(true);
         disposeActions();
 
+        MediaItemFormatInfo prefetchedInfo = isEmbedPlayer() ?
+                PreviewFormatInfoCache.instance().take(video) : takePrefetchedFormatInfo(video);
+
+        if (prefetchedInfo != null) {
+            Log.d(TAG, "Using prefetched format info for %s", video.videoId);
+            processFormatInfo(prefetchedInfo);
+            return;
+        }
+
         ServiceManager service = YouTubeServiceManager.instance();
         MediaItemService mediaItemManager = service.getMediaItemService();
         mFormatInfoAction = mediaItemManager.getFormatInfoObserve(video.videoId)
@@ -364,17 +403,32 @@ public class VideoLoaderController extends BasePlayerController {
         } else if (acceptDashVideo(formatInfo)) {
             Log.d(TAG, "Found regular video in dash format. Loading...");
 
-            mMpdStreamAction = formatInfo.createMpdStreamObservable()
-                    .subscribe(
-                            dashManifest -> {
-                                if (getPlayerTweaksData().isHighBitrateFormatsEnabled() && formatInfo.hasExtendedHlsFormats()) {
-                                    getPlayer().openMerged(dashManifest, formatInfo.getHlsManifestUrl());
-                                } else {
-                                    getPlayer().openDash(dashManifest);
-                                }
-                            },
-                            error -> Log.e(TAG, "createMpdStream error: %s", error.getMessage())
-                    );
+            byte[] prefetchedManifest = takePrefetchedManifest(formatInfo);
+            boolean isMerged = getPlayerTweaksData().isHighBitrateFormatsEnabled() && formatInfo.hasExtendedHlsFormats();
+            // Skip mpd serialization and parsing. Unsupported videos (e.g. otf) use the mpd.
+            DashManifest dashManifest = DashManifestBuilder.build(formatInfo);
+
+            if (dashManifest != null) {
+                openDash(dashManifest, isMerged ? formatInfo.getHlsManifestUrl() : null);
+            } else {
+                Observable<InputStream> mpdStream = prefetchedManifest != null ?
+                        Observable.just(new ByteArrayInputStream(prefetchedManifest)) : formatInfo.createMpdStreamObservable();
+                long startMs = SystemClock.elapsedRealtime();
+
+                mMpdStreamAction = mpdStream
+                        .subscribe(
+                                mpdManifest -> {
+                                    Log.d(TAG, "Mpd manifest created, took %s ms", SystemClock.elapsedRealtime() - startMs);
+
+                                    if (isMerged) {
+                                        getPlayer().openMerged(mpdManifest, formatInfo.getHlsManifestUrl());
+                                    } else {
+                                        getPlayer().openDash(mpdManifest);
+                                    }
+                                },
+                                error -> Log.e(TAG, "createMpdStream error: %s", error.getMessage())
+                        );
+            }
         } else if (acceptDashLive(formatInfo)) {
             Log.d(TAG, "Found live video (current or past live stream) in dash format. Loading...");
             getPlayer().openDashUrl(formatInfo.getDashManifestUrl());
@@ -954,6 +1008,14 @@ public class VideoLoaderController extends BasePlayerController {
         return playbackMode;
     }
 
+    private void openDash(DashManifest dashManifest, String hlsManifestUrl) {
+        if (hlsManifestUrl != null) {
+            getPlayer().openMerged(dashManifest, hlsManifestUrl);
+        } else {
+            getPlayer().openDash(dashManifest);
+        }
+    }
+
     /**
      * Fix stretched video for a couple milliseconds (before the onVideoSizeChanged gets called)
      */
@@ -970,13 +1032,134 @@ public class VideoLoaderController extends BasePlayerController {
         }
     }
 
+    /**
+     * Load format info, manifest and the first segments of the next video before the current one ends.<br/>
+     * Makes autoplay switch almost instant.
+     */
     private void preloadNextVideoIfNeeded() {
         if (isEmbedPlayer() || getPlayer() == null || getVideo() == null || getVideo().isLive) {
             return;
         }
 
-        if (getPlayer().getDurationMs() - getPlayer().getPositionMs() < 50_000) {
-            MediaServiceManager.instance().loadFormatInfo(mSuggestionsController.getNext(), formatInfo -> {});
+        int playbackMode = getPlaybackMode();
+
+        if (playbackMode == PlayerConstants.PLAYBACK_MODE_ONE || playbackMode == PlayerConstants.PLAYBACK_MODE_PAUSE) {
+            return;
+        }
+
+        long durationMs = getPlayer().getDurationMs();
+
+        if (durationMs <= 0 || durationMs - getPlayer().getPositionMs() > PREFETCH_THRESHOLD_MS) {
+            return;
+        }
+
+        Video next = mSuggestionsController.getNext();
+
+        // Already prefetched or in progress
+        if (next == null || !next.hasVideo() || Helpers.equals(next.videoId, getVideo().videoId) || Helpers.equals(next.videoId, mPrefetchVideoId)) {
+            return;
         }
+
+        cancelPrefetch();
+
+        Log.d(TAG, "Prefetching next video %s", next.videoId);
+
+        String videoId = next.videoId;
+        mPrefetchVideoId = videoId;
+        mPrefetchAction = YouTubeServiceManager.instance().getMediaItemService().getFormatInfoObserve(videoId)
+                .subscribe(
+                        formatInfo -> onPrefetchFormatInfo(videoId, formatInfo),
+                        error -> Log.e(TAG, "Prefetch format info error: %s", error.getMessage())
+                );
+    }
+
+    private void onPrefetchFormatInfo(String videoId, MediaItemFormatInfo formatInfo) {
+        if (!Helpers.equals(videoId, mPrefetchVideoId) || formatInfo == null || formatInfo.isUnplayable() || !formatInfo.containsMedia()) {
+            return;
+        }
+
+        mPrefetchFormatInfo = formatInfo;
+        mPrefetchTimeMs = System.currentTimeMillis();
+
+        if (!acceptDashVideo(formatInfo) || formatInfo.isLive()) {
+            return;
+        }
+
+        DashManifest dashManifest = DashManifestBuilder.build(formatInfo);
+
+        // Same manifest is built again on open. No mpd is needed.
+        if (dashManifest != null) {
+            prefetchSegments(isCanceled -> mDashPrefetcher.prefetch(dashManifest, isCanceled));
+            return;
+        }
+
+        mPrefetchAction = formatInfo.createMpdStreamObservable()
+                .subscribe(
+                        dashManifest -> {
+                            if (!Helpers.equals(videoId, mPrefetchVideoId)) {
+                                return;
+                            }
+
+                            byte[] mpdManifest = DashPrefetcher.toBytes(dashManifest);
+                            mPrefetchManifest = mpdManifest;
+
+                            if (mpdManifest != null) {
+                                prefetchSegments(isCanceled -> mDashPrefetcher.prefetch(mpdManifest, isCanceled));
+                            }
+                        },
+                        error -> Log.e(TAG, "Prefetch mpd error: %s", error.getMessage())
+                );
+    }
+
+    private void prefetchSegments(Consumer<AtomicBoolean> prefetch) {
+        if (mDashPrefetcher == null) {
+            mDashPrefetcher = new DashPrefetcher(getContext());
+        }
+
+        AtomicBoolean isCanceled = new AtomicBoolean();
+        mPrefetchCanceled = isCanceled;
+        // Background pool. Never competes with the segments of the current video.
+        mPrefetchSegmentsAction = Completable.fromAction(() -> prefetch.accept(isCanceled))
+                .subscribeOn(Schedulers.from(PlayerIoScheduler.instance().getExecutor(PlayerIoScheduler.PRIORITY_PREFETCH)))
+                .subscribe(
+                        () -> {},
+                        error -> Log.e(TAG, "Prefetch segments error: %s", error.getMessage())
+                );
+    }
+
+    private MediaItemFormatInfo takePrefetchedFormatInfo(Video video) {
+        if (video == null || !Helpers.equals(video.videoId, mPrefetchVideoId) || mPrefetchFormatInfo == null ||
+                System.currentTimeMillis() - mPrefetchTimeMs > PREFETCH_MAX_AGE_MS) {
+            cancelPrefetch();
+            return null;
+        }
+
+        MediaItemFormatInfo formatInfo = mPrefetchFormatInfo;
+        mPrefetchFormatInfo = null;
+
+        return formatInfo;
+    }
+
+    private byte[] takePrefetchedManifest(MediaItemFormatInfo formatInfo) {
+        if (formatInfo.isLive() || !Helpers.equals(formatInfo.getVideoId(), mPrefetchVideoId)) {
+            return null;
+        }
+
+        byte[] manifest = mPrefetchManifest;
+        cancelPrefetch(); // the video is opened, stop loading its segments in background
+
+        return manifest;
+    }
+
+    private void cancelPrefetch() {
+        if (mPrefetchCanceled != null) {
+            mPrefetchCanceled.set(true);
+            mPrefetchCanceled = null;
+        }
+
+        RxHelper.disposeActions(mPrefetchAction, mPrefetchSegmentsAction);
+        mPrefetchVideoId = null;
+        mPrefetchFormatInfo = null;
+        mPrefetchManifest = null;
     }
 }
@@ -1,5 +1,6 @@
 package com.liskovsoft.smartyoutubetv2.common.app.models.playback.manager;
 
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
 
 import java.io.InputStream;
@@ -7,10 +8,12 @@ import java.util.List;
 
 public interface PlayerEngine extends PlayerConstants {
     void openDash(InputStream dashManifest);
+    void openDash(DashManifest dashManifest);
     void openDashUrl(String dashManifestUrl);
     void openHlsUrl(String hlsPlaylistUrl);
     void openUrlList(List<String> urlList);
     void openMerged(InputStream dashManifest, String hlsPlaylistUrl);
+    void openMerged(DashManifest dashManifest, String hlsPlaylistUrl);
     long getPositionMs();
     void setPositionMs(long positionMs);
     long getDurationMs();
@@ -0,0 +1,140 @@
+package com.liskovsoft.smartyoutubetv2.common.app.models.playback.service;
+
+import androidx.annotation.Nullable;
+import com.liskovsoft.mediaserviceinterfaces.data.MediaItemFormatInfo;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
+import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
+import io.reactivex.disposables.Disposable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format info of the recently focused cards and their neighbours.<br/>
+ * Card previews start without the network round trip. Moving back and forth over the row doesn't load the same info twice.
+ */
+public class PreviewFormatInfoCache {
+    private static final String TAG = PreviewFormatInfoCache.class.getSimpleName();
+    private static final int MAX_ENTRIES = 8;
+    // Focused card and both neighbours
+    private static final int MAX_RUNNING_ACTIONS = 3;
+    private static final long MAX_AGE_MS = 10 * 60 * 1_000;
+    private static PreviewFormatInfoCache sInstance;
+    private final Map<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // Oldest first
+    private final Map<String, Disposable> mActions = new LinkedHashMap<>();
+
+    private static class Entry {
+        final MediaItemFormatInfo formatInfo;
+        final long timestamp;
+
+        Entry(MediaItemFormatInfo formatInfo) {
+            this.formatInfo = formatInfo;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - timestamp > MAX_AGE_MS;
+        }
+    }
+
+    public static PreviewFormatInfoCache instance() {
+        if (sInstance == null) {
+            sInstance = new PreviewFormatInfoCache();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Focused card first, then the next and the previous card of the same group (next focus candidates).<br/>
+     * Main thread only
+     */
+    public void prefetchWithNeighbors(Video video) {
+        prefetch(video);
+
+        VideoGroup group = video != null ? video.getGroup() : null;
+        List<Video> videos = group != null ? group.getVideos() : null;
+
+        if (videos == null) {
+            return;
+        }
+
+        int index = videos.indexOf(video);
+
+        if (index == -1) {
+            return;
+        }
+
+        if (index + 1 < videos.size()) {
+            prefetch(videos.get(index + 1));
+        }
+
+        if (index - 1 >= 0) {
+            prefetch(videos.get(index - 1));
+        }
+    }
+
+    /**
+     * Main thread only
+     */
+    public void prefetch(Video video) {
+        if (video == null || !video.hasVideo() || video.isLive || video.isUpcoming) {
+            return;
+        }
+
+        String videoId = video.videoId;
+        Entry entry = mEntries.get(videoId);
+
+        if ((entry != null && !entry.isExpired()) || mActions.containsKey(videoId)) {
+            return;
+        }
+
+        if (mActions.size() >= MAX_RUNNING_ACTIONS) {
+            // The user scrolls fast. Keep only the latest cards.
+            cancel(mActions.keySet().iterator().next());
+        }
+
+        mActions.put(videoId, YouTubeServiceManager.instance().getMediaItemService().getFormatInfoObserve(videoId)
+                .subscribe(
+                        formatInfo -> {
+                            mActions.remove(videoId);
+                            if (formatInfo != null && !formatInfo.isUnplayable() && formatInfo.containsMedia()) {
+                                mEntries.put(videoId, new Entry(formatInfo));
+                            }
+                        },
+                        error -> {
+                            mActions.remove(videoId);
+                            Log.e(TAG, "Prefetch format info error: %s", error.getMessage());
+                        }
+                ));
+    }
+
+    /**
+     * The info is removed from the cache (stream urls are bound to the session).
+     */
+    @Nullable
+    public MediaItemFormatInfo take(Video video) {
+        if (video == null || video.videoId == null) {
+            return null;
+        }
+
+        Entry entry = mEntries.remove(video.videoId);
+
+        return entry != null && !entry.isExpired() && Helpers.equals(entry.formatInfo.getVideoId(), video.videoId) ? entry.formatInfo : null;
+    }
+
+    private void cancel(String videoId) {
+        RxHelper.disposeActions(mActions.remove(videoId));
+    }
+}
@@ -0,0 +1,215 @@
+package com.liskovsoft.smartyoutubetv2.common.app.models.playback.service;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.text.TextUtils;
+import androidx.annotation.Nullable;
+import com.liskovsoft.mediaserviceinterfaces.data.SponsorSegment;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * SponsorBlock responses per video id (memory + disk).<br/>
+ * Replays and queue items don't hit the network again.<br/>
+ * The entry is bound to the set of enabled categories.
+ */
+public class SponsorSegmentCache {
+    private static final String TAG = SponsorSegmentCache.class.getSimpleName();
+    private static final String CACHE_DIR = "sponsor_segments";
+    private static final String DELIM = "\t";
+    private static final int MAX_MEMORY_ENTRIES = 50;
+    private static final int MAX_DISK_ENTRIES = 500;
+    // New segments are submitted by users over time
+    private static final long MAX_AGE_MS = 24 * 60 * 60 * 1_000;
+    @SuppressLint("StaticFieldLeak")
+    private static SponsorSegmentCache sInstance;
+    private final Context mContext;
+    private final Map<String, Entry> mEntries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_MEMORY_ENTRIES;
+        }
+    });
+
+    /**
+     * Detached copy of the {@link SponsorSegment}
+     */
+    public static class Segment {
+        public final long startMs;
+        public final long endMs;
+        public final String category;
+
+        public Segment(long startMs, long endMs, String category) {
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.category = category;
+        }
+
+        public static List<Segment> from(List<SponsorSegment> segments) {
+            List<Segment> result = new ArrayList<>();
+
+            if (segments != null) {
+                for (SponsorSegment segment : segments) {
+                    result.add(new Segment(segment.getStartMs(), segment.getEndMs(), segment.getCategory()));
+                }
+            }
+
+            return result;
+        }
+    }
+
+    private static class Entry {
+        final String categoriesKey;
+        final long timestamp;
+        final List<Segment> segments;
+
+        Entry(String categoriesKey, long timestamp, List<Segment> segments) {
+            this.categoriesKey = categoriesKey;
+            this.timestamp = timestamp;
+            this.segments = segments;
+        }
+
+        boolean isValid(String categoriesKey) {
+            return Helpers.equals(this.categoriesKey, categoriesKey) && System.currentTimeMillis() - timestamp < MAX_AGE_MS;
+        }
+    }
+
+    private SponsorSegmentCache(Context context) {
+        mContext = context;
+    }
+
+    public static SponsorSegmentCache instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SponsorSegmentCache(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * May read from the disk. Don't call on the main thread.
+     */
+    @Nullable
+    public List<Segment> get(String videoId, Collection<String> categories) {
+        if (videoId == null) {
+            return null;
+        }
+
+        String categoriesKey = toKey(categories);
+        Entry entry = mEntries.get(videoId);
+
+        if (entry == null) {
+            entry = readEntry(videoId);
+
+            if (entry != null) {
+                mEntries.put(videoId, entry);
+            }
+        }
+
+        return entry != null && entry.isValid(categoriesKey) ? entry.segments : null;
+    }
+
+    public void put(String videoId, Collection<String> categories, List<Segment> segments) {
+        if (videoId == null || segments == null) {
+            return;
+        }
+
+        Entry entry = new Entry(toKey(categories), System.currentTimeMillis(), segments);
+        mEntries.put(videoId, entry);
+
+        RxHelper.runAsync(() -> writeEntry(videoId, entry));
+    }
+
+    @Nullable
+    private Entry readEntry(String videoId) {
+        File file = getEntryFile(videoId);
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String[] header = Helpers.split(DELIM, reader.readLine());
+            String categoriesKey = Helpers.parseStr(header, 0);
+            long timestamp = Helpers.parseLong(header, 1);
+            List<Segment> segments = new ArrayList<>();
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] split = Helpers.split(DELIM, line);
+                segments.add(new Segment(Helpers.parseLong(split, 0), Helpers.parseLong(split, 1), Helpers.parseStr(split, 2)));
+            }
+
+            return new Entry(categoriesKey, timestamp, segments);
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read segments: %s", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeEntry(String videoId, Entry entry) {
+        File file = getEntryFile(videoId);
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(entry.categoriesKey + DELIM + entry.timestamp);
+
+            for (Segment segment : entry.segments) {
+                writer.newLine();
+                writer.write(segment.startMs + DELIM + segment.endMs + DELIM + segment.category);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't write segments: %s", e.getMessage());
+            file.delete();
+        }
+
+        pruneDisk();
+    }
+
+    private void pruneDisk() {
+        File[] files = getCacheDir().listFiles();
+
+        if (files == null || files.length <= MAX_DISK_ENTRIES) {
+            return;
+        }
+
+        Arrays.sort(files, (o1, o2) -> Long.compare(o1.lastModified(), o2.lastModified()));
+
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+
+    private File getEntryFile(String videoId) {
+        return new File(getCacheDir(), videoId);
+    }
+
+    private File getCacheDir() {
+        File dir = new File(mContext.getCacheDir(), CACHE_DIR);
+
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        return dir;
+    }
+
+    private static String toKey(Collection<String> categories) {
+        return categories != null ? TextUtils.join(",", new TreeSet<>(categories)) : "";
+    }
+}
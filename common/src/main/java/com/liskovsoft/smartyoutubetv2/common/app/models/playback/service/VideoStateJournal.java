@@ -0,0 +1,329 @@
+package com.liskovsoft.smartyoutubetv2.common.app.models.playback.service;
+
+import androidx.annotation.Nullable;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.VideoStateService.State;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Append-only binary journal of the playback states.<br/>
+ * Video metadata is written once per video (interned by id) and again when it changes. States are fixed-width records that reference it.<br/>
+ * Records are encoded on the caller thread and written to the disk on the background thread.<br/>
+ * The journal is rewritten from scratch (compacted) when it contains too many outdated records.
+ */
+class VideoStateJournal {
+    private static final String TAG = VideoStateJournal.class.getSimpleName();
+    private static final int MAGIC = 0x56534A31; // VSJ1
+    private static final byte TYPE_META = 'M';
+    private static final byte TYPE_STATE = 'S';
+    private static final byte TYPE_REMOVE = 'R';
+    private static final byte TYPE_CLEAR = 'C';
+    private static final byte TYPE_HISTORY_BROKEN = 'B';
+    private static final int COMPACT_RATIO = 3;
+    private static final int COMPACT_MIN_RECORDS = 100;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // Video objects that already have metadata record inside the journal
+    // Video id to the last written metadata
+    private final Map<String, Meta> mMetaIds = new HashMap<>();
+    private ByteArrayOutputStream mPending = new ByteArrayOutputStream();
+    private DataOutputStream mPendingOut = new DataOutputStream(mPending);
+    private File mFile;
+    private int mNextMetaId;
+    private int mRecordCount;
+
+    private static class Meta {
+        final int id;
+        final String spec;
+
+        Meta(int id, String spec) {
+            this.id = id;
+            this.spec = spec;
+        }
+    }
+
+    interface Callback {
+        void onState(State state);
+        void onRemove(String videoId);
+        void onClear();
+        void onHistoryBroken(boolean isBroken);
+    }
+
+    /**
+     * Switch to another file (e.g. profile changed). Pending records should be flushed before.
+     */
+    public synchronized void open(File file) {
+        mFile = file;
+        resetPending();
+        mMetaIds.clear();
+        mNextMetaId = 0;
+        mRecordCount = 0;
+    }
+
+    public synchronized boolean exists() {
+        return mFile != null && mFile.exists();
+    }
+
+    /**
+     * Read the whole journal synchronously. Torn tail (app killed while writing) is ignored.
+     */
+    public synchronized void replay(Callback callback) {
+        if (!exists()) {
+            return;
+        }
+
+        Map<Integer, Video> metaTable = new HashMap<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC) {
+                Log.e(TAG, "Unknown journal format: %s", mFile.getName());
+                return;
+            }
+
+            while (true) {
+                byte type = in.readByte();
+
+                switch (type) {
+                    case TYPE_META:
+                        int metaId = in.readInt();
+                        byte[] specBytes = new byte[in.readInt()];
+                        in.readFully(specBytes);
+                        String spec = new String(specBytes, UTF_8);
+                        Video video = Video.fromString(spec);
+                        if (video != null) {
+                            metaTable.put(metaId, video);
+                            mMetaIds.put(getMetaKey(video, spec), new Meta(metaId, spec));
+                        }
+                        mNextMetaId = Math.max(mNextMetaId, metaId + 1);
+                        break;
+                    case TYPE_STATE:
+                        Video stateVideo = metaTable.get(in.readInt());
+                        long positionMs = in.readLong();
+                        long durationMs = in.readLong();
+                        float speed = in.readFloat();
+                        long timestamp = in.readLong();
+                        if (stateVideo != null) {
+                            if (durationMs > 0) { // live or unknown length
+                                stateVideo.percentWatched = (positionMs * 100f) / durationMs;
+                            }
+                            callback.onState(new State(stateVideo, positionMs, durationMs, speed, timestamp));
+                        }
+                        break;
+                    case TYPE_REMOVE:
+                        callback.onRemove(in.readUTF());
+                        break;
+                    case TYPE_CLEAR:
+                        callback.onClear();
+                        break;
+                    case TYPE_HISTORY_BROKEN:
+                        callback.onHistoryBroken(in.readBoolean());
+                        break;
+                    default:
+                        Log.e(TAG, "Journal is corrupted. Unknown record type: %s", type);
+                        return;
+                }
+
+                mRecordCount++;
+            }
+        } catch (EOFException e) {
+            // End of the journal
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read journal: %s", e.getMessage());
+        }
+    }
+
+    public synchronized void writeState(State state) {
+        try {
+            int metaId = writeMeta(state.video);
+            mPendingOut.writeByte(TYPE_STATE);
+            mPendingOut.writeInt(metaId);
+            mPendingOut.writeLong(state.positionMs);
+            mPendingOut.writeLong(state.durationMs);
+            mPendingOut.writeFloat(state.speed);
+            mPendingOut.writeLong(state.timestamp);
+            mRecordCount++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void writeRemove(String videoId) {
+        if (videoId == null) {
+            return;
+        }
+
+        try {
+            mPendingOut.writeByte(TYPE_REMOVE);
+            mPendingOut.writeUTF(videoId);
+            mRecordCount++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void writeClear() {
+        try {
+            mPendingOut.writeByte(TYPE_CLEAR);
+            mRecordCount++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void writeHistoryBroken(boolean isBroken) {
+        try {
+            mPendingOut.writeByte(TYPE_HISTORY_BROKEN);
+            mPendingOut.writeBoolean(isBroken);
+            mRecordCount++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized boolean isCompactionNeeded(int statesCount) {
+        return mRecordCount > Math.max(COMPACT_MIN_RECORDS, statesCount * COMPACT_RATIO);
+    }
+
+    /**
+     * Append pending records in background.
+     */
+    public synchronized void flush() {
+        if (mFile == null || mPending.size() == 0) {
+            return;
+        }
+
+        File file = mFile;
+        boolean isNew = !file.exists();
+        byte[] chunk = mPending.toByteArray();
+        resetPending();
+
+        mExecutor.execute(() -> {
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                if (isNew && file.length() == 0) {
+                    new DataOutputStream(out).writeInt(MAGIC);
+                }
+                out.write(chunk);
+            } catch (IOException e) {
+                Log.e(TAG, "Can't append to journal: %s", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Wait for the background writes (e.g. before the backup)
+     */
+    public void awaitWrites() {
+        try {
+            mExecutor.submit(() -> {}).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Can't wait for journal writes: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the journal with the current states only. Pending records are discarded (they're part of the states).
+     */
+    public synchronized void compact(List<State> states, boolean isHistoryBroken, @Nullable Runnable onDone) {
+        if (mFile == null) {
+            return;
+        }
+
+        resetPending();
+        mMetaIds.clear();
+        mNextMetaId = 0;
+        mRecordCount = 0;
+
+        try {
+            mPendingOut.writeInt(MAGIC);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (isHistoryBroken) {
+            writeHistoryBroken(true);
+        }
+
+        for (State state : states) {
+            writeState(state);
+        }
+
+        File file = mFile;
+        byte[] data = mPending.toByteArray();
+        resetPending();
+
+        mExecutor.execute(() -> {
+            File tmpFile = new File(file.getPath() + ".tmp");
+
+            try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+                out.write(data);
+                out.getFD().sync();
+            } catch (IOException e) {
+                Log.e(TAG, "Can't compact journal: %s", e.getMessage());
+                tmpFile.delete();
+                return;
+            }
+
+            if (!tmpFile.renameTo(file)) {
+                Log.e(TAG, "Can't replace journal: %s", file.getName());
+                tmpFile.delete();
+                return;
+            }
+
+            if (onDone != null) {
+                onDone.run();
+            }
+        });
+    }
+
+    private int writeMeta(Video video) throws IOException {
+        // Progress is stored in the state record. Otherwise every state would rewrite the metadata.
+        float percentWatched = video.percentWatched;
+        video.percentWatched = -1;
+        String spec = video.toString();
+        video.percentWatched = percentWatched;
+        String key = getMetaKey(video, spec);
+        Meta meta = mMetaIds.get(key);
+
+        if (meta != null && meta.spec.equals(spec)) {
+            return meta.id;
+        }
+
+        // New video or the fields are changed (e.g. title). The latest record with the id wins on replay.
+        int metaId = meta != null ? meta.id : mNextMetaId++;
+        byte[] specBytes = spec.getBytes(UTF_8);
+        mPendingOut.writeByte(TYPE_META);
+        mPendingOut.writeInt(metaId);
+        mPendingOut.writeInt(specBytes.length);
+        mPendingOut.write(specBytes);
+        mMetaIds.put(key, new Meta(metaId, spec));
+        mRecordCount++;
+
+        return metaId;
+    }
+
+    private static String getMetaKey(Video video, String spec) {
+        return video.videoId != null ? video.videoId : spec;
+    }
+
+    private void resetPending() {
+        mPending = new ByteArrayOutputStream();
+        mPendingOut = new DataOutputStream(mPending);
+    }
+}
@@ -11,7 +11,11 @@ import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs.ProfileChangeListener;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class VideoStateService implements ProfileChangeListener {
     @SuppressLint("StaticFieldLeak")
@@ -19,14 +23,40 @@ public class VideoStateService implements ProfileChangeListener {
     private static final int MIN_PERSISTENT_STATE_SIZE = 50;
     private static final int MAX_PERSISTENT_STATE_SIZE = 300;
     private static final long PERSIST_DELAY_MS = 10_000;
+    private static final String JOURNAL_DIR = "video_states";
     // Don't store state inside Video object.
     // As one video might correspond to multiple Video objects.
     //private final Map<String, State> mStates = Helpers.createLRUMap(MAX_PERSISTENT_STATE_SIZE);
     private final List<State> mStates;
+    // First state with the given video id (same as linear search over the list)
+    private final Map<String, State> mIndex = new HashMap<>();
+    private boolean mIsIndexDirty;
     private final AppPrefs mPrefs;
+    private final VideoStateJournal mJournal = new VideoStateJournal();
     private static final String DELIM = "&si;";
     private boolean mIsHistoryBroken;
     private final Runnable mPersistStateInt = this::persistStateInt;
+    private final VideoStateJournal.Callback mReplayCallback = new VideoStateJournal.Callback() {
+        @Override
+        public void onState(State state) {
+            addInt(state);
+        }
+
+        @Override
+        public void onRemove(String videoId) {
+            removeInt(videoId);
+        }
+
+        @Override
+        public void onClear() {
+            clearInt();
+        }
+
+        @Override
+        public void onHistoryBroken(boolean isBroken) {
+            mIsHistoryBroken = isBroken;
+        }
+    };
 
     private VideoStateService(Context context) {
         mPrefs = AppPrefs.instance(context);
@@ -57,17 +87,20 @@ public class VideoStateService implements ProfileChangeListener {
     }
 
     public State getByVideoId(String videoId) {
-        for (State state : mStates) {
-            if (Helpers.equals(videoId, state.video.videoId)) {
-                return state;
-            }
+        if (videoId == null) {
+            return null;
         }
 
-        return null;
+        if (mIsIndexDirty) {
+            rebuildIndex();
+        }
+
+        return mIndex.get(videoId);
     }
 
     public void removeByVideoId(String videoId) {
-        Helpers.removeIf(mStates, state -> Helpers.equals(state.video.videoId, videoId));
+        removeInt(videoId);
+        mJournal.writeRemove(videoId);
     }
 
     public boolean isEmpty() {
@@ -75,41 +108,143 @@ public class VideoStateService implements ProfileChangeListener {
     }
 
     public void save(State state) {
-        mStates.add(state);
+        addInt(state);
+        mJournal.writeState(state);
     }
 
     public void clear() {
-        mStates.clear();
+        clearInt();
+        mJournal.writeClear();
         persistState();
     }
 
     public void setHistoryBroken(boolean isBroken) {
+        if (mIsHistoryBroken == isBroken) {
+            return;
+        }
+
         mIsHistoryBroken = isBroken;
+        mJournal.writeHistoryBroken(isBroken);
     }
 
     public boolean isHistoryBroken() {
         return mIsHistoryBroken;
     }
 
+    /**
+     * Write everything to the journal (e.g. before the backup). Blocking call.
+     */
+    public void flushBlocking() {
+        Utils.removeCallbacks(mPersistStateInt);
+        persistStateInt();
+        mJournal.awaitWrites();
+    }
+
+    /**
+     * Journal is replaced by the backup. Nothing from this process should be written there.
+     */
+    public void onDataRestored() {
+        Utils.removeCallbacks(mPersistStateInt);
+        mJournal.open(null);
+    }
+
+    /**
+     * Journals of all profiles
+     */
+    public static File getJournalDir(Context context) {
+        return new File(context.getFilesDir(), JOURNAL_DIR);
+    }
+
     private void restoreState() {
-        mStates.clear();
+        // Finish with the previous profile
+        Utils.removeCallbacks(mPersistStateInt);
+        mJournal.flush();
+
+        clearInt();
+        mIsHistoryBroken = false;
+        mJournal.open(getJournalFile());
+
+        if (mJournal.exists()) {
+            mJournal.replay(mReplayCallback);
+        } else {
+            restoreLegacyState();
+        }
+    }
+
+    /**
+     * Migrate from the old string storage. The string is removed once the journal is written.
+     */
+    private void restoreLegacyState() {
         String data = mPrefs.getStateUpdaterData();
 
+        if (data == null) {
+            return;
+        }
+
         String[] split = Helpers.splitData(data);
 
         setStateData(Helpers.parseStr(split, 0));
         mIsHistoryBroken = Helpers.parseBoolean(split, 1);
+
+        mJournal.compact(new ArrayList<>(mStates), mIsHistoryBroken, () -> Utils.post(() -> mPrefs.setStateUpdaterData(null)));
     }
 
     private void persistStateInt() {
-        if (mIsHistoryBroken) {
-            mPrefs.setStateUpdaterData(Helpers.mergeData(getStateData(), mIsHistoryBroken));
+        if (mJournal.isCompactionNeeded(mStates.size())) {
+            mJournal.compact(new ArrayList<>(mStates), mIsHistoryBroken, null);
         } else {
-            // Eliminate additional string creation with the merge
-            mPrefs.setStateUpdaterData(getStateData());
+            mJournal.flush();
         }
     }
 
+    private File getJournalFile() {
+        File dir = getJournalDir(mPrefs.getContext());
+
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        return new File(dir, mPrefs.getStateJournalName().replaceAll("[^\\w.-]", "_"));
+    }
+
+    private void addInt(State state) {
+        int size = mStates.size();
+        mStates.add(state);
+
+        if (mStates.size() == size + 1 && !mIsIndexDirty) {
+            // Keep the first occurrence like the linear search does
+            if (!mIndex.containsKey(state.video.videoId)) {
+                mIndex.put(state.video.videoId, state);
+            }
+        } else {
+            // LRU eviction or replacement of the equal state
+            mIsIndexDirty = true;
+        }
+    }
+
+    private void removeInt(String videoId) {
+        Helpers.removeIf(mStates, state -> Helpers.equals(state.video.videoId, videoId));
+        mIndex.remove(videoId);
+    }
+
+    private void clearInt() {
+        mStates.clear();
+        mIndex.clear();
+        mIsIndexDirty = false;
+    }
+
+    private void rebuildIndex() {
+        mIndex.clear();
+
+        for (State state : mStates) {
+            if (state.video.videoId != null && !mIndex.containsKey(state.video.videoId)) {
+                mIndex.put(state.video.videoId, state);
+            }
+        }
+
+        mIsIndexDirty = false;
+    }
+
     public void persistState() {
         // Improve memory and disc usage
         Utils.postDelayed(mPersistStateInt, PERSIST_DELAY_MS);
@@ -121,7 +256,7 @@ public class VideoStateService implements ProfileChangeListener {
         public final long positionMs;
         public final long durationMs;
         public final float speed;
-        public final long timestamp = System.currentTimeMillis();
+        public final long timestamp;
 
         public State(Video video, long positionMs) {
             this(video, positionMs, -1);
@@ -132,10 +267,15 @@ public class VideoStateService implements ProfileChangeListener {
         }
 
         public State(Video video, long positionMs, long durationMs, float speed) {
+            this(video, positionMs, durationMs, speed, System.currentTimeMillis());
+        }
+
+        State(Video video, long positionMs, long durationMs, float speed, long timestamp) {
             this.video = video;
             this.positionMs = positionMs;
             this.durationMs = durationMs;
             this.speed = speed;
+            this.timestamp = timestamp;
         }
 
         public static State from(String spec) {
@@ -158,7 +298,9 @@ public class VideoStateService implements ProfileChangeListener {
                 video.videoId = videoId;
             }
 
-            video.percentWatched = (positionMs * 100f) / lengthMs;
+            if (lengthMs > 0) { // live or unknown length
+                video.percentWatched = (positionMs * 100f) / lengthMs;
+            }
 
             return new State(video, positionMs, lengthMs, speed);
         }
@@ -200,23 +342,9 @@ public class VideoStateService implements ProfileChangeListener {
                 State state = State.from(spec);
 
                 if (state != null) {
-                    mStates.add(state);
+                    addInt(state);
                 }
             }
         }
     }
-
-    private String getStateData() {
-        StringBuilder sb = new StringBuilder();
-
-        for (State state : mStates) {
-            if (sb.length() != 0) {
-                sb.append(DELIM);
-            }
-
-            sb.append(state);
-        }
-
-        return sb.toString();
-    }
 }
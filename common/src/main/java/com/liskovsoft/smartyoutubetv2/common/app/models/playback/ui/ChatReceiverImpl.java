@@ -1,19 +1,75 @@
 package com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui;
 
+import android.view.Choreographer;
 import com.liskovsoft.mediaserviceinterfaces.data.ChatItem;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects incoming items and passes them to the ui in batches (at most once per frame).<br/>
+ * The buffer is bounded. Oldest items are dropped on busy streams, they won't be visible anyway.
+ */
 public class ChatReceiverImpl implements ChatReceiver {
+    private static final int MAX_PENDING_ITEMS = 50;
+    private final ArrayDeque<ChatItem> mPending = new ArrayDeque<>();
+    private final Choreographer.FrameCallback mFlush = frameTimeNanos -> flush();
+    private final Runnable mScheduleFlush = () -> Choreographer.getInstance().postFrameCallback(mFlush);
     private Callback mCallback;
+    private boolean mIsFlushScheduled;
 
     @Override
     public void addChatItem(ChatItem chatItem) {
-        if (mCallback != null) {
-            mCallback.onChatItem(chatItem);
+        synchronized (mPending) {
+            if (mPending.size() >= MAX_PENDING_ITEMS) {
+                mPending.pollFirst();
+            }
+
+            mPending.addLast(chatItem);
+
+            if (mIsFlushScheduled) {
+                return;
+            }
+
+            mIsFlushScheduled = true;
         }
+
+        Utils.post(mScheduleFlush);
     }
 
     @Override
     public void setCallback(Callback callback) {
         mCallback = callback;
+
+        if (callback != null) {
+            synchronized (mPending) {
+                if (!mPending.isEmpty() && !mIsFlushScheduled) {
+                    mIsFlushScheduled = true;
+                    Utils.post(mScheduleFlush);
+                }
+            }
+        }
+    }
+
+    private void flush() {
+        List<ChatItem> chatItems;
+
+        synchronized (mPending) {
+            mIsFlushScheduled = false;
+
+            if (mCallback == null) {
+                // Keep items until the ui is attached
+                return;
+            }
+
+            chatItems = new ArrayList<>(mPending);
+            mPending.clear();
+        }
+
+        if (!chatItems.isEmpty()) {
+            mCallback.onChatItems(chatItems);
+        }
     }
 }
@@ -1,5 +1,7 @@
 package com.liskovsoft.smartyoutubetv2.common.app.models.search;
 
+import android.content.Context;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import com.liskovsoft.mediaserviceinterfaces.ContentService;
@@ -7,34 +9,132 @@ import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.smartyoutubetv2.common.app.models.search.vineyard.Tag;
 import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 import io.reactivex.disposables.Disposable;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Server suggestions merged with the local search history.<br/>
+ * Requests are debounced (the delay follows the typing speed). Cached results are shown instantly.
+ */
 public class MediaServiceSearchTagProvider implements SearchTagsProvider {
     private static final String TAG = MediaServiceSearchTagProvider.class.getSimpleName();
+    private static final long MIN_DEBOUNCE_MS = 100;
+    private static final long MAX_DEBOUNCE_MS = 500;
+    // Longer pauses are not the typing
+    private static final long MAX_KEYSTROKE_INTERVAL_MS = 2_000;
     private final ContentService mContentService;
+    private final SearchSuggestionCache mCache;
+    private final SearchTagsProvider mHistoryProvider;
     private final boolean mIgnoreEmptyQuery;
     private Disposable mTagsAction;
+    private Runnable mLoadTags;
+    private long mLastKeystrokeMs;
+    private long mKeystrokeIntervalMs = MAX_DEBOUNCE_MS;
 
-    public MediaServiceSearchTagProvider(boolean ignoreEmptyQuery) {
+    /**
+     * Search history is disabled when empty query is ignored
+     */
+    public MediaServiceSearchTagProvider(Context context, boolean ignoreEmptyQuery) {
         mIgnoreEmptyQuery = ignoreEmptyQuery;
         ServiceManager service = YouTubeServiceManager.instance();
         mContentService = service.getContentService();
+        mCache = SearchSuggestionCache.instance();
+        mHistoryProvider = ignoreEmptyQuery ? null : new PrefsSearchTagsProvider(context);
     }
 
     @Override
     public void search(String query, ResultsCallback callback) {
         RxHelper.disposeActions(mTagsAction);
+        Utils.removeCallbacks(mLoadTags);
+
+        long debounceMs = getDebounceMs();
 
         if (mIgnoreEmptyQuery && TextUtils.isEmpty(query)) {
             callback.onResults(null);
             return;
         }
 
+        List<String> cached = mCache.get(query);
+
+        if (cached != null) {
+            callback.onResults(merge(query, cached));
+            return;
+        }
+
+        // Answer while the request is in flight
+        List<Tag> local = merge(query, mCache.getByPrefix(query));
+
+        if (local != null) {
+            callback.onResults(local);
+        }
+
+        mLoadTags = () -> loadTags(query, callback);
+        Utils.postDelayed(mLoadTags, debounceMs);
+    }
+
+    private void loadTags(String query, ResultsCallback callback) {
         mTagsAction = mContentService.getSearchTagsObserve(query)
                 .subscribe(
-                        tags -> callback.onResults(Tag.from(tags)),
+                        tags -> {
+                            mCache.put(query, tags);
+                            callback.onResults(merge(query, tags));
+                        },
                         error -> Log.e(TAG, "Result is empty. Just ignore it. Error msg: %s", error.getMessage())
                 );
     }
+
+    /**
+     * Slightly longer than the usual pause between the keystrokes
+     */
+    private long getDebounceMs() {
+        long nowMs = SystemClock.uptimeMillis();
+        long intervalMs = nowMs - mLastKeystrokeMs;
+        boolean isFirst = mLastKeystrokeMs == 0;
+        mLastKeystrokeMs = nowMs;
+
+        if (isFirst) {
+            return 0;
+        }
+
+        if (intervalMs < MAX_KEYSTROKE_INTERVAL_MS) {
+            mKeystrokeIntervalMs = (mKeystrokeIntervalMs * 3 + intervalMs) / 4;
+        }
+
+        return Math.max(MIN_DEBOUNCE_MS, Math.min(mKeystrokeIntervalMs * 5 / 4, MAX_DEBOUNCE_MS));
+    }
+
+    /**
+     * Local history goes first
+     */
+    private List<Tag> merge(String query, List<String> serverTags) {
+        List<Tag> result = new ArrayList<>();
+        Set<String> added = new HashSet<>();
+
+        if (mHistoryProvider != null) {
+            mHistoryProvider.search(query, tags -> addAll(result, added, tags));
+        }
+
+        addAll(result, added, Tag.from(serverTags));
+
+        return result.isEmpty() ? null : result;
+    }
+
+    private static void addAll(List<Tag> result, Set<String> added, List<Tag> tags) {
+        if (tags == null) {
+            return;
+        }
+
+        for (Tag tag : tags) {
+            if (tag.tag != null && added.add(tag.tag.toLowerCase(Locale.ROOT))) {
+                result.add(tag);
+            }
+        }
+    }
 }
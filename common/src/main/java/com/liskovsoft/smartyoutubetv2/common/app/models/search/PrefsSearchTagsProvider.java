@@ -1,20 +1,21 @@
 package com.liskovsoft.smartyoutubetv2.common.app.models.search;
 
+import android.content.Context;
 import com.liskovsoft.smartyoutubetv2.common.app.models.search.vineyard.Tag;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Local search history
+ */
 public class PrefsSearchTagsProvider implements SearchTagsProvider {
+    private static final int MAX_RESULTS = 5;
+    private final SearchHistoryIndex mHistoryIndex;
+
+    public PrefsSearchTagsProvider(Context context) {
+        mHistoryIndex = SearchHistoryIndex.instance(context);
+    }
+
     @Override
     public void search(String query, ResultsCallback callback) {
-        List<Tag> tags = new ArrayList<>();
-        tags.add(new Tag("One"));
-        tags.add(new Tag("Two"));
-        tags.add(new Tag("Three"));
-        tags.add(new Tag("Four"));
-        tags.add(new Tag("Five"));
-
-        callback.onResults(tags);
+        callback.onResults(Tag.from(mHistoryIndex.find(query, MAX_RESULTS)));
     }
 }
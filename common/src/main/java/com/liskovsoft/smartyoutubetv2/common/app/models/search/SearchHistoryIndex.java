@@ -0,0 +1,150 @@
+package com.liskovsoft.smartyoutubetv2.common.app.models.search;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs;
+import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs.ProfileChangeListener;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Local search history. Ranked by frequency and recency.<br/>
+ * Answers instantly (no network).
+ */
+public class SearchHistoryIndex implements ProfileChangeListener {
+    private static final String SEARCH_HISTORY_DATA = "search_history_data";
+    private static final int MAX_ENTRIES = 100;
+    private static final double HALF_LIFE_DAYS = 7;
+    @SuppressLint("StaticFieldLeak")
+    private static SearchHistoryIndex sInstance;
+    private final AppPrefs mPrefs;
+    // Key is the lower case query
+    private Map<String, String> mQueries;
+    private Map<String, Integer> mCounts;
+    private Map<String, Long> mTimes;
+    private final Runnable mPersistStateInt = this::persistStateInt;
+
+    private SearchHistoryIndex(Context context) {
+        mPrefs = AppPrefs.instance(context);
+        mPrefs.addListener(this);
+        restoreState();
+    }
+
+    public static SearchHistoryIndex instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SearchHistoryIndex(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    public synchronized void add(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return;
+        }
+
+        query = query.trim();
+        String key = normalize(query);
+        Integer count = mCounts.get(key);
+
+        mQueries.put(key, query);
+        mCounts.put(key, count != null ? count + 1 : 1);
+        mTimes.put(key, System.currentTimeMillis());
+
+        evictLowest();
+        persistState();
+    }
+
+    /**
+     * Best ranked queries that start with the prefix
+     */
+    public synchronized List<String> find(String prefix, int limit) {
+        String key = prefix != null ? normalize(prefix.trim()) : "";
+        long nowMs = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+
+        for (String query : mQueries.keySet()) {
+            if (query.startsWith(key)) {
+                keys.add(query);
+            }
+        }
+
+        Collections.sort(keys, (o1, o2) -> Double.compare(getScore(o2, nowMs), getScore(o1, nowMs)));
+
+        List<String> result = new ArrayList<>();
+
+        for (int i = 0; i < keys.size() && i < limit; i++) {
+            result.add(mQueries.get(keys.get(i)));
+        }
+
+        return result;
+    }
+
+    public synchronized void clear() {
+        mQueries.clear();
+        mCounts.clear();
+        mTimes.clear();
+        persistState();
+    }
+
+    private double getScore(String key, long nowMs) {
+        Integer count = mCounts.get(key);
+        Long timeMs = mTimes.get(key);
+        double ageDays = timeMs != null ? (nowMs - timeMs) / (24 * 60 * 60 * 1_000d) : Double.MAX_VALUE;
+
+        return (count != null ? count : 1) * Math.pow(0.5, ageDays / HALF_LIFE_DAYS);
+    }
+
+    private void evictLowest() {
+        long nowMs = System.currentTimeMillis();
+
+        while (mQueries.size() > MAX_ENTRIES) {
+            String lowest = null;
+
+            for (String key : mQueries.keySet()) {
+                if (lowest == null || getScore(key, nowMs) < getScore(lowest, nowMs)) {
+                    lowest = key;
+                }
+            }
+
+            mQueries.remove(lowest);
+            mCounts.remove(lowest);
+            mTimes.remove(lowest);
+        }
+    }
+
+    private synchronized void restoreState() {
+        String data = mPrefs.getProfileData(SEARCH_HISTORY_DATA);
+
+        String[] split = Helpers.splitData(data);
+
+        mQueries = new HashMap<>(Helpers.parseMap(split, 0, Helpers::parseStr, Helpers::parseStr));
+        mCounts = new HashMap<>(Helpers.parseMap(split, 1, Helpers::parseStr, Helpers::parseInt));
+        mTimes = new HashMap<>(Helpers.parseMap(split, 2, Helpers::parseStr, Helpers::parseLong));
+    }
+
+    private void persistState() {
+        Utils.postDelayed(mPersistStateInt, 10_000);
+    }
+
+    private synchronized void persistStateInt() {
+        mPrefs.setProfileData(SEARCH_HISTORY_DATA, Helpers.mergeData(mQueries, mCounts, mTimes));
+    }
+
+    @Override
+    public void onProfileChanged() {
+        Utils.removeCallbacks(mPersistStateInt);
+        restoreState();
+    }
+
+    private static String normalize(String query) {
+        return query.toLowerCase(Locale.ROOT);
+    }
+}
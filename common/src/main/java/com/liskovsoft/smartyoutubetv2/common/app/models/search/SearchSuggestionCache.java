@@ -0,0 +1,190 @@
+package com.liskovsoft.smartyoutubetv2.common.app.models.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prefix trie of the recent server suggestions. Backspace gives an exact hit.<br/>
+ * Longer queries are answered from the nearest cached prefix while the request is in flight.
+ */
+public class SearchSuggestionCache {
+    private static final int MAX_QUERIES = 200;
+    private static final long MAX_AGE_MS = 10 * 60 * 1_000;
+    private static SearchSuggestionCache sInstance;
+    private final Node mRoot = new Node();
+    // Access ordered. Used to evict the least recently used queries.
+    private final LinkedHashMap<String, Boolean> mQueries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>(2);
+        List<String> suggestions;
+        long timeMs;
+
+        boolean isFresh() {
+            return suggestions != null && System.currentTimeMillis() - timeMs < MAX_AGE_MS;
+        }
+    }
+
+    private SearchSuggestionCache() {
+    }
+
+    public static SearchSuggestionCache instance() {
+        if (sInstance == null) {
+            sInstance = new SearchSuggestionCache();
+        }
+
+        return sInstance;
+    }
+
+    public synchronized void put(String query, List<String> suggestions) {
+        if (query == null || suggestions == null) {
+            return;
+        }
+
+        String key = normalize(query);
+        Node node = mRoot;
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+
+            node = child;
+        }
+
+        node.suggestions = new ArrayList<>(suggestions);
+        node.timeMs = System.currentTimeMillis();
+        mQueries.put(key, true);
+
+        evictOldest();
+    }
+
+    /**
+     * Exact match or null
+     */
+    public synchronized List<String> get(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        String key = normalize(query);
+        Node node = find(key);
+
+        if (node == null || !node.isFresh()) {
+            return null;
+        }
+
+        mQueries.get(key); // update access order
+
+        return node.suggestions;
+    }
+
+    /**
+     * Suggestions of the longest cached prefix that still match the query or null
+     */
+    public synchronized List<String> getByPrefix(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        String key = normalize(query);
+        Node node = mRoot;
+        List<String> prefixSuggestions = null;
+        int prefixLength = -1;
+
+        for (int i = 0; i <= key.length(); i++) {
+            if (node.isFresh()) {
+                prefixSuggestions = node.suggestions;
+                prefixLength = i;
+            }
+
+            if (i == key.length()) {
+                break;
+            }
+
+            node = node.children.get(key.charAt(i));
+
+            if (node == null) {
+                break;
+            }
+        }
+
+        if (prefixSuggestions == null) {
+            return null;
+        }
+
+        if (prefixLength == key.length()) {
+            return prefixSuggestions;
+        }
+
+        List<String> result = new ArrayList<>();
+
+        for (String suggestion : prefixSuggestions) {
+            if (suggestion != null && normalize(suggestion).startsWith(key)) {
+                result.add(suggestion);
+            }
+        }
+
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Server suggestions contain the search history
+     */
+    public synchronized void clear() {
+        mRoot.children.clear();
+        mRoot.suggestions = null;
+        mQueries.clear();
+    }
+
+    private Node find(String key) {
+        Node node = mRoot;
+
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+
+        return node;
+    }
+
+    private void evictOldest() {
+        Iterator<String> iterator = mQueries.keySet().iterator();
+
+        while (mQueries.size() > MAX_QUERIES && iterator.hasNext()) {
+            String key = iterator.next();
+            iterator.remove();
+            remove(mRoot, key, 0);
+        }
+    }
+
+    /**
+     * Returns true if the node is empty and could be removed
+     */
+    private static boolean remove(Node node, String key, int index) {
+        if (index == key.length()) {
+            node.suggestions = null;
+        } else {
+            char c = key.charAt(index);
+            Node child = node.children.get(c);
+
+            if (child != null && remove(child, key, index + 1)) {
+                node.children.remove(c);
+            }
+        }
+
+        return node.suggestions == null && node.children.isEmpty();
+    }
+
+    private static String normalize(String query) {
+        return query.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,6 +2,7 @@ package com.liskovsoft.smartyoutubetv2.common.app.presenters;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.os.SystemClock;
 
 import com.liskovsoft.mediaserviceinterfaces.data.Account;
 import com.liskovsoft.mediaserviceinterfaces.data.MediaGroup;
@@ -34,6 +35,8 @@ import com.liskovsoft.smartyoutubetv2.common.app.presenters.interfaces.VideoGrou
 import com.liskovsoft.smartyoutubetv2.common.app.views.BrowseView;
 import com.liskovsoft.smartyoutubetv2.common.misc.AppDataSourceManager;
 import com.liskovsoft.smartyoutubetv2.common.misc.BrowseProcessorManager;
+import com.liskovsoft.smartyoutubetv2.common.misc.BrowseSectionCache;
+import com.liskovsoft.smartyoutubetv2.common.misc.ContinuationPrefetcher;
 import com.liskovsoft.smartyoutubetv2.common.misc.MediaServiceManager;
 import com.liskovsoft.smartyoutubetv2.common.misc.MediaServiceManager.AccountChangeListener;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AccountsData;
@@ -63,11 +66,13 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
     private final Map<Integer, BrowseSection> mSectionsMapping;
     private final AppDataSourceManager mDataSourcePresenter;
     private final BrowseProcessorManager mBrowseProcessor;
+    private final BrowseSectionCache mSectionCache;
     private final List<Disposable> mActions;
+    // Group id to continuation. One page in flight per group.
+    private final Map<Integer, Disposable> mContinueActions;
     private final Runnable mRefreshSection = this::refresh;
     private BrowseSection mCurrentSection;
     private Video mCurrentVideo;
-    private long mLastUpdateTimeMs = -1;
     private int mBootSectionIndex;
     private int mBootstrapSectionId = -1;
 
@@ -84,9 +89,14 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
         ScreenHelper.updateScreenInfo(context);
         
         mBrowseProcessor = new BrowseProcessorManager(getContext(), this::syncItem);
+        mSectionCache = new BrowseSectionCache(context);
         mActions = new ArrayList<>();
+        mContinueActions = new HashMap<>();
 
         initSections();
+
+        // Show something instantly after cold start
+        mSectionCache.restoreSnapshot(getSidebarService().getBootSectionId());
     }
 
     public static BrowsePresenter instance(Context context) {
@@ -136,7 +146,7 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
     }
 
     private void refreshIfNeeded() {
-        if (getView() == null || !isHomeSection() || mLastUpdateTimeMs == -1 || System.currentTimeMillis() - mLastUpdateTimeMs < 3 * 60 * 60 * 1_000) {
+        if (getView() == null || mCurrentSection == null || !mSectionCache.isExpired(mCurrentSection.getId())) {
             return;
         }
 
@@ -453,7 +463,7 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
         saveSelectedItems(); // save previous state
         mCurrentSection = findSectionById(sectionId);
         mCurrentVideo = null; // fast scroll through the sections (fix empty selected item)
-        updateCurrentSection();
+        updateCurrentSection(false);
         restoreSelectedItems(); // Don't place anywhere else
     }
 
@@ -578,17 +588,16 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
     }
 
     public void refresh(boolean focusOnContent) {
-        updateCurrentSection();
+        updateCurrentSection(true);
         if (focusOnContent && getView() != null) {
             getView().focusOnContent();
         }
     }
 
-    private void updateRefreshTime() {
-        mLastUpdateTimeMs = System.currentTimeMillis();
-    }
-
-    private void updateCurrentSection() {
+    /**
+     * @param forceRefresh revalidate cached content even if it's still fresh
+     */
+    private void updateCurrentSection(boolean forceRefresh) {
         disposeActions();
 
         if (getView() == null || mCurrentSection == null) {
@@ -596,19 +605,19 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
         }
 
         Log.d(TAG, "Update section %s", mCurrentSection.getTitle());
-        updateSection(mCurrentSection);
+        updateSection(mCurrentSection, forceRefresh);
     }
 
-    private void updateSection(BrowseSection section) {
+    private void updateSection(BrowseSection section, boolean forceRefresh) {
         switch (section.getType()) {
             case BrowseSection.TYPE_GRID:
             case BrowseSection.TYPE_SHORTS_GRID:
                 Observable<MediaGroup> group = mGridMapping.get(section.getId());
-                updateVideoGrid(section, group, section.isAuthOnly());
+                updateVideoGrid(section, group, -1, section.isAuthOnly(), forceRefresh);
                 break;
             case BrowseSection.TYPE_ROW:
                 Observable<List<MediaGroup>> groups = mRowMapping.get(section.getId());
-                updateVideoRows(section, groups, section.isAuthOnly());
+                updateVideoRows(section, groups, section.isAuthOnly(), forceRefresh);
                 break;
             case BrowseSection.TYPE_SETTINGS_GRID:
                 Callable<List<SettingsItem>> items = mSettingsGridMapping.get(section.getId());
@@ -616,14 +625,12 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
                 break;
             case BrowseSection.TYPE_MULTI_GRID:
                 Observable<MediaGroup> group2 = mGridMapping.get(section.getId());
-                updateVideoGrid(section, group2, 0, section.isAuthOnly());
+                updateVideoGrid(section, group2, 0, section.isAuthOnly(), forceRefresh);
                 break;
             case BrowseSection.TYPE_ERROR:
                 getView().showProgressBar(false);
                 break;
         }
-
-        updateRefreshTime();
     }
 
     private void updateSettingsGrid(BrowseSection section, Callable<List<SettingsItem>> items) {
@@ -631,23 +638,19 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
         getView().showProgressBar(false);
     }
 
-    private void updateVideoRows(BrowseSection section, Observable<List<MediaGroup>> groups, boolean authCheck) {
+    private void updateVideoRows(BrowseSection section, Observable<List<MediaGroup>> groups, boolean authCheck, boolean forceRefresh) {
         Log.d(TAG, "loadRowsHeader: Start loading section: " + section.getTitle());
 
-        authCheck(authCheck, () -> updateVideoRows(section, groups));
-    }
-
-    private void updateVideoGrid(BrowseSection section, Observable<MediaGroup> group, boolean authCheck) {
-        updateVideoGrid(section, group, -1, authCheck);
+        authCheck(authCheck, () -> updateVideoRows(section, groups, forceRefresh));
     }
 
-    private void updateVideoGrid(BrowseSection section, Observable<MediaGroup> group, int column, boolean authCheck) {
+    private void updateVideoGrid(BrowseSection section, Observable<MediaGroup> group, int column, boolean authCheck, boolean forceRefresh) {
         Log.d(TAG, "loadMultiGridHeader: Start loading section: " + section.getTitle());
 
-        authCheck(authCheck, () -> updateVideoGrid(section, group, column));
+        authCheck(authCheck, () -> updateVideoGrid(section, group, column, forceRefresh));
     }
 
-    private void updateVideoRows(BrowseSection section, Observable<List<MediaGroup>> groups) {
+    private void updateVideoRows(BrowseSection section, Observable<List<MediaGroup>> groups, boolean forceRefresh) {
         Log.d(TAG, "updateRowsHeader: Start loading section: " + section.getTitle());
 
         disposeActions();
@@ -657,12 +660,29 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
             getViewManager().startView(BrowseView.class);
             return;
         }
-        
-        getView().showProgressBar(true);
 
-        VideoGroup firstGroup = VideoGroup.from(section);
-        firstGroup.setAction(VideoGroup.ACTION_REPLACE);
-        getView().updateSection(firstGroup);
+        List<VideoGroup> cachedGroups = BrowseSectionCache.isCacheable(section) ? mSectionCache.get(section.getId()) : null;
+
+        if (cachedGroups != null) {
+            // Stale-while-revalidate. Show cached rows without a spinner.
+            for (int i = 0; i < cachedGroups.size(); i++) {
+                VideoGroup cachedGroup = cachedGroups.get(i);
+                cachedGroup.setPosition(-1);
+                cachedGroup.setAction(i == 0 ? VideoGroup.ACTION_REPLACE : VideoGroup.ACTION_APPEND);
+                getView().updateSection(cachedGroup);
+            }
+
+            if (!forceRefresh && mSectionCache.isFresh(section.getId())) {
+                getView().showProgressBar(false);
+                return;
+            }
+        } else {
+            getView().showProgressBar(true);
+
+            VideoGroup firstGroup = VideoGroup.from(section);
+            firstGroup.setAction(VideoGroup.ACTION_REPLACE);
+            getView().updateSection(firstGroup);
+        }
 
         if (groups == null) {
             // No group. Maybe just clear.
@@ -670,6 +690,8 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
             return;
         }
 
+        List<VideoGroup> freshGroups = new ArrayList<>();
+
         Disposable updateAction = groups
                 .subscribe(
                         mediaGroups -> {
@@ -685,7 +707,13 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
 
                                 VideoGroup videoGroup = VideoGroup.from(mediaGroup, section);
 
-                                getView().updateSection(videoGroup);
+                                if (cachedGroups != null) {
+                                    videoGroup = applyCachedDiff(findGroupById(cachedGroups, videoGroup.getId()), videoGroup, freshGroups.size());
+                                } else {
+                                    getView().updateSection(videoGroup);
+                                }
+
+                                freshGroups.add(videoGroup);
                                 mBrowseProcessor.process(videoGroup);
 
                                 continueGroupIfNeeded(videoGroup, false);
@@ -693,13 +721,29 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
                         },
                         error -> {
                             Log.e(TAG, "updateRowsHeader error: %s", error.getMessage());
-                            handleLoadError(error);
-                        }, () -> handleLoadError(null));
+                            if (cachedGroups != null) {
+                                getView().showProgressBar(false); // keep stale content
+                            } else {
+                                handleLoadError(error);
+                            }
+                        }, () -> {
+                            if (cachedGroups != null) {
+                                removeStaleRows(cachedGroups, freshGroups);
+                            }
+                            if (BrowseSectionCache.isCacheable(section) && !freshGroups.isEmpty()) {
+                                mSectionCache.put(section.getId(), freshGroups, isBootSection(section));
+                            }
+                            handleLoadError(null);
+                        });
 
         mActions.add(updateAction);
     }
 
     private void updateVideoGrid(BrowseSection section, Observable<MediaGroup> group, int column) {
+        updateVideoGrid(section, group, column, true);
+    }
+
+    private void updateVideoGrid(BrowseSection section, Observable<MediaGroup> group, int column, boolean forceRefresh) {
         disposeActions();
 
         if (getView() == null) {
@@ -710,11 +754,27 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
 
         Log.d(TAG, "updateGridHeader: Start loading section: " + section.getTitle());
 
-        getView().showProgressBar(true);
+        // Multi grid content depends on the selected item. Don't cache.
+        boolean isCacheable = column == -1 && BrowseSectionCache.isCacheable(section);
+        List<VideoGroup> cachedGroups = isCacheable ? mSectionCache.get(section.getId()) : null;
+        VideoGroup cachedGroup = cachedGroups != null ? cachedGroups.get(0) : null;
 
-        VideoGroup firstGroup = VideoGroup.from(section, column);
-        firstGroup.setAction(VideoGroup.ACTION_REPLACE);
-        getView().updateSection(firstGroup);
+        if (cachedGroup != null) {
+            // Stale-while-revalidate. Show cached grid without a spinner.
+            cachedGroup.setAction(VideoGroup.ACTION_REPLACE);
+            getView().updateSection(cachedGroup);
+
+            if (!forceRefresh && mSectionCache.isFresh(section.getId())) {
+                getView().showProgressBar(false);
+                return;
+            }
+        } else {
+            getView().showProgressBar(true);
+
+            VideoGroup firstGroup = VideoGroup.from(section, column);
+            firstGroup.setAction(VideoGroup.ACTION_REPLACE);
+            getView().updateSection(firstGroup);
+        }
 
         if (group == null) {
             // No group. Maybe just clear.
@@ -735,19 +795,87 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
 
                             VideoGroup videoGroup = VideoGroup.from(mediaGroup, section, column);
                             appendLocalHistory(videoGroup);
-                            getView().updateSection(videoGroup);
+
+                            if (cachedGroup != null) {
+                                videoGroup = applyCachedDiff(cachedGroup, videoGroup, -1);
+                            } else {
+                                getView().updateSection(videoGroup);
+                            }
+
+                            if (isCacheable && !videoGroup.isEmpty()) {
+                                mSectionCache.put(section.getId(), Collections.singletonList(videoGroup), isBootSection(section));
+                            }
+
                             mBrowseProcessor.process(videoGroup);
 
                             continueGroupIfNeeded(videoGroup);
                         },
                         error -> {
                             Log.e(TAG, "updateGridHeader error: %s", error.getMessage());
-                            handleLoadError(error);
+                            if (cachedGroup != null) {
+                                getView().showProgressBar(false); // keep stale content
+                            } else {
+                                handleLoadError(error);
+                            }
                         }, () -> handleLoadError(null));
 
         mActions.add(updateAction);
     }
 
+    /**
+     * Apply fresh group over the cached one that is already displayed.<br/>
+     * Same content: {@link VideoGroup#ACTION_SYNC} (no layout changes). Otherwise: {@link VideoGroup#ACTION_REPLACE}.
+     * @return group that is displayed after the update
+     */
+    private VideoGroup applyCachedDiff(VideoGroup cachedGroup, VideoGroup freshGroup, int position) {
+        // Snapshot groups (from disk) can't be continued. Always replace them.
+        if (cachedGroup != null && cachedGroup.getMediaGroup() != null && BrowseSectionCache.startsWith(cachedGroup, freshGroup)) {
+            if (cachedGroup.getSize() == freshGroup.getSize()) {
+                cachedGroup.setMediaGroup(freshGroup.getMediaGroup()); // continue from the fresh data
+            }
+            freshGroup.setAction(VideoGroup.ACTION_SYNC);
+            getView().updateSection(freshGroup);
+            return cachedGroup;
+        }
+
+        freshGroup.setPosition(position);
+        freshGroup.setAction(VideoGroup.ACTION_REPLACE);
+        getView().updateSection(freshGroup);
+        return freshGroup;
+    }
+
+    /**
+     * Remove cached rows that aren't present in the fresh response.
+     */
+    private void removeStaleRows(List<VideoGroup> cachedGroups, List<VideoGroup> freshGroups) {
+        if (getView() == null) {
+            return;
+        }
+
+        for (VideoGroup cachedGroup : cachedGroups) {
+            if (findGroupById(freshGroups, cachedGroup.getId()) == null) {
+                VideoGroup staleGroup = cachedGroup.copy(); // empty group
+                staleGroup.setPosition(0); // replace by id instead of clearing the whole section
+                staleGroup.setAction(VideoGroup.ACTION_REPLACE);
+                getView().updateSection(staleGroup);
+            }
+        }
+    }
+
+    private static VideoGroup findGroupById(List<VideoGroup> groups, int groupId) {
+        for (VideoGroup group : groups) {
+            if (group.getId() == groupId) {
+                return group;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isBootSection(BrowseSection section) {
+        return section.getId() == getSidebarService().getBootSectionId();
+    }
+
     private void continueGroup(VideoGroup group) {
         continueGroup(group, true);
     }
@@ -763,6 +891,13 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
             return;
         }
 
+        Disposable pendingAction = mContinueActions.get(group.getId());
+
+        if (pendingAction != null && !pendingAction.isDisposed()) {
+            Log.d(TAG, "continueGroup: group is already continuing: " + group.getTitle());
+            return;
+        }
+
         Log.d(TAG, "continueGroup: start continue group: " + group.getTitle());
 
         // Small amount of items == small load time. Loading bar are useless?
@@ -782,9 +917,14 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
 
         continuation = getContentService().continueGroupObserve(mediaGroup);
 
+        long startMs = SystemClock.elapsedRealtime();
+
         Disposable continueAction = continuation
                 .subscribe(
                         continueGroup -> {
+                            mContinueActions.remove(group.getId());
+                            ContinuationPrefetcher.onContinuationFinished(SystemClock.elapsedRealtime() - startMs);
+
                             getView().showProgressBar(false);
 
                             VideoGroup videoGroup = VideoGroup.from(group, continueGroup);
@@ -794,6 +934,7 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
                             continueGroupIfNeeded(videoGroup, showLoading);
                         },
                         error -> {
+                            mContinueActions.remove(group.getId());
                             Log.e(TAG, "continueGroup error: %s", error.getMessage());
                             if (getView() != null) {
                                 getView().showProgressBar(false);
@@ -802,6 +943,7 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
                 );
 
         mActions.add(continueAction);
+        mContinueActions.put(group.getId(), continueAction);
     }
 
     private void authCheck(boolean check, Runnable callback) {
@@ -846,8 +988,8 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
 
     private void disposeActions() {
         RxHelper.disposeActions(mActions);
+        mContinueActions.clear();
         Utils.removeCallbacks(mRefreshSection);
-        mLastUpdateTimeMs = -1;
         mBrowseProcessor.dispose();
     }
 
@@ -1056,6 +1198,9 @@ public class BrowsePresenter extends BasePresenter<BrowseView> implements Sectio
     public void onAccountChanged(Account account) {
         Log.d(TAG, "On account changed");
 
+        // Content of the sections depends on the account
+        mSectionCache.clear();
+
         if (getView() == null) {
             return;
         }
@@ -13,6 +13,8 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.OptionItem;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.UiOptionItem;
 import com.liskovsoft.smartyoutubetv2.common.app.models.search.MediaServiceSearchTagProvider;
+import com.liskovsoft.smartyoutubetv2.common.app.models.search.SearchHistoryIndex;
+import com.liskovsoft.smartyoutubetv2.common.app.models.search.SearchSuggestionCache;
 import com.liskovsoft.smartyoutubetv2.common.app.models.search.vineyard.Tag;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.base.BasePresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.dialogs.VideoActionPresenter;
@@ -66,7 +68,7 @@ public class SearchPresenter extends BasePresenter<SearchView> implements VideoG
             return;
         }
 
-        getView().setTagsProvider(new MediaServiceSearchTagProvider(getSearchData().isSearchHistoryDisabled()));
+        getView().setTagsProvider(new MediaServiceSearchTagProvider(getContext(), getSearchData().isSearchHistoryDisabled()));
 
         startSearchInt();
     }
@@ -123,6 +125,8 @@ public class SearchPresenter extends BasePresenter<SearchView> implements VideoG
                 getContext().getString(R.string.clear_search_history),
                 () -> {
                     MediaServiceManager.instance().clearSearchHistory();
+                    SearchHistoryIndex.instance(getContext()).clear();
+                    SearchSuggestionCache.instance().clear();
                     getView().clearSearchTags();
                 });
     }
@@ -136,6 +140,13 @@ public class SearchPresenter extends BasePresenter<SearchView> implements VideoG
         // Restore the search in case the view unloaded from the memory
         mSearchText = searchText;
 
+        if (!getSearchData().isSearchHistoryDisabled()) {
+            SearchHistoryIndex.instance(getContext()).add(searchText);
+        }
+
+        // Server suggestions contain the search history
+        SearchSuggestionCache.instance().clear();
+
         if (getView() == null) {
             Log.e(TAG, "Search view has been unloaded from the memory. Low RAM?");
             startSearch(searchText);
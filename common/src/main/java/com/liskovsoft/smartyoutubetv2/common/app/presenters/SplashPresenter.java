@@ -20,6 +20,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.presenters.dialogs.AccountSelec
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.dialogs.BootDialogPresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.views.SplashView;
 import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.DecoderCapsCache;
 import com.liskovsoft.smartyoutubetv2.common.misc.GDriveBackupWorker;
 import com.liskovsoft.smartyoutubetv2.common.misc.MediaServiceManager;
 import com.liskovsoft.smartyoutubetv2.common.misc.StreamReminderService;
@@ -99,6 +100,7 @@ public class SplashPresenter extends BasePresenter<SplashView> {
             initProxy();
             initVideoStateService();
             initStreamReminderService();
+            initDecoderCaps();
             //Utils.initVolume(getContext());
         }
     }
@@ -155,6 +157,12 @@ public class SplashPresenter extends BasePresenter<SplashView> {
         }
     }
 
+    private void initDecoderCaps() {
+        if (getContext() != null) {
+            DecoderCapsCache.instance(getContext()).load();
+        }
+    }
+
     private void initStreamReminderService() {
         if (getContext() != null) {
             StreamReminderService.instance(getContext()).start();
@@ -5,6 +5,7 @@ import android.content.Context;
 
 import com.liskovsoft.mediaserviceinterfaces.data.MediaGroup;
 import com.liskovsoft.sharedutils.helpers.MessageHelpers;
+import com.liskovsoft.sharedutils.rx.RxHelper;
 import com.liskovsoft.smartyoutubetv2.common.R;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.OptionItem;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.UiOptionItem;
@@ -12,11 +13,15 @@ import com.liskovsoft.smartyoutubetv2.common.app.presenters.AppDialogPresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.GoogleSignInPresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.base.BasePresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.service.SidebarService;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.QoeRecorder;
 import com.liskovsoft.smartyoutubetv2.common.misc.BackupAndRestoreManager;
 import com.liskovsoft.smartyoutubetv2.common.misc.GDriveBackupManager;
 import com.liskovsoft.smartyoutubetv2.common.misc.GDriveBackupWorker;
 import com.liskovsoft.smartyoutubetv2.common.prefs.GeneralData;
 import com.liskovsoft.smartyoutubetv2.common.utils.AppDialogUtil;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+
+import java.io.File;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -63,6 +68,8 @@ public class BackupSettingsPresenter extends BasePresenter<Void> {
 
         appendSubscriptionsBackupButton(settingsPresenter);
 
+        appendPlaybackStatsButton(settingsPresenter);
+
         settingsPresenter.showDialog(getContext().getString(R.string.app_backup_restore), this::unhold);
     }
 
@@ -137,6 +144,34 @@ public class BackupSettingsPresenter extends BasePresenter<Void> {
         settingsPresenter.appendStringsCategory(getContext().getString(R.string.local_backup), options);
     }
 
+    private void appendPlaybackStatsButton(AppDialogPresenter settingsPresenter) {
+        settingsPresenter.appendSingleButton(UiOptionItem.from(getContext().getString(R.string.playback_stats), optionItem -> {
+            QoeRecorder recorder = QoeRecorder.instance(getContext());
+
+            // Write the latest records before the export
+            RxHelper.runAsync(() -> {
+                File file = recorder.flushBlocking();
+                Utils.post(() -> showPlaybackStatsDialog(recorder, file));
+            });
+        }));
+    }
+
+    private void showPlaybackStatsDialog(QoeRecorder recorder, File file) {
+        if (getContext() == null) {
+            return;
+        }
+
+        BackupAndRestoreManager backupManager = new BackupAndRestoreManager(getContext());
+        AppDialogPresenter settingsPresenter = AppDialogPresenter.instance(getContext());
+        String title = getContext().getString(R.string.playback_stats);
+
+        settingsPresenter.appendLongTextCategory(title, UiOptionItem.from(recorder.getSummary()));
+        settingsPresenter.appendSingleButton(UiOptionItem.from(
+                String.format("%s:\n%s", getContext().getString(R.string.export_playback_stats), backupManager.getExportPath(file)),
+                option -> backupManager.checkPermAndExport(file)));
+        settingsPresenter.showDialog(title);
+    }
+
     private void appendSubscriptionsBackupButton(AppDialogPresenter settingsPresenter) {
         settingsPresenter.appendSingleButton(AppDialogUtil.createSubscriptionsBackupButton(getContext()));
     }
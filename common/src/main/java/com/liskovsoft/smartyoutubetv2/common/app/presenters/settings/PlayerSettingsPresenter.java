@@ -56,6 +56,7 @@ public class PlayerSettingsPresenter extends BasePresenter<Void> {
         appendPlayerButtonsCategory(settingsPresenter);
         appendNetworkEngineCategory(settingsPresenter);
         appendVideoBufferCategory(settingsPresenter);
+        appendSegmentCacheCategory(settingsPresenter);
         appendVideoZoomCategory(settingsPresenter);
         appendVideoSpeedCategory(settingsPresenter);
         appendAudioLanguageCategory(settingsPresenter);
@@ -128,6 +129,24 @@ public class PlayerSettingsPresenter extends BasePresenter<Void> {
         settingsPresenter.appendCategory(category);
     }
 
+    private void appendSegmentCacheCategory(AppDialogPresenter settingsPresenter) {
+        List<OptionItem> options = new ArrayList<>();
+
+        options.add(UiOptionItem.from(
+                getContext().getString(R.string.option_disabled),
+                option -> mPlayerTweaksData.setSegmentCacheSizeMB(0),
+                mPlayerTweaksData.getSegmentCacheSizeMB() == 0));
+
+        for (int sizeMB : new int[] {100, 250, 500, 1000}) {
+            options.add(UiOptionItem.from(
+                    getContext().getString(R.string.segment_cache_size_mb, sizeMB),
+                    option -> mPlayerTweaksData.setSegmentCacheSizeMB(sizeMB),
+                    mPlayerTweaksData.getSegmentCacheSizeMB() == sizeMB));
+        }
+
+        settingsPresenter.appendRadioCategory(getContext().getString(R.string.segment_cache), options);
+    }
+
     private void appendVideoPresetsCategory(AppDialogPresenter settingsPresenter) {
         OptionCategory category = AppDialogUtil.createVideoPresetsCategory(getContext());
         settingsPresenter.appendCategory(category);
@@ -413,22 +432,28 @@ public class PlayerSettingsPresenter extends BasePresenter<Void> {
 
         options.add(UiOptionItem.from(getContext().getString(R.string.player_seek_regular),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableSeekConfirmPause(false);
                     mPlayerData.enableSeekConfirmPlay(false);
+                    mPlayerData.commitBatch();
                 },
                 !mPlayerData.isSeekConfirmPauseEnabled() && !mPlayerData.isSeekConfirmPlayEnabled()));
 
         options.add(UiOptionItem.from(getContext().getString(R.string.player_seek_confirmation_pause),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableSeekConfirmPause(true);
                     mPlayerData.enableSeekConfirmPlay(false);
+                    mPlayerData.commitBatch();
                 },
                 mPlayerData.isSeekConfirmPauseEnabled()));
 
         options.add(UiOptionItem.from(getContext().getString(R.string.player_seek_confirmation_play),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableSeekConfirmPause(false);
                     mPlayerData.enableSeekConfirmPlay(true);
+                    mPlayerData.commitBatch();
                 },
                 mPlayerData.isSeekConfirmPlayEnabled()));
 
@@ -440,22 +465,28 @@ public class PlayerSettingsPresenter extends BasePresenter<Void> {
 
         options.add(UiOptionItem.from(getContext().getString(R.string.option_disabled),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableRemainingTime(false);
                     mPlayerData.enableEndingTime(false);
+                    mPlayerData.commitBatch();
                 },
                 !mPlayerData.isRemainingTimeEnabled() && !mPlayerData.isEndingTimeEnabled()));
 
         options.add(UiOptionItem.from(getContext().getString(R.string.player_show_remaining_time),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableRemainingTime(true);
                     mPlayerData.enableEndingTime(false);
+                    mPlayerData.commitBatch();
                 },
                 mPlayerData.isRemainingTimeEnabled()));
 
         options.add(UiOptionItem.from(getContext().getString(R.string.player_show_ending_time),
                 option -> {
+                    mPlayerData.beginBatch();
                     mPlayerData.enableEndingTime(true);
                     mPlayerData.enableRemainingTime(false);
+                    mPlayerData.commitBatch();
                 },
                 mPlayerData.isEndingTimeEnabled()));
 
@@ -497,6 +528,16 @@ public class PlayerSettingsPresenter extends BasePresenter<Void> {
     private void appendMiscCategory(AppDialogPresenter settingsPresenter) {
         List<OptionItem> options = new ArrayList<>();
 
+        options.add(UiOptionItem.from(getContext().getString(R.string.smart_quality),
+                getContext().getString(R.string.smart_quality_desc),
+                option -> mPlayerTweaksData.enableSmartQuality(option.isSelected()),
+                mPlayerTweaksData.isSmartQualityEnabled()));
+
+        options.add(UiOptionItem.from(getContext().getString(R.string.player_shared_io_threads),
+                getContext().getString(R.string.player_shared_io_threads_desc),
+                option -> mPlayerTweaksData.enableSharedIoThreads(option.isSelected()),
+                mPlayerTweaksData.isSharedIoThreadsEnabled()));
+
         options.add(UiOptionItem.from(getContext().getString(R.string.player_audio_focus),
                 option -> mPlayerTweaksData.enableAudioFocus(option.isSelected()),
                 mPlayerTweaksData.isAudioFocusEnabled()));
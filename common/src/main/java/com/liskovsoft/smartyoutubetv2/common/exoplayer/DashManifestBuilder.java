@@ -0,0 +1,224 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer;
+
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.dash.manifest.AdaptationSet;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.Period;
+import com.google.android.exoplayer2.source.dash.manifest.RangedUri;
+import com.google.android.exoplayer2.source.dash.manifest.Representation;
+import com.google.android.exoplayer2.source.dash.manifest.SegmentBase.SingleSegmentBase;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.liskovsoft.mediaserviceinterfaces.data.MediaFormat;
+import com.liskovsoft.mediaserviceinterfaces.data.MediaItemFormatInfo;
+import com.liskovsoft.mediaserviceinterfaces.data.MediaSubtitle;
+import com.liskovsoft.sharedutils.mylogger.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the static dash manifest right from the adaptive formats (no mpd serialization and xml parsing).<br/>
+ * Single segment formats only (init and index ranges). Groups match the mpd: container, audio language and drc.<br/>
+ * Returns null for everything else (e.g. otf). Use the mpd path in that case.
+ */
+public class DashManifestBuilder {
+    private static final String TAG = DashManifestBuilder.class.getSimpleName();
+    private static final long MIN_BUFFER_TIME_MS = 1_500;
+    private static final int AUDIO_CHANNELS = 2;
+    private static final int SUBTITLE_BITRATE = 268;
+    private static final String DRC_SUFFIX = "-drc";
+
+    @Nullable
+    public static DashManifest build(MediaItemFormatInfo formatInfo) {
+        long startNs = SystemClock.elapsedRealtimeNanos();
+
+        DashManifest manifest = null;
+
+        try {
+            manifest = buildInt(formatInfo);
+        } catch (RuntimeException e) { // malformed format info
+            Log.e(TAG, "Can't build manifest: %s", e.getMessage());
+        }
+
+        Log.d(TAG, "Manifest built: %s, took %s us", manifest != null, (SystemClock.elapsedRealtimeNanos() - startNs) / 1_000);
+
+        return manifest;
+    }
+
+    @Nullable
+    private static DashManifest buildInt(MediaItemFormatInfo formatInfo) {
+        List<MediaFormat> formats = formatInfo.getDashFormats();
+        long durationMs = parseLong(formatInfo.getLengthSeconds()) * 1_000;
+
+        if (formats == null || formats.isEmpty() || durationMs <= 0) {
+            return null;
+        }
+
+        // Container mime type, language and drc to representations. Keeps the order of the formats.
+        Map<String, List<Representation>> groups = new LinkedHashMap<>();
+        // Same itag is allowed once per language and drc variant
+        Set<String> keys = new HashSet<>();
+
+        for (MediaFormat format : formats) {
+            if (format.isOtf() || format.getUrl() == null ||
+                    !keys.add(format.getITag() + format.getLanguage() + format.isDrc())) {
+                return null;
+            }
+
+            Representation representation = createRepresentation(format);
+
+            if (representation == null) {
+                return null;
+            }
+
+            String groupKey = representation.format.containerMimeType + representation.format.language + format.isDrc();
+            List<Representation> group = groups.get(groupKey);
+
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(groupKey, group);
+            }
+
+            group.add(representation);
+        }
+
+        List<AdaptationSet> adaptationSets = new ArrayList<>();
+
+        for (List<Representation> group : groups.values()) {
+            int type = MimeTypes.isVideo(group.get(0).format.sampleMimeType) ? C.TRACK_TYPE_VIDEO : C.TRACK_TYPE_AUDIO;
+            adaptationSets.add(new AdaptationSet(adaptationSets.size(), type, group, null, null));
+        }
+
+        List<MediaSubtitle> subtitles = formatInfo.getSubtitles();
+
+        if (subtitles != null) {
+            for (MediaSubtitle subtitle : subtitles) {
+                Representation representation = createRepresentation(subtitle, adaptationSets.size());
+
+                if (representation == null) {
+                    return null;
+                }
+
+                adaptationSets.add(new AdaptationSet(adaptationSets.size(), C.TRACK_TYPE_TEXT,
+                        Collections.singletonList(representation), null, null));
+            }
+        }
+
+        return new DashManifest(
+                C.TIME_UNSET,
+                durationMs,
+                MIN_BUFFER_TIME_MS,
+                false,
+                C.TIME_UNSET,
+                C.TIME_UNSET,
+                C.TIME_UNSET,
+                C.TIME_UNSET,
+                null,
+                null,
+                null,
+                Collections.singletonList(new Period(null, 0, adaptationSets)));
+    }
+
+    @Nullable
+    private static Representation createRepresentation(MediaFormat mediaFormat) {
+        RangedUri init = parseRange(mediaFormat.getInit());
+        RangedUri index = parseRange(mediaFormat.getIndex());
+        String mimeType = mediaFormat.getMimeType(); // e.g. video/mp4; codecs="avc1.640028"
+
+        if (init == null || index == null || mimeType == null) {
+            return null;
+        }
+
+        String[] parts = mimeType.split(";");
+        String containerMimeType = parts[0].trim();
+        String codecs = parts.length > 1 ? parts[1].replace("codecs=", "").replace("\"", "").trim() : null;
+        String sampleMimeType = MimeTypes.getMediaMimeType(codecs);
+
+        if (sampleMimeType == null) {
+            return null;
+        }
+
+        // Drc mark is checked by the track selector
+        String id = mediaFormat.isDrc() ? mediaFormat.getITag() + DRC_SUFFIX : mediaFormat.getITag();
+        int bitrate = (int) parseLong(mediaFormat.getBitrate());
+        Format format;
+
+        if (MimeTypes.isVideo(sampleMimeType)) {
+            float frameRate = parseLong(mediaFormat.getFps());
+            format = Format.createVideoContainerFormat(id, null, containerMimeType, sampleMimeType, codecs, null,
+                    bitrate > 0 ? bitrate : Format.NO_VALUE, mediaFormat.getWidth(), mediaFormat.getHeight(),
+                    frameRate > 0 ? frameRate : Format.NO_VALUE, null, 0, 0);
+        } else if (MimeTypes.isAudio(sampleMimeType)) {
+            int sampleRate = (int) parseLong(mediaFormat.getAudioSamplingRate());
+            format = Format.createAudioContainerFormat(id, null, containerMimeType, sampleMimeType, codecs, null,
+                    bitrate > 0 ? bitrate : Format.NO_VALUE, AUDIO_CHANNELS, sampleRate > 0 ? sampleRate : Format.NO_VALUE,
+                    null, 0, 0, mediaFormat.getLanguage());
+        } else {
+            return null;
+        }
+
+        SingleSegmentBase segmentBase = new SingleSegmentBase(init, 1, 0, index.start, index.length);
+
+        return Representation.newInstance(-1, format, mediaFormat.getUrl(), segmentBase);
+    }
+
+    /**
+     * Whole file subtitle (vtt or ttml). Language is the display name, same as in the mpd.
+     */
+    @Nullable
+    private static Representation createRepresentation(MediaSubtitle subtitle, int id) {
+        String mimeType = subtitle.getMimeType();
+
+        if (subtitle.getBaseUrl() == null || mimeType == null ||
+                !(MimeTypes.isText(mimeType) || MimeTypes.APPLICATION_TTML.equals(mimeType))) {
+            return null;
+        }
+
+        String language = subtitle.getName() != null ? subtitle.getName() : subtitle.getLanguageCode();
+        Format format = Format.createTextContainerFormat(String.valueOf(id), null, mimeType, mimeType, subtitle.getCodecs(),
+                SUBTITLE_BITRATE, 0, C.ROLE_FLAG_SUBTITLE, language);
+
+        return Representation.newInstance(-1, format, subtitle.getBaseUrl(), new SingleSegmentBase());
+    }
+
+    /**
+     * Range format: 0-219 (both inclusive)
+     */
+    @Nullable
+    private static RangedUri parseRange(String range) {
+        if (range == null) {
+            return null;
+        }
+
+        int separator = range.indexOf('-');
+
+        if (separator <= 0) {
+            return null;
+        }
+
+        long start = parseLong(range.substring(0, separator));
+        long end = parseLong(range.substring(separator + 1));
+
+        return start >= 0 && end >= start ? new RangedUri(null, start, end - start + 1) : null;
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
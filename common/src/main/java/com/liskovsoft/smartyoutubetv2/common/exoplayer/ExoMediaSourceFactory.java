@@ -3,6 +3,7 @@ package com.liskovsoft.smartyoutubetv2.common.exoplayer;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import androidx.annotation.NonNull;
 import com.google.android.exoplayer2.C;
@@ -27,17 +28,20 @@ import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSource.Factory;
 import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
 import com.google.android.exoplayer2.upstream.HttpDataSource.BaseFactory;
+import com.google.android.exoplayer2.upstream.TransferListener;
 import com.google.android.exoplayer2.util.Util;
 import com.liskovsoft.sharedutils.cronet.CronetManager;
 import com.liskovsoft.sharedutils.helpers.FileHelpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.sharedutils.okhttp.OkHttpCommons;
-import com.liskovsoft.sharedutils.okhttp.OkHttpManager;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.cache.SegmentCacheManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.errors.DashDefaultLoadErrorHandlingPolicy;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.errors.TrackErrorFixer;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.CompositeTransferListener;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerNetworkManager;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.ThroughputEstimator;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.youtubeapi.common.helpers.DefaultHeaders;
@@ -45,7 +49,6 @@ import com.liskovsoft.youtubeapi.common.helpers.DefaultHeaders;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 public class ExoMediaSourceFactory {
     private static final String TAG = ExoMediaSourceFactory.class.getSimpleName();
@@ -71,6 +74,13 @@ public class ExoMediaSourceFactory {
         return buildMPDMediaSource(DASH_MANIFEST_URI, dashManifest);
     }
 
+    /**
+     * Manifest is built in memory by {@link DashManifestBuilder}
+     */
+    public MediaSource fromDashManifest(DashManifest dashManifest) {
+        return buildMPDMediaSource(dashManifest);
+    }
+
     public MediaSource fromDashManifestUrl(String dashManifestUrl) {
         return buildMediaSource(Uri.parse(dashManifestUrl), DASH_MANIFEST_EXTENSION);
     }
@@ -167,13 +177,17 @@ public class ExoMediaSourceFactory {
     }
 
     private MediaSource buildMPDMediaSource(Uri uri, InputStream mpdContent) {
+        return buildMPDMediaSource(getManifest(uri, mpdContent));
+    }
+
+    private MediaSource buildMPDMediaSource(DashManifest manifest) {
         // Are you using FrameworkSampleSource or ExtractorSampleSource when you build your player?
         DashMediaSource dashSource = new DashMediaSource.Factory(
                 getDashChunkSourceFactory(),
                 null
         )
                 .setLoadErrorHandlingPolicy(new DashDefaultLoadErrorHandlingPolicy())
-                .createMediaSource(getManifest(uri, mpdContent));
+                .createMediaSource(manifest);
         if (mTrackErrorFixer != null) {
             dashSource.addEventListener(Utils.sHandler, mTrackErrorFixer);
         }
@@ -199,6 +213,7 @@ public class ExoMediaSourceFactory {
     }
 
     private DashManifest getManifest(Uri uri, InputStream mpdContent) {
+        long startNs = SystemClock.elapsedRealtimeNanos();
         DashManifestParser parser = new StaticDashManifestParser();
         DashManifest result;
         try {
@@ -206,6 +221,8 @@ public class ExoMediaSourceFactory {
         } catch (IOException e) {
             throw new IllegalStateException("Malformed mpd file:\n" + mpdContent, e);
         }
+        // Compare with the DashManifestBuilder timings
+        Log.d(TAG, "Manifest parsed, took %s us", (SystemClock.elapsedRealtimeNanos() - startNs) / 1_000);
         return result;
     }
 
@@ -224,8 +241,8 @@ public class ExoMediaSourceFactory {
      * Use OkHttp for networking
      */
     private HttpDataSource.Factory buildOkHttpDataSourceFactory(DefaultBandwidthMeter bandwidthMeter) {
-        OkHttpDataSourceFactory dataSourceFactory = new OkHttpDataSourceFactory(OkHttpManager.instance().getClient(), USER_AGENT,
-                bandwidthMeter);
+        OkHttpDataSourceFactory dataSourceFactory = new OkHttpDataSourceFactory(PlayerNetworkManager.instance().getOkHttpClient(), USER_AGENT,
+                bandwidthMeter != null ? bandwidthMeter : getThroughputListener());
         addCommonHeaders(dataSourceFactory);
         return dataSourceFactory;
     }
@@ -234,9 +251,9 @@ public class ExoMediaSourceFactory {
         CronetDataSourceFactory dataSourceFactory =
                 new CronetDataSourceFactory(
                         new CronetEngineWrapper(CronetManager.getEngine(mContext)),
-                        Executors.newSingleThreadExecutor(),
+                        PlayerNetworkManager.instance().getCronetExecutor(),
                         null,
-                        bandwidthMeter,
+                        getTransferListener(bandwidthMeter),
                         (int) OkHttpCommons.CONNECT_TIMEOUT_MS,
                         (int) OkHttpCommons.READ_TIMEOUT_MS,
                         true,
@@ -249,14 +266,36 @@ public class ExoMediaSourceFactory {
      * Use built-in component for networking
      */
     private HttpDataSource.Factory buildDefaultHttpDataSourceFactory(DefaultBandwidthMeter bandwidthMeter) {
-        DefaultHttpDataSourceFactory dataSourceFactory = new DefaultHttpDataSourceFactory(
-                USER_AGENT, bandwidthMeter, (int) OkHttpCommons.CONNECT_TIMEOUT_MS,
-                (int) OkHttpCommons.READ_TIMEOUT_MS, true); // allowCrossProtocolRedirects = true
+        BaseFactory dataSourceFactory = PlayerNetworkManager.instance().createDefaultDataSourceFactory(
+                USER_AGENT, getTransferListener(bandwidthMeter), (int) OkHttpCommons.CONNECT_TIMEOUT_MS,
+                (int) OkHttpCommons.READ_TIMEOUT_MS);
 
         addCommonHeaders(dataSourceFactory); // cause troubles for some users
         return dataSourceFactory;
     }
 
+    /**
+     * OkHttp reports connection stats by itself
+     */
+    private TransferListener getTransferListener(DefaultBandwidthMeter bandwidthMeter) {
+        if (bandwidthMeter != null) {
+            return bandwidthMeter;
+        }
+
+        TransferListener throughputListener = getThroughputListener();
+
+        return throughputListener != null ?
+                new CompositeTransferListener(PlayerNetworkManager.instance().getTransferListener(), throughputListener) :
+                PlayerNetworkManager.instance().getTransferListener();
+    }
+
+    /**
+     * Feeds the smart quality mode. Null if the mode is disabled.
+     */
+    private TransferListener getThroughputListener() {
+        return PlayerTweaksData.instance(mContext).isSmartQualityEnabled() ? ThroughputEstimator.instance() : null;
+    }
+
     private static void addCommonHeaders(BaseFactory dataSourceFactory) {
         // Doesn't work
         // Trying to fix 429 error (too many requests)
@@ -295,12 +334,25 @@ public class ExoMediaSourceFactory {
         //dataSourceFactory.getDefaultRequestProperties().set("Accept-Encoding", AppConstants.ACCEPT_ENCODING_DEFAULT);
     }
 
+    /**
+     * Network source without the cache layer. Used to fill the cache in background.
+     */
+    public DataSource createUpstreamDataSource() {
+        return buildDataSourceFactory(USE_BANDWIDTH_METER).createDataSource();
+    }
+
     public void setTrackErrorFixer(TrackErrorFixer trackErrorFixer) {
         mTrackErrorFixer = trackErrorFixer;
     }
 
+    /**
+     * Call after the player has released the media sources
+     */
     public void release() {
-        mMediaDataSourceFactory = null;
+        if (mMediaDataSourceFactory != null) {
+            SegmentCacheManager.instance(mContext).release(mMediaDataSourceFactory);
+            mMediaDataSourceFactory = null;
+        }
     }
 
     @NonNull
@@ -315,7 +367,8 @@ public class ExoMediaSourceFactory {
 
     private Factory getMediaDataSourceFactory() {
         if (mMediaDataSourceFactory == null) {
-            mMediaDataSourceFactory = buildDataSourceFactory(USE_BANDWIDTH_METER);
+            // Segment cache is optional. Returns same factory when disabled.
+            mMediaDataSourceFactory = SegmentCacheManager.instance(mContext).wrap(buildDataSourceFactory(USE_BANDWIDTH_METER));
         }
 
         return mMediaDataSourceFactory;
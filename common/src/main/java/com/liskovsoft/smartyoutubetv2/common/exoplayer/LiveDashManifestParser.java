@@ -23,6 +23,7 @@ import com.liskovsoft.sharedutils.querystringparser.UrlQueryStringFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,7 +39,9 @@ public class LiveDashManifestParser extends DashManifestParser {
     private static final long MAX_PAST_STREAM_LENGTH_MS = 12 * 60 * 60 * 1_000;
     private static final long MAX_NEW_STREAM_LENGTH_MS = 30 * 1_000;
     private DashManifest mOldManifest;
-    private long mOldSegmentNum;
+    private LiveSegmentTimeline mTimeline;
+    private final List<LiveSegmentRepresentation> mRepresentations = new ArrayList<>();
+    private boolean mIsTimeBaseReset;
 
     @Override
     public DashManifest parse(Uri uri, InputStream inputStream) throws IOException {
@@ -59,115 +62,122 @@ public class LiveDashManifestParser extends DashManifestParser {
         }
 
         // Optimize ram usage on short streams (< 2 hours)
-        if (getFirstSegmentNum(newManifest) == 0) { // Short stream. No need to do something special.
+        if (mTimeline == null && getFirstSegmentNum(newManifest) == 0) { // Short stream. No need to do something special.
             mOldManifest = newManifest;
-            // Below line will be needed later (> 2 hours), when the stream no longer starts from 0 segment
-            mOldSegmentNum = getLastSegmentNum(newManifest);
             return;
         }
 
-        // Even 4+ hours streams could have different length.
-        // So, we should take into account last segment num instead of first one.
-        long newSegmentNum = getLastSegmentNum(newManifest);
-
-        if (mOldManifest == null) {
-            //recreateMissingSegments(newManifest);
-
-            //newManifest.availabilityStartTimeMs = -1;
-            Period newPeriod = newManifest.getPeriod(0);
-            // TODO: modified
-            //newPeriod.startMs = 0;
-            Helpers.setField(newPeriod, "startMs", 0);
-            mOldSegmentNum = newSegmentNum;
-
-            for (int i = 0; i < newPeriod.adaptationSets.size(); i++) {
-                for (int j = 0; j < newPeriod.adaptationSets.get(i).representations.size(); j++) {
-                    MultiSegmentRepresentation representation = (MultiSegmentRepresentation) newPeriod.adaptationSets.get(i).representations.get(j);
-                    //representation.presentationTimeOffsetUs = 0;
-
-                    // TODO: modified
-                    //SegmentList newSegmentList = (SegmentList) representation.segmentBase;
-                    SegmentList newSegmentList = (SegmentList) Helpers.getField(representation, "segmentBase");
-                    // TODO: modified
-                    //newSegmentList.presentationTimeOffset = 0;
-                    Helpers.setField(newSegmentList, "presentationTimeOffset", 0);
-                    // TODO: modified
-                    //newSegmentList.startNumber = 0;
-                    Helpers.setField(newSegmentList, "startNumber", 0);
-                }
-            }
-
-            mOldManifest = newManifest;
+        if (mTimeline == null) {
+            // Short stream no longer starts from 0 segment (> 2 hours). Keep its segments and time base.
+            boolean isShortStream = mOldManifest != null;
+            DashManifest firstManifest = isShortStream ? mOldManifest : newManifest;
+            mOldManifest = createCompactManifest(firstManifest, !isShortStream);
+            appendSegments(firstManifest);
 
-            return;
+            if (!isShortStream) {
+                logIndexSize();
+                return;
+            }
         }
 
-        //long oldSegmentNum = getFirstSegmentNum(mManifest);
-
-        Period oldPeriod = mOldManifest.getPeriod(0);
-        Period newPeriod = newManifest.getPeriod(0);
+        // Even 4+ hours streams could have different length.
+        // So, we should take into account last segment num instead of first one.
+        appendSegments(newManifest);
+        logIndexSize();
+    }
 
-        for (int i = 0; i < oldPeriod.adaptationSets.size(); i++) {
-            for (int j = 0; j < oldPeriod.adaptationSets.get(i).representations.size(); j++) {
-                appendRepresentation(
-                        oldPeriod.adaptationSets.get(i).representations.get(j),
-                        newPeriod.adaptationSets.get(i).representations.get(j),
-                        newSegmentNum - mOldSegmentNum
-                );
+    /**
+     * Live window grows with every update. Segments are stored in the compact form.<br/>
+     * Period start, presentation time offset and first segment num are zero when the time base is reset.
+     */
+    private DashManifest createCompactManifest(DashManifest manifest, boolean resetTimeBase) {
+        Period period = manifest.getPeriod(0);
+        mTimeline = new LiveSegmentTimeline(getFirstSegmentNum(manifest));
+        mIsTimeBaseReset = resetTimeBase;
+        mRepresentations.clear();
+
+        List<AdaptationSet> adaptationSets = new ArrayList<>();
+
+        for (AdaptationSet adaptationSet : period.adaptationSets) {
+            List<Representation> representations = new ArrayList<>();
+
+            for (Representation representation : adaptationSet.representations) {
+                LiveSegmentRepresentation liveRepresentation =
+                        new LiveSegmentRepresentation(representation, mTimeline, resetTimeBase ? 0 : representation.presentationTimeOffsetUs);
+                representations.add(liveRepresentation);
+                mRepresentations.add(liveRepresentation);
             }
+
+            adaptationSets.add(new AdaptationSet(adaptationSet.id, adaptationSet.type, representations,
+                    adaptationSet.accessibilityDescriptors, adaptationSet.supplementalProperties));
         }
 
-        mOldSegmentNum = newSegmentNum;
+        Period compactPeriod = new Period(period.id, resetTimeBase ? 0 : period.startMs, adaptationSets, period.eventStreams);
 
-        //mManifest.timeShiftBufferDepthMs += (newSegmentNum - oldSegmentNum) * 5_000;
+        return new DashManifest(manifest.availabilityStartTimeMs, manifest.durationMs, manifest.minBufferTimeMs, manifest.dynamic,
+                manifest.minUpdatePeriodMs, manifest.timeShiftBufferDepthMs, manifest.suggestedPresentationDelayMs, manifest.publishTimeMs,
+                manifest.programInformation, manifest.utcTiming, manifest.location, Collections.singletonList(compactPeriod));
     }
 
-    private static void appendRepresentation(Representation oldRepresentation, Representation newRepresentation, long segmentNumShift) {
-        if (segmentNumShift <= 0) {
-            return;
+    /**
+     * Only segments that are newer than the last known one are added
+     */
+    private void appendSegments(DashManifest newManifest) {
+        List<Representation> newRepresentations = new ArrayList<>();
+
+        for (AdaptationSet adaptationSet : newManifest.getPeriod(0).adaptationSets) {
+            newRepresentations.addAll(adaptationSet.representations);
         }
 
-        MultiSegmentRepresentation oldMultiRepresentation = (MultiSegmentRepresentation) oldRepresentation;
-        MultiSegmentRepresentation newMultiRepresentation = (MultiSegmentRepresentation) newRepresentation;
+        if (newRepresentations.size() != mRepresentations.size()) {
+            Log.e(TAG, "Can't append segments. Representations count changed: %s -> %s", mRepresentations.size(), newRepresentations.size());
+            return;
+        }
 
-        // TODO: modified
-        //SegmentList oldSegmentList = (SegmentList) oldRepresentation.segmentBase;
-        SegmentList oldSegmentList = (SegmentList) Helpers.getField(oldMultiRepresentation, "segmentBase");
-        // TODO: modified
-        //SegmentList newSegmentList = (SegmentList) newRepresentation.segmentBase;
-        SegmentList newSegmentList = (SegmentList) Helpers.getField(newMultiRepresentation, "segmentBase");
+        Representation timelineRepresentation = newRepresentations.get(0);
+        DashSegmentIndex timelineIndex = timelineRepresentation.getIndex();
+        long lastSegmentNum = getLastSegmentNum(newManifest);
+        long nextSequenceNum = mTimeline.getNextSequenceNum();
+        long firstSegmentNum = Math.max(nextSequenceNum, timelineIndex.getFirstSegmentNum());
 
-        // TODO: modified
-        //List<RangedUri> oldMediaSegments = oldSegmentList.mediaSegments;
-        List<RangedUri> oldMediaSegments = (List<RangedUri>) Helpers.getField(oldSegmentList, "mediaSegments");
-        // TODO: modified
-        //List<RangedUri> newMediaSegments = newSegmentList.mediaSegments;
-        List<RangedUri> newMediaSegments = (List<RangedUri>) Helpers.getField(newSegmentList, "mediaSegments");
+        if (firstSegmentNum > nextSequenceNum) {
+            // The timeline starts a new run. Urls of the next segments keep their own sequence numbers.
+            Log.e(TAG, "Segments %s-%s are missing", nextSequenceNum, firstSegmentNum - 1);
+        }
 
-        oldMediaSegments.addAll(
-                newMediaSegments.subList(newMediaSegments.size() - (int) segmentNumShift, newMediaSegments.size()));
+        for (long segmentNum = firstSegmentNum; segmentNum <= lastSegmentNum; segmentNum++) {
+            long index = mTimeline.getSegmentCount();
+            long timeOffsetUs = mIsTimeBaseReset ? timelineRepresentation.presentationTimeOffsetUs : 0;
+            mTimeline.append(segmentNum, timelineIndex.getTimeUs(segmentNum) + timeOffsetUs, timelineIndex.getDurationUs(segmentNum, C.TIME_UNSET));
 
-        // TODO: modified
-        //List<SegmentTimelineElement> oldSegmentTimeline = oldSegmentList.segmentTimeline;
-        List<SegmentTimelineElement> oldSegmentTimeline = (List<SegmentTimelineElement>) Helpers.getField(oldSegmentList, "segmentTimeline");
+            for (int i = 0; i < newRepresentations.size(); i++) {
+                Representation newRepresentation = newRepresentations.get(i);
+                RangedUri segmentUrl = newRepresentation.getIndex().getSegmentUrl(segmentNum);
+                String url = segmentUrl.resolveUriString(newRepresentation.baseUrl);
 
-        // segmentTimeline is the same for all segments
-        if (oldMediaSegments.size() != oldSegmentTimeline.size()) {
-            SegmentTimelineElement lastTimeline = oldSegmentTimeline.get(oldSegmentTimeline.size() - 1);
-            // TODO: modified
-            //long lastTimelineDuration = lastTimeline.duration;
-            long lastTimelineDuration = (Long) Helpers.getField(lastTimeline, "duration");
-            // TODO: modified
-            //long lastTimelineStartTime = lastTimeline.startTime;
-            long lastTimelineStartTime = (Long) Helpers.getField(lastTimeline, "startTime");
+                // Relative urls are resolved against the base url of the first manifest
+                if (url.startsWith(newRepresentation.baseUrl)) {
+                    url = url.substring(newRepresentation.baseUrl.length());
+                }
 
-            for (int i = 1; i <= segmentNumShift; i++) {
-                oldSegmentTimeline.add(new SegmentTimelineElement(lastTimelineStartTime + (lastTimelineDuration * i), lastTimelineDuration));
+                mRepresentations.get(i).appendUrl(index, segmentNum, url, segmentUrl.start, segmentUrl.length);
             }
+        }
+    }
+
+    private void logIndexSize() {
+        long sizeBytes = mTimeline.getEstimatedSizeBytes();
 
-            //oldSegmentTimeline.addAll(
-            //        newSegmentList.segmentTimeline.subList(newSegmentList.segmentTimeline.size() - (int) segmentNumShift - 1, newSegmentList.segmentTimeline.size()));
+        for (LiveSegmentRepresentation representation : mRepresentations) {
+            sizeBytes += representation.getEstimatedSizeBytes();
         }
+
+        int segmentCount = mTimeline.getSegmentCount();
+        long windowMs = segmentCount > 0 ? (mTimeline.getTimeUs(segmentCount - 1) + mTimeline.getDurationUs(segmentCount - 1) - mTimeline.getTimeUs(0)) / 1_000 : 0;
+        long windowHours = Math.max(1, windowMs / (60 * 60 * 1_000));
+
+        Log.d(TAG, "Segment index: %s segments, %s runs, %s representations, %s min window, %s KB (%s KB per hour)",
+                segmentCount, mTimeline.getRunCount(), mRepresentations.size(), windowMs / 60_000, sizeBytes / 1_024, sizeBytes / 1_024 / windowHours);
     }
 
     private static void recreateMissingSegments(DashManifest manifest) {
@@ -0,0 +1,135 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.dash.manifest.RangedUri;
+import com.google.android.exoplayer2.source.dash.manifest.Representation;
+import com.google.android.exoplayer2.source.dash.manifest.Representation.MultiSegmentRepresentation;
+import com.google.android.exoplayer2.source.dash.manifest.SegmentBase.SegmentList;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Live representation without per segment objects.<br/>
+ * Segment url is built from the template (sequence number substitution). Timeline is shared between representations.<br/>
+ * Only urls that don't match the template are stored.
+ */
+class LiveSegmentRepresentation extends MultiSegmentRepresentation {
+    private final LiveSegmentTimeline mTimeline;
+    private final Map<Long, RangedUri> mExplicitUrls = new HashMap<>();
+    private String mUrlPrefix;
+    private String mUrlSuffix;
+    private long mUrlStart;
+    private long mUrlLength;
+
+    /**
+     * @param presentationTimeOffsetUs zero when the offset is included in the timeline (time base is reset)
+     */
+    LiveSegmentRepresentation(Representation origin, LiveSegmentTimeline timeline, long presentationTimeOffsetUs) {
+        // Segment list keeps only the init segment and the offset of the samples
+        super(origin.revisionId, origin.format, origin.baseUrl,
+                new SegmentList(origin.getInitializationUri(), C.MICROS_PER_SECOND, presentationTimeOffsetUs, 0, 1, null, Collections.emptyList()),
+                origin.inbandEventStreams);
+        mTimeline = timeline;
+    }
+
+    /**
+     * Url is relative to the base url of the representation
+     */
+    public synchronized void appendUrl(long segmentNum, long sequenceNum, String url, long start, long length) {
+        if (mUrlPrefix == null && !initTemplate(sequenceNum, url, start, length)) {
+            mExplicitUrls.put(segmentNum, new RangedUri(url, start, length));
+            return;
+        }
+
+        if (start != mUrlStart || length != mUrlLength || !url.equals(createUrl(sequenceNum))) {
+            mExplicitUrls.put(segmentNum, new RangedUri(url, start, length));
+        }
+    }
+
+    public synchronized long getEstimatedSizeBytes() {
+        long result = 0;
+
+        for (RangedUri url : mExplicitUrls.values()) {
+            // Map entry + Long key + RangedUri + String
+            result += 32 + 16 + 32 + 40 + url.toString().length() * 2L;
+        }
+
+        return result + (mUrlPrefix != null ? (mUrlPrefix.length() + mUrlSuffix.length()) * 2L : 0);
+    }
+
+    // DashSegmentIndex implementation.
+
+    @Override
+    public synchronized RangedUri getSegmentUrl(long segmentIndex) {
+        RangedUri result = mExplicitUrls.get(segmentIndex);
+
+        if (result == null && mUrlPrefix != null) {
+            long sequenceNum = mTimeline.getSequenceNum(segmentIndex);
+            result = sequenceNum != -1 ? new RangedUri(createUrl(sequenceNum), mUrlStart, mUrlLength) : null;
+        }
+
+        return result;
+    }
+
+    @Override
+    public long getSegmentNum(long timeUs, long periodDurationUs) {
+        return mTimeline.getSegmentNum(timeUs);
+    }
+
+    @Override
+    public long getTimeUs(long segmentIndex) {
+        return mTimeline.getTimeUs(segmentIndex);
+    }
+
+    @Override
+    public long getDurationUs(long segmentIndex, long periodDurationUs) {
+        return mTimeline.getDurationUs(segmentIndex);
+    }
+
+    @Override
+    public long getFirstSegmentNum() {
+        return 0;
+    }
+
+    @Override
+    public int getSegmentCount(long periodDurationUs) {
+        return mTimeline.getSegmentCount();
+    }
+
+    @Override
+    public boolean isExplicit() {
+        return true;
+    }
+
+    private String createUrl(long sequenceNum) {
+        return mUrlPrefix + sequenceNum + mUrlSuffix;
+    }
+
+    /**
+     * Example: sq/1234/lmt/1700000000000000
+     */
+    private boolean initTemplate(long sequenceNum, String url, long start, long length) {
+        String sequence = String.valueOf(sequenceNum);
+        int index = url.indexOf(sequence);
+
+        while (index != -1) {
+            int end = index + sequence.length();
+            boolean isWholeNumber = (index == 0 || !Character.isDigit(url.charAt(index - 1))) &&
+                    (end == url.length() || !Character.isDigit(url.charAt(end)));
+
+            if (isWholeNumber) {
+                mUrlPrefix = url.substring(0, index);
+                mUrlSuffix = url.substring(end);
+                mUrlStart = start;
+                mUrlLength = length;
+                return true;
+            }
+
+            index = url.indexOf(sequence, index + 1);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,160 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer;
+
+import java.util.Arrays;
+
+/**
+ * Segment timeline of the live stream shared by all representations (segments are aligned).<br/>
+ * Segments of the same duration and consecutive sequence numbers are stored as one run. Segment numbers start from zero.<br/>
+ * Each run keeps its first sequence number, so the gaps in the live window don't shift the urls.
+ */
+class LiveSegmentTimeline {
+    private static final int INITIAL_CAPACITY = 16;
+    private final long mFirstSequenceNum;
+    private long[] mRunFirstSequenceNums = new long[INITIAL_CAPACITY];
+    private long[] mRunStartTimesUs = new long[INITIAL_CAPACITY];
+    private long[] mRunDurationsUs = new long[INITIAL_CAPACITY];
+    // Number of segments up to the end of the run (exclusive)
+    private int[] mRunEndNums = new int[INITIAL_CAPACITY];
+    private int mRunCount;
+
+    /**
+     * @param firstSequenceNum sequence number of the first segment expected (sq param of the url)
+     */
+    LiveSegmentTimeline(long firstSequenceNum) {
+        mFirstSequenceNum = firstSequenceNum;
+    }
+
+    /**
+     * Sequence number of the segment that will be appended next (if there's no gap)
+     */
+    public synchronized long getNextSequenceNum() {
+        if (mRunCount == 0) {
+            return mFirstSequenceNum;
+        }
+
+        int last = mRunCount - 1;
+
+        return mRunFirstSequenceNums[last] + mRunEndNums[last] - getRunFirstNum(last);
+    }
+
+    /**
+     * Sequence number (sq param of the url) of the segment
+     */
+    public synchronized long getSequenceNum(long segmentNum) {
+        int run = findRun(segmentNum);
+
+        return run != -1 ? mRunFirstSequenceNums[run] + segmentNum - getRunFirstNum(run) : -1;
+    }
+
+    public synchronized void append(long sequenceNum, long startTimeUs, long durationUs) {
+        if (mRunCount > 0) {
+            int last = mRunCount - 1;
+            int lastRunSegments = mRunEndNums[last] - getRunFirstNum(last);
+            long nextStartTimeUs = mRunStartTimesUs[last] + lastRunSegments * mRunDurationsUs[last];
+
+            if (mRunDurationsUs[last] == durationUs && nextStartTimeUs == startTimeUs &&
+                    mRunFirstSequenceNums[last] + lastRunSegments == sequenceNum) {
+                mRunEndNums[last]++;
+                return;
+            }
+        }
+
+        if (mRunCount == mRunEndNums.length) {
+            int capacity = mRunCount * 2;
+            mRunFirstSequenceNums = Arrays.copyOf(mRunFirstSequenceNums, capacity);
+            mRunStartTimesUs = Arrays.copyOf(mRunStartTimesUs, capacity);
+            mRunDurationsUs = Arrays.copyOf(mRunDurationsUs, capacity);
+            mRunEndNums = Arrays.copyOf(mRunEndNums, capacity);
+        }
+
+        mRunFirstSequenceNums[mRunCount] = sequenceNum;
+        mRunStartTimesUs[mRunCount] = startTimeUs;
+        mRunDurationsUs[mRunCount] = durationUs;
+        mRunEndNums[mRunCount] = getSegmentCountInt() + 1;
+        mRunCount++;
+    }
+
+    public synchronized int getSegmentCount() {
+        return getSegmentCountInt();
+    }
+
+    public synchronized long getTimeUs(long segmentNum) {
+        int run = findRun(segmentNum);
+
+        if (run == -1) {
+            return 0;
+        }
+
+        return mRunStartTimesUs[run] + (segmentNum - getRunFirstNum(run)) * mRunDurationsUs[run];
+    }
+
+    public synchronized long getDurationUs(long segmentNum) {
+        int run = findRun(segmentNum);
+
+        return run != -1 ? mRunDurationsUs[run] : 0;
+    }
+
+    /**
+     * Segment that contains the given time (clamped to the available segments)
+     */
+    public synchronized long getSegmentNum(long timeUs) {
+        if (mRunCount == 0) {
+            return 0;
+        }
+
+        int low = 0;
+        int high = mRunCount - 1;
+
+        // Last run that starts before the time
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mRunStartTimesUs[mid] <= timeUs) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int firstNum = getRunFirstNum(low);
+        long offsetNum = timeUs > mRunStartTimesUs[low] && mRunDurationsUs[low] > 0 ? (timeUs - mRunStartTimesUs[low]) / mRunDurationsUs[low] : 0;
+
+        return Math.min(firstNum + offsetNum, mRunEndNums[low] - 1);
+    }
+
+    public synchronized int getRunCount() {
+        return mRunCount;
+    }
+
+    public synchronized long getEstimatedSizeBytes() {
+        return (long) mRunEndNums.length * (8 + 8 + 8 + 4);
+    }
+
+    private int getSegmentCountInt() {
+        return mRunCount > 0 ? mRunEndNums[mRunCount - 1] : 0;
+    }
+
+    private int getRunFirstNum(int run) {
+        return run > 0 ? mRunEndNums[run - 1] : 0;
+    }
+
+    private int findRun(long segmentNum) {
+        if (segmentNum < 0 || segmentNum >= getSegmentCountInt()) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = mRunCount - 1;
+
+        // First run that ends after the segment
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mRunEndNums[mid] <= segmentNum) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,171 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.cache;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.dash.manifest.AdaptationSet;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.source.dash.manifest.RangedUri;
+import com.google.android.exoplayer2.source.dash.manifest.Representation;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.ExoMediaSourceFactory;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
+import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warms up the segment cache with the beginning of the next video.<br/>
+ * Loads header (init + index) and first seconds of the media of one video and one audio representation.<br/>
+ * Uses the small prefetch cache when the segment cache is disabled.
+ */
+public class DashPrefetcher {
+    private static final String TAG = DashPrefetcher.class.getSimpleName();
+    private static final Uri DASH_MANIFEST_URI = Uri.parse("https://example.com/test.mpd");
+    private static final int PRELOAD_DURATION_SEC = 5;
+    private static final int DEFAULT_VIDEO_HEIGHT = 1080;
+    private final SegmentCacheManager mCacheManager;
+    private final ExoMediaSourceFactory mMediaSourceFactory;
+    private final PlayerData mPlayerData;
+
+    public DashPrefetcher(Context context) {
+        mCacheManager = SegmentCacheManager.instance(context);
+        mMediaSourceFactory = new ExoMediaSourceFactory(context);
+        mPlayerData = PlayerData.instance(context);
+    }
+
+    /**
+     * Blocking call. Run it on the background thread.
+     */
+    public void prefetch(byte[] dashManifest, AtomicBoolean isCanceled) {
+        if (dashManifest == null) {
+            return;
+        }
+
+        try {
+            prefetch(new DashManifestParser().parse(DASH_MANIFEST_URI, new ByteArrayInputStream(dashManifest)), isCanceled);
+        } catch (IOException e) {
+            Log.e(TAG, "Prefetch error: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Blocking call. Run it on the background thread.<br/>
+     * The manifest is made by the {@link com.liskovsoft.smartyoutubetv2.common.exoplayer.DashManifestBuilder}.
+     */
+    public void prefetch(DashManifest manifest, AtomicBoolean isCanceled) {
+        if (manifest == null || manifest.getPeriodCount() == 0) {
+            return;
+        }
+
+        List<AdaptationSet> adaptationSets = manifest.getPeriod(0).adaptationSets;
+
+        try {
+            preload(selectVideo(adaptationSets), isCanceled);
+            preload(selectAudio(adaptationSets), isCanceled);
+        } catch (IOException | InterruptedException e) {
+            Log.e(TAG, "Prefetch error: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Manifest stream can be consumed only once. Keep the content to open it later.
+     */
+    @Nullable
+    public static byte[] toBytes(InputStream dashManifest) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8 * 1024];
+        int length;
+
+        try {
+            while ((length = dashManifest.read(buffer)) != -1) {
+                result.write(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read manifest: %s", e.getMessage());
+            return null;
+        }
+
+        return result.toByteArray();
+    }
+
+    private void preload(@Nullable Representation representation, AtomicBoolean isCanceled) throws IOException, InterruptedException {
+        if (representation == null || isCanceled.get()) {
+            return;
+        }
+
+        long headerEnd = Math.max(getEnd(representation.getInitializationUri()), getEnd(representation.getIndexUri()));
+
+        if (headerEnd <= 0) {
+            return;
+        }
+
+        long mediaLength = representation.format.bitrate != Format.NO_VALUE ? (long) representation.format.bitrate / 8 * PRELOAD_DURATION_SEC : 0;
+
+        DataSpec dataSpec = new DataSpec(Uri.parse(representation.baseUrl), 0, headerEnd + mediaLength, null);
+        mCacheManager.preload(dataSpec, mMediaSourceFactory.createUpstreamDataSource(), isCanceled);
+    }
+
+    /**
+     * Closest to the user's preferred quality (not higher)
+     */
+    @Nullable
+    private Representation selectVideo(List<AdaptationSet> adaptationSets) {
+        FormatItem format = mPlayerData.getFormat(FormatItem.TYPE_VIDEO);
+        int maxHeight = format != null && format.getHeight() > 0 ? format.getHeight() : DEFAULT_VIDEO_HEIGHT;
+        Representation result = null;
+
+        for (AdaptationSet adaptationSet : adaptationSets) {
+            if (adaptationSet.type != C.TRACK_TYPE_VIDEO) {
+                continue;
+            }
+
+            for (Representation representation : adaptationSet.representations) {
+                int height = representation.format.height;
+
+                if (height > maxHeight) {
+                    continue;
+                }
+
+                if (result == null || height > result.format.height ||
+                        (height == result.format.height && representation.format.bitrate < result.format.bitrate)) {
+                    result = representation;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private static Representation selectAudio(List<AdaptationSet> adaptationSets) {
+        Representation result = null;
+
+        for (AdaptationSet adaptationSet : adaptationSets) {
+            if (adaptationSet.type != C.TRACK_TYPE_AUDIO) {
+                continue;
+            }
+
+            for (Representation representation : adaptationSet.representations) {
+                if (result == null || representation.format.bitrate > result.format.bitrate) {
+                    result = representation;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static long getEnd(@Nullable RangedUri rangedUri) {
+        return rangedUri != null && rangedUri.length != C.LENGTH_UNSET ? rangedUri.start + rangedUri.length : 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.cache;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes media segments through the disk cache.<br/>
+ * Everything else (manifests, live segments, subtitles) goes directly to the network.
+ */
+public class SegmentCacheDataSource implements DataSource {
+    private final DataSource mCacheDataSource;
+    private final DataSource mUpstreamDataSource;
+    private final SegmentCacheManager mCacheManager;
+    @Nullable
+    private DataSource mCurrentDataSource;
+
+    public static class Factory implements DataSource.Factory {
+        private final DataSource.Factory mCacheDataSourceFactory;
+        private final DataSource.Factory mUpstreamFactory;
+        private final SegmentCacheManager mCacheManager;
+
+        public Factory(DataSource.Factory cacheDataSourceFactory, DataSource.Factory upstreamFactory, SegmentCacheManager cacheManager) {
+            mCacheDataSourceFactory = cacheDataSourceFactory;
+            mUpstreamFactory = upstreamFactory;
+            mCacheManager = cacheManager;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new SegmentCacheDataSource(
+                    mCacheDataSourceFactory.createDataSource(), mUpstreamFactory.createDataSource(), mCacheManager);
+        }
+    }
+
+    private SegmentCacheDataSource(DataSource cacheDataSource, DataSource upstreamDataSource, SegmentCacheManager cacheManager) {
+        mCacheDataSource = cacheDataSource;
+        mUpstreamDataSource = upstreamDataSource;
+        mCacheManager = cacheManager;
+    }
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+        // Cache data source passes the listener to its own upstream
+        mCacheDataSource.addTransferListener(transferListener);
+        mUpstreamDataSource.addTransferListener(transferListener);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        if (SegmentCacheKeyFactory.isCacheable(dataSpec)) {
+            mCurrentDataSource = mCacheDataSource;
+            mCacheManager.onCacheableRequest();
+        } else {
+            mCurrentDataSource = mUpstreamDataSource;
+        }
+
+        return mCurrentDataSource.open(dataSpec);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+        int bytesRead = mCurrentDataSource.read(buffer, offset, readLength);
+
+        if (bytesRead > 0 && mCurrentDataSource == mCacheDataSource) {
+            mCacheManager.onCacheableBytesRead(bytesRead);
+        }
+
+        return bytesRead;
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        return mCurrentDataSource != null ? mCurrentDataSource.getUri() : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+        return mCurrentDataSource != null ? mCurrentDataSource.getResponseHeaders() : Collections.emptyMap();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mCurrentDataSource != null) {
+            try {
+                mCurrentDataSource.close();
+            } finally {
+                mCurrentDataSource = null;
+            }
+        }
+    }
+}
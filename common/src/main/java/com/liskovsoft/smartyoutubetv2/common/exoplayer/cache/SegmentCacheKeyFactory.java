@@ -0,0 +1,84 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.cache;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+
+/**
+ * Builds cache keys that survive YouTube url re-signing.<br/>
+ * Signed googlevideo urls expire and change on every format info fetch,<br/>
+ * so the key is made only from the stable parts: video id, itag, last modified and url range (if any).<br/>
+ * Byte ranges requested through Range header are tracked by the cache itself (span positions).
+ */
+public class SegmentCacheKeyFactory implements CacheKeyFactory {
+    private static final String GOOGLE_VIDEO_HOST = "googlevideo.com";
+    private static final String PARAM_ID = "id";
+    private static final String PARAM_ITAG = "itag";
+    private static final String PARAM_LMT = "lmt";
+    private static final String PARAM_RANGE = "range";
+    private static final String PARAM_SEQUENCE = "sq";
+    private static final String PARAM_LIVE = "live";
+
+    @Override
+    public String buildCacheKey(DataSpec dataSpec) {
+        String key = getStableKey(dataSpec.uri);
+        return key != null ? key : CacheUtil.DEFAULT_CACHE_KEY_FACTORY.buildCacheKey(dataSpec);
+    }
+
+    @Override
+    public int maxDownloadParallelSegments() {
+        return CacheUtil.DEFAULT_CACHE_KEY_FACTORY.maxDownloadParallelSegments();
+    }
+
+    /**
+     * Is it safe to store the content of this url on the disk.<br/>
+     * Manifests, live segments and urls of unknown origin should bypass the cache.
+     */
+    public static boolean isCacheable(DataSpec dataSpec) {
+        return getStableKey(dataSpec.uri) != null;
+    }
+
+    /**
+     * Format: yt:videoId:itag[:lmt][:range]
+     */
+    @Nullable
+    private static String getStableKey(@Nullable Uri uri) {
+        if (uri == null || uri.isOpaque() || uri.getHost() == null || !uri.getHost().endsWith(GOOGLE_VIDEO_HOST)) {
+            return null;
+        }
+
+        // Live segments are never the same (sq is moving forward) and DVR window could be huge
+        if (uri.getQueryParameter(PARAM_SEQUENCE) != null || uri.getQueryParameter(PARAM_LIVE) != null ||
+                uri.getPath() != null && uri.getPath().contains("/" + PARAM_SEQUENCE + "/")) {
+            return null;
+        }
+
+        String videoId = uri.getQueryParameter(PARAM_ID);
+        String itag = uri.getQueryParameter(PARAM_ITAG);
+
+        if (videoId == null || itag == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder("yt:")
+                .append(videoId)
+                .append(':')
+                .append(itag);
+
+        String lmt = uri.getQueryParameter(PARAM_LMT);
+
+        if (lmt != null) {
+            key.append(':').append(lmt);
+        }
+
+        String range = uri.getQueryParameter(PARAM_RANGE);
+
+        if (range != null) {
+            key.append(':').append(range);
+        }
+
+        return key.toString();
+    }
+}
@@ -0,0 +1,242 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.cache;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.database.ExoDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded on-disk cache of the DASH segments.<br/>
+ * Makes seek back, replay and quality re-selection instant (no re-download).<br/>
+ * Size limit is taken from {@link PlayerTweaksData#getSegmentCacheSizeMB()}.<br/>
+ * Zero means disabled: only a small prefetch cache is kept (next video start). The player reads it but doesn't write to it.<br/>
+ * The prefetch cache is created by the first prefetch. Until then the player reads the network directly.
+ */
+public class SegmentCacheManager implements CacheDataSource.EventListener {
+    private static final String TAG = SegmentCacheManager.class.getSimpleName();
+    private static final String CACHE_DIR_NAME = "exo_segments";
+    private static final String PREFETCH_DIR_NAME = "exo_prefetch";
+    private static final long PREFETCH_CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+    @SuppressLint("StaticFieldLeak")
+    private static SegmentCacheManager sInstance;
+    private final Context mContext;
+    private final PlayerTweaksData mPlayerTweaksData;
+    private SimpleCache mCache;
+    private ExoDatabaseProvider mDatabaseProvider;
+    private long mCacheSizeBytes;
+    private boolean mIsPrefetchOnly;
+    // Factories and preloads that may still read from the current cache
+    private int mHolders;
+    private final AtomicLong mRequestCount = new AtomicLong();
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mTotalBytes = new AtomicLong();
+    private final AtomicLong mCachedBytes = new AtomicLong();
+
+    private SegmentCacheManager(Context context) {
+        mContext = context;
+        mPlayerTweaksData = PlayerTweaksData.instance(context);
+    }
+
+    public static SegmentCacheManager instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SegmentCacheManager(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    public boolean isEnabled() {
+        return mPlayerTweaksData.getSegmentCacheSizeMB() > 0;
+    }
+
+    /**
+     * Wraps network factory with the cache layer. Returns the same factory when there's no cache (disabled and nothing prefetched, or error).<br/>
+     * Pass the result to {@link #release(DataSource.Factory)} after the player has released its sources.
+     */
+    public DataSource.Factory wrap(DataSource.Factory upstreamFactory) {
+        SimpleCache cache;
+        boolean isPrefetchOnly;
+
+        synchronized (this) {
+            cache = getCache(false);
+
+            if (cache == null) {
+                return upstreamFactory;
+            }
+
+            isPrefetchOnly = mIsPrefetchOnly;
+            mHolders++;
+        }
+
+        CacheDataSourceFactory cacheDataSourceFactory = new CacheDataSourceFactory(
+                cache,
+                upstreamFactory,
+                new FileDataSourceFactory(),
+                // Prefetch only: read prefetched segments, don't store the played ones
+                isPrefetchOnly ? null : new CacheDataSinkFactory(cache, CacheDataSink.DEFAULT_FRAGMENT_SIZE),
+                CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR,
+                this,
+                new SegmentCacheKeyFactory());
+
+        return new SegmentCacheDataSource.Factory(cacheDataSourceFactory, upstreamFactory, this);
+    }
+
+    /**
+     * Cache resize is postponed until all wrapped factories are released
+     */
+    public synchronized void release(DataSource.Factory factory) {
+        if (factory instanceof SegmentCacheDataSource.Factory && mHolders > 0) {
+            mHolders--;
+        }
+    }
+
+    /**
+     * Blocking load of the given range into the cache (the prefetch cache when the segment cache is disabled).
+     */
+    public void preload(DataSpec dataSpec, DataSource upstream, AtomicBoolean isCanceled) throws IOException, InterruptedException {
+        SimpleCache cache;
+
+        synchronized (this) {
+            cache = getCache(true);
+
+            if (cache == null || !SegmentCacheKeyFactory.isCacheable(dataSpec)) {
+                return;
+            }
+
+            mHolders++;
+        }
+
+        try {
+            CacheUtil.cache(dataSpec, cache, new SegmentCacheKeyFactory(), upstream, null, isCanceled);
+        } finally {
+            synchronized (this) {
+                mHolders--;
+            }
+        }
+    }
+
+    /**
+     * @param isPrefetch the prefetch cache (segment cache is disabled) is created by the prefetch only
+     */
+    @Nullable
+    private synchronized SimpleCache getCache(boolean isPrefetch) {
+        long cacheSizeBytes = mPlayerTweaksData.getSegmentCacheSizeMB() * 1024L * 1024L;
+        boolean isPrefetchOnly = cacheSizeBytes <= 0;
+
+        if (isPrefetchOnly) {
+            cacheSizeBytes = PREFETCH_CACHE_SIZE_BYTES;
+        }
+
+        // Data sources may still read from the current cache. Resize after the playback.
+        if (mCache != null && ((mCacheSizeBytes == cacheSizeBytes && mIsPrefetchOnly == isPrefetchOnly) || mHolders > 0)) {
+            return mCache;
+        }
+
+        // Size or mode changed. Evictor capacity can't be changed on the fly.
+        releaseCache();
+
+        // Remove the content of the other mode
+        deleteDir(isPrefetchOnly ? CACHE_DIR_NAME : PREFETCH_DIR_NAME);
+
+        if (isPrefetchOnly && !isPrefetch) {
+            // Nothing is prefetched yet. Playback goes without the cache layer.
+            return null;
+        }
+
+        File cacheDir = new File(mContext.getCacheDir(), isPrefetchOnly ? PREFETCH_DIR_NAME : CACHE_DIR_NAME);
+
+        try {
+            mCache = new SimpleCache(cacheDir, new LeastRecentlyUsedCacheEvictor(cacheSizeBytes), getDatabaseProvider());
+            mCacheSizeBytes = cacheSizeBytes;
+            mIsPrefetchOnly = isPrefetchOnly;
+        } catch (IllegalStateException e) { // Another SimpleCache instance uses the folder
+            Log.e(TAG, "Can't create segment cache: %s", e.getMessage());
+            mCache = null;
+        }
+
+        return mCache;
+    }
+
+    private void deleteDir(String dirName) {
+        File dir = new File(mContext.getCacheDir(), dirName);
+
+        if (dir.exists()) {
+            SimpleCache.delete(dir, getDatabaseProvider());
+        }
+    }
+
+    private ExoDatabaseProvider getDatabaseProvider() {
+        if (mDatabaseProvider == null) {
+            mDatabaseProvider = new ExoDatabaseProvider(mContext);
+        }
+
+        return mDatabaseProvider;
+    }
+
+    private void releaseCache() {
+        if (mCache != null) {
+            mCache.release();
+            mCache = null;
+            mCacheSizeBytes = 0;
+        }
+    }
+
+    void onCacheableRequest() {
+        mRequestCount.incrementAndGet();
+    }
+
+    void onCacheableBytesRead(int bytesRead) {
+        mTotalBytes.addAndGet(bytesRead);
+    }
+
+    @Override
+    public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+        mHitCount.incrementAndGet();
+        mCachedBytes.addAndGet(cachedBytesRead);
+    }
+
+    @Override
+    public void onCacheIgnored(int reason) {
+        Log.d(TAG, "Cache ignored. Reason: %s", reason);
+    }
+
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    public long getMissCount() {
+        return Math.max(0, mRequestCount.get() - mHitCount.get());
+    }
+
+    public long getCachedBytes() {
+        return mCachedBytes.get();
+    }
+
+    public long getNetworkBytes() {
+        return Math.max(0, mTotalBytes.get() - mCachedBytes.get());
+    }
+
+    /**
+     * Current cache occupation in bytes
+     */
+    public synchronized long getCacheSpace() {
+        return mCache != null ? mCache.getCacheSpace() : 0;
+    }
+}
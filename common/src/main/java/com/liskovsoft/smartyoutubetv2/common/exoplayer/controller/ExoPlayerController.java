@@ -13,9 +13,11 @@ import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.source.MergingMediaSource;
 import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelection;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import com.google.android.exoplayer2.util.MimeTypes;
 import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.smartyoutubetv2.common.BuildConfig;
@@ -23,6 +25,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.listener.PlayerEventListener;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.ExoMediaSourceFactory;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.errors.TrackErrorFixer;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.QoeRecorder;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.VolumeBooster;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.ExoFormatItem;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
@@ -46,6 +49,7 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
     private final TrackSelectorManager mTrackSelectorManager;
     private final TrackInfoFormatter2 mTrackFormatter;
     private final TrackErrorFixer mTrackErrorFixer;
+    private final QoeRecorder mQoeRecorder;
     private boolean mOnSourceChanged;
     private WeakReference<Video> mVideo;
     private final PlayerEventListener mEventListener;
@@ -62,7 +66,8 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
         mTrackSelectorManager = new TrackSelectorManager(context);
         mTrackFormatter = new TrackInfoFormatter2();
         mTrackFormatter.enableBitrate(PlayerTweaksData.instance(context).isQualityInfoBitrateEnabled());
-        mTrackErrorFixer = new TrackErrorFixer(mTrackSelectorManager);
+        mQoeRecorder = QoeRecorder.instance(context);
+        mTrackErrorFixer = new TrackErrorFixer(mTrackSelectorManager, mQoeRecorder);
 
         mMediaSourceFactory.setTrackErrorFixer(mTrackErrorFixer);
         mEventListener = eventListener;
@@ -85,6 +90,12 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
         openMediaSource(mediaSource);
     }
 
+    @Override
+    public void openDash(DashManifest dashManifest) {
+        MediaSource mediaSource = mMediaSourceFactory.fromDashManifest(dashManifest);
+        openMediaSource(mediaSource);
+    }
+
     @Override
     public void openDashUrl(String dashManifestUrl) {
         MediaSource mediaSource = mMediaSourceFactory.fromDashManifestUrl(dashManifestUrl);
@@ -110,6 +121,13 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
         openMediaSource(new MergingMediaSource(dashMediaSource, hlsMediaSource));
     }
 
+    @Override
+    public void openMerged(DashManifest dashManifest, String hlsPlaylistUrl) {
+        MediaSource dashMediaSource = mMediaSourceFactory.fromDashManifest(dashManifest);
+        MediaSource hlsMediaSource = mMediaSourceFactory.fromHlsPlaylist(hlsPlaylistUrl);
+        openMediaSource(new MergingMediaSource(dashMediaSource, hlsMediaSource));
+    }
+
     private void openMediaSource(MediaSource mediaSource) {
         resetPlayerState(); // fixes occasional video artifacts and problems with quality switching
         setQualityInfo("");
@@ -117,6 +135,8 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
         mTrackSelectorManager.setMergedSource(mediaSource instanceof MergingMediaSource);
         mTrackSelectorManager.invalidate();
         mOnSourceChanged = true;
+        mQoeRecorder.onSessionStart(PlayerData.instance(mContext).getVideoBufferType(),
+                PlayerTweaksData.instance(mContext).getPlayerDataSource());
         mEventListener.onSourceChanged(getVideo());
         mPlayer.prepare(mediaSource);
     }
@@ -138,6 +158,7 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
     public void setPositionMs(long positionMs) {
         // Url list videos at load stage has undefined (-1) length. So, we need to remove length check.
         if (mPlayer != null && positionMs >= 0 && positionMs <= getDurationMs()) {
+            mQoeRecorder.onSeek();
             mPlayer.seekTo(positionMs);
         }
     }
@@ -189,9 +210,10 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
 
     @Override
     public void release() {
+        mQoeRecorder.onSessionEnd();
         mTrackSelectorManager.release();
-        mMediaSourceFactory.release();
         releasePlayer();
+        mMediaSourceFactory.release(); // after the player's sources are released
         mPlayerView = null;
         // Don't destroy it (needed inside the bridge)!
         //mEventListener = null;
@@ -289,6 +311,10 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
 
                 mEventListener.onTrackChanged(ExoFormatItem.from(format));
 
+                if (format != null && MimeTypes.isVideo(format.sampleMimeType)) {
+                    mQoeRecorder.onTrackSwitch(format.bitrate, format.height);
+                }
+
                 mTrackFormatter.setFormat(format);
             }
         }
@@ -322,6 +348,8 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
 
         // NOTE: Player is released at this point. So, there is no sense to restore the playback here.
 
+        mQoeRecorder.onPlayerError(error.type);
+
         Throwable nested = error.getCause() != null ? error.getCause() : error;
 
         mEventListener.onEngineError(error.type, error.rendererIndex, nested);
@@ -338,6 +366,12 @@ public class ExoPlayerController implements Player.EventListener, PlayerControll
         boolean isPlaybackEnded = Player.STATE_ENDED == playbackState && playWhenReady;
         boolean isBuffering = Player.STATE_BUFFERING == playbackState && playWhenReady;
 
+        if (Player.STATE_READY == playbackState) {
+            mQoeRecorder.onReady();
+        } else if (isBuffering) {
+            mQoeRecorder.onBuffering();
+        }
+
         // Fix chapters (seek and play) after playback ends
         if (isPlaybackEnded && mIsEnded) {
             return;
@@ -1,6 +1,7 @@
 package com.liskovsoft.smartyoutubetv2.common.exoplayer.controller;
 
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.listener.PlayerEventListener;
@@ -11,10 +12,12 @@ import java.util.List;
 
 public interface PlayerController {
     void openDash(InputStream dashManifest);
+    void openDash(DashManifest dashManifest);
     void openHlsUrl(String hlsPlaylistUrl);
     void openDashUrl(String dashManifestUrl);
     void openUrlList(List<String> urlList);
     void openMerged(InputStream dashManifest, String hlsPlaylistUrl);
+    void openMerged(DashManifest dashManifest, String hlsPlaylistUrl);
     long getPositionMs();
     void setPositionMs(long positionMs);
     long getDurationMs();
@@ -11,6 +11,7 @@ import com.google.android.exoplayer2.upstream.HttpDataSource.InvalidResponseCode
 import com.google.android.exoplayer2.util.MimeTypes;
 import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.QoeRecorder;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.TrackSelectorManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.track.MediaTrack;
 
@@ -25,12 +26,14 @@ public class TrackErrorFixer extends DefaultMediaSourceEventListener {
     private static final int BLACKLIST_CLEAR_MS = 10_000;
     private static final String TAG = TrackErrorFixer.class.getSimpleName();
     private final TrackSelectorManager mTrackSelectorManager;
+    private final QoeRecorder mQoeRecorder;
     private long mSelectionTimeMs;
     private final Map<MediaTrack, Long> mBlacklistedTracks = new HashMap<>();
     private InvalidResponseCodeException mLastEx;
 
-    public TrackErrorFixer(TrackSelectorManager trackSelectorManager) {
+    public TrackErrorFixer(TrackSelectorManager trackSelectorManager, QoeRecorder qoeRecorder) {
         mTrackSelectorManager = trackSelectorManager;
+        mQoeRecorder = qoeRecorder;
     }
 
     /**
@@ -57,7 +60,14 @@ public class TrackErrorFixer extends DefaultMediaSourceEventListener {
 
         mLastEx = ex;
 
-        return selectDifferentCodec(isAudio(mLastEx));
+        boolean isAudio = isAudio(mLastEx);
+        boolean isFixed = selectDifferentCodec(isAudio);
+
+        if (isFixed) {
+            mQoeRecorder.onTrackFix(isAudio);
+        }
+
+        return isFixed;
     }
 
     //public boolean fixError(ExoPlaybackException error) {
@@ -254,6 +264,10 @@ public class TrackErrorFixer extends DefaultMediaSourceEventListener {
     @Override
     public void onLoadError(int windowIndex, @Nullable MediaPeriodId mediaPeriodId, LoadEventInfo loadEventInfo,
                             MediaLoadData mediaLoadData, IOException error, boolean wasCanceled) {
+        if (!wasCanceled) {
+            mQoeRecorder.onNetworkError(error instanceof InvalidResponseCodeException ? ((InvalidResponseCodeException) error).responseCode : 0);
+        }
+
         fixError(error);
     }
 }
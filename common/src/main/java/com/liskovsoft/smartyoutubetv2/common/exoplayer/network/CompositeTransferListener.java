@@ -0,0 +1,44 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.network;
+
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+/**
+ * Some data source factories accept only one listener
+ */
+public class CompositeTransferListener implements TransferListener {
+    private final TransferListener[] mListeners;
+
+    public CompositeTransferListener(TransferListener... listeners) {
+        mListeners = listeners;
+    }
+
+    @Override
+    public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        for (TransferListener listener : mListeners) {
+            listener.onTransferInitializing(source, dataSpec, isNetwork);
+        }
+    }
+
+    @Override
+    public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        for (TransferListener listener : mListeners) {
+            listener.onTransferStart(source, dataSpec, isNetwork);
+        }
+    }
+
+    @Override
+    public void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+        for (TransferListener listener : mListeners) {
+            listener.onBytesTransferred(source, dataSpec, isNetwork, bytesTransferred);
+        }
+    }
+
+    @Override
+    public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        for (TransferListener listener : mListeners) {
+            listener.onTransferEnd(source, dataSpec, isNetwork);
+        }
+    }
+}
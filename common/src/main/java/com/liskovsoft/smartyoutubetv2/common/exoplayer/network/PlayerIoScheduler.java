@@ -0,0 +1,323 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.network;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.Loader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared threads of the player loaders, segment prefetch and storyboards.<br/>
+ * Two bounded pools: playback (segments, manifests) and background (prefetch, previews, thumbnails).<br/>
+ * Background work never takes the playback threads. Queued tasks run by the priority class.<br/>
+ * Progressive loaders keep their own thread: one load task lasts the whole playback.
+ */
+public class PlayerIoScheduler implements Loader.ExecutorFactory {
+    public static final int PRIORITY_SEGMENT = 0;
+    public static final int PRIORITY_MANIFEST = 1;
+    public static final int PRIORITY_PREFETCH = 2;
+    public static final int PRIORITY_PREVIEW = 3;
+    public static final int PRIORITY_THUMBNAIL = 4;
+    private static final String[] PRIORITY_NAMES = {"Segment", "Manifest", "Prefetch", "Preview", "Thumbnail"};
+    private static final int PLAYBACK_THREADS = 4;
+    private static final int BACKGROUND_THREADS = 2;
+    private static final long KEEP_ALIVE_MS = 30_000;
+    // ExtractingLoadable blocks the thread until the end of the file
+    private static final String PROGRESSIVE_LOADER = "Loader:ProgressiveMediaPeriod";
+    private static PlayerIoScheduler sInstance;
+    private final ClassStats[] mStats = new ClassStats[PRIORITY_NAMES.length];
+    private final Map<Looper, Integer> mLooperPriorities = new WeakHashMap<>();
+    private final AtomicLong mSequence = new AtomicLong();
+    private ThreadPoolExecutor mPlaybackPool;
+    private ThreadPoolExecutor mBackgroundPool;
+
+    public static class ClassStats {
+        public final String name;
+        private int mQueued;
+        private int mMaxQueued;
+        private int mStarted;
+        private long mWaitTotalMs;
+
+        private ClassStats(String name) {
+            this.name = name;
+        }
+
+        public synchronized int getQueued() {
+            return mQueued;
+        }
+
+        public synchronized int getMaxQueued() {
+            return mMaxQueued;
+        }
+
+        public synchronized int getStarted() {
+            return mStarted;
+        }
+
+        public synchronized long getAvgWaitMs() {
+            return mStarted > 0 ? mWaitTotalMs / mStarted : 0;
+        }
+
+        private synchronized void onQueued() {
+            mQueued++;
+            mMaxQueued = Math.max(mMaxQueued, mQueued);
+        }
+
+        private synchronized void onStarted(long waitMs) {
+            mQueued--;
+            mStarted++;
+            mWaitTotalMs += waitMs;
+        }
+    }
+
+    private PlayerIoScheduler() {
+        for (int i = 0; i < mStats.length; i++) {
+            mStats[i] = new ClassStats(PRIORITY_NAMES[i]);
+        }
+    }
+
+    public static PlayerIoScheduler instance() {
+        if (sInstance == null) {
+            sInstance = new PlayerIoScheduler();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Player loaders created after the call use the shared threads
+     */
+    public void enableForLoaders(boolean enable) {
+        Loader.setExecutorFactory(enable ? this : null);
+    }
+
+    /**
+     * All loaders of the player that runs on this looper get the priority (e.g. preview player)
+     */
+    public void setPriority(Looper playbackLooper, int priority) {
+        synchronized (mLooperPriorities) {
+            mLooperPriorities.put(playbackLooper, priority);
+        }
+    }
+
+    /**
+     * For the work outside the loaders (e.g. prefetch, thumbnails)
+     */
+    public Executor getExecutor(int priority) {
+        return command -> schedule(priority, command);
+    }
+
+    public List<ClassStats> getStats() {
+        List<ClassStats> result = new ArrayList<>();
+
+        for (ClassStats stats : mStats) {
+            if (stats.getStarted() > 0 || stats.getQueued() > 0) {
+                result.add(stats);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Called on the player's playback thread
+     */
+    @Nullable
+    @Override
+    public ExecutorService createExecutor(String threadName) {
+        if (PROGRESSIVE_LOADER.equals(threadName)) {
+            return null;
+        }
+
+        Integer priority;
+
+        synchronized (mLooperPriorities) {
+            priority = mLooperPriorities.get(Looper.myLooper());
+        }
+
+        if (priority == null) {
+            // Loader:DashMediaSource, Loader:Manifest, DefaultHlsPlaylistTracker:MediaPlaylist
+            priority = threadName.endsWith("MediaSource") || threadName.contains("Manifest") || threadName.contains("Playlist") ?
+                    PRIORITY_MANIFEST : PRIORITY_SEGMENT;
+        }
+
+        return new SerialExecutor(priority);
+    }
+
+    private void schedule(int priority, Runnable command) {
+        mStats[priority].onQueued();
+        getPool(priority).execute(new PriorityTask(priority, mSequence.getAndIncrement(), command));
+    }
+
+    private synchronized ThreadPoolExecutor getPool(int priority) {
+        if (priority <= PRIORITY_MANIFEST) {
+            if (mPlaybackPool == null) {
+                mPlaybackPool = createPool("PlayerIo:Playback", PLAYBACK_THREADS, Thread.NORM_PRIORITY);
+            }
+
+            return mPlaybackPool;
+        }
+
+        if (mBackgroundPool == null) {
+            mBackgroundPool = createPool("PlayerIo:Background", BACKGROUND_THREADS, Thread.MIN_PRIORITY);
+        }
+
+        return mBackgroundPool;
+    }
+
+    private static ThreadPoolExecutor createPool(String name, int threads, int threadPriority) {
+        AtomicInteger threadNum = new AtomicInteger();
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadNum.incrementAndGet());
+                    thread.setPriority(threadPriority);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+
+        return pool;
+    }
+
+    /**
+     * NOTE: use execute() not submit() on the pool. The queue accepts only comparable tasks.
+     */
+    private class PriorityTask implements Runnable, Comparable<PriorityTask> {
+        private final int mPriority;
+        private final long mSequence;
+        private final Runnable mCommand;
+        private final long mQueuedMs;
+
+        private PriorityTask(int priority, long sequence, Runnable command) {
+            mPriority = priority;
+            mSequence = sequence;
+            mCommand = command;
+            mQueuedMs = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            mStats[mPriority].onStarted(SystemClock.elapsedRealtime() - mQueuedMs);
+
+            try {
+                mCommand.run();
+            } finally {
+                Thread.interrupted(); // canceled loader shouldn't affect the next task
+            }
+        }
+
+        @Override
+        public int compareTo(PriorityTask other) {
+            return mPriority != other.mPriority ? Integer.compare(mPriority, other.mPriority) : Long.compare(mSequence, other.mSequence);
+        }
+    }
+
+    /**
+     * Loader expects the tasks to run one by one (e.g. the release task runs after the load task)
+     */
+    private class SerialExecutor extends AbstractExecutorService {
+        private final int mPriority;
+        private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+        private Runnable mActive;
+        private boolean mIsShutdown;
+        private boolean mIsTerminated;
+
+        private SerialExecutor(int priority) {
+            mPriority = priority;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable command) {
+            if (mIsShutdown) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+
+            mTasks.offer(() -> {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+
+            if (mActive == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            mActive = mTasks.poll();
+
+            if (mActive != null) {
+                schedule(mPriority, mActive);
+            } else if (mIsShutdown) {
+                terminate();
+            }
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            mIsShutdown = true;
+
+            if (mActive == null) {
+                terminate();
+            }
+        }
+
+        @NonNull
+        @Override
+        public synchronized List<Runnable> shutdownNow() {
+            List<Runnable> pending = new ArrayList<>(mTasks);
+            mTasks.clear();
+            shutdown();
+            return pending;
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return mIsShutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return mIsTerminated;
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+            long deadlineMs = SystemClock.elapsedRealtime() + unit.toMillis(timeout);
+
+            while (!mIsTerminated) {
+                long remainingMs = deadlineMs - SystemClock.elapsedRealtime();
+
+                if (remainingMs <= 0) {
+                    return false;
+                }
+
+                wait(remainingMs);
+            }
+
+            return true;
+        }
+
+        private void terminate() {
+            mIsTerminated = true;
+            notifyAll();
+        }
+    }
+}
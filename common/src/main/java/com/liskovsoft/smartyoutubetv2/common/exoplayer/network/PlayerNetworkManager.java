@@ -0,0 +1,476 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource.HttpDataSourceException;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.okhttp.OkHttpManager;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Networking shared by the player data sources (video/audio tracks, every {@link com.liskovsoft.smartyoutubetv2.common.exoplayer.ExoMediaSourceFactory}).<br/>
+ * Keeps keep-alive connections per host and collects per host stats (reuse, handshake, TTFB).<br/>
+ * When a pooled connection stalls the host falls back to the fresh connection per request for a while.<br/>
+ * Fallback is applied by the OkHttp and the default (HttpURLConnection) data sources. Cronet manages its connections by itself.
+ */
+public class PlayerNetworkManager {
+    private static final String TAG = PlayerNetworkManager.class.getSimpleName();
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_DURATION_MS = 60_000;
+    // Reused connection that doesn't respond that long is considered stalled
+    private static final long STALL_TTFB_MS = 3_000;
+    private static final long FALLBACK_DURATION_MS = 5 * 60 * 1_000;
+    // Segment hosts differ per video
+    private static final int MAX_HOSTS = 16;
+    private static PlayerNetworkManager sInstance;
+    private final ConnectionPool mConnectionPool = new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_MS, TimeUnit.MILLISECONDS);
+    private final Map<String, HostStats> mHostStats = new LinkedHashMap<String, HostStats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HostStats> eldest) {
+            return size() > MAX_HOSTS;
+        }
+    };
+    // Idle OkHttp connections and their hosts. Pool doesn't expose them.
+    private final Map<Connection, String> mIdleConnections = new WeakHashMap<>();
+    private final TransferListener mTransferListener = new StatsTransferListener();
+    private OkHttpClient mOkHttpClient;
+    private Executor mCronetExecutor;
+    private volatile String mLastHost;
+
+    public static class HostStats {
+        public final String host;
+        private int mRequests;
+        private int mReusedRequests;
+        private int mConnects;
+        private long mHandshakeTotalMs;
+        private int mTtfbCount;
+        private long mTtfbTotalMs;
+        private int mStalls;
+        private long mFallbackUntilMs;
+
+        private HostStats(String host) {
+            this.host = host;
+        }
+
+        public synchronized int getRequests() {
+            return mRequests;
+        }
+
+        public synchronized int getReusedRequests() {
+            return mReusedRequests;
+        }
+
+        public synchronized int getStalls() {
+            return mStalls;
+        }
+
+        public synchronized long getAvgHandshakeMs() {
+            return mConnects > 0 ? mHandshakeTotalMs / mConnects : 0;
+        }
+
+        public synchronized long getAvgTtfbMs() {
+            return mTtfbCount > 0 ? mTtfbTotalMs / mTtfbCount : 0;
+        }
+
+        public synchronized boolean isFallback() {
+            return System.currentTimeMillis() < mFallbackUntilMs;
+        }
+
+        private synchronized void onRequest(boolean isReused, long handshakeMs, long ttfbMs) {
+            mRequests++;
+
+            if (isReused) {
+                mReusedRequests++;
+            }
+
+            if (handshakeMs >= 0) {
+                mConnects++;
+                mHandshakeTotalMs += handshakeMs;
+            }
+
+            if (ttfbMs >= 0) {
+                mTtfbCount++;
+                mTtfbTotalMs += ttfbMs;
+            }
+        }
+
+        private synchronized void onStall() {
+            mStalls++;
+            mFallbackUntilMs = System.currentTimeMillis() + FALLBACK_DURATION_MS;
+        }
+    }
+
+    private PlayerNetworkManager() {
+    }
+
+    public static PlayerNetworkManager instance() {
+        if (sInstance == null) {
+            sInstance = new PlayerNetworkManager();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Client of the OkHttp data sources. Based on the app client (same timeouts) but with own connection pool.
+     */
+    public synchronized OkHttpClient getOkHttpClient() {
+        if (mOkHttpClient == null) {
+            mOkHttpClient = OkHttpManager.instance().getClient().newBuilder()
+                    .connectionPool(mConnectionPool)
+                    .addInterceptor(this::applyFallback)
+                    .eventListenerFactory(CallStatsListener::new)
+                    .build();
+        }
+
+        return mOkHttpClient;
+    }
+
+    /**
+     * Factory of the default (HttpURLConnection) data sources.<br/>
+     * Connections are pooled by the system. Stalled host gets 'Connection: close' until the fallback ends.
+     */
+    public HttpDataSource.BaseFactory createDefaultDataSourceFactory(
+            String userAgent, @Nullable TransferListener listener, int connectTimeoutMs, int readTimeoutMs) {
+        return new FallbackHttpDataSourceFactory(userAgent, listener, connectTimeoutMs, readTimeoutMs);
+    }
+
+    /**
+     * Cronet callbacks are short. One thread is enough for all the data sources.
+     */
+    public synchronized Executor getCronetExecutor() {
+        if (mCronetExecutor == null) {
+            mCronetExecutor = Executors.newSingleThreadExecutor();
+        }
+
+        return mCronetExecutor;
+    }
+
+    /**
+     * TTFB stats of the data sources that don't expose connection details (Default, Cronet).
+     */
+    public TransferListener getTransferListener() {
+        return mTransferListener;
+    }
+
+    /**
+     * Stats of the host that served the latest request
+     */
+    @Nullable
+    public HostStats getLastHostStats() {
+        String host = mLastHost;
+
+        if (host == null) {
+            return null;
+        }
+
+        synchronized (mHostStats) {
+            return mHostStats.get(host);
+        }
+    }
+
+    public List<HostStats> getHostStats() {
+        synchronized (mHostStats) {
+            return new ArrayList<>(mHostStats.values());
+        }
+    }
+
+    public int getFallbackHostCount() {
+        int result = 0;
+
+        for (HostStats stats : getHostStats()) {
+            if (stats.isFallback()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    private HostStats getOrCreateStats(String host) {
+        mLastHost = host;
+
+        synchronized (mHostStats) {
+            HostStats stats = mHostStats.get(host);
+
+            if (stats == null) {
+                stats = new HostStats(host);
+                mHostStats.put(host, stats);
+            }
+
+            return stats;
+        }
+    }
+
+    private boolean isFallback(String host) {
+        synchronized (mHostStats) {
+            HostStats stats = mHostStats.get(host);
+            return stats != null && stats.isFallback();
+        }
+    }
+
+    private void onStall(String host) {
+        Log.d(TAG, "Pooled connection stalled. Switching host to fresh connections: %s", host);
+        getOrCreateStats(host).onStall();
+        // Other idle connections to the same server are likely broken too
+        closeIdleConnections(host);
+    }
+
+    /**
+     * Closed connections are dropped by the pool on the next health check.
+     */
+    private void closeIdleConnections(String host) {
+        synchronized (mIdleConnections) {
+            Iterator<Map.Entry<Connection, String>> iterator = mIdleConnections.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<Connection, String> entry = iterator.next();
+
+                if (host.equals(entry.getValue())) {
+                    closeQuietly(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.socket().close();
+        } catch (IOException e) {
+            // NOP
+        }
+    }
+
+    /**
+     * Connection is closed after the response. Next request opens the new one.
+     */
+    @NonNull
+    private Response applyFallback(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (isFallback(request.url().host())) {
+            request = request.newBuilder().header("Connection", "close").build();
+        }
+
+        return chain.proceed(request);
+    }
+
+    /**
+     * Created per call
+     */
+    private class CallStatsListener extends EventListener {
+        private final String mHost;
+        private long mConnectStartMs = -1;
+        private long mHandshakeMs = -1;
+        private long mRequestStartMs = -1;
+        private long mTtfbMs = -1;
+        private boolean mIsReused;
+        private boolean mIsStalled;
+
+        private CallStatsListener(Call call) {
+            mHost = call.request().url().host();
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            mConnectStartMs = System.currentTimeMillis();
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy, @Nullable Protocol protocol) {
+            // TCP + TLS
+            mHandshakeMs = System.currentTimeMillis() - mConnectStartMs;
+        }
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            mIsReused = mConnectStartMs == -1;
+
+            synchronized (mIdleConnections) {
+                mIdleConnections.remove(connection);
+            }
+        }
+
+        @Override
+        public void connectionReleased(@NonNull Call call, @NonNull Connection connection) {
+            if (mIsStalled) {
+                // Don't return the stalled connection to the pool
+                closeQuietly(connection);
+                return;
+            }
+
+            synchronized (mIdleConnections) {
+                mIdleConnections.put(connection, mHost);
+            }
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            mRequestStartMs = System.currentTimeMillis();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            if (mRequestStartMs == -1) {
+                return;
+            }
+
+            mTtfbMs = System.currentTimeMillis() - mRequestStartMs;
+
+            if (mIsReused && mTtfbMs > STALL_TTFB_MS) {
+                markStalled();
+            }
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            getOrCreateStats(mHost).onRequest(mIsReused, mHandshakeMs, mTtfbMs);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            if (mIsReused && ioe instanceof SocketTimeoutException) {
+                markStalled();
+            }
+
+            getOrCreateStats(mHost).onRequest(mIsReused, mHandshakeMs, mTtfbMs);
+        }
+
+        private void markStalled() {
+            if (mIsStalled) {
+                return;
+            }
+
+            mIsStalled = true;
+            onStall(mHost);
+        }
+    }
+
+    private class FallbackHttpDataSourceFactory extends HttpDataSource.BaseFactory {
+        private final String mUserAgent;
+        private final TransferListener mListener;
+        private final int mConnectTimeoutMs;
+        private final int mReadTimeoutMs;
+
+        private FallbackHttpDataSourceFactory(String userAgent, @Nullable TransferListener listener, int connectTimeoutMs, int readTimeoutMs) {
+            mUserAgent = userAgent;
+            mListener = listener;
+            mConnectTimeoutMs = connectTimeoutMs;
+            mReadTimeoutMs = readTimeoutMs;
+        }
+
+        @Override
+        protected HttpDataSource createDataSourceInternal(HttpDataSource.RequestProperties defaultRequestProperties) {
+            FallbackHttpDataSource dataSource = new FallbackHttpDataSource(mUserAgent, mConnectTimeoutMs, mReadTimeoutMs, defaultRequestProperties);
+
+            if (mListener != null) {
+                dataSource.addTransferListener(mListener);
+            }
+
+            return dataSource;
+        }
+    }
+
+    /**
+     * Reuse isn't known here. Slow response of any connection is considered a stall.
+     */
+    private class FallbackHttpDataSource extends DefaultHttpDataSource {
+        private FallbackHttpDataSource(String userAgent, int connectTimeoutMs, int readTimeoutMs, HttpDataSource.RequestProperties defaultRequestProperties) {
+            super(userAgent, null, connectTimeoutMs, readTimeoutMs, true, defaultRequestProperties); // allowCrossProtocolRedirects = true
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws HttpDataSourceException {
+            String host = dataSpec.uri.getHost();
+            boolean isFallback = host != null && isFallback(host);
+
+            if (isFallback) {
+                setRequestProperty("Connection", "close");
+            } else {
+                clearRequestProperty("Connection");
+            }
+
+            long startTimeMs = System.currentTimeMillis();
+            long result;
+
+            try {
+                result = super.open(dataSpec);
+            } catch (HttpDataSourceException e) {
+                if (!isFallback && host != null && e.getCause() instanceof SocketTimeoutException) {
+                    onStall(host);
+                }
+
+                throw e;
+            }
+
+            if (!isFallback && host != null && System.currentTimeMillis() - startTimeMs > STALL_TTFB_MS) {
+                onStall(host);
+            }
+
+            return result;
+        }
+    }
+
+    private class StatsTransferListener implements TransferListener {
+        private final Map<DataSource, Long> mStartTimes = new ConcurrentHashMap<>();
+
+        @Override
+        public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+            if (isNetwork) {
+                mStartTimes.put(source, System.currentTimeMillis());
+            }
+        }
+
+        @Override
+        public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+            Long startTimeMs = mStartTimes.remove(source);
+            String host = dataSpec.uri.getHost();
+
+            if (startTimeMs == null || host == null) {
+                return;
+            }
+
+            // Includes the connection time. Reuse isn't known here.
+            getOrCreateStats(host).onRequest(false, -1, System.currentTimeMillis() - startTimeMs);
+        }
+
+        @Override
+        public void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+            // NOP
+        }
+
+        @Override
+        public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+            mStartTimes.remove(source);
+        }
+    }
+}
@@ -33,6 +33,11 @@ import com.liskovsoft.sharedutils.querystringparser.UrlQueryStringFactory;
 import com.liskovsoft.smartyoutubetv2.common.R;
 import com.liskovsoft.smartyoutubetv2.common.autoframerate.internal.DisplayHolder.Mode;
 import com.liskovsoft.smartyoutubetv2.common.autoframerate.internal.UhdHelper;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.cache.SegmentCacheManager;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerIoScheduler;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerNetworkManager;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerNetworkManager.HostStats;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.ThroughputEstimator;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.ExoUtils;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
@@ -198,6 +203,10 @@ public final class DebugInfoManager implements Runnable, Player.EventListener {
 
         appendVideoInfo();
         appendRuntimeInfo();
+        appendSegmentCacheInfo();
+        appendNetworkInfo();
+        appendSmartQualityInfo();
+        appendIoSchedulerInfo();
         appendPlayerState();
         appendDisplayInfo();
         appendDisplayModeId();
@@ -270,6 +279,63 @@ public final class DebugInfoManager implements Runnable, Player.EventListener {
         appendRow("Buffer size (seconds)", (int)(mPlayer.getBufferedPosition() - mPlayer.getCurrentPosition()) / 1_000);
     }
 
+    private void appendSegmentCacheInfo() {
+        SegmentCacheManager cacheManager = SegmentCacheManager.instance(mContext);
+
+        if (!cacheManager.isEnabled()) {
+            return;
+        }
+
+        appendRow("Segment Cache Hit/Miss", cacheManager.getHitCount() + "/" + cacheManager.getMissCount());
+        appendRow("Segment Cache Cached/Network (MB)",
+                cacheManager.getCachedBytes() / 1024 / 1024 + "/" + cacheManager.getNetworkBytes() / 1024 / 1024);
+        appendRow("Segment Cache Size (MB)", (int)(cacheManager.getCacheSpace() / 1024 / 1024));
+    }
+
+    private void appendNetworkInfo() {
+        PlayerNetworkManager networkManager = PlayerNetworkManager.instance();
+        HostStats stats = networkManager.getLastHostStats();
+
+        if (stats == null) {
+            return;
+        }
+
+        appendRow("Network Host", stats.isFallback() ? Utils.color(stats.host, Color.RED) : stats.host);
+
+        // Default and Cronet don't report connection details
+        if (PlayerTweaksData.instance(mContext).getPlayerDataSource() == PlayerTweaksData.PLAYER_DATA_SOURCE_OKHTTP) {
+            appendRow("Network Reused/Requests", stats.getReusedRequests() + "/" + stats.getRequests());
+            appendRow("Network Handshake/TTFB (ms)", stats.getAvgHandshakeMs() + "/" + stats.getAvgTtfbMs());
+            appendRow("Network Stalls/Fallback Hosts", stats.getStalls() + "/" + networkManager.getFallbackHostCount());
+        } else {
+            appendRow("Network Requests", stats.getRequests());
+            appendRow("Network TTFB (ms)", (int) stats.getAvgTtfbMs());
+        }
+    }
+
+    private void appendSmartQualityInfo() {
+        if (!PlayerTweaksData.instance(mContext).isSmartQualityEnabled()) {
+            return;
+        }
+
+        ThroughputEstimator estimator = ThroughputEstimator.instance();
+        Format format = estimator.getFormat();
+        String decision = estimator.getLastDecision();
+
+        appendRow("Smart Quality Throughput (kbps)", (int) (estimator.getBitrateEstimate() / 1_000));
+        appendRow("Smart Quality Buffer (seconds)", (int) (estimator.getBufferedDurationMs() / 1_000));
+        appendRow("Smart Quality Current", format != null ? format.height + "p " + format.bitrate / 1_000 + " kbps" : "none");
+        appendRow("Smart Quality Up/Down", estimator.getSwitchesUp() + "/" + estimator.getSwitchesDown());
+        appendRow("Smart Quality Last Switch", decision != null ? decision : "none");
+    }
+
+    private void appendIoSchedulerInfo() {
+        for (PlayerIoScheduler.ClassStats stats : PlayerIoScheduler.instance().getStats()) {
+            appendRow("IO " + stats.name + " Queue/Max", stats.getQueued() + "/" + stats.getMaxQueued());
+            appendRow("IO " + stats.name + " Wait (ms)", (int) stats.getAvgWaitMs());
+        }
+    }
+
     private void appendPlayerState() {
         appendRow("Player Paused", !mPlayer.getPlayWhenReady());
 
@@ -7,6 +7,7 @@ import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.DefaultLoadControl;
 import com.google.android.exoplayer2.DefaultRenderersFactory;
 import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.LoadControl;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.audio.AudioAttributes;
 import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
@@ -18,9 +19,12 @@ import com.google.android.exoplayer2.drm.MediaDrmCallback;
 import com.google.android.exoplayer2.drm.UnsupportedDrmException;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
 import com.google.android.exoplayer2.upstream.TransferListener;
 import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerIoScheduler;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerData;
+import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
 
 import java.util.UUID;
 
@@ -37,11 +41,17 @@ public class ExoPlayerInitializer {
         // If ram is too big, bigger then max int value DeviceRam will return a negative number...
         // use 196MB as that can only happens if device has more than 17GB of RAM, so 196 is enough and safe
         // https://github.com/yuliskov/SmartYouTubeTV/issues/532
-        mMaxBufferBytes = deviceRam <= 0 ? 196_000_000 : (int)(deviceRam / 18);
+        int maxBufferBytes = deviceRam <= 0 ? 196_000_000 : (int)(deviceRam / 18);
+
+        // Media buffers live on the java heap. Leave the room for the rest of the app.
+        mMaxBufferBytes = (int) Math.min(maxBufferBytes, Runtime.getRuntime().maxMemory() / 2);
     }
 
     public SimpleExoPlayer createPlayer(Context context, DefaultRenderersFactory renderersFactory, DefaultTrackSelector trackSelector) {
-        DefaultLoadControl loadControl = createLoadControl();
+        LoadControl loadControl = createLoadControl(context);
+
+        // Loaders are created later, on the playback thread
+        PlayerIoScheduler.instance().enableForLoaders(PlayerTweaksData.instance(context).isSharedIoThreadsEnabled());
 
         // HDR fix?
         //trackSelector.setParameters(trackSelector.buildUponParameters().setTunnelingAudioSessionId(C.generateAudioSessionIdV21(context)));
@@ -98,7 +108,7 @@ public class ExoPlayerInitializer {
      * Increase player's min/max buffer size to 60 secs
      * @return load control
      */
-    private DefaultLoadControl createLoadControl() {
+    private LoadControl createLoadControl(Context context) {
         DefaultLoadControl.Builder baseBuilder = new DefaultLoadControl.Builder();
 
         // Default values
@@ -143,7 +153,7 @@ public class ExoPlayerInitializer {
         baseBuilder
                 .setBufferDurationsMs(minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs);
 
-        return baseBuilder.createDefaultLoadControl();
+        return new HeapAwareLoadControl(context, baseBuilder, new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE));
     }
 
     private DrmSessionManager<FrameworkMediaCrypto> createDrmManager() {
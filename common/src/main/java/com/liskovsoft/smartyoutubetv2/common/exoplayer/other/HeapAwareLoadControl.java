@@ -0,0 +1,129 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.other;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import androidx.annotation.NonNull;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import com.google.android.exoplayer2.upstream.Allocator;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.liskovsoft.sharedutils.mylogger.Log;
+
+/**
+ * Media buffers live on the java heap (ExoPlayer writes samples straight into the allocation arrays).<br/>
+ * Pauses the loading when the heap is almost full, so the big forward buffer can't cause OOM.<br/>
+ * Unused pooled chunks are released on memory pressure.
+ */
+public class HeapAwareLoadControl implements LoadControl, ComponentCallbacks2 {
+    private static final String TAG = HeapAwareLoadControl.class.getSimpleName();
+    // Part of the max heap that should stay free
+    private static final float HEAP_RESERVE = 0.15f;
+    // Don't starve the playback
+    private static final long MIN_BUFFER_US = 10_000_000;
+    private final Context mContext;
+    private final DefaultLoadControl mLoadControl;
+    private final DefaultAllocator mAllocator;
+    private boolean mIsHeapLow;
+    private boolean mIsRegistered;
+
+    public HeapAwareLoadControl(Context context, DefaultLoadControl.Builder builder, DefaultAllocator allocator) {
+        mContext = context.getApplicationContext();
+        mAllocator = allocator;
+        mLoadControl = builder.setAllocator(allocator).createDefaultLoadControl();
+    }
+
+    @Override
+    public void onPrepared() {
+        mLoadControl.onPrepared();
+
+        if (!mIsRegistered) {
+            mIsRegistered = true;
+            mContext.registerComponentCallbacks(this);
+        }
+    }
+
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups, TrackSelectionArray trackSelections) {
+        mLoadControl.onTracksSelected(renderers, trackGroups, trackSelections);
+    }
+
+    @Override
+    public void onStopped() {
+        mLoadControl.onStopped();
+    }
+
+    @Override
+    public void onReleased() {
+        mLoadControl.onReleased();
+
+        if (mIsRegistered) {
+            mIsRegistered = false;
+            mContext.unregisterComponentCallbacks(this);
+        }
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return mAllocator;
+    }
+
+    @Override
+    public long getBackBufferDurationUs() {
+        return mLoadControl.getBackBufferDurationUs();
+    }
+
+    @Override
+    public boolean retainBackBufferFromKeyframe() {
+        return mLoadControl.retainBackBufferFromKeyframe();
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long bufferedDurationUs, float playbackSpeed) {
+        if (!mLoadControl.shouldContinueLoading(bufferedDurationUs, playbackSpeed)) {
+            return false;
+        }
+
+        boolean isHeapLow = bufferedDurationUs >= MIN_BUFFER_US && isHeapLow();
+
+        if (isHeapLow != mIsHeapLow) {
+            mIsHeapLow = isHeapLow;
+            Log.d(TAG, "Heap is low: %s, buffered: %s ms, allocated: %s bytes", isHeapLow, bufferedDurationUs / 1_000, mAllocator.getTotalBytesAllocated());
+        }
+
+        return !isHeapLow;
+    }
+
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed, boolean rebuffering) {
+        return mLoadControl.shouldStartPlayback(bufferedDurationUs, playbackSpeed, rebuffering);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mAllocator.trim();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mAllocator.trim();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // NOP
+    }
+
+    private static boolean isHeapLow() {
+        Runtime runtime = Runtime.getRuntime();
+        long maxMemory = runtime.maxMemory();
+        long freeMemory = maxMemory - (runtime.totalMemory() - runtime.freeMemory());
+
+        return freeMemory < maxMemory * HEAP_RESERVE;
+    }
+}
@@ -0,0 +1,352 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.other;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Playback quality events (startup, rebuffers, dropped frames, track switches, errors, gc pauses).<br/>
+ * Events are kept in the fixed size ring (preallocated arrays, no allocations on record).<br/>
+ * The ring is mirrored to the binary file of the same fixed size. Only new records are written on flush.
+ */
+public class QoeRecorder {
+    private static final String TAG = QoeRecorder.class.getSimpleName();
+    private static final String FILE_NAME = "qoe_events.bin";
+    private static final int MAGIC = 0x514F4531; // QOE1
+    private static final int CAPACITY = 4096;
+    // magic, capacity, total (long)
+    private static final int HEADER_SIZE = 16;
+    // time (long), type (int), value (long), extra (int)
+    private static final int RECORD_SIZE = 24;
+    private static final long DROPPED_FRAMES_INTERVAL_MS = 10_000;
+    public static final int EVENT_SESSION_START = 1; // value: buffer type, extra: data source
+    public static final int EVENT_STARTUP = 2; // value: ms
+    public static final int EVENT_REBUFFER = 3; // value: ms
+    public static final int EVENT_DROPPED_FRAMES = 4; // value: frames, extra: interval ms
+    public static final int EVENT_TRACK_SWITCH = 5; // value: bitrate, extra: height
+    public static final int EVENT_NETWORK_ERROR = 6; // value: response code (0 if none)
+    public static final int EVENT_TRACK_FIX = 7; // value: 1 if audio
+    public static final int EVENT_PLAYER_ERROR = 8; // value: error type
+    public static final int EVENT_GC = 9; // value: gc count, extra: blocking gc count (both per session)
+    @SuppressLint("StaticFieldLeak")
+    private static QoeRecorder sInstance;
+    private final File mFile;
+    private final long[] mTimes = new long[CAPACITY];
+    private final int[] mTypes = new int[CAPACITY];
+    private final long[] mValues = new long[CAPACITY];
+    private final int[] mExtras = new int[CAPACITY];
+    private final ByteBuffer mRecordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ByteBuffer mHeaderBuffer = ByteBuffer.allocate(HEADER_SIZE);
+    // Number of records ever written
+    private long mTotal;
+    private long mFlushedTotal;
+    private long mOpenTimeMs = -1;
+    private long mRebufferStartMs = -1;
+    private boolean mIsSeeking;
+    private int mDroppedFrames;
+    private long mDroppedIntervalStartMs;
+    private long mGcCount = -1;
+    private long mBlockingGcCount;
+
+    private QoeRecorder(Context context) {
+        mFile = new File(context.getFilesDir(), FILE_NAME);
+        restoreState();
+    }
+
+    public static QoeRecorder instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new QoeRecorder(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    public synchronized void onSessionStart(int bufferType, int dataSource) {
+        flushDroppedFrames();
+        flushGcCount();
+        mOpenTimeMs = SystemClock.elapsedRealtime();
+        mRebufferStartMs = -1;
+        mIsSeeking = false;
+        record(EVENT_SESSION_START, bufferType, dataSource);
+        mGcCount = getGcStat("art.gc.gc-count");
+        mBlockingGcCount = getGcStat("art.gc.blocking-gc-count");
+    }
+
+    public synchronized void onReady() {
+        long nowMs = SystemClock.elapsedRealtime();
+
+        if (mOpenTimeMs != -1) {
+            record(EVENT_STARTUP, nowMs - mOpenTimeMs, 0);
+            mOpenTimeMs = -1;
+        } else if (mRebufferStartMs != -1) {
+            record(EVENT_REBUFFER, nowMs - mRebufferStartMs, 0);
+        }
+
+        mRebufferStartMs = -1;
+        mIsSeeking = false;
+    }
+
+    /**
+     * Buffering after the startup that isn't caused by the seek
+     */
+    public synchronized void onBuffering() {
+        if (mOpenTimeMs == -1 && !mIsSeeking && mRebufferStartMs == -1) {
+            mRebufferStartMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    public synchronized void onSeek() {
+        mIsSeeking = true;
+        mRebufferStartMs = -1;
+    }
+
+    public synchronized void onTrackSwitch(int bitrate, int height) {
+        record(EVENT_TRACK_SWITCH, bitrate, height);
+    }
+
+    /**
+     * Called from the playback thread. Dropped frames are summed per interval.
+     */
+    public synchronized void onFramesDropped(int count) {
+        long nowMs = SystemClock.elapsedRealtime();
+
+        if (mDroppedFrames == 0) {
+            mDroppedIntervalStartMs = nowMs;
+        }
+
+        mDroppedFrames += count;
+
+        if (nowMs - mDroppedIntervalStartMs >= DROPPED_FRAMES_INTERVAL_MS) {
+            flushDroppedFrames();
+        }
+    }
+
+    public synchronized void onNetworkError(int responseCode) {
+        record(EVENT_NETWORK_ERROR, responseCode, 0);
+    }
+
+    public synchronized void onTrackFix(boolean isAudio) {
+        record(EVENT_TRACK_FIX, isAudio ? 1 : 0, 0);
+    }
+
+    public synchronized void onPlayerError(int type) {
+        record(EVENT_PLAYER_ERROR, type, 0);
+    }
+
+    public synchronized void onSessionEnd() {
+        flushDroppedFrames();
+        flushGcCount();
+        mOpenTimeMs = -1;
+        mRebufferStartMs = -1;
+        RxHelper.runAsync(this::persistState);
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * Returns the file with all events written
+     */
+    public File flushBlocking() {
+        persistState();
+        return mFile;
+    }
+
+    /**
+     * Stats grouped by the buffer type and the data source
+     */
+    public synchronized String getSummary() {
+        Map<Integer, long[]> groups = new LinkedHashMap<>();
+        long[] current = null;
+        int count = (int) Math.min(mTotal, CAPACITY);
+        long first = mTotal - count;
+
+        // sessions, startup ms, rebuffers, rebuffer ms, dropped frames, network errors, track fixes, player errors, gcs, blocking gcs
+        for (long i = first; i < mTotal; i++) {
+            int index = (int) (i % CAPACITY);
+            int type = mTypes[index];
+
+            if (type == EVENT_SESSION_START) {
+                int key = (int) mValues[index] << 8 | mExtras[index];
+                current = groups.get(key);
+
+                if (current == null) {
+                    current = new long[10];
+                    groups.put(key, current);
+                }
+
+                current[0]++;
+                continue;
+            }
+
+            if (current == null) {
+                continue;
+            }
+
+            switch (type) {
+                case EVENT_STARTUP:
+                    current[1] += mValues[index];
+                    break;
+                case EVENT_REBUFFER:
+                    current[2]++;
+                    current[3] += mValues[index];
+                    break;
+                case EVENT_DROPPED_FRAMES:
+                    current[4] += mValues[index];
+                    break;
+                case EVENT_NETWORK_ERROR:
+                    current[5]++;
+                    break;
+                case EVENT_TRACK_FIX:
+                    current[6]++;
+                    break;
+                case EVENT_PLAYER_ERROR:
+                    current[7]++;
+                    break;
+                case EVENT_GC:
+                    current[8] += mValues[index];
+                    current[9] += mExtras[index];
+                    break;
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (Map.Entry<Integer, long[]> entry : groups.entrySet()) {
+            long[] stats = entry.getValue();
+            result.append(String.format(Locale.US,
+                    "Buffer %s, Data Source %s\nSessions: %s, Avg Startup: %s ms\nRebuffers: %s (%s ms), Dropped Frames: %s\nNetwork Errors: %s, Track Fixes: %s, Player Errors: %s\nGC: %s (blocking %s)\n\n",
+                    entry.getKey() >> 8, entry.getKey() & 0xFF, stats[0], stats[1] / stats[0],
+                    stats[2], stats[3], stats[4], stats[5], stats[6], stats[7], stats[8], stats[9]));
+        }
+
+        return result.length() > 0 ? result.toString().trim() : "No data";
+    }
+
+    private void flushDroppedFrames() {
+        if (mDroppedFrames > 0) {
+            record(EVENT_DROPPED_FRAMES, mDroppedFrames, (int) (SystemClock.elapsedRealtime() - mDroppedIntervalStartMs));
+            mDroppedFrames = 0;
+        }
+    }
+
+    private void flushGcCount() {
+        if (mGcCount != -1) {
+            long gcCount = getGcStat("art.gc.gc-count");
+
+            if (gcCount != -1) {
+                record(EVENT_GC, gcCount - mGcCount, (int) (getGcStat("art.gc.blocking-gc-count") - mBlockingGcCount));
+            }
+
+            mGcCount = -1;
+        }
+    }
+
+    /**
+     * Returns -1 if not supported
+     */
+    private static long getGcStat(String name) {
+        if (Build.VERSION.SDK_INT < 23) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(Debug.getRuntimeStat(name));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void record(int type, long value, int extra) {
+        int index = (int) (mTotal % CAPACITY);
+        mTimes[index] = System.currentTimeMillis();
+        mTypes[index] = type;
+        mValues[index] = value;
+        mExtras[index] = extra;
+        mTotal++;
+    }
+
+    private synchronized void restoreState() {
+        if (!mFile.exists()) {
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "r")) {
+            FileChannel channel = file.getChannel();
+
+            mHeaderBuffer.clear();
+            channel.read(mHeaderBuffer, 0);
+            mHeaderBuffer.flip();
+
+            if (mHeaderBuffer.remaining() < HEADER_SIZE || mHeaderBuffer.getInt() != MAGIC || mHeaderBuffer.getInt() != CAPACITY) {
+                return;
+            }
+
+            long total = mHeaderBuffer.getLong();
+            int count = (int) Math.min(total, CAPACITY);
+
+            for (long i = total - count; i < total; i++) {
+                int index = (int) (i % CAPACITY);
+                mRecordBuffer.clear();
+                channel.read(mRecordBuffer, HEADER_SIZE + (long) index * RECORD_SIZE);
+                mRecordBuffer.flip();
+
+                if (mRecordBuffer.remaining() < RECORD_SIZE) {
+                    return;
+                }
+
+                mTimes[index] = mRecordBuffer.getLong();
+                mTypes[index] = mRecordBuffer.getInt();
+                mValues[index] = mRecordBuffer.getLong();
+                mExtras[index] = mRecordBuffer.getInt();
+            }
+
+            mTotal = total;
+            mFlushedTotal = total;
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read events: %s", e.getMessage());
+        }
+    }
+
+    private synchronized void persistState() {
+        if (mFlushedTotal == mTotal) {
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            FileChannel channel = file.getChannel();
+
+            for (long i = Math.max(mFlushedTotal, mTotal - CAPACITY); i < mTotal; i++) {
+                int index = (int) (i % CAPACITY);
+                mRecordBuffer.clear();
+                mRecordBuffer.putLong(mTimes[index]).putInt(mTypes[index]).putLong(mValues[index]).putInt(mExtras[index]);
+                mRecordBuffer.flip();
+                channel.write(mRecordBuffer, HEADER_SIZE + (long) index * RECORD_SIZE);
+            }
+
+            // Header is written last. Records beyond the total are ignored on read.
+            mHeaderBuffer.clear();
+            mHeaderBuffer.putInt(MAGIC).putInt(CAPACITY).putLong(mTotal);
+            mHeaderBuffer.flip();
+            channel.write(mHeaderBuffer, 0);
+
+            mFlushedTotal = mTotal;
+        } catch (IOException e) {
+            Log.e(TAG, "Can't write events: %s", e.getMessage());
+        }
+    }
+}
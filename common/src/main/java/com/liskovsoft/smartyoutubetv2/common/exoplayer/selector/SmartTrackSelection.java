@@ -0,0 +1,117 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.selector;
+
+import android.os.Handler;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.chunk.MediaChunk;
+import com.google.android.exoplayer2.source.chunk.MediaChunkIterator;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.util.Clock;
+import com.liskovsoft.sharedutils.mylogger.Log;
+
+import java.util.List;
+
+/**
+ * Smart quality mode. Used when the video definition contains multiple tracks (see {@link TrackSelectorManager}).<br/>
+ * Steps down before the buffer runs dry and back up when the throughput allows.<br/>
+ * The estimate is the lowest of the ExoPlayer's meter and the sliding window of the {@link ThroughputEstimator}.
+ * Low buffer makes it even more conservative.
+ */
+public class SmartTrackSelection extends AdaptiveTrackSelection {
+    private static final String TAG = SmartTrackSelection.class.getSimpleName();
+    private static final long LOW_BUFFER_MS = 5_000;
+    private static final long MEDIUM_BUFFER_MS = 15_000;
+    private final BufferAwareBandwidthMeter mBandwidthMeter;
+    private final ThroughputEstimator mEstimator;
+
+    public static class Factory extends AdaptiveTrackSelection.Factory {
+        @Override
+        protected AdaptiveTrackSelection createAdaptiveTrackSelection(TrackGroup group, BandwidthMeter bandwidthMeter, int[] tracks) {
+            return new SmartTrackSelection(group, tracks, new BufferAwareBandwidthMeter(bandwidthMeter, ThroughputEstimator.instance()));
+        }
+    }
+
+    private SmartTrackSelection(TrackGroup group, int[] tracks, BufferAwareBandwidthMeter bandwidthMeter) {
+        super(group, tracks, bandwidthMeter,
+                DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS,
+                DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS,
+                DEFAULT_MIN_DURATION_TO_RETAIN_AFTER_DISCARD_MS,
+                DEFAULT_BANDWIDTH_FRACTION,
+                DEFAULT_BUFFERED_FRACTION_TO_LIVE_EDGE_FOR_QUALITY_INCREASE,
+                DEFAULT_MIN_TIME_BETWEEN_BUFFER_REEVALUTATION_MS,
+                Clock.DEFAULT);
+        mBandwidthMeter = bandwidthMeter;
+        mEstimator = bandwidthMeter.mEstimator;
+        mEstimator.reset();
+    }
+
+    @Override
+    public void updateSelectedTrack(long playbackPositionUs, long bufferedDurationUs, long availableDurationUs,
+                                    List<? extends MediaChunk> queue, MediaChunkIterator[] mediaChunkIterators) {
+        long bufferedDurationMs = C.usToMs(bufferedDurationUs);
+        mBandwidthMeter.mBufferedDurationMs = bufferedDurationMs;
+
+        Format previous = getSelectedFormat();
+        boolean isInitial = getSelectionReason() == C.SELECTION_REASON_UNKNOWN;
+
+        super.updateSelectedTrack(playbackPositionUs, bufferedDurationUs, availableDurationUs, queue, mediaChunkIterators);
+
+        Format selected = getSelectedFormat();
+
+        if (!isInitial && selected != previous) {
+            String reason = String.format("%s kbps, %s s", mBandwidthMeter.getBitrateEstimate() / 1_000, bufferedDurationMs / 1_000);
+            Log.d(TAG, "Switching %sp -> %sp: %s", previous.height, selected.height, reason);
+            mEstimator.onSwitch(previous, selected, reason);
+        }
+
+        mEstimator.onBufferUpdate(bufferedDurationMs, selected);
+    }
+
+    /**
+     * Only the estimate is used by the {@link AdaptiveTrackSelection}
+     */
+    private static class BufferAwareBandwidthMeter implements BandwidthMeter {
+        private final BandwidthMeter mPlayerMeter;
+        private final ThroughputEstimator mEstimator;
+        private volatile long mBufferedDurationMs = MEDIUM_BUFFER_MS;
+
+        private BufferAwareBandwidthMeter(BandwidthMeter playerMeter, ThroughputEstimator estimator) {
+            mPlayerMeter = playerMeter;
+            mEstimator = estimator;
+        }
+
+        @Override
+        public long getBitrateEstimate() {
+            long estimate = mPlayerMeter.getBitrateEstimate();
+            long windowEstimate = mEstimator.getBitrateEstimate();
+
+            if (windowEstimate > 0) {
+                estimate = Math.min(estimate, windowEstimate);
+            }
+
+            // Rebuffering is worse than the lower quality
+            return mBufferedDurationMs < LOW_BUFFER_MS ? estimate / 2 :
+                    mBufferedDurationMs < MEDIUM_BUFFER_MS ? estimate * 3 / 4 : estimate;
+        }
+
+        @Nullable
+        @Override
+        public TransferListener getTransferListener() {
+            return mPlayerMeter.getTransferListener();
+        }
+
+        @Override
+        public void addEventListener(Handler eventHandler, EventListener eventListener) {
+            mPlayerMeter.addEventListener(eventHandler, eventListener);
+        }
+
+        @Override
+        public void removeEventListener(EventListener eventListener) {
+            mPlayerMeter.removeEventListener(eventListener);
+        }
+    }
+}
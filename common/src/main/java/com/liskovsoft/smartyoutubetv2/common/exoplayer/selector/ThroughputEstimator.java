@@ -0,0 +1,181 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.selector;
+
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Smart quality mode. Sliding window throughput of the player transfers and the buffer occupancy of the video track.<br/>
+ * Also keeps the latest quality decisions of the {@link SmartTrackSelection} (shown in the debug info).
+ */
+public class ThroughputEstimator implements TransferListener {
+    private static final long WINDOW_MS = 30_000;
+    private static final int MAX_SAMPLES = 20;
+    // Latency dominates the small transfers (manifests, init segments)
+    private static final long MIN_SAMPLE_BYTES = 64 * 1024;
+    private static final int MIN_SAMPLES = 3;
+    private static ThroughputEstimator sInstance;
+    private final ArrayDeque<Sample> mSamples = new ArrayDeque<>();
+    private final Map<DataSource, Transfer> mTransfers = new HashMap<>();
+    private volatile long mBufferedDurationMs;
+    private volatile Format mFormat;
+    private volatile String mLastDecision;
+    private volatile int mSwitchesUp;
+    private volatile int mSwitchesDown;
+
+    private static class Sample {
+        final long timeMs;
+        final long bytes;
+        final long durationMs;
+
+        Sample(long timeMs, long bytes, long durationMs) {
+            this.timeMs = timeMs;
+            this.bytes = bytes;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private static class Transfer {
+        final long startMs = SystemClock.elapsedRealtime();
+        long bytes;
+    }
+
+    private ThroughputEstimator() {
+    }
+
+    public static ThroughputEstimator instance() {
+        if (sInstance == null) {
+            sInstance = new ThroughputEstimator();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Bits per second. Zero until the window has enough samples.
+     */
+    public synchronized long getBitrateEstimate() {
+        removeStaleSamples(SystemClock.elapsedRealtime());
+
+        if (mSamples.size() < MIN_SAMPLES) {
+            return 0;
+        }
+
+        long totalBytes = 0;
+        long totalDurationMs = 0;
+
+        for (Sample sample : mSamples) {
+            totalBytes += sample.bytes;
+            totalDurationMs += sample.durationMs;
+        }
+
+        return totalDurationMs > 0 ? totalBytes * 8 * 1_000 / totalDurationMs : 0;
+    }
+
+    public long getBufferedDurationMs() {
+        return mBufferedDurationMs;
+    }
+
+    /**
+     * Format that is being loaded now
+     */
+    @Nullable
+    public Format getFormat() {
+        return mFormat;
+    }
+
+    @Nullable
+    public String getLastDecision() {
+        return mLastDecision;
+    }
+
+    public int getSwitchesUp() {
+        return mSwitchesUp;
+    }
+
+    public int getSwitchesDown() {
+        return mSwitchesDown;
+    }
+
+    /**
+     * New video. Keep the throughput samples. The network is the same.
+     */
+    public void reset() {
+        mBufferedDurationMs = 0;
+        mFormat = null;
+        mLastDecision = null;
+        mSwitchesUp = 0;
+        mSwitchesDown = 0;
+    }
+
+    void onBufferUpdate(long bufferedDurationMs, Format format) {
+        mBufferedDurationMs = bufferedDurationMs;
+        mFormat = format;
+    }
+
+    void onSwitch(Format from, Format to, String reason) {
+        if (to.bitrate > from.bitrate) {
+            mSwitchesUp++;
+        } else {
+            mSwitchesDown++;
+        }
+
+        mLastDecision = String.format("%sp -> %sp (%s)", from.height, to.height, reason);
+    }
+
+    @Override
+    public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        // NOP
+    }
+
+    @Override
+    public synchronized void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        if (isNetwork) {
+            mTransfers.put(source, new Transfer());
+        }
+    }
+
+    @Override
+    public synchronized void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+        Transfer transfer = mTransfers.get(source);
+
+        if (transfer != null) {
+            transfer.bytes += bytesTransferred;
+        }
+    }
+
+    @Override
+    public synchronized void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        Transfer transfer = mTransfers.remove(source);
+
+        if (transfer == null || transfer.bytes < MIN_SAMPLE_BYTES) {
+            return;
+        }
+
+        long nowMs = SystemClock.elapsedRealtime();
+        long durationMs = nowMs - transfer.startMs;
+
+        if (durationMs <= 0) {
+            return;
+        }
+
+        mSamples.addLast(new Sample(nowMs, transfer.bytes, durationMs));
+
+        if (mSamples.size() > MAX_SAMPLES) {
+            mSamples.removeFirst();
+        }
+    }
+
+    private void removeStaleSamples(long nowMs) {
+        while (!mSamples.isEmpty() && nowMs - mSamples.peekFirst().timeMs > WINDOW_MS) {
+            mSamples.removeFirst();
+        }
+    }
+}
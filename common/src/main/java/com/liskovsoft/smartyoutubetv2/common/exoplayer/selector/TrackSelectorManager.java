@@ -319,7 +319,7 @@ public class TrackSelectorManager implements TrackSelectorCallback {
         MediaTrack matchedTrack = findBestMatch(selectedTrack);
 
         if (matchedTrack.groupIndex != -1) {
-            Definition definition = new Definition(groups.get(matchedTrack.groupIndex), matchedTrack.trackIndex);
+            Definition definition = new Definition(groups.get(matchedTrack.groupIndex), getSelectionTracks(matchedTrack));
             definitionPair = new Pair<>(definition, matchedTrack);
             setSelection(matchedTrack.rendererIndex, matchedTrack.groupIndex, matchedTrack.trackIndex);
         } else {
@@ -329,6 +329,47 @@ public class TrackSelectorManager implements TrackSelectorCallback {
         return definitionPair;
     }
 
+    /**
+     * Smart quality: the matched video track is the ceiling. Lower tracks of the same group (codec) are used when the network is slow.<br/>
+     * Multiple tracks enable the adaptive selection (see {@link SmartTrackSelection}).
+     */
+    private int[] getSelectionTracks(MediaTrack matchedTrack) {
+        if (matchedTrack.rendererIndex != RENDERER_INDEX_VIDEO || !PlayerTweaksData.instance(mContext).isSmartQualityEnabled()) {
+            return new int[] {matchedTrack.trackIndex};
+        }
+
+        MediaTrack[] trackGroup = mRenderers[RENDERER_INDEX_VIDEO].mediaTracks[matchedTrack.groupIndex];
+        Format ceiling = matchedTrack.format;
+        boolean isHdr = TrackSelectorUtil.isHdrFormat(ceiling);
+        List<Integer> result = new ArrayList<>();
+
+        for (MediaTrack mediaTrack : trackGroup) {
+            if (mediaTrack == null) {
+                continue;
+            }
+
+            Format format = mediaTrack.format;
+
+            if (mediaTrack.trackIndex == matchedTrack.trackIndex ||
+                    (format.height <= ceiling.height && isInBounds(format.bitrate, ceiling.bitrate) &&
+                     isInBounds(format.frameRate, ceiling.frameRate) && TrackSelectorUtil.isHdrFormat(format) == isHdr)) {
+                result.add(mediaTrack.trackIndex);
+            }
+        }
+
+        int[] tracks = new int[result.size()];
+
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = result.get(i);
+        }
+
+        return tracks;
+    }
+
+    private static boolean isInBounds(float value, float ceiling) {
+        return ceiling == Format.NO_VALUE || value <= ceiling;
+    }
+
     private Pair<Definition, MediaTrack> createRendererSelection(int rendererIndex, TrackGroupArray groups, Parameters params) {
         if (mSelectedTracks[rendererIndex] == null || params.hasSelectionOverride(rendererIndex, groups)) {
             return null;
@@ -343,7 +384,26 @@ public class TrackSelectorManager implements TrackSelectorCallback {
 
         definition = getOverride(rendererIndex, groups, params, definition);
         
-        setSelection(rendererIndex, groups.indexOf(definition.group), definition.tracks);
+        setSelection(rendererIndex, groups.indexOf(definition.group), getCeilingTrack(definition));
+    }
+
+    /**
+     * Smart quality override contains multiple tracks. Only the highest one is shown as selected.
+     */
+    private static int[] getCeilingTrack(Definition definition) {
+        if (definition.tracks.length <= 1) {
+            return definition.tracks;
+        }
+
+        int result = definition.tracks[0];
+
+        for (int trackIndex : definition.tracks) {
+            if (definition.group.getFormat(trackIndex).bitrate > definition.group.getFormat(result).bitrate) {
+                result = trackIndex;
+            }
+        }
+
+        return new int[] {result};
     }
 
     private Definition getOverride(int rendererIndex, TrackGroupArray rendererTrackGroups, Parameters params, Definition original) {
@@ -599,7 +659,7 @@ public class TrackSelectorManager implements TrackSelectorCallback {
             Log.d(TAG, "Setting override for renderer %s, group %s, track %s...", rendererIndex, selectedTrack.groupIndex, selectedTrack.trackIndex);
 
             mTrackSelector.setParameters(mTrackSelector.buildUponParameters().setSelectionOverride(
-                    rendererIndex, renderer.trackGroups, new SelectionOverride(selectedTrack.groupIndex, selectedTrack.trackIndex)
+                    rendererIndex, renderer.trackGroups, new SelectionOverride(selectedTrack.groupIndex, getSelectionTracks(selectedTrack))
             ));
         } else {
             Log.e(TAG, "Something went wrong. Selected track not found");
@@ -0,0 +1,344 @@
+package com.liskovsoft.smartyoutubetv2.common.exoplayer.versions;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecInfo.CodecCapabilities;
+import android.media.MediaCodecInfo.CodecProfileLevel;
+import android.media.MediaCodecInfo.VideoCapabilities;
+import android.media.MediaCodecList;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.mediacodec.MediaCodecUtil;
+import com.google.android.exoplayer2.mediacodec.MediaCodecUtil.DecoderQueryException;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decoder capabilities snapshot persisted per firmware ({@link Build#FINGERPRINT}).<br/>
+ * Platform codec list enumeration takes hundreds of ms on some boxes (Amlogic, MTK). The snapshot is read from disk instead.<br/>
+ * Until the snapshot is loaded the queries fall back to the platform.
+ */
+public class DecoderCapsCache {
+    private static final String TAG = DecoderCapsCache.class.getSimpleName();
+    private static final String CACHE_FILE = "decoder_caps";
+    private static final String DELIM = "\t";
+    private static final String LIST_DELIM = ",";
+    private static final String[] MIME_TYPES = {
+            MimeTypes.VIDEO_H264, MimeTypes.VIDEO_H265, MimeTypes.VIDEO_VP9, MimeTypes.VIDEO_AV1,
+            MimeTypes.AUDIO_AAC, MimeTypes.AUDIO_OPUS, MimeTypes.AUDIO_AC3, MimeTypes.AUDIO_E_AC3
+    };
+    @SuppressLint("StaticFieldLeak")
+    private static DecoderCapsCache sInstance;
+    private final Context mContext;
+    private volatile List<DecoderCaps> mDecoders;
+    private boolean mIsLoadStarted;
+
+    public static class DecoderCaps {
+        public final String mimeType;
+        public final String name;
+        public final boolean isHardware;
+        public final int maxWidth;
+        public final int maxHeight;
+        public final int maxFrameRate;
+        /**
+         * Pairs of profile and level
+         */
+        public final int[] profileLevels;
+
+        private DecoderCaps(String mimeType, String name, boolean isHardware, int maxWidth, int maxHeight, int maxFrameRate, int[] profileLevels) {
+            this.mimeType = mimeType;
+            this.name = name;
+            this.isHardware = isHardware;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.maxFrameRate = maxFrameRate;
+            this.profileLevels = profileLevels;
+        }
+
+        public boolean isSizeSupported(int width, int height) {
+            // Decoders usually support both orientations
+            return Math.max(maxWidth, maxHeight) >= Math.max(width, height) && Math.min(maxWidth, maxHeight) >= Math.min(width, height);
+        }
+    }
+
+    private DecoderCapsCache(Context context) {
+        mContext = context;
+    }
+
+    public static DecoderCapsCache instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DecoderCapsCache(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Read the snapshot (probe the platform on the first run or after the firmware update).<br/>
+     * After the probe also warms up ExoPlayer's in-process decoder cache (the platform list is already enumerated at this point).
+     */
+    public void load() {
+        if (mIsLoadStarted) {
+            return;
+        }
+
+        mIsLoadStarted = true;
+
+        RxHelper.runAsync(() -> {
+            List<DecoderCaps> decoders = restore();
+
+            if (decoders != null) {
+                // Firmware is the same. Don't enumerate the platform codecs on start.
+                mDecoders = decoders;
+                return;
+            }
+
+            decoders = probe();
+            persist(decoders);
+
+            // Probe failed. Keep the platform fallback (Helpers) instead of 'nothing is supported'.
+            if (!decoders.isEmpty()) {
+                mDecoders = decoders;
+            }
+
+            warmUpExoPlayer();
+        });
+    }
+
+    public static boolean isVP9ResolutionSupported(int height) {
+        Boolean result = isResolutionSupported(MimeTypes.VIDEO_VP9, height);
+        return result != null ? result : Helpers.isVP9ResolutionSupported(height);
+    }
+
+    public static boolean isAV1ResolutionSupported(int height) {
+        Boolean result = isResolutionSupported(MimeTypes.VIDEO_AV1, height);
+        return result != null ? result : Helpers.isAV1ResolutionSupported(height);
+    }
+
+    /**
+     * True if unknown (snapshot isn't loaded, no frame rate, no hardware decoder of that size)
+     */
+    public static boolean isFrameRateSupported(String mimeType, int height, float frameRate) {
+        if (mimeType == null || frameRate <= 0) {
+            return true;
+        }
+
+        int maxFrameRate = getMaxFrameRate(mimeType, height);
+
+        // 59.94 vs 60
+        return maxFrameRate == 0 || frameRate <= maxFrameRate + 1;
+    }
+
+    /**
+     * Max frame rate of the hardware decoder at given height. Zero if unknown.
+     */
+    private static int getMaxFrameRate(String mimeType, int height) {
+        List<DecoderCaps> decoders = sInstance != null ? sInstance.mDecoders : null;
+
+        if (decoders == null) {
+            return 0;
+        }
+
+        int result = 0;
+
+        for (DecoderCaps decoder : decoders) {
+            if (decoder.isHardware && decoder.mimeType.equals(mimeType) && decoder.isSizeSupported(height * 16 / 9, height)) {
+                result = Math.max(result, decoder.maxFrameRate);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Null if the snapshot isn't loaded yet. Only hardware decoders count.
+     */
+    @Nullable
+    private static Boolean isResolutionSupported(String mimeType, int height) {
+        List<DecoderCaps> decoders = sInstance != null ? sInstance.mDecoders : null;
+
+        if (decoders == null) {
+            return null;
+        }
+
+        for (DecoderCaps decoder : decoders) {
+            if (decoder.isHardware && decoder.mimeType.equals(mimeType) && decoder.isSizeSupported(height * 16 / 9, height)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<DecoderCaps> probe() {
+        List<DecoderCaps> result = new ArrayList<>();
+        List<String> mimeTypes = Arrays.asList(MIME_TYPES);
+
+        try {
+            for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+                if (info.isEncoder()) {
+                    continue;
+                }
+
+                for (String type : info.getSupportedTypes()) {
+                    String mimeType = type.toLowerCase();
+
+                    if (!mimeTypes.contains(mimeType)) {
+                        continue;
+                    }
+
+                    result.add(toDecoderCaps(mimeType, info.getName(), info.getCapabilitiesForType(type)));
+                }
+            }
+        } catch (RuntimeException e) { // IllegalArgumentException on broken firmwares
+            Log.e(TAG, "Can't probe decoders: %s", e.getMessage());
+        }
+
+        return result;
+    }
+
+    private static DecoderCaps toDecoderCaps(String mimeType, String name, CodecCapabilities caps) {
+        int maxWidth = 0;
+        int maxHeight = 0;
+        int maxFrameRate = 0;
+        VideoCapabilities videoCaps = caps.getVideoCapabilities();
+
+        if (videoCaps != null) {
+            maxWidth = videoCaps.getSupportedWidths().getUpper();
+            maxHeight = videoCaps.getSupportedHeights().getUpper();
+            maxFrameRate = videoCaps.getSupportedFrameRates().getUpper();
+        }
+
+        CodecProfileLevel[] levels = caps.profileLevels != null ? caps.profileLevels : new CodecProfileLevel[0];
+        int[] profileLevels = new int[levels.length * 2];
+
+        for (int i = 0; i < levels.length; i++) {
+            profileLevels[i * 2] = levels[i].profile;
+            profileLevels[i * 2 + 1] = levels[i].level;
+        }
+
+        return new DecoderCaps(mimeType, name, Helpers.isHardwareAccelerated(name), maxWidth, maxHeight, maxFrameRate, profileLevels);
+    }
+
+    /**
+     * ExoPlayer keeps its own decoder list per process. The renderers query it on the first playback.
+     */
+    private static void warmUpExoPlayer() {
+        for (String mimeType : MIME_TYPES) {
+            try {
+                MediaCodecUtil.getDecoderInfos(mimeType, false, false);
+            } catch (DecoderQueryException e) {
+                Log.e(TAG, "Can't query decoders: %s", e.getMessage());
+            }
+        }
+    }
+
+    @Nullable
+    private List<DecoderCaps> restore() {
+        File file = getCacheFile();
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        List<DecoderCaps> result = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            if (!Build.FINGERPRINT.equals(reader.readLine())) {
+                // Firmware updated
+                return null;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] split = Helpers.split(DELIM, line);
+                String mimeType = Helpers.parseStr(split, 0);
+                String name = Helpers.parseStr(split, 1);
+                if (mimeType == null || name == null) {
+                    continue;
+                }
+                result.add(new DecoderCaps(mimeType, name, Helpers.parseInt(split, 2, 0) == 1, Helpers.parseInt(split, 3, 0),
+                        Helpers.parseInt(split, 4, 0), Helpers.parseInt(split, 5, 0), parseInts(Helpers.parseStr(split, 6))));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read decoder caps: %s", e.getMessage());
+            return null;
+        }
+
+        return result.isEmpty() ? null : Collections.unmodifiableList(result);
+    }
+
+    private void persist(List<DecoderCaps> decoders) {
+        if (decoders.isEmpty()) {
+            // Probe failed. Try again on the next start.
+            return;
+        }
+
+        File file = getCacheFile();
+        File tmpFile = new File(file.getPath() + ".tmp");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmpFile))) {
+            writer.write(Build.FINGERPRINT);
+            writer.newLine();
+            for (DecoderCaps decoder : decoders) {
+                writer.write(decoder.mimeType + DELIM + decoder.name + DELIM + (decoder.isHardware ? 1 : 0) + DELIM + decoder.maxWidth + DELIM +
+                        decoder.maxHeight + DELIM + decoder.maxFrameRate + DELIM + joinInts(decoder.profileLevels));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't write decoder caps: %s", e.getMessage());
+            tmpFile.delete();
+            return;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+        }
+    }
+
+    private File getCacheFile() {
+        return new File(mContext.getCacheDir(), CACHE_FILE);
+    }
+
+    private static String joinInts(int[] values) {
+        StringBuilder result = new StringBuilder();
+
+        for (int value : values) {
+            if (result.length() > 0) {
+                result.append(LIST_DELIM);
+            }
+            result.append(value);
+        }
+
+        return result.toString();
+    }
+
+    private static int[] parseInts(String value) {
+        if (value == null || value.isEmpty()) {
+            return new int[0];
+        }
+
+        String[] split = value.split(LIST_DELIM);
+        int[] result = new int[split.length];
+
+        for (int i = 0; i < split.length; i++) {
+            result[i] = Helpers.parseInt(split[i]);
+        }
+
+        return result;
+    }
+}
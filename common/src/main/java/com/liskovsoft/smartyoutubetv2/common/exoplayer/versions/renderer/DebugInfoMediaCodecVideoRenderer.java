@@ -16,12 +16,14 @@ import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
 import com.google.android.exoplayer2.video.MediaCodecVideoRenderer;
 import com.google.android.exoplayer2.video.VideoRendererEventListener;
 import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.QoeRecorder;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.ExoUtils;
 
 public class DebugInfoMediaCodecVideoRenderer extends MediaCodecVideoRenderer {
     private static final String TAG = DebugInfoMediaCodecVideoRenderer.class.getSimpleName();
     private int mFrameIndex;
     private boolean mIsSetOutputSurfaceWorkaroundEnabled;
+    private final QoeRecorder mQoeRecorder;
 
     // Exo 2.9
     //public DebugInfoMediaCodecVideoRenderer(Context context, MediaCodecSelector mediaCodecSelector, long allowedJoiningTimeMs,
@@ -36,6 +38,7 @@ public class DebugInfoMediaCodecVideoRenderer extends MediaCodecVideoRenderer {
     public DebugInfoMediaCodecVideoRenderer(Context context, MediaCodecSelector mediaCodecSelector, long allowedJoiningTimeMs,
                                             @Nullable DrmSessionManager<FrameworkMediaCrypto> drmSessionManager, boolean playClearSamplesWithoutKeys, boolean enableDecoderFallback, @Nullable Handler eventHandler, @Nullable VideoRendererEventListener eventListener, int maxDroppedFramesToNotify) {
         super(context, mediaCodecSelector, allowedJoiningTimeMs, drmSessionManager, playClearSamplesWithoutKeys, enableDecoderFallback, eventHandler, eventListener, maxDroppedFramesToNotify);
+        mQoeRecorder = QoeRecorder.instance(context);
     }
 
     // Exo 2.12, 2.13
@@ -71,6 +74,13 @@ public class DebugInfoMediaCodecVideoRenderer extends MediaCodecVideoRenderer {
     //    Log.d(TAG, "Real fps: %s", 1_000_000f / (presentationTimeUs / mFrameIndex));
     //}
 
+    @Override
+    protected void updateDroppedBufferCounters(int droppedBufferCount) {
+        super.updateDroppedBufferCounters(droppedBufferCount);
+
+        mQoeRecorder.onFramesDropped(droppedBufferCount);
+    }
+
     @Override
     protected boolean codecNeedsSetOutputSurfaceWorkaround(String name) {
         // Null surface error on Android 9 (VERSION.SDK_INT >= 28) and above (appears on background audio playback)
@@ -8,16 +8,24 @@ import com.liskovsoft.sharedutils.helpers.FileHelpers;
 import com.liskovsoft.sharedutils.helpers.MessageHelpers;
 import com.liskovsoft.sharedutils.helpers.PermissionHelpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
 import com.liskovsoft.smartyoutubetv2.common.R;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.VideoStateService;
 import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
 import com.liskovsoft.smartyoutubetv2.common.prefs.HiddenPrefs;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 public class BackupAndRestoreManager implements MotherActivity.OnPermissions {
     private static final String TAG = BackupAndRestoreManager.class.getSimpleName();
@@ -37,6 +45,8 @@ public class BackupAndRestoreManager implements MotherActivity.OnPermissions {
         mContext = context;
         mDataDirs = new ArrayList<>();
         mDataDirs.add(new File(mContext.getApplicationInfo().dataDir, SHARED_PREFS_SUBDIR));
+        // Watch history. Old backups don't have it. The history is restored from the prefs then.
+        mDataDirs.add(VideoStateService.getJournalDir(mContext));
 
         mBackupDirs = new ArrayList<>();
         mBackupDirs.add(new File(FileHelpers.getBackupDir(mContext), BACKUP_DIR_NAME));
@@ -75,6 +85,52 @@ public class BackupAndRestoreManager implements MotherActivity.OnPermissions {
         }
     }
 
+    /**
+     * Compressed copy of the file next to the backup dir
+     */
+    public void checkPermAndExport(File file) {
+        if (FileHelpers.isExternalStorageWritable()) {
+            if (PermissionHelpers.hasStoragePermissions(mContext)) {
+                exportData(file);
+            } else {
+                mPendingHandler = () -> exportData(file);
+                verifyStoragePermissionsAndReturn();
+            }
+        }
+    }
+
+    private void exportData(File file) {
+        File currentBackup = getBackup();
+
+        if (currentBackup == null || currentBackup.getParentFile() == null || !file.exists()) {
+            Log.d(TAG, "Oops. Nothing to export or export location not writable.");
+            return;
+        }
+
+        File destination = new File(currentBackup.getParentFile(), file.getName() + ".gz");
+
+        RxHelper.runAsync(() -> {
+            try (InputStream in = new FileInputStream(file);
+                 OutputStream out = new GZIPOutputStream(new FileOutputStream(destination))) {
+                byte[] buffer = new byte[8 * 1024];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, length);
+                }
+                Utils.post(() -> MessageHelpers.showMessage(mContext, R.string.msg_done));
+            } catch (IOException e) {
+                Log.e(TAG, "Export error: %s", e.getMessage());
+            }
+        });
+    }
+
+    public String getExportPath(File file) {
+        File currentBackup = getBackup();
+
+        return currentBackup != null && currentBackup.getParentFile() != null ?
+                new File(currentBackup.getParentFile(), file.getName() + ".gz").toString() : null;
+    }
+
     private void backupData() {
         Log.d(TAG, "App has been updated or installed. Doing data backup...");
 
@@ -90,6 +146,11 @@ public class BackupAndRestoreManager implements MotherActivity.OnPermissions {
             FileHelpers.delete(currentBackup);
         }
 
+        VideoStateService stateService = VideoStateService.instance(mContext);
+        if (stateService != null) {
+            stateService.flushBlocking();
+        }
+
         for (File dataDir : mDataDirs) {
             if (dataDir.isDirectory() && !FileHelpers.isEmpty(dataDir)) {
                 File destination = new File(currentBackup, dataDir.getName());
@@ -112,6 +173,11 @@ public class BackupAndRestoreManager implements MotherActivity.OnPermissions {
             return;
         }
 
+        VideoStateService stateService = VideoStateService.instance(null);
+        if (stateService != null) {
+            stateService.onDataRestored();
+        }
+
         for (File dataDir : mDataDirs) {
             if (dataDir.isDirectory()) {
                 // remove old data
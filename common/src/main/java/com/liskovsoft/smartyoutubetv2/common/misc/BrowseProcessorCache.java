@@ -0,0 +1,180 @@
+package com.liskovsoft.smartyoutubetv2.common.misc;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import androidx.annotation.Nullable;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of the browse processors (DeArrow, unlocalized titles) per video id (memory + disk).<br/>
+ * Known titles are applied before the card is shown. Refreshes don't download the same titles again.<br/>
+ * Empty results are stored as well (most of the videos don't have DeArrow submissions).
+ */
+public class BrowseProcessorCache {
+    private static final String TAG = BrowseProcessorCache.class.getSimpleName();
+    private static final String CACHE_FILE = "browse_processor_cache";
+    private static final String DELIM = "\t";
+    private static final String DEARROW_PREFIX = "d:";
+    private static final String UNLOCALIZED_PREFIX = "u:";
+    private static final int MAX_ENTRIES = 5_000;
+    // Community submissions change over time
+    private static final long DEARROW_MAX_AGE_MS = 24 * 60 * 60 * 1_000;
+    private static final long UNLOCALIZED_MAX_AGE_MS = 7 * 24 * 60 * 60 * 1_000;
+    private static final long PERSIST_DELAY_MS = 10_000;
+    @SuppressLint("StaticFieldLeak")
+    private static BrowseProcessorCache sInstance;
+    private final Context mContext;
+    private final Map<String, Entry> mEntries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+    private final Runnable mPersist = () -> RxHelper.runAsync(this::persist);
+
+    public static class Entry {
+        @Nullable
+        public final String title;
+        @Nullable
+        public final String thumbnailUrl;
+        final long timestamp;
+
+        Entry(String title, String thumbnailUrl, long timestamp) {
+            this.title = title;
+            this.thumbnailUrl = thumbnailUrl;
+            this.timestamp = timestamp;
+        }
+
+        boolean isExpired(long maxAgeMs) {
+            return System.currentTimeMillis() - timestamp > maxAgeMs;
+        }
+    }
+
+    private BrowseProcessorCache(Context context) {
+        mContext = context;
+        RxHelper.runAsync(this::restore);
+    }
+
+    public static BrowseProcessorCache instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new BrowseProcessorCache(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Null if unknown or expired. Entry without title if there's no DeArrow data for the video.
+     */
+    @Nullable
+    public Entry getDeArrow(String videoId) {
+        return get(DEARROW_PREFIX + videoId, DEARROW_MAX_AGE_MS);
+    }
+
+    public void putDeArrow(String videoId, @Nullable String title, @Nullable String thumbnailUrl) {
+        put(DEARROW_PREFIX + videoId, title, thumbnailUrl);
+    }
+
+    @Nullable
+    public Entry getUnlocalized(String videoId) {
+        return get(UNLOCALIZED_PREFIX + videoId, UNLOCALIZED_MAX_AGE_MS);
+    }
+
+    public void putUnlocalized(String videoId, @Nullable String title) {
+        put(UNLOCALIZED_PREFIX + videoId, title, null);
+    }
+
+    @Nullable
+    private Entry get(String key, long maxAgeMs) {
+        Entry entry = mEntries.get(key);
+
+        return entry != null && !entry.isExpired(maxAgeMs) ? entry : null;
+    }
+
+    private void put(String key, String title, String thumbnailUrl) {
+        mEntries.put(key, new Entry(title, thumbnailUrl, System.currentTimeMillis()));
+        Utils.postDelayed(mPersist, PERSIST_DELAY_MS);
+    }
+
+    private void restore() {
+        File file = getCacheFile();
+
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] split = Helpers.split(DELIM, line);
+                String key = Helpers.parseStr(split, 0);
+                if (key == null) {
+                    continue;
+                }
+                Entry entry = new Entry(unescape(Helpers.parseStr(split, 1)), unescape(Helpers.parseStr(split, 2)), Helpers.parseLong(split, 3));
+                synchronized (mEntries) {
+                    // Don't replace the fresh data
+                    if (!mEntries.containsKey(key)) {
+                        mEntries.put(key, entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read cache: %s", e.getMessage());
+        }
+    }
+
+    private void persist() {
+        List<Map.Entry<String, Entry>> entries;
+
+        synchronized (mEntries) {
+            entries = new ArrayList<>(mEntries.entrySet());
+        }
+
+        File file = getCacheFile();
+        File tmpFile = new File(file.getPath() + ".tmp");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmpFile))) {
+            for (Map.Entry<String, Entry> item : entries) {
+                Entry entry = item.getValue();
+                writer.write(item.getKey() + DELIM + escape(entry.title) + DELIM + escape(entry.thumbnailUrl) + DELIM + entry.timestamp);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't write cache: %s", e.getMessage());
+            tmpFile.delete();
+            return;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+        }
+    }
+
+    private File getCacheFile() {
+        return new File(mContext.getCacheDir(), CACHE_FILE);
+    }
+
+    private static String escape(String value) {
+        return value != null ? value.replace(DELIM, " ").replace("\n", " ").replace("\r", " ") : "";
+    }
+
+    private static String unescape(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+}
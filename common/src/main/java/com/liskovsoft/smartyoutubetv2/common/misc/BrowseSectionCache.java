@@ -0,0 +1,298 @@
+package com.liskovsoft.smartyoutubetv2.common.misc;
+
+import android.content.Context;
+import androidx.annotation.Nullable;
+import com.liskovsoft.mediaserviceinterfaces.data.MediaGroup;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.BrowseSection;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps last loaded groups of the browse sections.<br/>
+ * Cached content is shown immediately and then revalidated in background (stale-while-revalidate).<br/>
+ * Boot section is also stored on disk as a compact snapshot to show something instantly after cold start.
+ */
+public class BrowseSectionCache {
+    private static final String TAG = BrowseSectionCache.class.getSimpleName();
+    private static final String SNAPSHOT_DIR = "browse_snapshot";
+    private static final String GROUP_PREFIX = "G\t";
+    private static final String VIDEO_PREFIX = "V\t";
+    private static final long MINUTE_MS = 60 * 1_000;
+    private static final long TTL_DEFAULT_MS = 60 * MINUTE_MS;
+    private static final long SNAPSHOT_MAX_AGE_MS = 24 * 60 * MINUTE_MS;
+    private static final int SNAPSHOT_MAX_GROUPS = 30;
+    private static final int SNAPSHOT_MAX_VIDEOS = 30;
+    private final Context mContext;
+    private final Map<Integer, Entry> mEntries = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        final List<VideoGroup> groups;
+        final long updateTimeMs;
+        final boolean fromSnapshot;
+
+        Entry(List<VideoGroup> groups, long updateTimeMs, boolean fromSnapshot) {
+            this.groups = groups;
+            this.updateTimeMs = updateTimeMs;
+            this.fromSnapshot = fromSnapshot;
+        }
+    }
+
+    public BrowseSectionCache(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    public static boolean isCacheable(BrowseSection section) {
+        return section != null && (section.getType() == BrowseSection.TYPE_ROW ||
+                section.getType() == BrowseSection.TYPE_GRID || section.getType() == BrowseSection.TYPE_SHORTS_GRID);
+    }
+
+    /**
+     * How long the section content is considered fresh (no network revalidation needed).<br/>
+     * Home keeps the old 3 hours rule.
+     */
+    public static long getTtlMs(int sectionId) {
+        switch (sectionId) {
+            case MediaGroup.TYPE_HOME:
+                return 3 * 60 * MINUTE_MS;
+            case MediaGroup.TYPE_SUBSCRIPTIONS:
+                return 15 * MINUTE_MS;
+            case MediaGroup.TYPE_HISTORY:
+                return 5 * MINUTE_MS;
+            case MediaGroup.TYPE_NOTIFICATIONS:
+                return 10 * MINUTE_MS;
+            case MediaGroup.TYPE_USER_PLAYLISTS:
+                return 30 * MINUTE_MS;
+            default:
+                return TTL_DEFAULT_MS;
+        }
+    }
+
+    /**
+     * Returns detached copies of the cached groups. Safe to render them again.
+     */
+    @Nullable
+    public List<VideoGroup> get(int sectionId) {
+        Entry entry = mEntries.get(sectionId);
+
+        if (entry == null || entry.groups.isEmpty()) {
+            return null;
+        }
+
+        List<VideoGroup> result = new ArrayList<>();
+
+        for (VideoGroup group : entry.groups) {
+            if (!group.isEmpty()) {
+                result.add(group.copyWithVideos());
+            }
+        }
+
+        // The copies are displayed from now on. Track them instead of the old ones.
+        mEntries.put(sectionId, new Entry(result, entry.updateTimeMs, entry.fromSnapshot));
+
+        return result;
+    }
+
+    public boolean isFresh(int sectionId) {
+        Entry entry = mEntries.get(sectionId);
+        return entry != null && !entry.fromSnapshot && System.currentTimeMillis() - entry.updateTimeMs < getTtlMs(sectionId);
+    }
+
+    public boolean isExpired(int sectionId) {
+        Entry entry = mEntries.get(sectionId);
+        return entry != null && System.currentTimeMillis() - entry.updateTimeMs >= getTtlMs(sectionId);
+    }
+
+    /**
+     * Store the groups that are displayed right now.<br/>
+     * Group objects are stored by reference so the cache also sees the continuations.
+     */
+    public void put(int sectionId, List<VideoGroup> groups, boolean persist) {
+        mEntries.put(sectionId, new Entry(new ArrayList<>(groups), System.currentTimeMillis(), false));
+
+        if (persist) {
+            persistSnapshot(sectionId, groups);
+        }
+    }
+
+    public void remove(int sectionId) {
+        mEntries.remove(sectionId);
+    }
+
+    public void clear() {
+        mEntries.clear();
+        RxHelper.runAsync(() -> {
+            File[] files = getSnapshotDir().listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Load disk snapshot. Do nothing if the section is already in memory.<br/>
+     * Blocking but cheap (small file). The first section load right after this call should see the snapshot.
+     */
+    public void restoreSnapshot(int sectionId) {
+        if (mEntries.containsKey(sectionId)) {
+            return;
+        }
+
+        Entry entry = readSnapshot(sectionId);
+
+        if (entry != null) {
+            mEntries.putIfAbsent(sectionId, entry);
+        }
+    }
+
+    private void persistSnapshot(int sectionId, List<VideoGroup> groups) {
+        // Copy references on the caller thread. Serialization will be done in background.
+        List<String> titles = new ArrayList<>();
+        List<List<Video>> videos = new ArrayList<>();
+
+        for (VideoGroup group : groups) {
+            if (titles.size() >= SNAPSHOT_MAX_GROUPS) {
+                break;
+            }
+
+            if (group.isEmpty() || group.getTitle() == null) {
+                continue;
+            }
+
+            titles.add(group.getTitle());
+            videos.add(new ArrayList<>(group.getVideos().subList(0, Math.min(SNAPSHOT_MAX_VIDEOS, group.getSize()))));
+        }
+
+        RxHelper.runAsync(() -> writeSnapshot(sectionId, titles, videos));
+    }
+
+    private void writeSnapshot(int sectionId, List<String> titles, List<List<Video>> videos) {
+        File snapshot = getSnapshotFile(sectionId);
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(snapshot))) {
+            for (int i = 0; i < titles.size(); i++) {
+                writer.write(GROUP_PREFIX + escape(titles.get(i)));
+                writer.newLine();
+
+                for (Video video : videos.get(i)) {
+                    writer.write(VIDEO_PREFIX + escape(video.toString()));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't write snapshot: %s", e.getMessage());
+            snapshot.delete();
+        }
+    }
+
+    @Nullable
+    private Entry readSnapshot(int sectionId) {
+        File snapshot = getSnapshotFile(sectionId);
+
+        if (!snapshot.exists() || System.currentTimeMillis() - snapshot.lastModified() > SNAPSHOT_MAX_AGE_MS) {
+            return null;
+        }
+
+        List<VideoGroup> groups = new ArrayList<>();
+        VideoGroup group = null;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(snapshot))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(GROUP_PREFIX)) {
+                    String title = unescape(line.substring(GROUP_PREFIX.length()));
+                    group = VideoGroup.from(null, (BrowseSection) null);
+                    group.setTitle(title);
+                    group.setId(title.hashCode()); // same as the id of the live group
+                    groups.add(group);
+                } else if (line.startsWith(VIDEO_PREFIX) && group != null) {
+                    Video video = Video.fromString(unescape(line.substring(VIDEO_PREFIX.length())));
+
+                    if (video != null) {
+                        group.add(video);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read snapshot: %s", e.getMessage());
+            return null;
+        }
+
+        return groups.isEmpty() ? null : new Entry(groups, snapshot.lastModified(), true);
+    }
+
+    private File getSnapshotFile(int sectionId) {
+        return new File(getSnapshotDir(), String.valueOf(sectionId));
+    }
+
+    private File getSnapshotDir() {
+        File dir = new File(mContext.getCacheDir(), SNAPSHOT_DIR);
+
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        return dir;
+    }
+
+    private static String escape(String value) {
+        return value != null ? value.replace("\\", "\\\\").replace("\n", "\\n") : "";
+    }
+
+    private static String unescape(String value) {
+        if (value == null || !value.contains("\\")) {
+            return value;
+        }
+
+        StringBuilder result = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 'n' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Same items in the same order. Fresh group may be shorter (continuations aren't loaded yet).
+     */
+    public static boolean startsWith(VideoGroup cached, VideoGroup fresh) {
+        if (cached == null || fresh == null || cached.getSize() < fresh.getSize()) {
+            return false;
+        }
+
+        for (int i = 0; i < fresh.getSize(); i++) {
+            Video first = cached.get(i);
+            Video second = fresh.get(i);
+
+            if (!Helpers.equals(first.videoId, second.videoId) || !Helpers.equals(first.playlistId, second.playlistId) ||
+                    !Helpers.equals(first.channelId, second.channelId)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package com.liskovsoft.smartyoutubetv2.common.misc;
+
+import android.content.Context;
+import android.util.Pair;
+import androidx.annotation.Nullable;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
+import com.liskovsoft.smartyoutubetv2.common.misc.BrowseProcessorCache.Entry;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Known results are applied synchronously (before the group is rendered).<br/>
+ * Unknown videos of the consequent groups are collected and requested in batches with limited concurrency.
+ */
+abstract class CachedBrowseProcessor implements BrowseProcessor {
+    private static final String TAG = CachedBrowseProcessor.class.getSimpleName();
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final int MAX_RUNNING_BATCHES = 2;
+    // Rows of the section come one after another
+    private static final long FLUSH_DELAY_MS = 100;
+    protected final BrowseProcessorCache mCache;
+    private final OnItemReady mOnItemReady;
+    // Same video could be inside multiple groups
+    private final Map<String, List<Video>> mWaiting = new HashMap<>();
+    private final Set<String> mQueued = new LinkedHashSet<>();
+    private final List<Disposable> mActions = new ArrayList<>();
+    private final Runnable mFlush = this::flush;
+    private int mRunningBatches;
+
+    CachedBrowseProcessor(Context context, OnItemReady onItemReady) {
+        mCache = BrowseProcessorCache.instance(context);
+        mOnItemReady = onItemReady;
+    }
+
+    protected abstract boolean isEnabled();
+
+    /**
+     * Null if the video is unknown
+     */
+    @Nullable
+    protected abstract Entry getCached(String videoId);
+
+    /**
+     * Store the result or mark the video as the one without the result (entry is null).
+     */
+    protected abstract void putCached(String videoId, @Nullable Entry entry);
+
+    /**
+     * Emits results that are found<br/>
+     * Null entry means that the request of the video has failed (nothing is stored, retried on the next load).
+     */
+    protected abstract Observable<Pair<String, Entry>> request(List<String> videoIds);
+
+    /**
+     * Returns true if the video is changed
+     */
+    protected abstract boolean apply(Video video, Entry entry);
+
+    /**
+     * Each processor has its own flag. Set only when the result is known (applied or missing).
+     */
+    protected abstract boolean isProcessed(Video video);
+
+    protected abstract void setProcessed(Video video);
+
+    @Override
+    public void process(VideoGroup videoGroup) {
+        if (!isEnabled() || videoGroup == null || videoGroup.isEmpty()) {
+            return;
+        }
+
+        for (Video video : videoGroup.getVideos()) {
+            if (isProcessed(video) || video.videoId == null) {
+                continue;
+            }
+
+            Entry entry = getCached(video.videoId);
+
+            if (entry != null) {
+                apply(video, entry);
+                setProcessed(video);
+                continue;
+            }
+
+            List<Video> videos = mWaiting.get(video.videoId);
+
+            if (videos == null) {
+                videos = new ArrayList<>();
+                mWaiting.put(video.videoId, videos);
+                mQueued.add(video.videoId);
+            }
+
+            if (!containsInstance(videos, video)) {
+                videos.add(video);
+            }
+        }
+
+        if (!mQueued.isEmpty()) {
+            Utils.postDelayed(mFlush, FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Unfinished videos stay unprocessed. They're requested again on the next load.
+     */
+    @Override
+    public void dispose() {
+        Utils.removeCallbacks(mFlush);
+        RxHelper.disposeActions(mActions);
+        mActions.clear();
+        mWaiting.clear();
+        mQueued.clear();
+        mRunningBatches = 0;
+    }
+
+    private void flush() {
+        while (!mQueued.isEmpty() && mRunningBatches < MAX_RUNNING_BATCHES) {
+            List<String> batch = new ArrayList<>();
+            Iterator<String> iterator = mQueued.iterator();
+
+            while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+
+            runBatch(batch);
+        }
+    }
+
+    private void runBatch(List<String> batch) {
+        mRunningBatches++;
+
+        mActions.add(request(batch)
+                .subscribe(
+                        result -> onResult(result.first, result.second),
+                        error -> {
+                            Log.d(TAG, "Cannot process the videos: %s", error.getMessage());
+                            // Don't store anything. Retry on the next load.
+                            onBatchDone(batch, false);
+                        },
+                        () -> onBatchDone(batch, true)
+                ));
+    }
+
+    private void onResult(String videoId, @Nullable Entry entry) {
+        List<Video> videos = mWaiting.remove(videoId);
+
+        if (entry == null) {
+            // Failed. Videos stay unprocessed.
+            return;
+        }
+
+        putCached(videoId, entry);
+
+        if (videos == null) {
+            return;
+        }
+
+        for (Video video : videos) {
+            setProcessed(video);
+
+            if (apply(video, entry)) {
+                mOnItemReady.onItemReady(video);
+            }
+        }
+    }
+
+    private void onBatchDone(List<String> batch, boolean isCompleted) {
+        mRunningBatches = Math.max(0, mRunningBatches - 1);
+
+        for (String videoId : batch) {
+            List<Video> videos = mWaiting.remove(videoId);
+
+            if (videos != null && isCompleted) {
+                // No result for the video
+                putCached(videoId, null);
+
+                for (Video video : videos) {
+                    setProcessed(video);
+                }
+            }
+        }
+
+        flush();
+    }
+
+    private static boolean containsInstance(List<Video> videos, Video video) {
+        for (Video item : videos) {
+            if (item == video) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package com.liskovsoft.smartyoutubetv2.common.misc;
+
+import android.os.SystemClock;
+
+/**
+ * Decides when to load the next page of the group (grid or row).<br/>
+ * Tracks the focus velocity (items per ms) and the measured continuation latency.<br/>
+ * The page starts early enough to arrive before the focus reaches the end of the list.
+ */
+public class ContinuationPrefetcher {
+    private static final long DEFAULT_LATENCY_MS = 1_500;
+    private static final long MAX_LATENCY_MS = 10_000;
+    private static final float LATENCY_WEIGHT = 0.3f;
+    private static final float VELOCITY_WEIGHT = 0.5f;
+    // The key is released or the user looks at the cards
+    private static final long VELOCITY_RESET_MS = 1_000;
+    private static final float SAFETY_FACTOR = 1.5f;
+    private static final int MAX_AHEAD_ITEMS = 100;
+    private static long sLatencyMs = DEFAULT_LATENCY_MS;
+    private Object mLastList;
+    private int mLastIndex = -1;
+    private long mLastTimeMs;
+    private float mVelocity;
+
+    /**
+     * Call on every focus change.
+     * @param list the adapter that contains the focused item (rows have one per group)
+     * @param minRemaining continue when fewer items left (no matter the velocity)
+     */
+    public boolean shouldContinue(Object list, int index, int size, int minRemaining) {
+        if (index < 0) {
+            return false;
+        }
+
+        updateVelocity(list, index, SystemClock.elapsedRealtime());
+
+        return size - index < minRemaining + getAheadItems();
+    }
+
+    /**
+     * Items that the focus passes while the next page is loading
+     */
+    private int getAheadItems() {
+        return (int) Math.min(mVelocity * getLatencyMs() * SAFETY_FACTOR, MAX_AHEAD_ITEMS);
+    }
+
+    private void updateVelocity(Object list, int index, long nowMs) {
+        long elapsedMs = nowMs - mLastTimeMs;
+
+        if (list != mLastList || mLastIndex == -1 || index <= mLastIndex || elapsedMs > VELOCITY_RESET_MS) {
+            mVelocity = 0; // another list, backward move or a pause
+        } else if (elapsedMs > 0) {
+            float velocity = (float) (index - mLastIndex) / elapsedMs;
+            mVelocity = mVelocity == 0 ? velocity : mVelocity + VELOCITY_WEIGHT * (velocity - mVelocity);
+        }
+
+        mLastList = list;
+        mLastIndex = index;
+        mLastTimeMs = nowMs;
+    }
+
+    /**
+     * Time from the request to the first page (shared between all lists)
+     */
+    public static synchronized void onContinuationFinished(long latencyMs) {
+        latencyMs = Math.min(Math.max(latencyMs, 0), MAX_LATENCY_MS);
+        sLatencyMs += (long) (LATENCY_WEIGHT * (latencyMs - sLatencyMs));
+    }
+
+    public static synchronized long getLatencyMs() {
+        return sLatencyMs;
+    }
+}
@@ -1,33 +1,30 @@
 package com.liskovsoft.smartyoutubetv2.common.misc;
 
 import android.content.Context;
+import android.util.Pair;
 
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
-import com.liskovsoft.sharedutils.mylogger.Log;
-import com.liskovsoft.sharedutils.rx.RxHelper;
+import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
-import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
+import com.liskovsoft.smartyoutubetv2.common.misc.BrowseProcessorCache.Entry;
 import com.liskovsoft.smartyoutubetv2.common.prefs.DeArrowData;
 import com.liskovsoft.smartyoutubetv2.common.prefs.common.DataChangeBase.OnDataChange;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import io.reactivex.disposables.Disposable;
+import io.reactivex.Observable;
 
-public class DeArrowProcessor implements OnDataChange, BrowseProcessor {
+public class DeArrowProcessor extends CachedBrowseProcessor implements OnDataChange {
     private static final String TAG = DeArrowProcessor.class.getSimpleName();
-    private final OnItemReady mOnItemReady;
     private final MediaItemService mItemService;
     private final DeArrowData mDeArrowData;
     private boolean mIsReplaceTitlesEnabled;
     private boolean mIsReplaceThumbnailsEnabled;
-    private Disposable mResult;
 
     public DeArrowProcessor(Context context, OnItemReady onItemReady) {
-        mOnItemReady = onItemReady;
+        super(context, onItemReady);
         ServiceManager service = YouTubeServiceManager.instance();
         mItemService = service.getMediaItemService();
         mDeArrowData = DeArrowData.instance(context);
@@ -46,44 +43,49 @@ public class DeArrowProcessor implements OnDataChange, BrowseProcessor {
     }
 
     @Override
-    public void process(VideoGroup videoGroup) {
-        if ((!mIsReplaceTitlesEnabled && !mIsReplaceThumbnailsEnabled) || videoGroup == null || videoGroup.isEmpty()) {
-            return;
-        }
+    protected boolean isEnabled() {
+        return mIsReplaceTitlesEnabled || mIsReplaceThumbnailsEnabled;
+    }
+
+    @Override
+    protected Entry getCached(String videoId) {
+        return mCache.getDeArrow(videoId);
+    }
+
+    @Override
+    protected void putCached(String videoId, Entry entry) {
+        mCache.putDeArrow(videoId, entry != null ? entry.title : null, entry != null ? entry.thumbnailUrl : null);
+    }
 
-        List<String> videoIds = getVideoIds(videoGroup);
-        mResult = mItemService.getDeArrowDataObserve(videoIds)
-                .subscribe(deArrowData -> {
-                    Video video = videoGroup.findVideoById(deArrowData.getVideoId());
-                    if (mIsReplaceTitlesEnabled) {
-                        video.deArrowTitle = deArrowData.getTitle();
-                    }
-                    if (mIsReplaceThumbnailsEnabled) {
-                        video.altCardImageUrl = deArrowData.getThumbnailUrl();
-                    }
-                    mOnItemReady.onItemReady(video);
-                },
-                error -> {
-                    Log.d(TAG, "DeArrow cannot process the video");
-                });
+    @Override
+    protected Observable<Pair<String, Entry>> request(List<String> videoIds) {
+        return mItemService.getDeArrowDataObserve(videoIds)
+                .map(deArrowData -> new Pair<>(deArrowData.getVideoId(), new Entry(deArrowData.getTitle(), deArrowData.getThumbnailUrl(), 0)));
     }
 
     @Override
-    public void dispose() {
-        RxHelper.disposeActions(mResult);
+    protected boolean isProcessed(Video video) {
+        return video.deArrowProcessed;
     }
 
-    private List<String> getVideoIds(VideoGroup videoGroup) {
-        List<String> result = new ArrayList<>();
+    @Override
+    protected void setProcessed(Video video) {
+        video.deArrowProcessed = true;
+    }
 
-        for (Video video : videoGroup.getVideos()) {
-            if (video.deArrowProcessed) {
-                continue;
-            }
-            video.deArrowProcessed = true;
-            result.add(video.videoId);
+    @Override
+    protected boolean apply(Video video, Entry entry) {
+        boolean changed = false;
+
+        if (mIsReplaceTitlesEnabled && entry.title != null && !Helpers.equals(video.deArrowTitle, entry.title)) {
+            video.deArrowTitle = entry.title;
+            changed = true;
+        }
+        if (mIsReplaceThumbnailsEnabled && entry.thumbnailUrl != null && !Helpers.equals(video.altCardImageUrl, entry.thumbnailUrl)) {
+            video.altCardImageUrl = entry.thumbnailUrl;
+            changed = true;
         }
 
-        return result;
+        return changed;
     }
 }
@@ -12,6 +12,7 @@ import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.sharedutils.helpers.MessageHelpers;
 import com.liskovsoft.sharedutils.rx.RxHelper;
 import com.liskovsoft.smartyoutubetv2.common.R;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.VideoStateService;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.GoogleSignInPresenter;
 import com.liskovsoft.smartyoutubetv2.common.prefs.GeneralData;
 import com.liskovsoft.smartyoutubetv2.common.utils.AppDialogUtil;
@@ -32,6 +33,8 @@ public class GDriveBackupManager {
     private final Context mContext;
     private static final String SHARED_PREFS_SUBDIR = "shared_prefs";
     private static final String BACKUP_NAME = "backup.zip";
+    // Watch history. Old backups don't have it. The history is restored from the prefs then.
+    private static final String JOURNAL_BACKUP_NAME = "video_states.zip";
     private final GoogleSignInService mSignInService;
     private final String mDataDir;
     private final String mBackupDir;
@@ -152,6 +155,21 @@ public class GDriveBackupManager {
 
         Observable<Void> uploadFile = DriveService.uploadFile(zipFile, Uri.parse(String.format("%s/%s", backupDir, BACKUP_NAME)));
 
+        VideoStateService stateService = VideoStateService.instance(mContext);
+        if (stateService != null) {
+            stateService.flushBlocking();
+        }
+
+        File journalDir = VideoStateService.getJournalDir(mContext);
+        String[] journalNames = journalDir.list();
+
+        if (journalNames != null && journalNames.length > 0) {
+            File journalZipFile = new File(mContext.getCacheDir(), JOURNAL_BACKUP_NAME);
+            ZipHelper.zipFolder(journalDir, journalZipFile, journalNames);
+            uploadFile = Observable.concat(uploadFile,
+                    DriveService.uploadFile(journalZipFile, Uri.parse(String.format("%s/%s", backupDir, JOURNAL_BACKUP_NAME))));
+        }
+
         if (mIsBlocking) {
             RxHelper.runBlocking(uploadFile);
         } else {
@@ -185,6 +203,7 @@ public class GDriveBackupManager {
                 .subscribe(names -> {
                     // remove old data
                     FileHelpers.delete(dataDir);
+                    deleteJournal();
 
                     for (String name : names) {
                         if (checkFileName(name)) {
@@ -218,7 +237,8 @@ public class GDriveBackupManager {
                     ZipHelper.unzipToFolder(zipFile, out);
                     fixFileNames(out);
 
-                    Utils.restartTheApp(mContext);
+                    deleteJournal();
+                    restoreJournal(backupDir);
                 }, error -> {
                     if (onError != null)
                         onError.run();
@@ -226,6 +246,34 @@ public class GDriveBackupManager {
                 }, () -> MessageHelpers.showMessage(mContext, R.string.msg_done));
     }
 
+    /**
+     * History from the current journal shouldn't override the restored one
+     */
+    private void deleteJournal() {
+        VideoStateService stateService = VideoStateService.instance(null);
+        if (stateService != null) {
+            stateService.onDataRestored();
+        }
+
+        FileHelpers.delete(VideoStateService.getJournalDir(mContext));
+    }
+
+    /**
+     * Missing in the old backups. The app is restarted in any case.
+     */
+    private void restoreJournal(String backupDir) {
+        mRestoreAction = DriveService.getFile(Uri.parse(String.format("%s/%s", backupDir, JOURNAL_BACKUP_NAME)))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(inputStream -> {
+                    File zipFile = new File(mContext.getCacheDir(), JOURNAL_BACKUP_NAME);
+                    FileHelpers.copy(inputStream, zipFile);
+                    ZipHelper.unzipToFolder(zipFile, VideoStateService.getJournalDir(mContext));
+                },
+                error -> Utils.restartTheApp(mContext),
+                () -> Utils.restartTheApp(mContext));
+    }
+
     private void logIn(Runnable onDone) {
         GoogleSignInPresenter.instance(mContext).start(onDone);
     }
@@ -1,9 +1,11 @@
 package com.liskovsoft.smartyoutubetv2.common.misc;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.mediaserviceinterfaces.data.MediaItemFormatInfo;
+import com.liskovsoft.sharedutils.helpers.DateHelper;
 import com.liskovsoft.sharedutils.helpers.MessageHelpers;
 import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.sharedutils.rx.RxHelper;
@@ -12,28 +14,45 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Playlist;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.PlaybackPresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
-import com.liskovsoft.smartyoutubetv2.common.misc.TickleManager.TickleListener;
-import com.liskovsoft.smartyoutubetv2.common.prefs.GeneralData;
+import com.liskovsoft.smartyoutubetv2.common.prefs.StreamReminderData;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class StreamReminderService implements TickleListener {
+/**
+ * Scheduled start of the stream is fetched once. Then sleeps until shortly before the start.<br/>
+ * Near the start the polling interval tightens. Late streams are polled with exponential backoff.<br/>
+ * Streams that are due at the same time are checked in one round.
+ */
+public class StreamReminderService {
     private static final String TAG = StreamReminderService.class.getSimpleName();
+    private static final long LEAD_TIME_MS = 2 * 60 * 1_000;
+    private static final long MIN_POLL_MS = 15 * 1_000;
+    private static final long MAX_POLL_MS = 5 * 60 * 1_000;
+    private static final long UNKNOWN_START_POLL_MS = 60 * 1_000;
+    // Checks that are closer than this are done together
+    private static final long COALESCE_WINDOW_MS = 30 * 1_000;
+    @SuppressLint("StaticFieldLeak")
     private static StreamReminderService sInstance;
     private final MediaItemService mItemManager;
     private final Context mContext;
-    private final GeneralData mGeneralData;
+    private final StreamReminderData mReminderData;
+    private final Map<String, Long> mNextCheckTimes = new HashMap<>();
+    private final Map<String, Integer> mAttempts = new HashMap<>();
+    private final Runnable mCheckStreams = this::checkStreams;
     private Disposable mReminderAction;
 
     private StreamReminderService(Context context) {
         ServiceManager service = YouTubeServiceManager.instance();
         mItemManager = service.getMediaItemService();
         mContext = context.getApplicationContext();
-        mGeneralData = GeneralData.instance(context);
+        mReminderData = StreamReminderData.instance(context);
     }
 
     public static StreamReminderService instance(Context context) {
@@ -45,7 +64,7 @@ public class StreamReminderService implements TickleListener {
     }
 
     public boolean isReminderSet(Video video) {
-        return mGeneralData.containsPendingStream(video);
+        return mReminderData.containsPendingStream(video.videoId);
     }
 
     public void toggleReminder(Video video) {
@@ -53,76 +72,202 @@ public class StreamReminderService implements TickleListener {
             return;
         }
 
-        if (mGeneralData.containsPendingStream(video)) {
-            mGeneralData.removePendingStream(video);
+        if (mReminderData.containsPendingStream(video.videoId)) {
+            removePendingStream(video.videoId);
         } else {
-            mGeneralData.addPendingStream(video);
+            mReminderData.addPendingStream(video);
         }
 
         start();
     }
 
     public void start() {
-        if (mGeneralData.getPendingStreams().isEmpty()) {
-            TickleManager.instance().removeListener(this);
+        if (mReminderData.isEmpty()) {
+            RxHelper.disposeActions(mReminderAction);
+            Utils.removeCallbacks(mCheckStreams);
+            StreamReminderWorker.cancel(mContext);
             sInstance = null;
         } else {
-            TickleManager.instance().addListener(this);
+            scheduleNextCheck();
         }
     }
 
-    @Override
-    public void onTickle() {
-        if (mGeneralData.getPendingStreams().isEmpty()) {
-            start();
+    /**
+     * Used from the {@link StreamReminderWorker}
+     */
+    void checkStreamsBlocking() {
+        Observable<MediaItemFormatInfo> observable = createDueObservable();
+
+        if (observable != null) {
+            observable.blockingSubscribe(
+                    formatInfo -> Utils.post(() -> processMetadata(formatInfo)),
+                    error -> Log.e(TAG, "loadMetadata error: %s", error.getMessage())
+            );
+        }
+
+        Utils.post(this::start);
+    }
+
+    private void checkStreams() {
+        if (RxHelper.isAnyActionRunning(mReminderAction)) {
             return;
         }
 
-        RxHelper.disposeActions(mReminderAction);
+        Observable<MediaItemFormatInfo> observable = createDueObservable();
 
-        List<Observable<MediaItemFormatInfo>> observables = toObservables();
+        if (observable == null) {
+            start();
+            return;
+        }
 
-        mReminderAction = Observable.mergeDelayError(observables)
+        mReminderAction = observable
                 .subscribe(
                         this::processMetadata,
-                        error -> Log.e(TAG, "loadMetadata error: %s", error.getMessage())
+                        error -> Log.e(TAG, "loadMetadata error: %s", error.getMessage()),
+                        this::start
                 );
     }
 
     private void processMetadata(MediaItemFormatInfo formatInfo) {
         String videoId = formatInfo.getVideoId();
-        if (formatInfo.containsMedia() && videoId != null) {
-            Video video = new Video();
-            video.title = formatInfo.getTitle();
-            video.videoId = videoId;
-            video.isPending = true;
-
-            Playlist playlist = Playlist.instance();
-            Video current = playlist.getCurrent();
-
-            if (current != null && current.isPending && ViewManager.instance(mContext).isPlayerInForeground()) {
-                playlist.add(video);
-            } else {
-                ViewManager.instance(mContext).movePlayerToForeground();
-                PlaybackPresenter.instance(mContext).openVideo(video);
-                MessageHelpers.showMessage(mContext, R.string.starting_stream);
-            }
 
-            mGeneralData.removePendingStream(video);
-            start();
+        if (videoId == null || !mReminderData.containsPendingStream(videoId)) {
+            return;
         }
+
+        if (!formatInfo.containsMedia()) {
+            onStreamNotStarted(videoId, getScheduledStartMs(formatInfo));
+            return;
+        }
+
+        Video video = new Video();
+        video.title = formatInfo.getTitle();
+        video.videoId = videoId;
+        video.isPending = true;
+
+        Playlist playlist = Playlist.instance();
+        Video current = playlist.getCurrent();
+
+        if (current != null && current.isPending && ViewManager.instance(mContext).isPlayerInForeground()) {
+            playlist.add(video);
+        } else {
+            ViewManager.instance(mContext).movePlayerToForeground();
+            PlaybackPresenter.instance(mContext).openVideo(video);
+            MessageHelpers.showMessage(mContext, R.string.starting_stream);
+        }
+
+        removePendingStream(videoId);
+        start();
     }
 
     /**
-     * NOTE: don't use MediaItemMetadata because it has contains isLive and isUpcoming flags
+     * NOTE: don't use MediaItemMetadata because it has contains isLive and isUpcoming flags<br/>
+     * Returns null if nothing to check right now.
      */
-    private List<Observable<MediaItemFormatInfo>> toObservables() {
+    private synchronized Observable<MediaItemFormatInfo> createDueObservable() {
+        long nowMs = System.currentTimeMillis();
         List<Observable<MediaItemFormatInfo>> result = new ArrayList<>();
 
-        for (Video item : mGeneralData.getPendingStreams()) {
-            result.add(mItemManager.getFormatInfoObserve(item.videoId));
+        for (Video item : mReminderData.getPendingStreams()) {
+            if (getNextCheckMs(item.videoId, nowMs) > nowMs + COALESCE_WINDOW_MS) {
+                continue;
+            }
+
+            // Retry time in case of an error. Replaced after the successful response.
+            mNextCheckTimes.put(item.videoId, nowMs + UNKNOWN_START_POLL_MS);
+
+            result.add(mItemManager.getFormatInfoObserve(item.videoId)
+                    .doOnError(error -> Log.e(TAG, "loadMetadata error: %s", error.getMessage()))
+                    .onErrorResumeNext(Observable.empty()));
+        }
+
+        Log.d(TAG, "Checking %s of %s pending streams...", result.size(), mReminderData.getPendingStreams().size());
+
+        return result.isEmpty() ? null : Observable.merge(result);
+    }
+
+    private synchronized void onStreamNotStarted(String videoId, long scheduledStartMs) {
+        if (scheduledStartMs > 0) {
+            mReminderData.setScheduledStartMs(videoId, scheduledStartMs);
+        } else {
+            scheduledStartMs = mReminderData.getScheduledStartMs(videoId);
+        }
+
+        updateNextCheck(videoId, scheduledStartMs, System.currentTimeMillis());
+    }
+
+    private synchronized void scheduleNextCheck() {
+        long nowMs = System.currentTimeMillis();
+        long nextCheckMs = Long.MAX_VALUE;
+
+        for (Video item : mReminderData.getPendingStreams()) {
+            nextCheckMs = Math.min(nextCheckMs, getNextCheckMs(item.videoId, nowMs));
+        }
+
+        long delayMs = Math.max(nextCheckMs - nowMs, 0);
+
+        Log.d(TAG, "Next stream check in %s ms...", delayMs);
+
+        Utils.removeCallbacks(mCheckStreams);
+        Utils.postDelayed(mCheckStreams, delayMs);
+
+        // The process may be killed after the app goes to background (any moment after the call).
+        // In foreground the worker finds the streams already checked by the handler.
+        StreamReminderWorker.schedule(mContext, delayMs);
+    }
+
+    private long getNextCheckMs(String videoId, long nowMs) {
+        Long nextCheckMs = mNextCheckTimes.get(videoId);
+
+        if (nextCheckMs != null) {
+            return nextCheckMs;
+        }
+
+        long scheduledStartMs = mReminderData.getScheduledStartMs(videoId);
+
+        return scheduledStartMs > 0 ? Math.max(scheduledStartMs - LEAD_TIME_MS, nowMs) : nowMs;
+    }
+
+    private void updateNextCheck(String videoId, long scheduledStartMs, long nowMs) {
+        long timeToStartMs = scheduledStartMs - nowMs;
+        long pollMs;
+
+        if (scheduledStartMs <= 0) {
+            pollMs = getBackoffMs(videoId, UNKNOWN_START_POLL_MS);
+        } else if (timeToStartMs > LEAD_TIME_MS) {
+            // Sleep until shortly before the start
+            mAttempts.remove(videoId);
+            pollMs = timeToStartMs - LEAD_TIME_MS;
+        } else if (timeToStartMs > 0) {
+            mAttempts.remove(videoId);
+            pollMs = Math.max(timeToStartMs / 2, MIN_POLL_MS);
+        } else {
+            // The stream is late
+            pollMs = getBackoffMs(videoId, MIN_POLL_MS);
+        }
+
+        mNextCheckTimes.put(videoId, nowMs + pollMs);
+    }
+
+    private long getBackoffMs(String videoId, long initialMs) {
+        Integer attempt = mAttempts.get(videoId);
+        attempt = attempt != null ? attempt : 0;
+        mAttempts.put(videoId, attempt + 1);
+
+        return Math.min(initialMs << Math.min(attempt, 10), MAX_POLL_MS);
+    }
+
+    private synchronized void removePendingStream(String videoId) {
+        mReminderData.removePendingStream(videoId);
+        mNextCheckTimes.remove(videoId);
+        mAttempts.remove(videoId);
+    }
+
+    private static long getScheduledStartMs(MediaItemFormatInfo formatInfo) {
+        if (formatInfo.getStartTimeMs() > 0) {
+            return formatInfo.getStartTimeMs();
         }
 
-        return result;
+        return formatInfo.getStartTimestamp() != null ? DateHelper.toUnixTimeMs(formatInfo.getStartTimestamp()) : 0;
     }
 }
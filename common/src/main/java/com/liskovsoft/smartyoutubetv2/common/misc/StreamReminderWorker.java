@@ -0,0 +1,59 @@
+package com.liskovsoft.smartyoutubetv2.common.misc;
+
+import android.content.Context;
+import android.os.Build.VERSION;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.liskovsoft.sharedutils.mylogger.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes up the {@link StreamReminderService} when the app is in background (the process may be killed)
+ */
+public class StreamReminderWorker extends Worker {
+    private static final String TAG = StreamReminderWorker.class.getSimpleName();
+    private static final String WORK_NAME = TAG;
+
+    public StreamReminderWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    public static void schedule(Context context, long delayMs) {
+        if (VERSION.SDK_INT >= 23) {
+            WorkManager workManager = WorkManager.getInstance(context);
+
+            workManager.enqueueUniqueWork(
+                    WORK_NAME,
+                    ExistingWorkPolicy.REPLACE, // only the nearest check is needed
+                    new OneTimeWorkRequest.Builder(StreamReminderWorker.class)
+                            .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                            .addTag(WORK_NAME)
+                            .build()
+            );
+        }
+    }
+
+    public static void cancel(Context context) {
+        if (VERSION.SDK_INT >= 23) {
+            WorkManager workManager = WorkManager.getInstance(context);
+            workManager.cancelUniqueWork(WORK_NAME);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Log.d(TAG, "Starting worker %s...", this);
+
+        StreamReminderService.instance(getApplicationContext()).checkStreamsBlocking();
+
+        return Result.success();
+    }
+}
@@ -6,30 +6,26 @@ import android.util.Pair;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.sharedutils.helpers.Helpers;
-import com.liskovsoft.sharedutils.mylogger.Log;
-import com.liskovsoft.sharedutils.rx.RxHelper;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
-import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
+import com.liskovsoft.smartyoutubetv2.common.misc.BrowseProcessorCache.Entry;
 import com.liskovsoft.smartyoutubetv2.common.prefs.MainUIData;
 import com.liskovsoft.smartyoutubetv2.common.prefs.common.DataChangeBase.OnDataChange;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import io.reactivex.Observable;
-import io.reactivex.disposables.Disposable;
 
-public class UnlocalizedTitleProcessor implements OnDataChange, BrowseProcessor {
+public class UnlocalizedTitleProcessor extends CachedBrowseProcessor implements OnDataChange {
     private static final String TAG = UnlocalizedTitleProcessor.class.getSimpleName();
-    private final OnItemReady mOnItemReady;
+    // There's no batch api. One request per video.
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
     private final MediaItemService mItemService;
     private final MainUIData mMainUIData;
     private boolean mIsUnlocalizedTitlesEnabled;
-    private Disposable mResult;
 
     public UnlocalizedTitleProcessor(Context context, OnItemReady onItemReady) {
-        mOnItemReady = onItemReady;
+        super(context, onItemReady);
         ServiceManager service = YouTubeServiceManager.instance();
         mItemService = service.getMediaItemService();
         mMainUIData = MainUIData.instance(context);
@@ -47,44 +43,47 @@ public class UnlocalizedTitleProcessor implements OnDataChange, BrowseProcessor
     }
 
     @Override
-    public void process(VideoGroup videoGroup) {
-        if (!mIsUnlocalizedTitlesEnabled || videoGroup == null || videoGroup.isEmpty()) {
-            return;
-        }
+    protected boolean isEnabled() {
+        return mIsUnlocalizedTitlesEnabled;
+    }
 
-        List<String> videoIds = getVideoIds(videoGroup);
-        mResult = Observable.fromIterable(videoIds)
+    @Override
+    protected Entry getCached(String videoId) {
+        return mCache.getUnlocalized(videoId);
+    }
+
+    @Override
+    protected void putCached(String videoId, Entry entry) {
+        mCache.putUnlocalized(videoId, entry != null ? entry.title : null);
+    }
+
+    @Override
+    protected Observable<Pair<String, Entry>> request(List<String> videoIds) {
+        return Observable.fromIterable(videoIds)
                 .flatMap(videoId -> mItemService.getUnlocalizedTitleObserve(videoId)
-                        .map(newTitle -> new Pair<>(videoId, newTitle)))
-                .subscribe(title -> {
-                    Video video = videoGroup.findVideoById(title.first);
-                    if (video == null || Helpers.equals(video.title, title.second)) {
-                        return;
-                    }
-                    video.deArrowTitle = title.second;
-                    mOnItemReady.onItemReady(video);
-                },
-                error -> {
-                    Log.d(TAG, "Unlocalized title: Cannot process the video");
-                });
+                        .map(newTitle -> new Pair<>(videoId, new Entry(newTitle, null, 0)))
+                        // Don't break the whole batch. Failed video isn't stored and is retried on the next load.
+                        .onErrorReturn(error -> new Pair<>(videoId, null)), MAX_CONCURRENT_REQUESTS);
     }
 
     @Override
-    public void dispose() {
-        RxHelper.disposeActions(mResult);
+    protected boolean isProcessed(Video video) {
+        return video.unlocalizedTitleProcessed;
     }
 
-    private List<String> getVideoIds(VideoGroup videoGroup) {
-        List<String> result = new ArrayList<>();
+    @Override
+    protected void setProcessed(Video video) {
+        video.unlocalizedTitleProcessed = true;
+    }
 
-        for (Video video : videoGroup.getVideos()) {
-            if (video.deArrowProcessed) {
-                continue;
-            }
-            video.deArrowProcessed = true;
-            result.add(video.videoId);
+    @Override
+    protected boolean apply(Video video, Entry entry) {
+        if (entry.title == null || Helpers.equals(video.title, entry.title) || Helpers.equals(video.deArrowTitle, entry.title)) {
+            return false;
         }
 
-        return result;
+        video.deArrowTitle = entry.title;
+
+        return true;
     }
 }
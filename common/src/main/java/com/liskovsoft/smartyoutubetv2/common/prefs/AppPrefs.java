@@ -91,6 +91,14 @@ public class AppPrefs extends SharedPreferencesBase implements AccountChangeList
         setData(getProfileKey(STATE_UPDATER_DATA, true), data);
     }
 
+    /**
+     * Name of the binary history journal of the current profile
+     */
+    public String getStateJournalName() {
+        // Always use multiple profiles for the history
+        return getProfileKey(STATE_UPDATER_DATA, true);
+    }
+
     public String getChannelGroupData() {
         // Always use multiple profiles
         return getData(getProfileKey(CHANNEL_GROUP_DATA, true));
@@ -9,7 +9,6 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs.ProfileChangeListener;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -80,7 +79,7 @@ public class GeneralData implements ProfileChangeListener {
     private boolean mIsHideWatchedFromNotificationsEnabled;
     private List<String> mChangelog;
     private Map<String, Integer> mPlaylistOrder;
-    private List<Video> mPendingStreams;
+    private List<Video> mOldPendingStreams;
     private boolean mIsFullscreenModeEnabled;
     private Map<Integer, Video> mSelectedItems;
     private boolean mIsFirstUseTooltipEnabled;
@@ -490,36 +489,25 @@ public class GeneralData implements ProfileChangeListener {
         return order != null ? order : -1; // default order unpredictable (depends on site prefs)
     }
 
-    public void addPendingStream(Video video) {
-        if (video == null || video.videoId == null || containsPendingStream(video)) {
-            return;
-        }
-
-        mPendingStreams.add(video);
-        persistState();
+    /**
+     * Moved to {@link StreamReminderData}
+     */
+    public List<Video> getOldPendingStreams() {
+        return mOldPendingStreams;
     }
 
-    public void removePendingStream(Video video) {
-        if (video == null || video.videoId == null || !containsPendingStream(video)) {
+    /**
+     * Called after the transfer to {@link StreamReminderData}
+     */
+    public void clearOldPendingStreams() {
+        if (mOldPendingStreams == null) {
             return;
         }
 
-        Helpers.removeIf(mPendingStreams, item -> video.videoId.equals(item.videoId));
+        mOldPendingStreams = null;
         persistState();
     }
 
-    public boolean containsPendingStream(Video video) {
-        if (video == null || video.videoId == null) {
-            return false;
-        }
-
-        return Helpers.containsIf(mPendingStreams, item -> video.videoId.equals(item.videoId));
-    }
-
-    public List<Video> getPendingStreams() {
-        return Collections.unmodifiableList(mPendingStreams);
-    }
-
     public boolean isGlobalClockEnabled() {
         return mIsGlobalClockEnabled;
     }
@@ -719,7 +707,7 @@ public class GeneralData implements ProfileChangeListener {
         mLastPlaylistTitle = Helpers.parseStr(split, 28);
         mPlaylistOrder = Helpers.parseMap(split, 29, Helpers::parseStr, Helpers::parseInt);
         //String pendingStreams = Helpers.parseStr(split, 30);
-        mPendingStreams = Helpers.parseList(split, 30, Video::fromString);
+        mOldPendingStreams = Helpers.parseList(split, 30, Video::fromString);
         mIsGlobalClockEnabled = Helpers.parseBoolean(split, 31, true);
         //mTimeFormat = Helpers.parseInt(split, 32, -1);
         mSettingsPassword = Helpers.parseStr(split, 33);
@@ -775,7 +763,7 @@ public class GeneralData implements ProfileChangeListener {
                 mIsRemapChannelUpToNextEnabled, mIsRemapChannelUpToLikeEnabled, mIsRemapPageUpToSpeedEnabled,
                 mIsRemapChannelUpToSpeedEnabled, mIsRemapFastForwardToSpeedEnabled, mIsRemapChannelUpToSearchEnabled,
                 mIsHideShortsFromHomeEnabled, mIsHideShortsFromHistoryEnabled, mIsScreensaverDisabled, mIsVPNEnabled, mLastPlaylistTitle,
-                mPlaylistOrder, mPendingStreams, mIsGlobalClockEnabled, null, mSettingsPassword, mIsChildModeEnabled, mIsHistoryEnabled,
+                mPlaylistOrder, mOldPendingStreams, mIsGlobalClockEnabled, null, mSettingsPassword, mIsChildModeEnabled, mIsHistoryEnabled,
                 mScreensaverTimeoutMs, null, mIsAltAppIconEnabled, mVersionCode, mIsSelectChannelSectionEnabled, mMasterPassword,
                 null, mIsOldUpdateNotificationsEnabled, mScreensaverDimmingPercents, mIsRemapNextToSpeedEnabled, mIsRemapPlayToOKEnabled,
                 mHistoryState, mRememberSubscriptionsPosition, null, mIsRemapNumbersToSpeedEnabled, mIsRemapDpadUpToSpeedEnabled, mIsRemapChannelUpToVolumeEnabled,
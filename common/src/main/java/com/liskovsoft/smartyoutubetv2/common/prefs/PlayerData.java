@@ -18,6 +18,7 @@ import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.SubtitleManager.Sub
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.ExoFormatItem;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.track.MediaTrack;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.DecoderCapsCache;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs.ProfileChangeListener;
 import com.liskovsoft.smartyoutubetv2.common.prefs.common.DataChangeBase;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
@@ -709,7 +710,7 @@ public class PlayerData extends DataChangeBase implements PlayerConstants, Profi
         // Android 4 (probably some others) doesn't support opus (ac3 will be reverted to opus)
         // Note, 5.1 mp4a doesn't work in 5.1 mode
         // Use opus (ac3 fallback) on modern devices. vp9 and opus should be supported at the same time?
-        return Helpers.isVP9ResolutionSupported(2160) ? FormatItem.AUDIO_51_AC3 : FormatItem.AUDIO_HQ_MP4A;
+        return DecoderCapsCache.isVP9ResolutionSupported(2160) ? FormatItem.AUDIO_51_AC3 : FormatItem.AUDIO_HQ_MP4A;
     }
 
     public FormatItem getDefaultVideoFormat() {
@@ -718,11 +719,11 @@ public class PlayerData extends DataChangeBase implements PlayerConstants, Profi
         if (formatItem == null) {
             if (VERSION.SDK_INT <= 19) { // Android 4 playback crash fix (memory leak?)
                 formatItem = FormatItem.VIDEO_SD_AVC_30;
-            } else if (VERSION.SDK_INT <= 23 && Helpers.isVP9ResolutionSupported(1080)) {
+            } else if (VERSION.SDK_INT <= 23 && DecoderCapsCache.isVP9ResolutionSupported(1080)) {
                 formatItem = FormatItem.VIDEO_FHD_VP9_60;
-            } else if (Helpers.isVP9ResolutionSupported(2160)) {
+            } else if (DecoderCapsCache.isVP9ResolutionSupported(2160)) {
                 formatItem = FormatItem.VIDEO_4K_VP9_60;
-            } else if (Helpers.isVP9ResolutionSupported(1080)) {
+            } else if (DecoderCapsCache.isVP9ResolutionSupported(1080)) {
                 formatItem = FormatItem.VIDEO_FHD_VP9_60;
             }
         }
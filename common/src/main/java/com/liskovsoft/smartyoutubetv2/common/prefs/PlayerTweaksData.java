@@ -101,6 +101,9 @@ public class PlayerTweaksData implements ProfileChangeListener {
     private boolean mIsOculusQuestFixEnabled;
     private boolean mIsAudioFocusEnabled;
     private boolean mIsNetworkErrorFixingDisabled;
+    private int mSegmentCacheSizeMB;
+    private boolean mIsSmartQualityEnabled;
+    private boolean mIsSharedIoThreadsEnabled;
     private final Runnable mPersistDataInt = this::persistDataInt;
 
     private PlayerTweaksData(Context context) {
@@ -603,6 +606,42 @@ public class PlayerTweaksData implements ProfileChangeListener {
         return mIsNetworkErrorFixingDisabled;
     }
 
+    /**
+     * Max size of the on-disk video segments cache. Zero means disabled.
+     */
+    public void setSegmentCacheSizeMB(int sizeMB) {
+        mSegmentCacheSizeMB = sizeMB;
+        persistData();
+    }
+
+    public int getSegmentCacheSizeMB() {
+        return mSegmentCacheSizeMB;
+    }
+
+    /**
+     * Video quality steps down (up to the selected one) depending on the network throughput and the buffer.
+     */
+    public void enableSmartQuality(boolean enable) {
+        mIsSmartQualityEnabled = enable;
+        persistData();
+    }
+
+    public boolean isSmartQualityEnabled() {
+        return mIsSmartQualityEnabled;
+    }
+
+    /**
+     * Player loaders run on the shared prioritized pool instead of a thread per loader.
+     */
+    public void enableSharedIoThreads(boolean enable) {
+        mIsSharedIoThreadsEnabled = enable;
+        persistData();
+    }
+
+    public boolean isSharedIoThreadsEnabled() {
+        return mIsSharedIoThreadsEnabled;
+    }
+
     private void restoreData() {
         String data = mPrefs.getProfileData(VIDEO_PLAYER_TWEAKS_DATA);
 
@@ -668,6 +707,9 @@ public class PlayerTweaksData implements ProfileChangeListener {
         mIsCommentsPlacedLeft = Helpers.parseBoolean(split, 52, false);
         //mIsPersistentAntiBotFixEnabled = Helpers.parseBoolean(split, 53, false);
         mIsAudioFocusEnabled = Helpers.parseBoolean(split, 54, true);
+        mSegmentCacheSizeMB = Helpers.parseInt(split, 55, 0);
+        mIsSmartQualityEnabled = Helpers.parseBoolean(split, 56, false);
+        mIsSharedIoThreadsEnabled = Helpers.parseBoolean(split, 57, false);
 
         updateDefaultValues();
     }
@@ -690,7 +732,7 @@ public class PlayerTweaksData implements ProfileChangeListener {
                 mScreenOffDimmingPercents, mIsBootScreenOffEnabled, mIsPlayerUiOnNextEnabled, mIsPlayerAutoVolumeEnabled, mIsSimplePlayerNavigationEnabled,
                 mIsUnsafeAudioFormatsEnabled, null, mIsLoopShortsEnabled, mIsQuickSkipShortsEnabled, mIsRememberPositionOfLiveVideosEnabled,
                 mIsOculusQuestFixEnabled, null, mIsExtraLongSpeedListEnabled, mIsQuickSkipVideosEnabled, mIsNetworkErrorFixingDisabled, mIsCommentsPlacedLeft,
-                null, mIsAudioFocusEnabled
+                null, mIsAudioFocusEnabled, mSegmentCacheSizeMB, mIsSmartQualityEnabled, mIsSharedIoThreadsEnabled
                 ));
     }
 
@@ -0,0 +1,141 @@
+package com.liskovsoft.smartyoutubetv2.common.prefs;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs.ProfileChangeListener;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pending streams indexed by the video id.<br/>
+ * Scheduled start of the stream is stored too, so it's fetched only once.
+ */
+public class StreamReminderData implements ProfileChangeListener {
+    private static final String STREAM_REMINDER_DATA = "stream_reminder_data";
+    @SuppressLint("StaticFieldLeak")
+    private static StreamReminderData sInstance;
+    private final Context mContext;
+    private final AppPrefs mPrefs;
+    private Map<String, Video> mPendingStreams;
+    private Map<String, Long> mScheduledStartTimes;
+    private boolean mIsOldStreamsTransferred;
+    private final Runnable mPersistStateInt = this::persistStateInt;
+
+    private StreamReminderData(Context context) {
+        mContext = context;
+        mPrefs = AppPrefs.instance(context);
+        mPrefs.addListener(this);
+        restoreState();
+    }
+
+    public static StreamReminderData instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new StreamReminderData(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    public synchronized void addPendingStream(Video video) {
+        if (video == null || video.videoId == null || containsPendingStream(video.videoId)) {
+            return;
+        }
+
+        mPendingStreams.put(video.videoId, video);
+        persistState();
+    }
+
+    public synchronized void removePendingStream(String videoId) {
+        if (videoId == null || !containsPendingStream(videoId)) {
+            return;
+        }
+
+        mPendingStreams.remove(videoId);
+        mScheduledStartTimes.remove(videoId);
+        persistState();
+    }
+
+    public synchronized boolean containsPendingStream(String videoId) {
+        return videoId != null && mPendingStreams.containsKey(videoId);
+    }
+
+    public synchronized List<Video> getPendingStreams() {
+        return Collections.unmodifiableList(new ArrayList<>(mPendingStreams.values()));
+    }
+
+    public synchronized boolean isEmpty() {
+        return mPendingStreams.isEmpty();
+    }
+
+    /**
+     * Unix time in ms or zero if unknown
+     */
+    public synchronized long getScheduledStartMs(String videoId) {
+        Long result = mScheduledStartTimes.get(videoId);
+        return result != null ? result : 0;
+    }
+
+    public synchronized void setScheduledStartMs(String videoId, long startTimeMs) {
+        if (!containsPendingStream(videoId) || getScheduledStartMs(videoId) == startTimeMs) {
+            return;
+        }
+
+        mScheduledStartTimes.put(videoId, startTimeMs);
+        persistState();
+    }
+
+    private synchronized void restoreState() {
+        String data = mPrefs.getProfileData(STREAM_REMINDER_DATA);
+
+        String[] split = Helpers.splitData(data);
+
+        mPendingStreams = new LinkedHashMap<>(Helpers.parseMap(split, 0, Helpers::parseStr, Video::fromString));
+        mScheduledStartTimes = new HashMap<>(Helpers.parseMap(split, 1, Helpers::parseStr, Helpers::parseLong));
+        mIsOldStreamsTransferred = Helpers.parseBoolean(split, 2, false);
+
+        transferOldPendingStreams();
+    }
+
+    private void transferOldPendingStreams() {
+        if (mIsOldStreamsTransferred) {
+            return;
+        }
+
+        GeneralData generalData = GeneralData.instance(mContext);
+        List<Video> oldPendingStreams = generalData.getOldPendingStreams();
+
+        if (oldPendingStreams != null) {
+            for (Video video : oldPendingStreams) {
+                if (video.videoId != null) {
+                    mPendingStreams.put(video.videoId, video);
+                }
+            }
+        }
+
+        mIsOldStreamsTransferred = true;
+        persistState();
+        generalData.clearOldPendingStreams();
+    }
+
+    private void persistState() {
+        Utils.postDelayed(mPersistStateInt, 1_000);
+    }
+
+    private synchronized void persistStateInt() {
+        mPrefs.setProfileData(STREAM_REMINDER_DATA, Helpers.mergeData(mPendingStreams, mScheduledStartTimes, mIsOldStreamsTransferred));
+    }
+
+    @Override
+    public void onProfileChanged() {
+        Utils.removeCallbacks(mPersistStateInt);
+        restoreState();
+    }
+}
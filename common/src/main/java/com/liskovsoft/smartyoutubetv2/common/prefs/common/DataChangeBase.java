@@ -8,6 +8,8 @@ public abstract class DataChangeBase {
     }
 
     private final WeakHashSet<OnDataChange> mOnChangeList = new WeakHashSet<>();
+    private int mBatchDepth;
+    private boolean mIsChangePending;
 
     public final void setOnChange(OnDataChange callback) {
         mOnChangeList.add(callback);
@@ -18,6 +20,42 @@ public abstract class DataChangeBase {
     }
 
     public final void onDataChange() {
+        if (isBatchActive()) {
+            mIsChangePending = true;
+            return;
+        }
+
         mOnChangeList.forEach(OnDataChange::onDataChange);
     }
+
+    /**
+     * Group several setters. Listeners are notified once, on the {@link #commitBatch()}.<br/>
+     * Batches could be nested.
+     */
+    public final void beginBatch() {
+        mBatchDepth++;
+    }
+
+    public final void commitBatch() {
+        if (mBatchDepth == 0 || --mBatchDepth > 0) {
+            return;
+        }
+
+        onBatchCommit();
+
+        if (mIsChangePending) {
+            mIsChangePending = false;
+            onDataChange();
+        }
+    }
+
+    protected final boolean isBatchActive() {
+        return mBatchDepth > 0;
+    }
+
+    /**
+     * Persist the pending changes here
+     */
+    protected void onBatchCommit() {
+    }
 }
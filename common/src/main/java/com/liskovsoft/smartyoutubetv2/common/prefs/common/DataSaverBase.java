@@ -4,15 +4,23 @@ import android.content.Context;
 
 import com.liskovsoft.sharedutils.helpers.Helpers;
 import com.liskovsoft.smartyoutubetv2.common.prefs.AppPrefs;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Values are kept in memory as typed slots. Changes are written once per main loop pass (or per batch).<br/>
+ * The on-disk format is unchanged.
+ */
 public abstract class DataSaverBase extends DataChangeBase {
     private final AppPrefs mAppPrefs;
     private final String mDataKey;
-    private final List<String> mValues;
+    // Boolean, Integer or String (not parsed yet)
+    private final List<Object> mValues;
+    private final Runnable mPersistStateInt = this::persistStateInt;
+    private boolean mIsDirty;
 
     public DataSaverBase(Context context) {
         mAppPrefs = AppPrefs.instance(context.getApplicationContext());
@@ -22,31 +30,58 @@ public abstract class DataSaverBase extends DataChangeBase {
     }
 
     protected void setBoolean(int index, boolean value) {
-        checkCapacity(index);
-        mValues.set(index, Helpers.toString(value));
-        persistState();
+        setValue(index, value);
     }
 
     protected boolean getBoolean(int index, boolean defaultValue) {
-        if (index >= mValues.size() || mValues.get(index) == null) {
+        Object value = getValue(index);
+
+        if (value == null) {
             return defaultValue;
         }
 
-        return Helpers.parseBoolean(mValues.get(index));
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+
+        boolean result = Helpers.parseBoolean((String) value);
+        mValues.set(index, result);
+        return result;
     }
 
     protected void setInt(int index, int value) {
-        checkCapacity(index);
-        mValues.set(index, Helpers.toString((Integer) value));
-        persistState();
+        setValue(index, value);
     }
 
     protected int getInt(int index, int defaultValue) {
-        if (index >= mValues.size() || mValues.get(index) == null) {
+        Object value = getValue(index);
+
+        if (value == null) {
             return defaultValue;
         }
 
-        return Helpers.parseInt(mValues.get(index));
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+
+        int result = Helpers.parseInt((String) value);
+        mValues.set(index, result);
+        return result;
+    }
+
+    private void setValue(int index, Object value) {
+        checkCapacity(index);
+
+        if (value.equals(mValues.get(index))) {
+            return;
+        }
+
+        mValues.set(index, value);
+        persistState();
+    }
+
+    private Object getValue(int index) {
+        return index < mValues.size() ? mValues.get(index) : null;
     }
 
     private void checkCapacity(int index) {
@@ -69,9 +104,40 @@ public abstract class DataSaverBase extends DataChangeBase {
     }
 
     private void persistState() {
+        mIsDirty = true;
+
+        if (isBatchActive()) {
+            return; // persisted on commit
+        }
+
+        // Coalesce the changes made in the same main loop pass
+        Utils.post(mPersistStateInt);
+    }
+
+    private void persistStateInt() {
+        if (!mIsDirty) {
+            return;
+        }
+
+        mIsDirty = false;
+
+        String[] values = new String[mValues.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            Object value = mValues.get(i);
+            values[i] = value instanceof Boolean ? Helpers.toString((boolean) value) :
+                    value instanceof Integer ? Helpers.toString((Integer) value) : (String) value;
+        }
+
         mAppPrefs.setData(mDataKey, Helpers.mergeData(
-                mValues.toArray()
+                (Object[]) values
         ));
         onDataChange();
     }
+
+    @Override
+    protected void onBatchCommit() {
+        Utils.removeCallbacks(mPersistStateInt);
+        persistStateInt();
+    }
 }
@@ -71,6 +71,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem.VideoPreset;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.TrackSelectorUtil;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.track.MediaTrack;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.DecoderCapsCache;
 import com.liskovsoft.smartyoutubetv2.common.misc.MotherActivity;
 import com.liskovsoft.smartyoutubetv2.common.misc.RemoteControlService;
 import com.liskovsoft.smartyoutubetv2.common.misc.RemoteControlWorker;
@@ -766,11 +767,11 @@ public class Utils {
     }
 
     public static boolean isPresetSupported(VideoPreset preset) {
-        if (preset.isVP9Preset() && !Helpers.isVP9ResolutionSupported(preset.getHeight())) {
+        if (preset.isVP9Preset() && !DecoderCapsCache.isVP9ResolutionSupported(preset.getHeight())) {
             return false;
         }
 
-        if (preset.isAV1Preset() && !Helpers.isAV1ResolutionSupported(preset.getHeight())) {
+        if (preset.isAV1Preset() && !DecoderCapsCache.isAV1ResolutionSupported(preset.getHeight())) {
             return false;
         }
 
@@ -778,11 +779,15 @@ public class Utils {
     }
 
     public static boolean isFormatSupported(MediaTrack mediaTrack) {
-        if (mediaTrack.isVP9Codec() && !Helpers.isVP9ResolutionSupported(TrackSelectorUtil.getRealHeight(mediaTrack.format))) {
+        if (mediaTrack.isVP9Codec() && !DecoderCapsCache.isVP9ResolutionSupported(TrackSelectorUtil.getRealHeight(mediaTrack.format))) {
             return false;
         }
 
-        if (mediaTrack.isAV1Codec() && !Helpers.isAV1ResolutionSupported(TrackSelectorUtil.getRealHeight(mediaTrack.format))) {
+        if (mediaTrack.isAV1Codec() && !DecoderCapsCache.isAV1ResolutionSupported(TrackSelectorUtil.getRealHeight(mediaTrack.format))) {
+            return false;
+        }
+
+        if (!DecoderCapsCache.isFrameRateSupported(mediaTrack.format.sampleMimeType, TrackSelectorUtil.getRealHeight(mediaTrack.format), mediaTrack.format.frameRate)) {
             return false;
         }
 
@@ -188,6 +188,20 @@ public final class Loader implements LoaderErrorThrower {
     }
   }
 
+  /**
+   * MOD: Provides the executor instead of the own thread (e.g. a view onto the shared thread pool).<br/>
+   * The executor must run the tasks one by one. Its shutdown must not affect other loaders.
+   */
+  public interface ExecutorFactory {
+    /**
+     * Called on the thread that creates the loader. Return null to use the own thread.
+     */
+    @Nullable
+    ExecutorService createExecutor(String threadName);
+  }
+
+  @Nullable private static volatile ExecutorFactory executorFactory;
+
   private final ExecutorService downloadExecutorService;
 
   private LoadTask<? extends Loadable> currentTask;
@@ -197,7 +211,17 @@ public final class Loader implements LoaderErrorThrower {
    * @param threadName A name for the loader's thread.
    */
   public Loader(String threadName) {
-    this.downloadExecutorService = Util.newSingleThreadExecutor(threadName);
+    ExecutorFactory factory = executorFactory;
+    ExecutorService executorService = factory != null ? factory.createExecutor(threadName) : null;
+    this.downloadExecutorService =
+        executorService != null ? executorService : Util.newSingleThreadExecutor(threadName);
+  }
+
+  /**
+   * MOD: Affects loaders created after the call. Pass null to restore the default behavior.
+   */
+  public static void setExecutorFactory(@Nullable ExecutorFactory factory) {
+    executorFactory = factory;
   }
 
   /**
@@ -368,8 +392,12 @@ public final class Loader implements LoaderErrorThrower {
       } else {
         canceled = true;
         loadable.cancelLoad();
-        if (executorThread != null) {
-          executorThread.interrupt();
+        // MOD: read once and under the lock. The task may finish (and the shared thread move on) meanwhile.
+        synchronized (this) {
+          Thread thread = executorThread;
+          if (thread != null) {
+            thread.interrupt();
+          }
         }
       }
       if (released) {
@@ -432,6 +460,12 @@ public final class Loader implements LoaderErrorThrower {
           obtainMessage(MSG_FATAL_ERROR, e).sendToTarget();
         }
         throw e;
+      } finally {
+        // MOD: the thread may be shared. Late cancel shouldn't interrupt the other task.
+        // The pool clears the interrupt that landed before this point (see PlayerIoScheduler).
+        synchronized (this) {
+          executorThread = null;
+        }
       }
     }
 
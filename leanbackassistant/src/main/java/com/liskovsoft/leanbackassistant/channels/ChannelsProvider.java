@@ -2,9 +2,12 @@ package com.liskovsoft.leanbackassistant.channels;
 
 import android.annotation.TargetApi;
 import android.content.ComponentName;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
@@ -31,7 +34,11 @@ import com.liskovsoft.sharedutils.mylogger.Log;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -41,6 +48,13 @@ public class ChannelsProvider {
     private static final String SCHEME = "tvhomescreenchannels";
     private static final String APPS_LAUNCH_HOST = "com.google.android.tvhomescreenchannels";
     private static final String PLAY_VIDEO_ACTION_PATH = "playvideo";
+    private static final String SYNC_PREFS_NAME = "channels_sync";
+    private static final String SYNC_HASH_PREFIX = "hash_";
+    private static final String SYNC_TIME_PREFIX = "time_";
+    /**
+     * Re-check the programs from time to time (e.g. launcher data has been cleared)
+     */
+    private static final long FORCE_SYNC_TIME_MS = 12 * 60 * 60 * 1000;
     /**
      * Index into "WATCH_NEXT_MAP_PROJECTION" and if that changes, this should change too.
      */
@@ -227,21 +241,32 @@ public class ChannelsProvider {
         long publishedId = playlist.getPublishedId();
 
         if (publishedId != -1) {
+            if (!isPlaylistChanged(context, publishedId, playlist)) {
+                Log.d(TAG, "Channel not changed. Skipping... " + playlist.getName());
+                return;
+            }
+
             Log.d(TAG, "Oops: channel already published. Doing update instead... publishedId: " + publishedId);
             updateChannel(context, playlist);
             //addClipsToChannel(context, publishedId, Helpers.isGoogleTVLauncher(context) || channel.isBrowsable() ? playlist.getClips() : Collections.emptyList());
-            addClipsToChannel(context, publishedId, playlist.getClips());
+            syncClips(context, publishedId, playlist);
             return;
         }
 
         Channel channel = findChannelByProviderId(context, playlist.getPlaylistId());
 
         if (channel != null) {
-            Log.d(TAG, "Oops: channel already published but not memorized by the app. Doing update instead... foundId: " + channel.getId());
             playlist.setPublishedId(channel.getId());
+
+            if (!isPlaylistChanged(context, channel.getId(), playlist)) {
+                Log.d(TAG, "Channel not changed. Skipping... " + playlist.getName());
+                return;
+            }
+
+            Log.d(TAG, "Oops: channel already published but not memorized by the app. Doing update instead... foundId: " + channel.getId());
             updateChannel(context, playlist);
             //addClipsToChannel(context, channel.getId(), Helpers.isGoogleTVLauncher(context) || channel.isBrowsable() ? playlist.getClips() : Collections.emptyList());
-            addClipsToChannel(context, channel.getId(), playlist.getClips());
+            syncClips(context, channel.getId(), playlist);
             return;
         }
 
@@ -251,7 +276,29 @@ public class ChannelsProvider {
 
         // The channels are disabled by default (don't populate to save resources)
         //addClipsToChannel(context, channelId, Collections.emptyList());
-        addClipsToChannel(context, channelId, playlist.getClips());
+        syncClips(context, channelId, playlist);
+    }
+
+    @WorkerThread
+    private static void syncClips(Context context, long channelId, Playlist playlist) {
+        if (addClipsToChannel(context, channelId, playlist.getClips())) {
+            persistPlaylistHash(context, channelId, playlist);
+        }
+    }
+
+    private static boolean isPlaylistChanged(Context context, long channelId, Playlist playlist) {
+        SharedPreferences prefs = context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE);
+        String hashKey = SYNC_HASH_PREFIX + channelId;
+
+        return !prefs.contains(hashKey) || prefs.getInt(hashKey, 0) != playlist.getContentHash() ||
+                System.currentTimeMillis() - prefs.getLong(SYNC_TIME_PREFIX + channelId, 0) > FORCE_SYNC_TIME_MS;
+    }
+
+    private static void persistPlaylistHash(Context context, long channelId, Playlist playlist) {
+        context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putInt(SYNC_HASH_PREFIX + channelId, playlist.getContentHash())
+                .putLong(SYNC_TIME_PREFIX + channelId, System.currentTimeMillis())
+                .apply();
     }
 
     private static long createChannel(Context context, Playlist playlist) {
@@ -287,30 +334,146 @@ public class ChannelsProvider {
         return channelId;
     }
 
+    /**
+     * Applies only the difference between the published programs and the clips (single batch).<br/>
+     * Programs are matched by the clip id (internal provider id).
+     */
     @WorkerThread
-    private static void addClipsToChannel(Context context, long channelId, List<Clip> clips) {
+    private static boolean addClipsToChannel(Context context, long channelId, List<Clip> clips) {
         if (channelId == -1) {
             Log.d(TAG, "Cant add clips: channelId == -1");
-            return;
+            return false;
         }
 
-        if (clips.size() == 0) {
+        if (clips == null || clips.size() == 0) {
             Log.d(TAG, "Cant add clips: clips.size() == 0");
-            return;
+            return false;
         }
 
-        cleanupChannel(context, channelId);
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        Map<String, PreviewProgram> publishedPrograms = getPublishedPrograms(context, channelId, operations);
+        // Insert operation index to clip
+        Map<Integer, Clip> insertedClips = new HashMap<>();
+        Set<String> clipIds = new HashSet<>();
+        int updated = 0;
 
         int weight = clips.size();
         for (int i = 0; i < clips.size(); ++i, --weight) {
             Clip clip = clips.get(i);
 
-            publishProgram(context, clip, channelId, weight);
+            if (clip.getVideoUrl() == null) {
+                // Seems like this is an ads
+                Log.e(TAG, "Clip doesn't contain url. Skipping...");
+                continue;
+            }
+
+            if (!clipIds.add(clip.getClipId())) {
+                Log.e(TAG, "Duplicated clip. Skipping...");
+                continue;
+            }
+
+            PreviewProgram program = createProgramBuilder(context, clip)
+                    .setWeight(weight)
+                    .setChannelId(channelId)
+                    .build();
+            PreviewProgram publishedProgram = publishedPrograms.remove(clip.getClipId());
+
+            if (publishedProgram == null) {
+                insertedClips.put(operations.size(), clip);
+                operations.add(ContentProviderOperation.newInsert(PREVIEW_PROGRAMS_CONTENT_URI)
+                        .withValues(program.toContentValues())
+                        .build());
+                continue;
+            }
+
+            clip.setProgramId(publishedProgram.getId());
+
+            if (isProgramChanged(publishedProgram, program)) {
+                updated++;
+                operations.add(ContentProviderOperation.newUpdate(TvContractCompat.buildPreviewProgramUri(publishedProgram.getId()))
+                        .withValues(program.toContentValues())
+                        .build());
+            }
         }
+
+        for (PreviewProgram removedProgram : publishedPrograms.values()) {
+            operations.add(ContentProviderOperation.newDelete(TvContractCompat.buildPreviewProgramUri(removedProgram.getId())).build());
+        }
+
+        Log.d(TAG, "Channel %s sync: %s inserted, %s updated, %s operations total", channelId, insertedClips.size(), updated, operations.size());
+
+        if (operations.isEmpty()) {
+            return true;
+        }
+
+        ContentProviderResult[] results;
+
+        try {
+            results = context.getContentResolver().applyBatch(TvContractCompat.AUTHORITY, operations);
+        } catch (Exception e) {
+            Log.e(TAG, "Channel sync failed: %s", e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+
+        for (Map.Entry<Integer, Clip> entry : insertedClips.entrySet()) {
+            int index = entry.getKey();
+            Uri programUri = index < results.length ? results[index].uri : null;
+
+            if (programUri == null || programUri.equals(Uri.EMPTY)) {
+                Log.e(TAG, "Insert program failed");
+                continue;
+            }
+
+            entry.getValue().setProgramId(ContentUris.parseId(programUri));
+        }
+
+        return true;
     }
 
-    private static void cleanupChannel(Context context, long channelId) {
-        context.getContentResolver().delete(TvContractCompat.buildPreviewProgramsUriForChannel(channelId), null, null);
+    /**
+     * Programs without the clip id and duplicates are scheduled for removal
+     */
+    private static Map<String, PreviewProgram> getPublishedPrograms(Context context, long channelId, List<ContentProviderOperation> operations) {
+        Map<String, PreviewProgram> result = new HashMap<>();
+
+        try (Cursor cursor = context.getContentResolver().query(
+                TvContractCompat.buildPreviewProgramsUriForChannel(channelId), null, null, null, null)) {
+            if (cursor == null) {
+                return result;
+            }
+
+            while (cursor.moveToNext()) {
+                PreviewProgram program = PreviewProgram.fromCursor(cursor);
+                String clipId = program.getInternalProviderId();
+
+                if (clipId == null || result.containsKey(clipId)) {
+                    operations.add(ContentProviderOperation.newDelete(TvContractCompat.buildPreviewProgramUri(program.getId())).build());
+                } else {
+                    result.put(clipId, program);
+                }
+            }
+        } catch (Exception e) { // provider may be unavailable
+            Log.e(TAG, "Can't read the programs: %s", e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares only the columns that are set by the app
+     */
+    private static boolean isProgramChanged(PreviewProgram publishedProgram, PreviewProgram program) {
+        return publishedProgram.getWeight() != program.getWeight() ||
+                publishedProgram.getDurationMillis() != program.getDurationMillis() ||
+                publishedProgram.isLive() != program.isLive() ||
+                publishedProgram.getThumbnailAspectRatio() != program.getThumbnailAspectRatio() ||
+                !Helpers.equals(publishedProgram.getTitle(), program.getTitle()) ||
+                !Helpers.equals(publishedProgram.getDescription(), program.getDescription()) ||
+                !Helpers.equals(publishedProgram.getContentId(), program.getContentId()) ||
+                !Helpers.equals(publishedProgram.getPosterArtUri(), program.getPosterArtUri()) ||
+                !Helpers.equals(publishedProgram.getPreviewVideoUri(), program.getPreviewVideoUri()) ||
+                !Helpers.equals(publishedProgram.getIntentUri(), program.getIntentUri());
     }
 
     @WorkerThread
@@ -372,40 +535,6 @@ public class ChannelsProvider {
         }
     }
 
-    private static void publishProgram(Context context, Clip clip, long channelId, int weight) {
-        if (clip.getProgramId() != -1) {
-            Log.e(TAG, "Clip already published. Skipping...");
-            return;
-        }
-
-        if (clip.getVideoUrl() == null) {
-            // Seems like this is an ads
-            Log.e(TAG, "Clip doesn't contain url. Skipping...");
-            return;
-        }
-
-        PreviewProgram.Builder builder =
-                createProgramBuilder(context, clip)
-                        .setWeight(weight)
-                        .setChannelId(channelId);
-
-        Uri programUri = null;
-
-        try {
-            programUri = context.getContentResolver().insert(PREVIEW_PROGRAMS_CONTENT_URI, builder.build().toContentValues());
-        } catch (Exception e) {
-            Log.e(TAG, e.getMessage());
-            e.printStackTrace();
-        }
-
-        if (programUri == null || programUri.equals(Uri.EMPTY)) {
-            Log.e(TAG, "Insert program failed");
-            return;
-        }
-
-        clip.setProgramId(ContentUris.parseId(programUri));
-    }
-
     static String decodeVideoId(Uri uri) {
         List<String> paths = uri.getPathSegments();
         if (paths.size() == 2 && TextUtils.equals(paths.get(0), PLAY_VIDEO_ACTION_PATH)) {
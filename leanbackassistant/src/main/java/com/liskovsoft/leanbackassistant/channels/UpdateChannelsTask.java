@@ -2,6 +2,7 @@ package com.liskovsoft.leanbackassistant.channels;
 
 import android.content.Context;
 import com.liskovsoft.leanbackassistant.media.ClipService;
+import com.liskovsoft.leanbackassistant.media.ClipServiceCached;
 import com.liskovsoft.leanbackassistant.media.Playlist;
 import com.liskovsoft.leanbackassistant.recommendations.RecommendationsProvider;
 import com.liskovsoft.sharedutils.helpers.Helpers;
@@ -19,7 +20,7 @@ public class UpdateChannelsTask {
 
         Log.d(TAG, "Creating GlobalPreferences...");
         mPrefs = GlobalPreferences.instance(context);
-        mService = ClipService.instance(context);
+        mService = ClipServiceCached.instance(context);
     }
 
     public void run() {
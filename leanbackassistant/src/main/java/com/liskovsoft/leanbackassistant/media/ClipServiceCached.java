@@ -1,98 +1,177 @@
 package com.liskovsoft.leanbackassistant.media;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
-
+import android.content.SharedPreferences;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Playlists are cached in memory and on disk.<br/>
+ * Channels are updated from the background worker. The process is usually killed between the runs.
+ */
 public class ClipServiceCached extends ClipService {
-    private static ClipServiceCached mInstance;
-    private Playlist mSubscriptions;
-    private long mSubscriptionsTime;
-    private Playlist mHistory;
-    private long mHistoryTime;
-    private Playlist mRecommended;
-    private long mRecommendedTime;
+    private static final String TAG = ClipServiceCached.class.getSimpleName();
+    private static final String PREFS_NAME = "clip_service_cache";
+    private static final String CLIPS_PREFIX = "clips_";
+    private static final String TIME_PREFIX = "time_";
     private static final long CACHE_UPDATE_TIME = 15 * 60 * 1000;
+    @SuppressLint("StaticFieldLeak")
+    private static ClipServiceCached mInstance;
+    private final SharedPreferences mPrefs;
+    private final Map<String, Playlist> mPlaylists = new HashMap<>();
 
     public ClipServiceCached(Context context) {
         super(context);
+        mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
 
     public static ClipService instance(Context context) {
         if (mInstance == null) {
-            mInstance = new ClipServiceCached(context);
+            mInstance = new ClipServiceCached(context.getApplicationContext());
         }
 
         return mInstance;
     }
 
+    @Override
     public Playlist getSubscriptionsPlaylist() {
-        Playlist cache = getSubscriptionsPlaylistCache();
+        return getCachedPlaylist(super.getSubscriptionsPlaylist());
+    }
 
-        if (cache == null) {
-            cache = super.getSubscriptionsPlaylist();
-            setSubscriptionsPlaylistCache(cache);
-        }
+    @Override
+    public Playlist getHistoryPlaylist() {
+        return getCachedPlaylist(super.getHistoryPlaylist());
+    }
 
-        return cache;
+    @Override
+    public Playlist getRecommendedPlaylist() {
+        return getCachedPlaylist(super.getRecommendedPlaylist());
     }
 
-    private Playlist getSubscriptionsPlaylistCache() {
-        if ((System.currentTimeMillis() - mSubscriptionsTime) < CACHE_UPDATE_TIME) {
-            return mSubscriptions;
-        }
+    /**
+     * Playlist metadata is cheap. Only the clips are cached.
+     */
+    private synchronized Playlist getCachedPlaylist(Playlist playlist) {
+        String key = playlist.getProgramsKey();
 
-        return null;
-    }
+        if (!isCacheValid(key)) {
+            List<Clip> clips = playlist.getClips();
 
-    private void setSubscriptionsPlaylistCache(Playlist cache) {
-        mSubscriptionsTime = System.currentTimeMillis();
-        mSubscriptions = cache;
-    }
+            if (clips != null && !clips.isEmpty()) {
+                persistClips(key, clips);
+                mPlaylists.put(key, playlist);
+            }
 
-    public Playlist getHistoryPlaylist() {
-        Playlist cache = getHistoryPlaylistCache();
+            return playlist;
+        }
 
-        if (cache == null) {
-            cache = super.getHistoryPlaylist();
-            setHistoryPlaylistCache(cache);
+        Playlist cached = mPlaylists.get(key);
+
+        if (cached != null) {
+            return cached;
         }
 
-        return cache;
-    }
+        // The process has been restarted
+        List<Clip> clips = restoreClips(key);
 
-    private Playlist getHistoryPlaylistCache() {
-        if ((System.currentTimeMillis() - mHistoryTime) < CACHE_UPDATE_TIME) {
-            return mHistory;
+        if (clips != null) {
+            playlist.setClips(clips);
+            mPlaylists.put(key, playlist);
         }
 
-        return null;
+        return playlist;
     }
 
-    private void setHistoryPlaylistCache(Playlist cache) {
-        mHistoryTime = System.currentTimeMillis();
-        mHistory = cache;
+    private boolean isCacheValid(String key) {
+        return (System.currentTimeMillis() - mPrefs.getLong(TIME_PREFIX + key, 0)) < CACHE_UPDATE_TIME;
     }
 
-    public Playlist getRecommendedPlaylist() {
-        Playlist cache = getRecommendedPlaylistCache();
+    private void persistClips(String key, List<Clip> clips) {
+        JSONArray result = new JSONArray();
 
-        if (cache == null) {
-            cache = super.getRecommendedPlaylist();
-            setRecommendedPlaylistCache(cache);
+        try {
+            for (Clip clip : clips) {
+                result.put(toJson(clip));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Can't persist the clips: %s", e.getMessage());
+            return;
         }
 
-        return cache;
+        mPrefs.edit()
+                .putString(CLIPS_PREFIX + key, result.toString())
+                .putLong(TIME_PREFIX + key, System.currentTimeMillis())
+                .apply();
     }
 
-    private Playlist getRecommendedPlaylistCache() {
-        if ((System.currentTimeMillis() - mRecommendedTime) < CACHE_UPDATE_TIME) {
-            return mRecommended;
+    private List<Clip> restoreClips(String key) {
+        String data = mPrefs.getString(CLIPS_PREFIX + key, null);
+
+        if (data == null) {
+            return null;
+        }
+
+        List<Clip> result = new ArrayList<>();
+
+        try {
+            JSONArray clips = new JSONArray(data);
+
+            for (int i = 0; i < clips.length(); i++) {
+                result.add(fromJson(clips.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Can't restore the clips: %s", e.getMessage());
+            return null;
         }
 
-        return null;
+        return result.isEmpty() ? null : result;
+    }
+
+    private static JSONObject toJson(Clip clip) throws JSONException {
+        return new JSONObject()
+                .put("title", clip.getTitle())
+                .put("description", clip.getDescription())
+                .put("durationMs", clip.getDurationMs())
+                .put("bgImageUrl", clip.getBackgroundImageUrl())
+                .put("cardImageUrl", clip.getCardImageUrl())
+                .put("videoUrl", clip.getVideoUrl())
+                .put("previewVideoUrl", clip.getPreviewVideoUrl())
+                .put("isVideoProtected", clip.isVideoProtected())
+                .put("isLive", clip.isLive())
+                .put("clipId", clip.getClipId())
+                .put("contentId", clip.getContentId())
+                .put("aspectRatio", clip.getAspectRatio());
+    }
+
+    private static Clip fromJson(JSONObject json) {
+        return new Clip(
+                optString(json, "title"),
+                optString(json, "description"),
+                json.optLong("durationMs"),
+                optString(json, "bgImageUrl"),
+                optString(json, "cardImageUrl"),
+                optString(json, "videoUrl"),
+                optString(json, "previewVideoUrl"),
+                json.optBoolean("isVideoProtected"),
+                json.optBoolean("isLive"),
+                null,
+                optString(json, "clipId"),
+                optString(json, "contentId"),
+                json.optInt("aspectRatio"));
     }
 
-    private void setRecommendedPlaylistCache(Playlist cache) {
-        mRecommendedTime = System.currentTimeMillis();
-        mRecommended = cache;
+    /**
+     * Null values are omitted by the {@link JSONObject}
+     */
+    private static String optString(JSONObject json, String name) {
+        return json.isNull(name) ? null : json.optString(name);
     }
 }
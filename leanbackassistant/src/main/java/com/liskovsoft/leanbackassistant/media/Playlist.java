@@ -79,6 +79,31 @@ public final class Playlist {
         return mClips;
     }
 
+    /**
+     * Restored from the persistent cache
+     */
+    void setClips(List<Clip> clips) {
+        mClips = clips;
+    }
+
+    /**
+     * Everything that is published to the channel row (order included).<br/>
+     * Used to skip the sync of the unchanged playlists.
+     */
+    public int getContentHash() {
+        int result = Helpers.hashCodeAny(mName, mDescription);
+        List<Clip> clips = getClips();
+
+        if (clips != null) {
+            for (Clip clip : clips) {
+                result = 31 * result + Helpers.hashCodeAny(clip.getClipId(), clip.getContentId(), clip.getTitle(), clip.getDescription(),
+                        clip.getDurationMs(), clip.getCardImageUrl(), clip.getVideoUrl(), clip.getPreviewVideoUrl(), clip.isLive(), clip.getAspectRatio());
+            }
+        }
+
+        return result;
+    }
+
     public String getDescription() {
         return mDescription;
     }
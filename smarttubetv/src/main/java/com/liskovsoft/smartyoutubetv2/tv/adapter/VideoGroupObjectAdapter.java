@@ -1,6 +1,5 @@
 package com.liskovsoft.smartyoutubetv2.tv.adapter;
 
-import androidx.annotation.NonNull;
 import androidx.leanback.widget.ObjectAdapter;
 import androidx.leanback.widget.Presenter;
 import androidx.leanback.widget.PresenterSelector;
@@ -10,32 +9,29 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Items are indexed by reference (positions) and by equality (occurrences).<br/>
+ * Lookups, duplicate suppression and removal don't depend on the size of the grid.<br/>
+ * NOTE: Video's hash fields (videoId, playlistId etc) shouldn't be changed while the video is inside the adapter.
+ */
 public class VideoGroupObjectAdapter extends ObjectAdapter {
     private static final String TAG = VideoGroupObjectAdapter.class.getSimpleName();
-    private final List<Video> mVideoItems = new ArrayList<Video>() {
-        @Override
-        public boolean addAll(@NonNull Collection<? extends Video> c) {
-            // TODO: remove the hack someday.
-            // Dirty hack for avoiding group duplication.
-            // Duplicated items suddenly appeared in Home, Subscriptions and History.
-
-            // Another alt method.
-            int size = size();
-            if (size > 0) {
-                if (size < CHECK_MAX_SIZE)
-                    Helpers.removeIf(c, this::contains);
-            } else {
-                Helpers.removeDuplicates(c);
-            }
-
-            return super.addAll(c);
-        }
-    };
+    private final List<Video> mVideoItems = new ArrayList<>();
     private final List<VideoGroup> mVideoGroups = new ArrayList<>(); // keep groups from being garbage collected
-    private static final int CHECK_MAX_SIZE = 200;
+    private final Set<VideoGroup> mVideoGroupsIndex = new HashSet<>();
+    // All equal items (e.g. same video in History) in order of appearance
+    private final Map<Video, List<Video>> mOccurrences = new HashMap<>();
+    // Position of the item (first occurrence of the reference). Rebuilt lazily after prepend or remove.
+    private final Map<Video, Integer> mPositions = new IdentityHashMap<>();
+    private boolean mIsPositionsDirty;
 
     public VideoGroupObjectAdapter(VideoGroup videoGroup, Presenter presenter) {
         super(presenter);
@@ -77,8 +73,11 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
         return mVideoItems.get(index);
     }
 
+    /**
+     * Copy of the items. Don't modify the adapter through it.
+     */
     public List<Video> getAll() {
-        return mVideoItems;
+        return new ArrayList<>(mVideoItems);
     }
 
     public List<VideoGroup> getAllGroups() {
@@ -108,11 +107,12 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
     private void prepend(VideoGroup group) {
         int begin = mVideoItems.size();
 
-        if (mVideoGroups.contains(group)) {
-            mVideoItems.addAll(0, group.getVideos().subList(begin, group.getVideos().size()));
+        if (mVideoGroupsIndex.contains(group)) {
+            addAllInt(0, group.getVideos().subList(begin, group.getVideos().size()));
         } else {
-            mVideoItems.addAll(0, group.getVideos());
+            addAllInt(0, group.getVideos());
             mVideoGroups.add(0, group);
+            mVideoGroupsIndex.add(group);
         }
 
         // Fix double item blinking by specifying exact range
@@ -122,16 +122,17 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
     private void append(VideoGroup group) {
         int begin = mVideoItems.size();
 
-        if (mVideoGroups.contains(group)) {
+        if (mVideoGroupsIndex.contains(group)) {
             int end = group.getVideos().size();
             if (begin > end) {
-                mVideoItems.addAll(group.getVideos());
+                addAllDedup(group.getVideos());
             } else {
-                mVideoItems.addAll(group.getVideos().subList(begin, end));
+                addAllDedup(group.getVideos().subList(begin, end));
             }
         } else {
-            mVideoItems.addAll(group.getVideos());
+            addAllDedup(group.getVideos());
             mVideoGroups.add(group);
+            mVideoGroupsIndex.add(group);
         }
 
         // Fix double item blinking by specifying exact range
@@ -142,17 +143,7 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
      * Compare by reference. Because there may be multiple same videos.
      */
     public int indexOf(Video item) {
-        // Compare by reference. Because there may be multiple same videos.
-        int index = -1;
-
-        for (Video video : mVideoItems) {
-            index++;
-            if (video == item) {
-                return index;
-            }
-        }
-
-        return -1;
+        return indexOfInt(item);
     }
 
     /**
@@ -160,16 +151,22 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
      * UI may consists of multiple rows with same video or even multiple videos in the same row.
      */
     public int indexOfAlt(Video item) {
+        List<Video> occurrences = item != null ? mOccurrences.get(item) : null;
+
+        if (occurrences == null) {
+            return -1;
+        }
+
         int index = -1;
 
-        for (Video video : mVideoItems) {
-            index++;
-            if (video.equals(item)) {
-                return index;
+        for (Video video : occurrences) {
+            int position = indexOfInt(video);
+            if (position != -1 && (index == -1 || position < index)) {
+                index = position;
             }
         }
 
-        return -1;
+        return index;
     }
 
     /**
@@ -180,6 +177,10 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
         int itemCount = mVideoItems.size();
         mVideoItems.clear();
         mVideoGroups.clear();
+        mVideoGroupsIndex.clear();
+        mOccurrences.clear();
+        mPositions.clear();
+        mIsPositionsDirty = false;
         if (itemCount != 0) {
             // NOTE: Crashes RecycleView IndexOutOfBoundsException when doing add immediately after clear
             notifyItemRangeRemoved(0, itemCount);
@@ -187,18 +188,42 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
     }
 
     public void remove(VideoGroup group) {
+        // Remove all occurrences of the same element (if present)
+        Set<Video> removed = new HashSet<>();
+
         for (Video video : group.getVideos()) {
-            while (true) { // remove all occurrences of the same element (if present)
-                int index = mVideoItems.indexOf(video);
-                if (index != -1) {
-                    mVideoItems.remove(video);
-                    notifyItemRangeRemoved(index, 1);
-                    removeFromGroup(video);
-                } else {
-                    break;
-                }
+            if (mOccurrences.remove(video) != null) {
+                removed.add(video);
+            }
+        }
+
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        // Single pass. Notify about contiguous ranges from the end to keep positions valid.
+        List<Video> removedItems = new ArrayList<>();
+        List<Integer> removedPositions = new ArrayList<>();
+        int writeIndex = 0;
+
+        for (int i = 0; i < mVideoItems.size(); i++) {
+            Video video = mVideoItems.get(i);
+            if (removed.contains(video)) {
+                removedPositions.add(i);
+                removedItems.add(video);
+            } else {
+                mVideoItems.set(writeIndex++, video);
             }
         }
+
+        mVideoItems.subList(writeIndex, mVideoItems.size()).clear();
+        mIsPositionsDirty = true;
+
+        notifyRanges(removedPositions, false);
+
+        for (Video video : removedItems) {
+            removeFromGroup(video);
+        }
     }
 
     public void removeAuthor(VideoGroup group) {
@@ -210,22 +235,163 @@ public class VideoGroupObjectAdapter extends ObjectAdapter {
     }
 
     public void sync(VideoGroup group) {
+        List<Integer> changedPositions = new ArrayList<>();
+
         for (Video video : group.getVideos()) {
             // Search for multiple occurrences (e.g. History section)
-            for (int i = 0; i < mVideoItems.size(); i++) {
-                Video origin = mVideoItems.get(i);
-                if (origin.equals(video)) {
-                    origin.sync(video);
-                    notifyItemRangeChanged(i, 1);
+            List<Video> occurrences = mOccurrences.get(video);
+
+            if (occurrences == null) {
+                continue;
+            }
+
+            for (Video origin : occurrences) {
+                origin.sync(video);
+                int position = indexOfInt(origin);
+                if (position != -1) {
+                    changedPositions.add(position);
                 }
             }
         }
+
+        Collections.sort(changedPositions);
+        notifyRanges(changedPositions, true);
     }
 
     public boolean isEmpty() {
         return mVideoItems.isEmpty();
     }
 
+    /**
+     * Dirty hack for avoiding group duplication.<br/>
+     * Duplicated items suddenly appeared in Home, Subscriptions and History.<br/>
+     * Duplicates are removed from the source too (the group should match the adapter content).
+     */
+    private void addAllDedup(List<Video> videos) {
+        // TODO: remove the hack someday.
+        // Empty adapter: remove duplicates inside the group. Otherwise: skip items that already added.
+        boolean isEmpty = mVideoItems.isEmpty();
+        Set<Video> seen = isEmpty ? new HashSet<>() : null;
+        List<Video> result = new ArrayList<>(videos.size());
+
+        for (Video video : videos) {
+            boolean isDuplicate = isEmpty ? !seen.add(video) : mOccurrences.containsKey(video);
+            if (!isDuplicate) {
+                result.add(video);
+            }
+        }
+
+        if (result.size() != videos.size()) {
+            try {
+                videos.clear();
+                videos.addAll(result);
+            } catch (UnsupportedOperationException e) { // read only collection
+                e.printStackTrace();
+            }
+        }
+
+        addAllInt(mVideoItems.size(), result);
+    }
+
+    private void addAllInt(int index, List<Video> videos) {
+        if (videos.isEmpty()) {
+            return;
+        }
+
+        boolean isAppend = index == mVideoItems.size();
+        mVideoItems.addAll(index, videos);
+
+        for (int i = 0; i < videos.size(); i++) {
+            Video video = videos.get(i);
+            List<Video> occurrences = mOccurrences.get(video);
+
+            if (occurrences == null) {
+                occurrences = new ArrayList<>(1);
+                mOccurrences.put(video, occurrences);
+            }
+
+            if (isAppend) {
+                occurrences.add(video);
+            } else {
+                occurrences.add(0, video);
+            }
+
+            if (isAppend && !mIsPositionsDirty && !mPositions.containsKey(video)) {
+                mPositions.put(video, index + i);
+            }
+        }
+
+        if (!isAppend) {
+            mIsPositionsDirty = true;
+        }
+    }
+
+    private int indexOfInt(Video item) {
+        if (item == null) {
+            return -1;
+        }
+
+        if (mIsPositionsDirty) {
+            rebuildPositions();
+        }
+
+        Integer position = mPositions.get(item);
+
+        return position != null ? position : -1;
+    }
+
+    private void rebuildPositions() {
+        mPositions.clear();
+
+        for (int i = 0; i < mVideoItems.size(); i++) {
+            Video video = mVideoItems.get(i);
+            if (!mPositions.containsKey(video)) {
+                mPositions.put(video, i);
+            }
+        }
+
+        mIsPositionsDirty = false;
+    }
+
+    /**
+     * Batch notifications about sorted positions
+     */
+    private void notifyRanges(List<Integer> positions, boolean isChanged) {
+        if (positions.isEmpty()) {
+            return;
+        }
+
+        if (isChanged) {
+            int start = positions.get(0);
+            int prev = start;
+            for (int i = 1; i < positions.size(); i++) {
+                int position = positions.get(i);
+                if (position == prev) {
+                    continue;
+                }
+                if (position != prev + 1) {
+                    notifyItemRangeChanged(start, prev - start + 1);
+                    start = position;
+                }
+                prev = position;
+            }
+            notifyItemRangeChanged(start, prev - start + 1);
+        } else {
+            // From the end. So the rest of positions stay valid.
+            int end = positions.get(positions.size() - 1);
+            int prev = end;
+            for (int i = positions.size() - 2; i >= 0; i--) {
+                int position = positions.get(i);
+                if (position != prev - 1) {
+                    notifyItemRangeRemoved(prev, end - prev + 1);
+                    end = position;
+                }
+                prev = position;
+            }
+            notifyItemRangeRemoved(prev, end - prev + 1);
+        }
+    }
+
     private void removeFromGroup(Video video) {
         if (video != null && video.getGroup() != null) {
             video.getGroup().remove(video);
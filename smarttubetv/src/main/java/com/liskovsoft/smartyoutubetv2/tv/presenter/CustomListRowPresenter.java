@@ -1,12 +1,37 @@
 package com.liskovsoft.smartyoutubetv2.tv.presenter;
 
 import androidx.leanback.widget.ListRowPresenter;
+import androidx.leanback.widget.Presenter;
+import androidx.leanback.widget.RowPresenter;
+import com.liskovsoft.smartyoutubetv2.common.prefs.MainUIData;
+import com.liskovsoft.smartyoutubetv2.tv.R;
+import com.liskovsoft.smartyoutubetv2.tv.ui.browse.video.GridFragmentHelper;
 import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
 
 public class CustomListRowPresenter extends ListRowPresenter {
+    private int mMinRecycledPoolSize;
+
     public CustomListRowPresenter() {
         super(ViewUtil.FOCUS_ZOOM_FACTOR, ViewUtil.FOCUS_DIMMER_ENABLED);
         setSelectEffectEnabled(ViewUtil.ROW_SELECT_EFFECT_ENABLED);
         enableChildRoundedCorners(ViewUtil.ROUNDED_CORNERS_ENABLED);
     }
+
+    @Override
+    protected void initializeRowViewHolder(RowPresenter.ViewHolder holder) {
+        super.initializeRowViewHolder(holder);
+
+        if (mMinRecycledPoolSize == 0) {
+            mMinRecycledPoolSize = GridFragmentHelper.getMaxCardsNum(holder.view.getContext(),
+                    R.dimen.card_width, R.dimen.card_height, MainUIData.instance(holder.view.getContext()).getVideoGridScale());
+        }
+    }
+
+    /**
+     * The pool is shared between the rows. Default size is too small to hold the cards of the whole screen.
+     */
+    @Override
+    public int getRecycledPoolSize(Presenter presenter) {
+        return Math.max(super.getRecycledPoolSize(presenter), mMinRecycledPoolSize);
+    }
 }
@@ -4,9 +4,15 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.leanback.widget.VerticalGridPresenter;
+import com.liskovsoft.smartyoutubetv2.common.prefs.MainUIData;
+import com.liskovsoft.smartyoutubetv2.tv.R;
+import com.liskovsoft.smartyoutubetv2.tv.ui.browse.video.GridFragmentHelper;
 import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
 
 public class CustomVerticalGridPresenter extends VerticalGridPresenter {
+    // Grid could mix several card presenters (e.g. videos, shorts, channels)
+    private static final int MAX_VIEW_TYPES = 4;
+    private static final int DEFAULT_RECYCLED_POOL_SIZE = 5;
     private final int mLayoutResId;
     private final int mRootResId;
 
@@ -47,4 +53,19 @@ public class CustomVerticalGridPresenter extends VerticalGridPresenter {
 
         return viewHolder;
     }
+
+    /**
+     * Default pool size is too small to hold the cards of the whole screen (e.g. on page scroll)
+     */
+    @Override
+    protected void initializeGridViewHolder(ViewHolder vh) {
+        super.initializeGridViewHolder(vh);
+
+        int poolSize = Math.max(GridFragmentHelper.getMaxCardsNum(vh.view.getContext(),
+                R.dimen.card_width, R.dimen.card_height, MainUIData.instance(vh.view.getContext()).getVideoGridScale()), DEFAULT_RECYCLED_POOL_SIZE);
+
+        for (int type = 0; type < MAX_VIEW_TYPES; type++) {
+            vh.getGridView().getRecycledViewPool().setMaxRecycledViews(type, poolSize);
+        }
+    }
 }
@@ -12,6 +12,11 @@ public class TinyCardPresenter extends VideoCardPresenter {
         return GridFragmentHelper.getCardDimensPx(context, R.dimen.tiny_card_width, R.dimen.tiny_card_height, MainUIData.instance(context).getVideoGridScale());
     }
 
+    @Override
+    protected int getMaxCardsNum(Context context) {
+        return GridFragmentHelper.getMaxCardsNum(context, R.dimen.tiny_card_width, R.dimen.tiny_card_height, MainUIData.instance(context).getVideoGridScale());
+    }
+
     @Override
     protected boolean isCardMultilineTitleEnabled(Context context) {
         return false;
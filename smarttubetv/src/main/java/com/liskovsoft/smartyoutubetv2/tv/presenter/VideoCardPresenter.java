@@ -4,7 +4,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
-import android.os.Build.VERSION;
+import android.os.Trace;
 import android.util.Pair;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,7 +14,6 @@ import androidx.core.content.ContextCompat;
 import androidx.leanback.widget.Presenter;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.DataSource;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
@@ -27,7 +26,8 @@ import com.liskovsoft.smartyoutubetv2.tv.R;
 import com.liskovsoft.smartyoutubetv2.tv.presenter.base.LongClickPresenter;
 import com.liskovsoft.smartyoutubetv2.tv.ui.browse.video.GridFragmentHelper;
 import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.complexcardview.ComplexImageCardView;
-import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
+import com.liskovsoft.smartyoutubetv2.tv.util.CardImageLoader;
+import com.liskovsoft.smartyoutubetv2.tv.util.CardViewPool;
 
 /*
  * A CardPresenter is used to generate Views and bind Objects to them on demand.
@@ -35,27 +35,71 @@ import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
  */
 public class VideoCardPresenter extends LongClickPresenter {
     private static final String TAG = VideoCardPresenter.class.getSimpleName();
-    private int mDefaultBackgroundColor = -1;
-    private int mDefaultTextColor = -1;
-    private int mSelectedBackgroundColor = -1;
-    private int mSelectedTextColor = -1;
     private int mCardPreviewType;
     private int mThumbQuality;
     private int mWidth;
     private int mHeight;
 
+    /**
+     * Card that could be created in advance (doesn't depend on the presenter state)
+     */
+    private static class VideoCardView extends ComplexImageCardView {
+        private final int mDefaultBackgroundColor;
+        private final int mDefaultTextColor;
+        private final int mSelectedBackgroundColor;
+        private final int mSelectedTextColor;
+
+        public VideoCardView(Context context) {
+            super(context);
+
+            mDefaultBackgroundColor =
+                    ContextCompat.getColor(context, Helpers.getThemeAttr(context, R.attr.cardDefaultBackground));
+            mDefaultTextColor =
+                    ContextCompat.getColor(context, R.color.card_default_text);
+            mSelectedBackgroundColor =
+                    ContextCompat.getColor(context, Helpers.getThemeAttr(context, R.attr.cardSelectedBackground));
+            mSelectedTextColor =
+                    ContextCompat.getColor(context, R.color.card_selected_text_grey);
+
+            setFocusable(true);
+            setFocusableInTouchMode(true);
+            updateCardBackgroundColor(false);
+        }
+
+        @Override
+        public void setSelected(boolean selected) {
+            updateCardBackgroundColor(selected);
+            super.setSelected(selected);
+        }
+
+        private void updateCardBackgroundColor(boolean selected) {
+            int backgroundColor = selected ? mSelectedBackgroundColor : mDefaultBackgroundColor;
+            int textColor = selected ? mSelectedTextColor : mDefaultTextColor;
+
+            // Both background colors should be set because the view's
+            // background is temporarily visible during animations.
+            setBackgroundColor(backgroundColor);
+            View infoField = findViewById(R.id.info_field);
+            if (infoField != null) {
+                infoField.setBackgroundColor(backgroundColor);
+            }
+
+            TextView titleText = findViewById(R.id.title_text);
+            if (titleText != null) {
+                titleText.setTextColor(textColor);
+            }
+            TextView contentText = findViewById(R.id.content_text);
+            if (contentText != null) {
+                contentText.setTextColor(textColor);
+            }
+        }
+    }
+
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent) {
-        Context context = parent.getContext();
+        Trace.beginSection("VideoCardPresenter.onCreateViewHolder");
 
-        mDefaultBackgroundColor =
-            ContextCompat.getColor(context, Helpers.getThemeAttr(context, R.attr.cardDefaultBackground));
-        mDefaultTextColor =
-                ContextCompat.getColor(context, R.color.card_default_text);
-        mSelectedBackgroundColor =
-                ContextCompat.getColor(context, Helpers.getThemeAttr(context, R.attr.cardSelectedBackground));
-        mSelectedTextColor =
-                ContextCompat.getColor(context, R.color.card_selected_text_grey);
+        Context context = parent.getContext();
 
         mCardPreviewType = getCardPreviewType(context);
         mThumbQuality = getThumbQuality(context);
@@ -67,47 +111,23 @@ public class VideoCardPresenter extends LongClickPresenter {
 
         updateDimensions(context);
 
-        ComplexImageCardView cardView = new ComplexImageCardView(context) {
-            @Override
-            public void setSelected(boolean selected) {
-                updateCardBackgroundColor(this, selected);
-                super.setSelected(selected);
-            }
-        };
+        CardViewPool pool = CardViewPool.instance();
+        View pooledView = pool.obtain(context, getClass());
+        ComplexImageCardView cardView = pooledView != null ? (ComplexImageCardView) pooledView : new VideoCardView(context);
+        // Cards for the next rows and sections
+        pool.prewarm(context, getClass(), getMaxCardsNum(context), VideoCardView::new);
 
         cardView.setTitleLinesNum(isCardMultilineTitleEnabled ? 2 : 1);
         cardView.setContentLinesNum(isCardMultilineSubtitleEnabled ? 2 : 1);
         cardView.enableTextAutoScroll(isCardTextAutoScrollEnabled);
         cardView.setTextScrollSpeed(cardTextScrollSpeed);
-        cardView.setFocusable(true);
-        cardView.setFocusableInTouchMode(true);
         cardView.enableBadge(isBadgeEnabled());
         cardView.enableTitle(isTitleEnabled());
         cardView.enableContent(isContentEnabled());
-        updateCardBackgroundColor(cardView, false);
-        return new ViewHolder(cardView);
-    }
-
-    private void updateCardBackgroundColor(ComplexImageCardView view, boolean selected) {
-        int backgroundColor = selected ? mSelectedBackgroundColor : mDefaultBackgroundColor;
-        int textColor = selected ? mSelectedTextColor : mDefaultTextColor;
 
-        // Both background colors should be set because the view's
-        // background is temporarily visible during animations.
-        view.setBackgroundColor(backgroundColor);
-        View infoField = view.findViewById(R.id.info_field);
-        if (infoField != null) {
-            infoField.setBackgroundColor(backgroundColor);
-        }
+        Trace.endSection();
 
-        TextView titleText = view.findViewById(R.id.title_text);
-        if (titleText != null) {
-            titleText.setTextColor(textColor);
-        }
-        TextView contentText = view.findViewById(R.id.content_text);
-        if (contentText != null) {
-            contentText.setTextColor(textColor);
-        }
+        return new ViewHolder(cardView);
     }
 
     @Override
@@ -144,27 +164,20 @@ public class VideoCardPresenter extends LongClickPresenter {
             return;
         }
 
-        Glide.with(context)
-                //.asBitmap() // disable animation (webp, gif)
-                .load(ClickbaitRemover.updateThumbnail(video, mThumbQuality))
-                //.placeholder(mDefaultCardImage)
-                .apply(ViewUtil.glideOptions())
-                // improve image compression on low end devices
-                .override(mWidth, mHeight)
-                // com.liskovsoft.smartyoutubetv2.tv.util.CacheGlideModule
-                // Cache makes app crashing on old android versions
-                .diskCacheStrategy(VERSION.SDK_INT > 21 ? DiskCacheStrategy.ALL : DiskCacheStrategy.NONE)
-                .listener(mErrorListener)
-                .error(
-                    // Updated thumbnail url not found
-                    Glide.with(context)
-                        .load(video.cardImageUrl) // always working
-                        //.placeholder(mDefaultCardImage)
-                        .apply(ViewUtil.glideOptions())
-                        .listener(mErrorListener)
-                        .error(R.drawable.card_placeholder) // R.color.lb_grey
-                )
-                .into(cardView.getMainImageView());
+        CardImageLoader.load(context, ClickbaitRemover.updateThumbnail(video, mThumbQuality), video.cardImageUrl,
+                cardView.getMainImageView(), mWidth, mHeight, mErrorListener, R.drawable.card_placeholder);
+    }
+
+    /**
+     * Warm up the memory cache for the off-screen card
+     */
+    public void prefetch(Context context, Video video) {
+        if (video == null || mWidth <= 0) {
+            // Card dimensions aren't known yet
+            return;
+        }
+
+        CardImageLoader.preload(context, ClickbaitRemover.updateThumbnail(video, mThumbQuality), mWidth, mHeight);
     }
 
     @Override
@@ -192,6 +205,13 @@ public class VideoCardPresenter extends LongClickPresenter {
         return GridFragmentHelper.getCardDimensPx(context, R.dimen.card_width, R.dimen.card_height, MainUIData.instance(context).getVideoGridScale());
     }
 
+    /**
+     * Pool size. Enough to fill the screen.
+     */
+    protected int getMaxCardsNum(Context context) {
+        return GridFragmentHelper.getMaxCardsNum(context, R.dimen.card_width, R.dimen.card_height, MainUIData.instance(context).getVideoGridScale());
+    }
+
     protected boolean isCardTextAutoScrollEnabled(Context context) {
         return MainUIData.instance(context).isCardTextAutoScrollEnabled();
     }
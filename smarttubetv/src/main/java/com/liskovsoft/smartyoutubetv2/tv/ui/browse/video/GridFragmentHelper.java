@@ -68,6 +68,26 @@ public class GridFragmentHelper {
         return (displayWidthPx - displayWidthPx * 0.1f * uiScale) / (cardWidthPx + cardSpacingPx);
     }
 
+    /**
+     * Max number of cards that could be visible at once (including partially visible row and column)
+     */
+    public static int getMaxCardsNum(Context context, int cardWidthResId, int cardHeightResId, float cardScale) {
+        Resources res = context.getResources();
+
+        DisplayMetrics displayMetrics = MotherActivity.getCachedDisplayMetrics() != null ?
+                MotherActivity.getCachedDisplayMetrics() : res.getDisplayMetrics();
+
+        int displayHeightPx = Math.min(displayMetrics.widthPixels, displayMetrics.heightPixels);
+
+        float cardHeightPx = res.getDimensionPixelSize(cardHeightResId) * cardScale;
+        float cardSpacingPx = res.getDimensionPixelSize(R.dimen.grid_item_vertical_spacing);
+
+        int colsNum = (int) getMaxColsNumFloat(context, cardWidthResId, cardScale) + 1;
+        int rowsNum = (int) (displayHeightPx / (cardHeightPx + cardSpacingPx)) + 1;
+
+        return colsNum * rowsNum;
+    }
+
     public static Pair<Integer, Integer> getCardDimensPx(Context context, int cardWidthResId, int cardHeightResId, float cardScale) {
         return getCardDimensPx(context, cardWidthResId, cardHeightResId, cardScale, false);
     }
@@ -18,6 +18,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.BrowsePresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.interfaces.VideoGroupPresenter;
+import com.liskovsoft.smartyoutubetv2.common.misc.ContinuationPrefetcher;
 import com.liskovsoft.smartyoutubetv2.common.misc.TickleManager;
 import com.liskovsoft.smartyoutubetv2.common.prefs.MainUIData;
 import com.liskovsoft.smartyoutubetv2.tv.R;
@@ -431,6 +432,9 @@ public class MultiVideoGridFragment extends MultiGridFragment implements VideoSe
     }
 
     private final class ItemViewSelectedListener2 implements OnItemViewSelectedListener {
+        private int mPrefetchItemIndex = -1;
+        private final ContinuationPrefetcher mContinuationPrefetcher = new ContinuationPrefetcher();
+
         @Override
         public void onItemSelected(Presenter.ViewHolder itemViewHolder, Object item,
                                    RowPresenter.ViewHolder rowViewHolder, Row row) {
@@ -438,7 +442,23 @@ public class MultiVideoGridFragment extends MultiGridFragment implements VideoSe
                 mBackgroundManager.setBackgroundFrom((Video) item);
 
                 checkScrollEnd((Video) item);
+
+                prefetchImages((Video) item);
+            }
+        }
+
+        private void prefetchImages(Video item) {
+            int index = mGridAdapter2.indexOf(item);
+
+            if (index == -1) {
+                return;
             }
+
+            int direction = index >= mPrefetchItemIndex ? 1 : -1;
+
+            ViewUtil.prefetchImages(getContext(), mGridAdapter2, index + direction, direction, ViewUtil.GRID_PREFETCH_NUM);
+
+            mPrefetchItemIndex = index;
         }
 
         private void checkScrollEnd(Video item) {
@@ -447,7 +467,7 @@ public class MultiVideoGridFragment extends MultiGridFragment implements VideoSe
             int size = adapter.size();
             int index = adapter.indexOf(item);
 
-            if (index > (size - ViewUtil.GRID_SCROLL_CONTINUE_NUM)) {
+            if (mContinuationPrefetcher.shouldContinue(adapter, index, size, ViewUtil.GRID_SCROLL_CONTINUE_NUM)) {
                 mMainPresenter.onScrollEnd((Video) adapter.get(size - 1));
             }
         }
@@ -21,6 +21,7 @@ import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.interfaces.VideoGroupPresenter;
+import com.liskovsoft.smartyoutubetv2.common.misc.ContinuationPrefetcher;
 import com.liskovsoft.smartyoutubetv2.tv.adapter.VideoGroupObjectAdapter;
 import com.liskovsoft.smartyoutubetv2.tv.presenter.ChannelHeaderPresenter;
 import com.liskovsoft.smartyoutubetv2.tv.presenter.ChannelHeaderPresenter.ChannelHeaderCallback;
@@ -354,6 +355,10 @@ public abstract class MultipleRowsFragment extends RowsSupportFragment implement
     }
 
     private final class ItemViewSelectedListener implements OnItemViewSelectedListener {
+        private int mPrefetchRowIndex = -1;
+        private int mPrefetchItemIndex = -1;
+        private final ContinuationPrefetcher mContinuationPrefetcher = new ContinuationPrefetcher();
+
         @Override
         public void onItemSelected(Presenter.ViewHolder itemViewHolder, Object item,
                                    RowPresenter.ViewHolder rowViewHolder, Row row) {
@@ -363,7 +368,49 @@ public abstract class MultipleRowsFragment extends RowsSupportFragment implement
                 mMainPresenter.onVideoItemSelected((Video) item);
 
                 checkScrollEnd((Video)item);
+
+                prefetchImages((Video) item, row);
+            }
+        }
+
+        private void prefetchImages(Video item, Row row) {
+            if (!(row instanceof ListRow) || !(((ListRow) row).getAdapter() instanceof VideoGroupObjectAdapter)) {
+                return;
             }
+
+            VideoGroupObjectAdapter adapter = (VideoGroupObjectAdapter) ((ListRow) row).getAdapter();
+            int rowIndex = mRowsAdapter.indexOf(row);
+            int index = adapter.indexOf(item);
+
+            if (rowIndex == -1 || index == -1) {
+                return;
+            }
+
+            if (rowIndex == mPrefetchRowIndex) {
+                int direction = index >= mPrefetchItemIndex ? 1 : -1;
+                ViewUtil.prefetchImages(getContext(), adapter, index + direction, direction, ViewUtil.CARD_PREFETCH_NUM);
+            } else {
+                int direction = rowIndex > mPrefetchRowIndex ? 1 : -1;
+
+                // Next rows are shown from the start
+                for (int i = 1; i <= ViewUtil.ROW_PREFETCH_NUM; i++) {
+                    int nextRowIndex = rowIndex + direction * i;
+
+                    if (nextRowIndex < 0 || nextRowIndex >= mRowsAdapter.size()) {
+                        break;
+                    }
+
+                    Object nextRow = mRowsAdapter.get(nextRowIndex);
+
+                    if (nextRow instanceof ListRow && ((ListRow) nextRow).getAdapter() instanceof VideoGroupObjectAdapter) {
+                        ViewUtil.prefetchImages(getContext(), (VideoGroupObjectAdapter) ((ListRow) nextRow).getAdapter(),
+                                0, 1, ViewUtil.CARD_PREFETCH_NUM);
+                    }
+                }
+            }
+
+            mPrefetchRowIndex = rowIndex;
+            mPrefetchItemIndex = index;
         }
 
         private void checkScrollEnd(Video item) {
@@ -372,7 +419,7 @@ public abstract class MultipleRowsFragment extends RowsSupportFragment implement
 
                 if (index != -1) {
                     int size = adapter.size();
-                    if (index > (size - ViewUtil.ROW_SCROLL_CONTINUE_NUM)) {
+                    if (mContinuationPrefetcher.shouldContinue(adapter, index, size, ViewUtil.ROW_SCROLL_CONTINUE_NUM)) {
                         mMainPresenter.onScrollEnd((Video) adapter.get(size - 1));
                     }
                     break;
@@ -14,6 +14,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.VideoGroup;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.BrowsePresenter;
 import com.liskovsoft.smartyoutubetv2.common.app.presenters.interfaces.VideoGroupPresenter;
+import com.liskovsoft.smartyoutubetv2.common.misc.ContinuationPrefetcher;
 import com.liskovsoft.smartyoutubetv2.common.misc.TickleManager;
 import com.liskovsoft.smartyoutubetv2.common.prefs.MainUIData;
 import com.liskovsoft.smartyoutubetv2.common.utils.LoadingManager;
@@ -265,6 +266,9 @@ public class VideoGridFragment extends GridFragment implements VideoSection {
     }
 
     private final class ItemViewSelectedListener implements OnItemViewSelectedListener {
+        private int mPrefetchItemIndex = -1;
+        private final ContinuationPrefetcher mContinuationPrefetcher = new ContinuationPrefetcher();
+
         @Override
         public void onItemSelected(Presenter.ViewHolder itemViewHolder, Object item,
                                    RowPresenter.ViewHolder rowViewHolder, Row row) {
@@ -274,14 +278,32 @@ public class VideoGridFragment extends GridFragment implements VideoSection {
                 mMainPresenter.onVideoItemSelected((Video) item);
 
                 checkScrollEnd((Video) item);
+
+                prefetchImages((Video) item);
             }
         }
 
+        private void prefetchImages(Video item) {
+            int index = mGridAdapter.indexOf(item);
+
+            if (index == -1) {
+                return;
+            }
+
+            int direction = index >= mPrefetchItemIndex ? 1 : -1;
+
+            ViewUtil.prefetchImages(getContext(), mGridAdapter, index + direction, direction, ViewUtil.GRID_PREFETCH_NUM);
+
+            mPrefetchItemIndex = index;
+        }
+
         private void checkScrollEnd(Video item) {
             int size = mGridAdapter.size();
             int index = mGridAdapter.indexOf(item);
 
-            if (index > (size - (isShorts() ? ViewUtil.GRID_SCROLL_CONTINUE_NUM * 2 : ViewUtil.GRID_SCROLL_CONTINUE_NUM))) {
+            int minRemaining = isShorts() ? ViewUtil.GRID_SCROLL_CONTINUE_NUM * 2 : ViewUtil.GRID_SCROLL_CONTINUE_NUM;
+
+            if (mContinuationPrefetcher.shouldContinue(mGridAdapter, index, size, minRemaining)) {
                 mMainPresenter.onScrollEnd((Video) mGridAdapter.get(size - 1));
             }
         }
@@ -8,10 +8,10 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.Nullable;
 import androidx.preference.DialogPreference;
-import com.bumptech.glide.Glide;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.ChatReceiver;
 import com.liskovsoft.smartyoutubetv2.tv.R;
 import com.liskovsoft.smartyoutubetv2.tv.ui.mod.leanback.preference.LeanbackPreferenceDialogFragment;
+import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.chat.ChatAvatarLoader;
 import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.chat.ChatItemMessage;
 import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
 import com.stfalcon.chatkit.messages.MessagesList;
@@ -58,16 +58,11 @@ public class ChatPreferenceDialogFragment extends LeanbackPreferenceDialogFragme
         }
 
         MessagesList messagesList = (MessagesList) view.findViewById(R.id.messagesList);
-        MessagesListAdapter<ChatItemMessage> adapter = new MessagesListAdapter<>(SENDER_ID, (imageView, url, payload) ->
-                Glide.with(view.getContext())
-                    .load(url)
-                    .apply(ViewUtil.glideOptions())
-                    .circleCrop() // resize image
-                    .into(imageView));
+        MessagesListAdapter<ChatItemMessage> adapter = new MessagesListAdapter<>(SENDER_ID, ChatAvatarLoader.instance(view.getContext()));
         messagesList.setAdapter(adapter);
 
         if (mChatReceiver != null) {
-            mChatReceiver.setCallback(chatItem -> adapter.addToStart(ChatItemMessage.from(chatItem), true));
+            mChatReceiver.setCallback(chatItems -> adapter.addToStart(ChatItemMessage.from(chatItems), true));
         }
 
         if (mIsTransparent) {
@@ -77,6 +72,12 @@ public class ChatPreferenceDialogFragment extends LeanbackPreferenceDialogFragme
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        ChatAvatarLoader.instance(getActivity()).clear();
+    }
+
     public void enableTransparent(boolean enable) {
         mIsTransparent = enable;
     }
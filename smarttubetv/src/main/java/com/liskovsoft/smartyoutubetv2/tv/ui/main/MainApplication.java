@@ -32,7 +32,9 @@ public class MainApplication extends MultiDexApplication { // fix: Didn't find c
     static {
         // fix youtube bandwidth throttling (best - false)???
         // false is better for streams (less buffering)
-        System.setProperty("http.keepAlive", "false");
+        // NOTE: affects every HttpURLConnection of the app.
+        // Player data sources disable keep-alive per host when the pooled connection stalls (see PlayerNetworkManager).
+        //System.setProperty("http.keepAlive", "false");
         // fix ipv6 infinite video buffering???
         // Better to remove this fix at all. Users complain about infinite loading.
         //System.setProperty("java.net.preferIPv6Addresses", "true");
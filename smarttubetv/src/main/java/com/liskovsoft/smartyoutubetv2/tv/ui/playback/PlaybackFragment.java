@@ -37,9 +37,9 @@ import com.google.android.exoplayer2.DefaultRenderersFactory;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SeekParameters;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.google.android.exoplayer2.ext.leanback.LeanbackPlayerAdapter;
 import com.google.android.exoplayer2.ext.mediasession.MediaSessionConnector;
-import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.util.Util;
 import com.liskovsoft.sharedutils.helpers.Helpers;
@@ -56,6 +56,7 @@ import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.DebugInfoManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.ExoPlayerInitializer;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.SubtitleManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.SmartTrackSelection;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.renderer.CustomOverridesRenderersFactory;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.selector.RestoreTrackSelector;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerData;
@@ -439,7 +440,7 @@ public class PlaybackFragment extends SeekModePlaybackFragment implements Playba
         //mExoPlayerController.setEventListener(mPlaybackPresenter);
 
         // Use default or pass your bandwidthMeter here: bandwidthMeter = new DefaultBandwidthMeter.Builder(getContext()).build()
-        DefaultTrackSelector trackSelector = new RestoreTrackSelector(new AdaptiveTrackSelection.Factory());
+        DefaultTrackSelector trackSelector = new RestoreTrackSelector(new SmartTrackSelection.Factory());
         mExoPlayerController.setTrackSelector(trackSelector);
 
         DefaultRenderersFactory renderersFactory = new CustomOverridesRenderersFactory(getContext());
@@ -938,6 +939,11 @@ public class PlaybackFragment extends SeekModePlaybackFragment implements Playba
         mExoPlayerController.openDash(dashManifest);
     }
 
+    @Override
+    public void openDash(DashManifest dashManifest) {
+        mExoPlayerController.openDash(dashManifest);
+    }
+
     @Override
     public void openDashUrl(String dashManifestUrl) {
         mExoPlayerController.openDashUrl(dashManifestUrl);
@@ -958,6 +964,11 @@ public class PlaybackFragment extends SeekModePlaybackFragment implements Playba
         mExoPlayerController.openMerged(dashManifest, hlsPlaylistUrl);
     }
 
+    @Override
+    public void openMerged(DashManifest dashManifest, String hlsPlaylistUrl) {
+        mExoPlayerController.openMerged(dashManifest, hlsPlaylistUrl);
+    }
+
     @Override
     public long getPositionMs() {
         return mExoPlayerController.getPositionMs();
@@ -2,14 +2,9 @@ package com.liskovsoft.smartyoutubetv2.tv.ui.playback.previewtimebar;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
+import android.os.SystemClock;
+import android.util.Pair;
 import androidx.collection.ArraySet;
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.target.Target;
-import com.bumptech.glide.request.transition.Transition;
 import com.liskovsoft.mediaserviceinterfaces.MediaItemService;
 import com.liskovsoft.mediaserviceinterfaces.ServiceManager;
 import com.liskovsoft.mediaserviceinterfaces.data.MediaItemStoryboard;
@@ -17,28 +12,44 @@ import com.liskovsoft.mediaserviceinterfaces.data.MediaItemStoryboard.Size;
 import com.liskovsoft.sharedutils.mylogger.Log;
 import com.liskovsoft.sharedutils.rx.RxHelper;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
-import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerIoScheduler;
 import com.liskovsoft.youtubeapi.service.YouTubeServiceManager;
 import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Seek previews. Storyboard groups (sprite sheets) are decoded once into the tile cache.<br/>
+ * Tiles are served by index. Next groups are prefetched in the seek direction depending on the seek speed.
+ */
 public class StoryboardManager {
     private static final String TAG = StoryboardManager.class.getSimpleName();
     private static final long FRAME_DURATION_MS = 10_000;
-    private static final int MAX_PRELOADED_IMAGES = 3;
-    private static final int DIRECTION_RIGHT = 0;
-    private static final int DIRECTION_LEFT = 1;
+    private static final int MAX_PREFETCH_GROUPS = 3;
+    private static final long PREFETCH_TIME_MS = 2_000;
+    // Pause that ends the seek
+    private static final long SEEK_IDLE_MS = 1_000;
     private final MediaItemService mMediaItemService;
     private final Context mContext;
     private long mLengthMs;
     private MediaItemStoryboard mStoryboard;
     private Disposable mFormatAction;
     private long[] mSeekPositions;
-    private int mCurrentImgNum = -1;
-    private final Set<Integer> mCachedImageNums = new ArraySet<>();
-    private int mSeekDirection = DIRECTION_RIGHT;
+    private final StoryboardTileCache mTileCache;
+    private final Set<Integer> mLoadingGroups = new ArraySet<>();
+    private final Map<Integer, List<Pair<Integer, Callback>>> mPendingTiles = new HashMap<>();
+    private final CompositeDisposable mLoadActions = new CompositeDisposable();
+    private long mLastSeekTimeMs;
+    private long mLastSeekPositionMs;
+    private float mSeekSpeed;
 
     public interface Callback {
         void onBitmapLoaded(Bitmap bitmap);
@@ -48,13 +59,18 @@ public class StoryboardManager {
         mContext = context;
         ServiceManager service = YouTubeServiceManager.instance();
         mMediaItemService = service.getMediaItemService();
+        mTileCache = new StoryboardTileCache(context);
     }
 
     public void init(Video video, long lengthMs) {
         mLengthMs = lengthMs;
         mSeekPositions = null;
         mStoryboard = null;
-        mCachedImageNums.clear();
+        mTileCache.clear();
+        mLoadingGroups.clear();
+        mPendingTiles.clear();
+        mLoadActions.clear();
+        mSeekSpeed = 0;
 
         RxHelper.disposeActions(mFormatAction);
 
@@ -130,70 +146,123 @@ public class StoryboardManager {
     }
 
     private void loadPreview(long currentPosition, Callback callback) {
-        if (mStoryboard == null || mStoryboard.getGroupDurationMS() == 0) {
+        if (mStoryboard == null || mStoryboard.getGroupDurationMS() == 0 || mStoryboard.getGroupSize().getDurationEachMS() == 0) {
             return;
         }
 
-        int groupNum = (int) currentPosition / mStoryboard.getGroupDurationMS();
-        long realPosMS = currentPosition % mStoryboard.getGroupDurationMS();
-        Size size = mStoryboard.getGroupSize();
-        GlideThumbnailTransformation transformation =
-                new GlideThumbnailTransformation(realPosMS, size.getWidth(), size.getHeight(), size.getRowCount(), size.getColCount(), size.getDurationEachMS());
-
-        //Log.d(TAG, "Loading preview. Position: %s, groupNum: %s, groupDurationMS: %s, groupSize", currentPosition, groupNum, mStoryboard.getGroupDurationMS(), size);
-
-        Glide.with(mContext)
-                .asBitmap()
-                .load(mStoryboard.getGroupUrl(groupNum))
-                .apply(ViewUtil.glideOptions())
-                .override(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL)
-                .transform(transformation)
-                .into(new CustomTarget<Bitmap>() {
-                    @Override
-                    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                        //Log.d(TAG, "onPreviewLoaded: image hashCode: %s", resource.hashCode());
-                        callback.onBitmapLoaded(resource);
-                    }
-
-                    @Override
-                    public void onLoadCleared(@Nullable Drawable placeholder) {
-                        // NOP
-                    }
-                });
-
-        if (mCurrentImgNum != groupNum) {
-            mSeekDirection = mCurrentImgNum < groupNum ? DIRECTION_RIGHT : DIRECTION_LEFT;
-            mCachedImageNums.add(groupNum);
-            mCurrentImgNum = groupNum;
-
-            preloadNextImage();
+        int groupNum = (int) (currentPosition / mStoryboard.getGroupDurationMS());
+        int tileNum = (int) (currentPosition % mStoryboard.getGroupDurationMS() / mStoryboard.getGroupSize().getDurationEachMS());
+
+        Bitmap tile = mTileCache.getTile(groupNum, tileNum);
+
+        if (tile != null) {
+            callback.onBitmapLoaded(tile);
+        } else if (!mTileCache.contains(groupNum)) {
+            addPendingTile(groupNum, tileNum, callback);
+            loadGroup(groupNum);
         }
+
+        updateSeekSpeed(currentPosition);
+        prefetchGroups(currentPosition);
     }
 
-    private void preloadNextImage() {
-        if (mStoryboard == null) {
+    private void addPendingTile(int groupNum, int tileNum, Callback callback) {
+        List<Pair<Integer, Callback>> pending = mPendingTiles.get(groupNum);
+
+        if (pending == null) {
+            pending = new ArrayList<>();
+            mPendingTiles.put(groupNum, pending);
+        }
+
+        pending.add(new Pair<>(tileNum, callback));
+    }
+
+    private void loadGroup(int groupNum) {
+        if (mStoryboard == null || groupNum < 0 || groupNum >= getGroupCount() ||
+                mLoadingGroups.contains(groupNum) || mTileCache.contains(groupNum)) {
             return;
         }
 
-        for (int i = 1; i <= MAX_PRELOADED_IMAGES; i++) {
-            int imgNum = mSeekDirection == DIRECTION_RIGHT ? mCurrentImgNum + i : mCurrentImgNum - i; // get next image
-            preloadImage(imgNum);
+        String url = mStoryboard.getGroupUrl(groupNum);
+
+        if (url == null) {
+            return;
         }
+
+        mLoadingGroups.add(groupNum);
+        Size size = mStoryboard.getGroupSize();
+
+        mLoadActions.add(Observable.fromCallable(() -> StoryboardTileCache.decodeTiles(
+                        mContext, url, size.getWidth(), size.getHeight(), size.getRowCount(), size.getColCount()))
+                .subscribeOn(Schedulers.from(PlayerIoScheduler.instance().getExecutor(PlayerIoScheduler.PRIORITY_THUMBNAIL)))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        tiles -> {
+                            mLoadingGroups.remove(groupNum);
+                            mTileCache.put(groupNum, tiles);
+                            deliverPendingTiles(groupNum);
+                        },
+                        error -> {
+                            mLoadingGroups.remove(groupNum);
+                            mPendingTiles.remove(groupNum);
+                            Log.e(TAG, "Error loading storyboard group %s: %s", groupNum, error.getMessage());
+                        }
+                ));
     }
 
-    private void preloadImage(int imgNum) {
-        if (mCachedImageNums.contains(imgNum) || imgNum < 0) {
+    private void deliverPendingTiles(int groupNum) {
+        List<Pair<Integer, Callback>> pending = mPendingTiles.get(groupNum);
+
+        if (pending == null) {
             return;
         }
 
-        Log.d(TAG, "Oops, image #" + imgNum + " didn't cached yet");
+        mPendingTiles.remove(groupNum);
 
-        mCachedImageNums.add(imgNum);
+        for (Pair<Integer, Callback> item : pending) {
+            Bitmap tile = mTileCache.getTile(groupNum, item.first);
+
+            if (tile != null) {
+                item.second.onBitmapLoaded(tile);
+            }
+        }
+    }
 
-        String link = mStoryboard.getGroupUrl(imgNum);
+    /**
+     * Smoothed seek speed (ms of the video per second). Negative when seeking backward.
+     */
+    private void updateSeekSpeed(long positionMs) {
+        long nowMs = SystemClock.uptimeMillis();
+        long elapsedMs = nowMs - mLastSeekTimeMs;
+
+        if (mLastSeekTimeMs != 0 && elapsedMs > 0 && elapsedMs < SEEK_IDLE_MS && positionMs != mLastSeekPositionMs) {
+            float speed = (positionMs - mLastSeekPositionMs) * 1_000f / elapsedMs;
+            mSeekSpeed = mSeekSpeed == 0 || Math.signum(speed) != Math.signum(mSeekSpeed) ? speed : (mSeekSpeed + speed) / 2;
+        } else if (elapsedMs >= SEEK_IDLE_MS) {
+            mSeekSpeed = 0;
+        }
+
+        mLastSeekTimeMs = nowMs;
+        mLastSeekPositionMs = positionMs;
+    }
+
+    /**
+     * Groups that will be reached within the prefetch time at the current seek speed (in seek direction).<br/>
+     * When the seek just started, only the neighbor group is loaded.
+     */
+    private void prefetchGroups(long positionMs) {
+        int groupDurationMs = mStoryboard.getGroupDurationMS();
+        int currentGroup = (int) (positionMs / groupDurationMs);
+        long aheadMs = (long) (Math.abs(mSeekSpeed) * PREFETCH_TIME_MS / 1_000);
+        int groupsAhead = Math.max(1, Math.min((int) ((positionMs % groupDurationMs + aheadMs) / groupDurationMs) + 1, MAX_PREFETCH_GROUPS));
+        int direction = mSeekSpeed < 0 ? -1 : 1;
+
+        for (int i = 1; i <= groupsAhead; i++) {
+            loadGroup(currentGroup + i * direction);
+        }
+    }
 
-        Glide.with(mContext)
-                .load(link)
-                .preload();
+    private int getGroupCount() {
+        return (int) ((mLengthMs + mStoryboard.getGroupDurationMS() - 1) / mStoryboard.getGroupDurationMS());
     }
 }
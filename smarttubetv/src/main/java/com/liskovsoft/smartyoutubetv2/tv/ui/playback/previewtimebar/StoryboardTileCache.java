@@ -0,0 +1,109 @@
+package com.liskovsoft.smartyoutubetv2.tv.ui.playback.previewtimebar;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+import com.bumptech.glide.Glide;
+
+import java.io.File;
+
+/**
+ * Decoded storyboard tiles. Each group (sprite sheet) is downloaded and decoded once.<br/>
+ * Tiles are cut with {@link BitmapRegionDecoder}, so the whole sheet is never kept in memory.<br/>
+ * Size is capped relative to the app memory class.
+ */
+public class StoryboardTileCache {
+    private static final int MIN_CACHE_SIZE_BYTES = 2 * 1024 * 1024;
+    private static final int MAX_CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+    // Part of the app memory class
+    private static final int MEMORY_FRACTION = 16;
+    private final LruCache<Integer, Bitmap[]> mGroups;
+
+    public StoryboardTileCache(Context context) {
+        mGroups = new LruCache<Integer, Bitmap[]>(getCacheSizeBytes(context)) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap[] tiles) {
+                int size = 0;
+
+                for (Bitmap tile : tiles) {
+                    if (tile != null) {
+                        size += tile.getByteCount();
+                    }
+                }
+
+                return Math.max(size, 1);
+            }
+        };
+    }
+
+    @Nullable
+    public Bitmap getTile(int groupNum, int tileNum) {
+        Bitmap[] tiles = mGroups.get(groupNum);
+
+        return tiles != null && tileNum >= 0 && tileNum < tiles.length ? tiles[tileNum] : null;
+    }
+
+    public boolean contains(int groupNum) {
+        return mGroups.get(groupNum) != null;
+    }
+
+    public void put(int groupNum, Bitmap[] tiles) {
+        mGroups.put(groupNum, tiles);
+    }
+
+    public void clear() {
+        mGroups.evictAll();
+    }
+
+    /**
+     * Blocking. Downloads the sheet (Glide disk cache) and cuts it into tiles.
+     */
+    public static Bitmap[] decodeTiles(Context context, String url, int tileWidth, int tileHeight, int rowCount, int colCount) throws Exception {
+        File file = Glide.with(context)
+                .asFile()
+                .load(url)
+                .submit()
+                .get();
+
+        BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(file.getAbsolutePath(), false);
+
+        try {
+            int width = tileWidth > 0 ? tileWidth : decoder.getWidth() / colCount;
+            int height = tileHeight > 0 ? tileHeight : decoder.getHeight() / rowCount;
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.RGB_565; // previews don't need alpha
+
+            Bitmap[] tiles = new Bitmap[rowCount * colCount];
+            Rect rect = new Rect();
+
+            for (int i = 0; i < tiles.length; i++) {
+                int x = i % colCount * width;
+                int y = i / colCount * height;
+
+                if (x + width > decoder.getWidth() || y + height > decoder.getHeight()) {
+                    break; // the last sheet is partially filled
+                }
+
+                rect.set(x, y, x + width, y + height);
+                tiles[i] = decoder.decodeRegion(rect, options);
+            }
+
+            return tiles;
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+    private static int getCacheSizeBytes(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMB = activityManager != null ? activityManager.getMemoryClass() : 64;
+
+        return Math.max(MIN_CACHE_SIZE_BYTES, Math.min(memoryClassMB * 1024 * 1024 / MEMORY_FRACTION, MAX_CACHE_SIZE_BYTES));
+    }
+}
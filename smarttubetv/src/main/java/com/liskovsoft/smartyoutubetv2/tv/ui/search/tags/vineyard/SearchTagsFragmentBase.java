@@ -204,6 +204,8 @@ public abstract class SearchTagsFragmentBase extends SearchSupportFragment
 
         String query = adapter.getAdapterOptions().get(PaginationAdapter.KEY_TAG);
         mSearchTagsProvider.search(query, results -> {
+            // Local results could be followed by the server ones
+            adapter.clear();
             adapter.addAllItems(results);
             attachAdapter(0, adapter);
             // Same suggestions in the keyboard
@@ -0,0 +1,125 @@
+package com.liskovsoft.smartyoutubetv2.tv.ui.widgets.chat;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+import android.widget.ImageView;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.liskovsoft.smartyoutubetv2.tv.R;
+import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
+import com.stfalcon.chatkit.commons.ImageLoader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat avatars are the same for the author's messages. Decode them once.<br/>
+ * Loaded (circle cropped) bitmaps are kept in the small LRU shared by all chat views. Cleared when the chat is closed.
+ */
+public class ChatAvatarLoader implements ImageLoader {
+    private static final int MAX_AVATARS = 50;
+    @SuppressLint("StaticFieldLeak")
+    private static ChatAvatarLoader sInstance;
+    private final Context mContext;
+    private final LruCache<String, Bitmap> mAvatars = new LruCache<>(MAX_AVATARS);
+    // Views that wait for the same avatar
+    private final Map<String, List<ImageView>> mPending = new HashMap<>();
+
+    private ChatAvatarLoader(Context context) {
+        mContext = context;
+    }
+
+    public static ChatAvatarLoader instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ChatAvatarLoader(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    @Override
+    public void loadImage(ImageView imageView, @Nullable String url, @Nullable Object payload) {
+        imageView.setTag(R.id.chat_avatar_url, url);
+
+        if (url == null) {
+            imageView.setImageDrawable(null);
+            return;
+        }
+
+        Bitmap avatar = mAvatars.get(url);
+
+        if (avatar != null) {
+            imageView.setImageBitmap(avatar);
+            return;
+        }
+
+        imageView.setImageDrawable(null);
+
+        List<ImageView> views = mPending.get(url);
+
+        if (views != null) {
+            views.add(imageView);
+            return;
+        }
+
+        views = new ArrayList<>();
+        views.add(imageView);
+        mPending.put(url, views);
+
+        Glide.with(mContext)
+                .asBitmap()
+                .load(url)
+                .apply(ViewUtil.glideOptions())
+                .circleCrop() // resize image
+                .into(new CustomTarget<Bitmap>() {
+                    @Override
+                    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                        // Glide could reuse the resource. Keep own copy.
+                        Bitmap avatar = resource.copy(resource.getConfig(), false);
+                        mAvatars.put(url, avatar);
+                        onAvatarLoaded(url, avatar);
+                    }
+
+                    @Override
+                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                        mPending.remove(url);
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {
+                        // NOP
+                    }
+                });
+    }
+
+    /**
+     * Also drops the pending views (don't keep the closed chat)
+     */
+    public void clear() {
+        mPending.clear();
+        mAvatars.evictAll();
+    }
+
+    private void onAvatarLoaded(String url, Bitmap avatar) {
+        List<ImageView> views = mPending.remove(url);
+
+        if (views == null) {
+            return;
+        }
+
+        for (ImageView view : views) {
+            // The view could be already recycled and bound to another message
+            if (url.equals(view.getTag(R.id.chat_avatar_url))) {
+                view.setImageBitmap(avatar);
+            }
+        }
+    }
+}
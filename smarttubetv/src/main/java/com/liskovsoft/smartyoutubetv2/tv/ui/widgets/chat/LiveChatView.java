@@ -7,10 +7,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 import androidx.annotation.Nullable;
-import com.bumptech.glide.Glide;
 import com.liskovsoft.smartyoutubetv2.common.app.models.playback.ui.ChatReceiver;
 import com.liskovsoft.smartyoutubetv2.common.prefs.PlayerTweaksData;
-import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
 import com.stfalcon.chatkit.messages.MessagesListAdapter;
 
 public class LiveChatView extends com.stfalcon.chatkit.messages.MessagesList {
@@ -50,6 +48,7 @@ public class LiveChatView extends com.stfalcon.chatkit.messages.MessagesList {
 
         if (mChatReceiver == null) {
             setVisibility(View.GONE);
+            ChatAvatarLoader.instance(getContext()).clear();
             return;
         }
 
@@ -58,17 +57,12 @@ public class LiveChatView extends com.stfalcon.chatkit.messages.MessagesList {
         setVisibility(View.VISIBLE);
 
         if (mAdapter == null) {
-            mAdapter = new MessagesListAdapter<>(SENDER_ID, (imageView, url, payload) ->
-                    Glide.with(getContext())
-                            .load(url)
-                            .apply(ViewUtil.glideOptions())
-                            .circleCrop() // resize image
-                            .into(imageView));
+            mAdapter = new MessagesListAdapter<>(SENDER_ID, ChatAvatarLoader.instance(getContext()));
             mAdapter.setMaxItemsCount(20);
             setAdapter(mAdapter);
         }
 
-        mChatReceiver.setCallback(chatItem -> mAdapter.addToStart(ChatItemMessage.from(chatItem), true));
+        mChatReceiver.setCallback(chatItems -> mAdapter.addToStart(ChatItemMessage.from(chatItems), true));
     }
 
     private void alignChat() {
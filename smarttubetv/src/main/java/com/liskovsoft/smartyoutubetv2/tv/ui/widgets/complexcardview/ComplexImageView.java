@@ -14,8 +14,10 @@ import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
 import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
+import com.liskovsoft.smartyoutubetv2.common.app.models.playback.service.PreviewFormatInfoCache;
 import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
 import com.liskovsoft.smartyoutubetv2.tv.R;
+import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.embedplayer.EmbedPlayerPool;
 import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.embedplayer.EmbedPlayerView;
 import com.liskovsoft.smartyoutubetv2.tv.util.ViewUtil;
 
@@ -23,6 +25,8 @@ import java.lang.ref.WeakReference;
 
 public class ComplexImageView extends RelativeLayout {
     private static final long PLAYER_START_DELAY_MS = 2_000;
+    // Skip cards that lose focus immediately (fast scrolling)
+    private static final long PREFETCH_DELAY_MS = 500;
     private ImageView mMainImage;
     private ImageView mPreviewImage;
     private EmbedPlayerView mPreviewPlayer;
@@ -33,6 +37,7 @@ public class ComplexImageView extends RelativeLayout {
     private int mPreviewWidth;
     private int mPreviewHeight;
     private Runnable mCreateAndStartPlayer;
+    private Runnable mPrefetchFormatInfo;
     private WeakReference<Video> mVideo;
     private boolean mPreferSimplePreview;
     private boolean mMute;
@@ -158,8 +163,10 @@ public class ComplexImageView extends RelativeLayout {
         } else if (getVideo().videoId != null) {
             if (mCreateAndStartPlayer == null) {
                 mCreateAndStartPlayer = this::createAndStartPlayer;
+                mPrefetchFormatInfo = () -> PreviewFormatInfoCache.instance().prefetchWithNeighbors(getVideo());
             }
 
+            Utils.postDelayed(mPrefetchFormatInfo, PREFETCH_DELAY_MS);
             Utils.postDelayed(mCreateAndStartPlayer, PLAYER_START_DELAY_MS);
         }
     }
@@ -170,7 +177,7 @@ public class ComplexImageView extends RelativeLayout {
         }
 
         if (mPreviewPlayer == null) {
-            mPreviewPlayer = new EmbedPlayerView(getContext());
+            mPreviewPlayer = EmbedPlayerPool.instance(getContext()).acquire(getContext());
             mPreviewPlayer.setQuality(Math.min(mPreviewWidth, mPreviewHeight) < 300 ? EmbedPlayerView.QUALITY_LOW : EmbedPlayerView.QUALITY_NORMAL);
             mPreviewPlayer.setUseController(false);
             mPreviewPlayer.setMute(mMute);
@@ -200,20 +207,17 @@ public class ComplexImageView extends RelativeLayout {
                 mPreviewImage = null;
             }
         } else if (getVideo().videoId != null) {
-            Utils.removeCallbacks(mCreateAndStartPlayer);
+            Utils.removeCallbacks(mCreateAndStartPlayer, mPrefetchFormatInfo);
 
             if (mPreviewPlayer != null) {
                 mPreviewContainer.setVisibility(View.GONE);
+                EmbedPlayerPool pool = EmbedPlayerPool.instance(getContext());
                 if (stopImmediately) {
-                    mPreviewPlayer.finish();
-                    mPreviewContainer.removeView(mPreviewPlayer);
+                    pool.release(mPreviewPlayer);
                 } else {
                     EmbedPlayerView epv = mPreviewPlayer;
                     epv.setMute(true);
-                    Utils.postDelayed(() -> {
-                        epv.finish();
-                        mPreviewContainer.removeView(epv);
-                    }, 500);
+                    Utils.postDelayed(() -> pool.release(epv), 500);
                 }
                 mPreviewPlayer = null;
             }
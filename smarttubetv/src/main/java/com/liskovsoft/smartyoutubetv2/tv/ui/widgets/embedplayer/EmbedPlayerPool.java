@@ -0,0 +1,188 @@
+package com.liskovsoft.smartyoutubetv2.tv.ui.widgets.embedplayer;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.app.Application;
+import android.app.Application.ActivityLifecycleCallbacks;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps a couple of stopped preview players for the next cards.<br/>
+ * The player, renderers, track selector and views are reused. Codecs are released by the stop and created again on the next video.<br/>
+ * Creating a player per focused card is slow and drops frames while scrolling.<br/>
+ * The pool is released under memory pressure or when the app goes to background.<br/>
+ * Idle players of the destroyed activity are finished at once.
+ */
+public class EmbedPlayerPool implements ComponentCallbacks2 {
+    private static final int MAX_IDLE_PLAYERS = 2;
+    @SuppressLint("StaticFieldLeak")
+    private static EmbedPlayerPool sInstance;
+    private final List<EmbedPlayerView> mIdlePlayers = new ArrayList<>();
+
+    private EmbedPlayerPool(Context context) {
+        context.registerComponentCallbacks(this);
+
+        if (context instanceof Application) {
+            ((Application) context).registerActivityLifecycleCallbacks(mLifecycleCallbacks);
+        }
+    }
+
+    public static EmbedPlayerPool instance(Context context) {
+        if (sInstance == null) {
+            sInstance = new EmbedPlayerPool(context.getApplicationContext());
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Idle player bound to the same activity or the new one.
+     */
+    public EmbedPlayerView acquire(Context context) {
+        EmbedPlayerView result = null;
+        Iterator<EmbedPlayerView> iterator = mIdlePlayers.iterator();
+
+        while (iterator.hasNext()) {
+            EmbedPlayerView player = iterator.next();
+
+            if (player.getContext() != context) {
+                // Don't leak the previous activity
+                iterator.remove();
+                player.finish();
+            } else if (result == null) {
+                iterator.remove();
+                result = player;
+            }
+        }
+
+        return result != null ? result : new EmbedPlayerView(context);
+    }
+
+    /**
+     * Stop the playback and keep the player for the next card.
+     */
+    public void release(EmbedPlayerView player) {
+        if (player == null) {
+            return;
+        }
+
+        if (player.getParent() instanceof ViewGroup) {
+            ((ViewGroup) player.getParent()).removeView(player);
+        }
+
+        if (mIdlePlayers.contains(player)) {
+            return;
+        }
+
+        if (mIdlePlayers.size() >= MAX_IDLE_PLAYERS) {
+            player.finish();
+            return;
+        }
+
+        player.stop();
+
+        if (!player.isEngineReusable()) {
+            return;
+        }
+
+        mIdlePlayers.add(player);
+    }
+
+    public void clear() {
+        for (EmbedPlayerView player : mIdlePlayers) {
+            player.finish();
+        }
+
+        mIdlePlayers.clear();
+    }
+
+    /**
+     * Finish the idle players that are bound to the activity
+     */
+    public void clear(Activity activity) {
+        Iterator<EmbedPlayerView> iterator = mIdlePlayers.iterator();
+
+        while (iterator.hasNext()) {
+            EmbedPlayerView player = iterator.next();
+
+            if (getActivity(player.getContext()) == activity) {
+                iterator.remove();
+                player.finish();
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // NOP
+    }
+
+    /**
+     * Views may get the themed wrapper of the activity
+     */
+    private static Activity getActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+
+        return null;
+    }
+
+    private final ActivityLifecycleCallbacks mLifecycleCallbacks = new ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+            clear(activity);
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+    };
+}
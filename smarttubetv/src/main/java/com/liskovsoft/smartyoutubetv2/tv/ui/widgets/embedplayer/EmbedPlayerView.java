@@ -8,6 +8,7 @@ import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.DefaultRenderersFactory;
 import com.google.android.exoplayer2.SeekParameters;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.ui.AspectRatioFrameLayout;
@@ -22,6 +23,7 @@ import com.liskovsoft.smartyoutubetv2.common.app.views.PlaybackView;
 import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.controller.ExoPlayerController;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.controller.PlayerController;
+import com.liskovsoft.smartyoutubetv2.common.exoplayer.network.PlayerIoScheduler;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.other.ExoPlayerInitializer;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.selector.FormatItem;
 import com.liskovsoft.smartyoutubetv2.common.exoplayer.versions.renderer.CustomOverridesRenderersFactory;
@@ -49,6 +51,7 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
     private final Runnable mStopPlayback = this::finish;
     private int mQuality;
     private float mPercentWatched;
+    private boolean mIsStopped;
 
     public EmbedPlayerView(Context context) {
         super(context);
@@ -287,6 +290,11 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
         mExoPlayerController.openDash(dashManifest);
     }
 
+    @Override
+    public void openDash(DashManifest dashManifest) {
+        mExoPlayerController.openDash(dashManifest);
+    }
+
     @Override
     public void openDashUrl(String dashManifestUrl) {
         mExoPlayerController.openDashUrl(dashManifestUrl);
@@ -307,6 +315,11 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
         mExoPlayerController.openMerged(dashManifest, hlsPlaylistUrl);
     }
 
+    @Override
+    public void openMerged(DashManifest dashManifest, String hlsPlaylistUrl) {
+        mExoPlayerController.openMerged(dashManifest, hlsPlaylistUrl);
+    }
+
     @Override
     public long getPositionMs() {
         return mExoPlayerController.getPositionMs();
@@ -382,7 +395,7 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
 
     @Override
     public boolean isEngineInitialized() {
-        return mPlayer != null;
+        return mPlayer != null && !mIsStopped;
     }
 
     @Override
@@ -534,6 +547,13 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
             return;
         }
 
+        if (mPlayer != null) { // stopped (pooled) engine
+            mPlaybackPresenter.setView(this);
+            mExoPlayerController.setOnVideoLoaded(this::onVideoLoaded);
+            mPlaybackPresenter.onViewInitialized(); // init all controllers
+            return;
+        }
+
         mPlayerInitializer = new ExoPlayerInitializer(getContext());
         mPlaybackPresenter.setView(this);
         mExoPlayerController = new ExoPlayerController(getContext(), mPlaybackPresenter);
@@ -549,6 +569,14 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
             return;
         }
 
+        if (mPlayer != null) { // stopped (pooled) engine. Reuse the player (codecs are created again).
+            mIsStopped = false;
+            applyPlayerSettings();
+            setPlayer(mPlayer);
+            mPlaybackPresenter.onEngineInitialized(); // start playback
+            return;
+        }
+
         // Use default or pass your bandwidthMeter here: bandwidthMeter = new DefaultBandwidthMeter.Builder(getContext()).build()
         DefaultTrackSelector trackSelector = new RestoreTrackSelector(new AdaptiveTrackSelection.Factory());
         mExoPlayerController.setTrackSelector(trackSelector);
@@ -566,12 +594,9 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
 
         mExoPlayerController.setPlayer(mPlayer);
         //mExoPlayerController.setVideo(mVideo);
-        mExoPlayerController.selectFormat(mQuality == QUALITY_LOW ? FormatItem.VIDEO_SUB_SD_AVC_30 : FormatItem.VIDEO_SD_AVC_30);
-        // Don't use subs! Not efficient. High cpu load. Cause input lags.
-        mExoPlayerController.selectFormat(FormatItem.SUBTITLE_NONE);
-        if (mIsMute) {
-            mExoPlayerController.setVolume(0);
-        }
+        // Preview loaders yield to the main player
+        PlayerIoScheduler.instance().setPriority(mPlayer.getPlaybackLooper(), PlayerIoScheduler.PRIORITY_PREVIEW);
+        applyPlayerSettings();
 
         if (PlayerTweaksData.instance(getContext()).isAudioFocusEnabled()) {
             ExoPlayerInitializer.enableAudioFocus(mPlayer, true);
@@ -582,7 +607,20 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
         mPlaybackPresenter.onEngineInitialized(); // start playback
     }
 
-    private void destroyPlayerObjects() {
+    private void applyPlayerSettings() {
+        mExoPlayerController.selectFormat(mQuality == QUALITY_LOW ? FormatItem.VIDEO_SUB_SD_AVC_30 : FormatItem.VIDEO_SD_AVC_30);
+        // Don't use subs! Not efficient. High cpu load. Cause input lags.
+        mExoPlayerController.selectFormat(FormatItem.SUBTITLE_NONE);
+        if (mIsMute) {
+            mExoPlayerController.setVolume(0);
+        }
+    }
+
+    /**
+     * Stop the playback but keep the engine (player and renderers) for the next video.<br/>
+     * NOTE: the codecs are released here.
+     */
+    public void stop() {
         if (isEngineInitialized()) {
             Utils.removeCallbacks(mShowView);
             Utils.removeCallbacks(mStopPlayback);
@@ -591,15 +629,32 @@ public class EmbedPlayerView extends PlayerView implements PlaybackView {
                 mPlaybackPresenter.onEngineReleased();
             }
             mExoPlayerController.setOnVideoLoaded(null);
-            // Fix access calls when player isn't initialized
-            mExoPlayerController.release();
-            mPlayer = null;
+            mExoPlayerController.resetPlayerState();
+            mIsStopped = true;
             setPlayer(null);
             hideView();
             syncPositionIfNeeded();
         }
     }
 
+    /**
+     * Engine is stopped but not released
+     */
+    public boolean isEngineReusable() {
+        return mPlayer != null && mIsStopped;
+    }
+
+    private void destroyPlayerObjects() {
+        stop();
+
+        if (mPlayer != null) {
+            // Fix access calls when player isn't initialized
+            mExoPlayerController.release();
+            mPlayer = null;
+            mIsStopped = false;
+        }
+    }
+
     private void syncPositionIfNeeded() {
         if (!mIsMute && isPositionChanged()) {
             BasePresenter<?> presenter = ViewManager.instance(getContext()).getCurrentPresenter();
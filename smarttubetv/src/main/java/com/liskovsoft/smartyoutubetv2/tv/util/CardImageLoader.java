@@ -0,0 +1,98 @@
+package com.liskovsoft.smartyoutubetv2.tv.util;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Build.VERSION;
+import android.widget.ImageView;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.smartyoutubetv2.common.utils.Utils;
+
+/**
+ * Card thumbnails: decoded to the exact card size and kept in the memory and disk caches.<br/>
+ * Second visit of the row doesn't show the placeholders. Cache sizes depend on the device RAM and storage.
+ */
+public class CardImageLoader {
+    private static final long MB = 1024 * 1024;
+    private static final long MIN_DISK_CACHE_SIZE = 10 * MB;
+    private static Boolean sIsLowRam;
+
+    /**
+     * Load the thumbnail into the card
+     */
+    public static void load(Context context, String url, String fallbackUrl, ImageView target, int width, int height,
+                            RequestListener<Drawable> listener, int errorResId) {
+        build(context, url, width, height)
+                .listener(listener)
+                .error(
+                        // Updated thumbnail url not found
+                        build(context, fallbackUrl, width, height) // always working
+                                .listener(listener)
+                                .error(errorResId) // R.color.lb_grey
+                )
+                .into(target);
+    }
+
+    /**
+     * Decode the thumbnail of the off-screen card into the memory cache.<br/>
+     * Options should be the same as in {@link #load} to hit the same cache key.
+     */
+    public static void preload(Context context, String url, int width, int height) {
+        if (url == null || width <= 0 || height <= 0) {
+            return;
+        }
+
+        // Not bound to the activity lifecycle. The request is short.
+        build(context.getApplicationContext(), url, width, height).preload(width, height);
+    }
+
+    public static boolean isLowRam(Context context) {
+        if (sIsLowRam == null) {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            sIsLowRam = !Utils.isEnoughRam(context) || (activityManager != null && activityManager.isLowRamDevice());
+        }
+
+        return sIsLowRam;
+    }
+
+    /**
+     * How many screens of the card images are kept decoded
+     */
+    public static float getMemoryCacheScreens(Context context) {
+        long deviceRam = Helpers.getDeviceRam(context);
+
+        return isLowRam(context) ? 1.5f : deviceRam > 0 && deviceRam <= 2_500_000_000L ? 3 : 4;
+    }
+
+    public static long getDiskCacheSize(Context context) {
+        long maxSize = isLowRam(context) ? 30 * MB : Helpers.getDeviceRam(context) <= 2_500_000_000L ? 100 * MB : 250 * MB;
+        long usableSpace = context.getCacheDir().getUsableSpace();
+
+        // Don't occupy more than 5% of the free space
+        return Math.max(MIN_DISK_CACHE_SIZE, Math.min(maxSize, usableSpace / 20));
+    }
+
+    private static RequestBuilder<Drawable> build(Context context, String url, int width, int height) {
+        return Glide.with(context)
+                .load(url)
+                .apply(cardOptions(context))
+                // improve image compression on low end devices
+                .override(width, height);
+    }
+
+    private static RequestOptions cardOptions(Context context) {
+        return new RequestOptions()
+                // Cache makes app crashing on old android versions
+                .diskCacheStrategy(VERSION.SDK_INT > 21 ? DiskCacheStrategy.ALL : DiskCacheStrategy.NONE)
+                // Same transform as the card's scaleType (lb_video_card_view.xml). ImageView adds it on bind and it's a part of the cache key.
+                .fitCenter()
+                // Two times less memory per card
+                .format(isLowRam(context) ? DecodeFormat.PREFER_RGB_565 : DecodeFormat.PREFER_ARGB_8888);
+    }
+}
@@ -0,0 +1,243 @@
+package com.liskovsoft.smartyoutubetv2.tv.util;
+
+import android.app.Activity;
+import android.app.Application;
+import android.app.Application.ActivityLifecycleCallbacks;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.liskovsoft.sharedutils.mylogger.Log;
+import com.liskovsoft.smartyoutubetv2.common.app.views.ViewManager;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cards that are created in advance, when the main thread is idle (a few cards per pass).<br/>
+ * Shared between the browse sections of the same activity. Keeps about a screenful of cards per card type and activity.<br/>
+ * Cards hold their activity, so the entries are dropped when the activity is destroyed.<br/>
+ * NOTE: views can't be created off the main thread, so there's no async inflation.
+ */
+public class CardViewPool {
+    private static final String TAG = CardViewPool.class.getSimpleName();
+    private static final int CARDS_PER_IDLE_PASS = 2;
+    private static CardViewPool sInstance;
+    private final List<Entry> mEntries = new ArrayList<>();
+    private final Runnable mClear = this::clear;
+    private boolean mIsIdleHandlerAdded;
+    private boolean mIsLifecycleCallbacksAdded;
+
+    public interface CardFactory {
+        View createCard(Context context);
+    }
+
+    private static class Entry {
+        final Class<?> type;
+        final WeakReference<Context> context;
+        final CardFactory factory;
+        final List<View> cards = new ArrayList<>();
+        int capacity;
+
+        Entry(Class<?> type, Context context, CardFactory factory, int capacity) {
+            this.type = type;
+            this.context = new WeakReference<>(context);
+            this.factory = factory;
+            this.capacity = capacity;
+        }
+
+        static boolean isAlive(Context context) {
+            Activity activity = getActivity(context);
+            return context != null && !(activity != null && activity.isDestroyed());
+        }
+
+        /**
+         * Cards may get the themed wrapper of the activity
+         */
+        static Activity getActivity(Context context) {
+            while (context instanceof ContextWrapper) {
+                if (context instanceof Activity) {
+                    return (Activity) context;
+                }
+
+                context = ((ContextWrapper) context).getBaseContext();
+            }
+
+            return null;
+        }
+    }
+
+    private CardViewPool() {
+    }
+
+    public static CardViewPool instance() {
+        if (sInstance == null) {
+            sInstance = new CardViewPool();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Cards are bound to the context (theme, lifecycle)
+     */
+    public void prewarm(Context context, Class<?> type, int capacity, CardFactory factory) {
+        Entry entry = findEntry(context, type);
+
+        if (entry == null) {
+            entry = new Entry(type, context, factory, capacity);
+            mEntries.add(entry);
+            ViewManager.instance(context).addOnFinish(mClear);
+            addLifecycleCallbacks(context);
+        }
+
+        entry.capacity = capacity;
+
+        addIdleHandler();
+    }
+
+    /**
+     * Returns the card that is created for the same context or null
+     */
+    @Nullable
+    public View obtain(Context context, Class<?> type) {
+        Entry entry = findEntry(context, type);
+
+        if (entry == null || entry.cards.isEmpty()) {
+            return null;
+        }
+
+        return entry.cards.remove(entry.cards.size() - 1);
+    }
+
+    public void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Drop the cards that are bound to the activity
+     */
+    public void clear(Activity activity) {
+        Iterator<Entry> iterator = mEntries.iterator();
+
+        while (iterator.hasNext()) {
+            Context context = iterator.next().context.get();
+
+            if (context == null || Entry.getActivity(context) == activity) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Entry findEntry(Context context, Class<?> type) {
+        for (Entry entry : mEntries) {
+            if (entry.type == type && entry.context.get() == context) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    private void addLifecycleCallbacks(Context context) {
+        if (mIsLifecycleCallbacksAdded || !(context.getApplicationContext() instanceof Application)) {
+            return;
+        }
+
+        mIsLifecycleCallbacksAdded = true;
+        ((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(mLifecycleCallbacks);
+    }
+
+    private void addIdleHandler() {
+        if (mIsIdleHandlerAdded || Looper.myLooper() != Looper.getMainLooper()) {
+            return;
+        }
+
+        mIsIdleHandlerAdded = true;
+        Looper.myQueue().addIdleHandler(mIdleHandler);
+    }
+
+    /**
+     * Returns true if there are more cards to create
+     */
+    private boolean createCards() {
+        int created = 0;
+        long startMs = SystemClock.uptimeMillis();
+        Iterator<Entry> iterator = mEntries.iterator();
+
+        Trace.beginSection("CardViewPool.createCards");
+
+        while (iterator.hasNext() && created < CARDS_PER_IDLE_PASS) {
+            Entry entry = iterator.next();
+            Context context = entry.context.get();
+
+            if (!Entry.isAlive(context)) {
+                iterator.remove();
+                continue;
+            }
+
+            while (entry.cards.size() < entry.capacity && created < CARDS_PER_IDLE_PASS) {
+                entry.cards.add(entry.factory.createCard(context));
+                created++;
+            }
+        }
+
+        Trace.endSection();
+
+        if (created > 0) {
+            Log.d(TAG, "Created %s cards in %s ms", created, SystemClock.uptimeMillis() - startMs);
+        }
+
+        for (Entry entry : mEntries) {
+            if (entry.cards.size() < entry.capacity) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private final MessageQueue.IdleHandler mIdleHandler = () -> {
+        mIsIdleHandlerAdded = createCards();
+        return mIsIdleHandlerAdded;
+    };
+
+    private final ActivityLifecycleCallbacks mLifecycleCallbacks = new ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+            clear(activity);
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+    };
+}
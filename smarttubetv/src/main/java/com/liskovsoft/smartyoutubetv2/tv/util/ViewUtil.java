@@ -17,13 +17,16 @@ import android.widget.TextView;
 import androidx.core.content.ContextCompat;
 import androidx.leanback.widget.FocusHighlight;
 import androidx.leanback.widget.ListRow;
+import androidx.leanback.widget.Presenter;
 import androidx.leanback.widget.RowPresenter;
 import androidx.leanback.widget.VerticalGridView;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
 import com.liskovsoft.sharedutils.helpers.Helpers;
+import com.liskovsoft.smartyoutubetv2.common.app.models.data.Video;
 import com.liskovsoft.smartyoutubetv2.tv.R;
 import com.liskovsoft.smartyoutubetv2.tv.adapter.VideoGroupObjectAdapter;
+import com.liskovsoft.smartyoutubetv2.tv.presenter.VideoCardPresenter;
 import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.marqueetextview.MarqueeTextView;
 import com.liskovsoft.smartyoutubetv2.tv.ui.widgets.speedmarquee.SpeedMarquee;
 
@@ -45,6 +48,12 @@ public class ViewUtil {
      */
     public static final int GRID_SCROLL_CONTINUE_NUM = 10;
     public static final int ROW_SCROLL_CONTINUE_NUM = 4;
+    /**
+     * Thumbnails prefetch in the focus direction
+     */
+    public static final int CARD_PREFETCH_NUM = 8;
+    public static final int ROW_PREFETCH_NUM = 2;
+    public static final int GRID_PREFETCH_NUM = 12;
     public static final boolean ROUNDED_CORNERS_ENABLED = true;
 
     /**
@@ -175,6 +184,26 @@ public class ViewUtil {
         return true;
     }
 
+    /**
+     * Decode thumbnails of the next cards (direction is 1 or -1) before they appear on the screen
+     */
+    public static void prefetchImages(Context context, VideoGroupObjectAdapter adapter, int fromIndex, int direction, int count) {
+        if (context == null || adapter == null || direction == 0) {
+            return;
+        }
+
+        int size = adapter.size();
+
+        for (int i = 0, index = fromIndex; i < count && index >= 0 && index < size; i++, index += direction) {
+            Object item = adapter.get(index);
+            Presenter presenter = adapter.getPresenter(item);
+
+            if (item instanceof Video && presenter instanceof VideoCardPresenter) {
+                ((VideoCardPresenter) presenter).prefetch(context, (Video) item);
+            }
+        }
+    }
+
     public static RequestOptions glideOptions() {
         return new RequestOptions()
                 .diskCacheStrategy(DiskCacheStrategy.NONE) // ensure start animation from beginning